@@ -6,15 +6,17 @@ import static java.util.stream.Collectors.toList;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -27,6 +29,8 @@ import com.illucit.instatrie.highlight.SubwordHighlighter;
 import com.illucit.instatrie.splitter.StringWordSplitter;
 import com.illucit.instatrie.splitter.StringWordSplitter.IdentityStringWordSplitter;
 import com.illucit.instatrie.splitter.WordSplitter;
+import com.illucit.instatrie.trie.DoubleArrayTrie;
+import com.illucit.instatrie.trie.PrefixDictionary;
 import com.illucit.instatrie.trie.Trie;
 
 /**
@@ -62,6 +66,12 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 	 */
 	private final SubwordHighlighter highlighter;
 
+	/**
+	 * Flag if the prefix words are stored in a {@link DoubleArrayTrie} after
+	 * the index is created.
+	 */
+	private volatile boolean useDoubleArrayTrie;
+
 	/*
 	 * Index data
 	 */
@@ -129,6 +139,31 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 		this.indexData = new AtomicReference<>(new TriePrefixIndexData<>());
 	}
 
+	/*
+	 * Configuration methods
+	 */
+
+	/**
+	 * Check if the prefix words are stored in a {@link DoubleArrayTrie}.
+	 * 
+	 * @return true if a double-array trie is used
+	 */
+	public boolean isUseDoubleArrayTrie() {
+		return useDoubleArrayTrie;
+	}
+
+	/**
+	 * Configure if the prefix words are stored in a {@link DoubleArrayTrie},
+	 * which speeds up queries at the cost of a longer index creation. The
+	 * setting takes effect with the next call of {@link #createIndex(Collection)}.
+	 * 
+	 * @param useDoubleArrayTrie
+	 *            true to use a double-array trie
+	 */
+	public void setUseDoubleArrayTrie(boolean useDoubleArrayTrie) {
+		this.useDoubleArrayTrie = useDoubleArrayTrie;
+	}
+
 	/*
 	 * PrefixIndex API methods
 	 */
@@ -136,7 +171,6 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 	@Override
 	public void createIndex(Collection<T> models) {
 		TriePrefixIndexData<T> data = new TriePrefixIndexData<>();
-		Trie<HashSet<String>> wordsTrie = data.getWordsTrie();
 		ArrayList<T> modelData = data.getModelData();
 		Map<String, Set<Integer>> wordsToModelIndex = data.getWordsToModelIndex();
 
@@ -164,7 +198,7 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 		}
 
 		// Store search strings and their substrings in trie
-		Map<String, Set<String>> wordsByPrefix = new HashMap<>();
+		Map<String, HashSet<String>> wordsByPrefix = new HashMap<>();
 		// HashMultimap<String, String> wordsByPrefix = HashMultimap.create();
 		for (String searchWord : allSearchStrings) {
 			for (int i = 1; i <= searchWord.length(); i++) {
@@ -176,10 +210,12 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 			}
 		}
 
-		TreeSet<String> prefixes = new TreeSet<>(COMPARE_BY_LENGTH);
-		prefixes.addAll(wordsByPrefix.keySet());
-		for (String prefix : prefixes) {
-			wordsTrie.insert(prefix, new HashSet<>(wordsByPrefix.get(prefix)));
+		// Build trie in one pass from the sorted prefixes
+		Trie<HashSet<String>> wordsTrie = Trie.buildFromSorted(new TreeMap<>(wordsByPrefix).entrySet().iterator());
+		if (useDoubleArrayTrie) {
+			data.setWordsTrie(new DoubleArrayTrie<>(wordsTrie));
+		} else {
+			data.setWordsTrie(wordsTrie);
 		}
 
 		indexData.set(data);
@@ -193,19 +229,28 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 			// No filtering enabled
 			return data.getModelData().stream();
 		}
-		Set<String> queryPrefixes = searchWordSplitter.split(query);
-		if (queryPrefixes == null || queryPrefixes.isEmpty()) {
+		// Look up the query prefixes as ranges of the query, so they are never
+		// copied into separate Strings
+		PrefixDictionary<HashSet<String>> wordsTrie = data.getWordsTrie();
+		List<HashSet<String>> wordsForPrefixes = new ArrayList<>();
+		searchWordSplitter.splitRanges(query,
+				(text, startIndex, endIndex) -> wordsForPrefixes.add(wordsTrie.getData(text, startIndex, endIndex)));
+		if (wordsForPrefixes.isEmpty()) {
 			// No filtering enabled
 			return data.getModelData().stream();
 		}
 		Set<Integer> filteredIndices = new HashSet<>();
+		Set<HashSet<String>> processed = Collections.newSetFromMap(new IdentityHashMap<>());
 		boolean empty = true;
-		for (String queryPrefix : queryPrefixes) {
-			HashSet<String> wordsForPrefix = data.getWordsTrie().getData(queryPrefix);
+		for (HashSet<String> wordsForPrefix : wordsForPrefixes) {
 			if (wordsForPrefix == null) {
 				// No words found for query - so no models can match it
 				return Stream.empty();
 			}
+			if (!processed.add(wordsForPrefix)) {
+				// Same prefix was already processed
+				continue;
+			}
 			HashSet<Integer> filteredIndicesForWord = new HashSet<>();
 			for (String word : wordsForPrefix) {
 				filteredIndicesForWord.addAll(data.getWordsToModelIndex().getOrDefault(word, new HashSet<>()));
@@ -328,17 +373,6 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 	 * Utility classes
 	 */
 
-	/**
-	 * Comparator for String with ordering by character length, then by natural
-	 * String ordering.
-	 */
-	private static Comparator<String> COMPARE_BY_LENGTH = (o1, o2) -> {
-		if (o1.length() != o2.length()) {
-			return Integer.compare(o1.length(), o2.length());
-		}
-		return String.CASE_INSENSITIVE_ORDER.compare(o1, o2);
-	};
-
 	/**
 	 * Bean to bundle the mutable data of the {@link TriePrefixIndex} in order
 	 * to allow atomic updates.
@@ -356,7 +390,7 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 		 * This trie stores to each prefix the list of all words in the word
 		 * corpus that have that prefix.
 		 */
-		private final Trie<HashSet<String>> wordsTrie;
+		private PrefixDictionary<HashSet<String>> wordsTrie;
 
 		/**
 		 * This array (list) stores all indexed models and can be accessed by
@@ -401,12 +435,22 @@ public class TriePrefixIndex<T extends Serializable> implements PrefixIndex<T>,
 		/**
 		 * Get the trie, where the words for prefixes are stored.
 		 * 
-		 * @return words index as {@link Trie}
+		 * @return words index as {@link PrefixDictionary}
 		 */
-		public Trie<HashSet<String>> getWordsTrie() {
+		public PrefixDictionary<HashSet<String>> getWordsTrie() {
 			return wordsTrie;
 		}
 
+		/**
+		 * Set the trie, where the words for prefixes are stored.
+		 * 
+		 * @param wordsTrie
+		 *            words index as {@link PrefixDictionary}
+		 */
+		public void setWordsTrie(PrefixDictionary<HashSet<String>> wordsTrie) {
+			this.wordsTrie = wordsTrie;
+		}
+
 	}
 
 	/**
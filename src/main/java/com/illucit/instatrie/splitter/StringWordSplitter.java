@@ -74,8 +74,53 @@ public class StringWordSplitter<T> implements WordSplitter<T>, SubwordHighlighte
 		this.normalizeUnicode = normalizeUnicode;
 	}
 
+	/**
+	 * Split the data of a model to a set of search words. The words are
+	 * collected from {@link #splitRanges(Object, WordRangeConsumer)}, so both
+	 * methods always return the same words.
+	 */
 	@Override
 	public Set<String> split(T data) {
+		if (data == null || resolveIndexString.apply(data) == null) {
+			return null;
+		}
+
+		TreeSet<String> result = new TreeSet<>();
+		splitRanges(data,
+				(text, startIndex, endIndex) -> result.add(text.subSequence(startIndex, endIndex).toString()));
+		return result;
+	}
+
+	/**
+	 * Split the data of a model to search words and pass each word as range of
+	 * the normalized string, without creating substrings. This is the only
+	 * tokenization of this splitter: subclasses which filter or add words
+	 * (e.g. to remove stop words) must override this method, which is also
+	 * used by {@link #split(Object)}.
+	 */
+	@Override
+	public void splitRanges(T data, WordRangeConsumer consumer) {
+		String indexableData = getNormalizedString(data);
+		if (indexableData == null) {
+			return;
+		}
+
+		// Pass the matched ranges without creating substrings
+		Matcher subwordMatcher = subwordPattern.matcher(indexableData);
+		while (subwordMatcher.find()) {
+			consumer.accept(indexableData, subwordMatcher.start(), subwordMatcher.end());
+		}
+	}
+
+	/**
+	 * Get the indexable string of a model in lower case and (optionally) with
+	 * normalized unicode characters.
+	 * 
+	 * @param data
+	 *            model data
+	 * @return normalized string or null
+	 */
+	private String getNormalizedString(T data) {
 		if (data == null) {
 			return null;
 		}
@@ -87,15 +132,7 @@ public class StringWordSplitter<T> implements WordSplitter<T>, SubwordHighlighte
 		if (normalizeUnicode) {
 			indexableData = foldToASCII(indexableData);
 		}
-
-		Matcher subwordMatcher = subwordPattern.matcher(indexableData);
-		TreeSet<String> result = new TreeSet<>();
-
-		while (subwordMatcher.find()) {
-			result.add(subwordMatcher.group());
-		}
-
-		return result;
+		return indexableData;
 	}
 
 	@Override
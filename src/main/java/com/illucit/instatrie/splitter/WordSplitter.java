@@ -26,4 +26,50 @@ public interface WordSplitter<T> {
 	 */
 	public Set<String> split(T data);
 
+	/**
+	 * Split the data of a model to search words like {@link #split(Object)},
+	 * but pass each word as range of a char sequence to the consumer, so the
+	 * words don't need to be materialized as separate Strings. The same word
+	 * can be passed several times. <br>
+	 * <br>
+	 * The default implementation passes the words returned by
+	 * {@link #split(Object)}.
+	 * 
+	 * @param data
+	 *            model data
+	 * @param consumer
+	 *            consumer for each search word
+	 */
+	public default void splitRanges(T data, WordRangeConsumer consumer) {
+		Set<String> words = split(data);
+		if (words != null) {
+			for (String word : words) {
+				consumer.accept(word, 0, word.length());
+			}
+		}
+	}
+
+	/**
+	 * Consumer for a word, which is a range of a char sequence.
+	 * 
+	 * @author Christian Simon
+	 *
+	 */
+	@FunctionalInterface
+	public static interface WordRangeConsumer {
+
+		/**
+		 * Consume a word.
+		 * 
+		 * @param text
+		 *            text containing the word
+		 * @param startIndex
+		 *            index of the first char of the word (inclusive)
+		 * @param endIndex
+		 *            index after the last char of the word (exclusive)
+		 */
+		public void accept(CharSequence text, int startIndex, int endIndex);
+
+	}
+
 }
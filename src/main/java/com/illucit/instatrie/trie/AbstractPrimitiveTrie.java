@@ -0,0 +1,547 @@
+package com.illucit.instatrie.trie;
+
+import static com.illucit.instatrie.trie.Trie.EMPTY_CHAR_ARRAY;
+import static com.illucit.instatrie.trie.Trie.subarray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Base class for tries with primitive values. The nodes are stored as struct of
+ * arrays (one entry per node index in each array) with the same
+ * first-son/next-brother structure as {@link TrieNode}s, so no objects are
+ * allocated per node or per value. Subclasses store the value of each node and
+ * the sum of all values in the subtree of each node in primitive arrays. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure. Lookups have no side effects, so concurrent readers are
+ * permitted.
+ *
+ * @author Christian Simon
+ *
+ */
+abstract class AbstractPrimitiveTrie implements Serializable {
+
+	private static final long serialVersionUID = -5184925014585735427L;
+
+	/**
+	 * Index of the root node. The root can never be a son or brother, so the
+	 * index also denotes a missing link.
+	 */
+	static final int ROOT = 0;
+
+	/**
+	 * Initial number of nodes.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] firstSon;
+
+	private int[] nextBrother;
+
+	private char[][] chars;
+
+	private boolean[] inserted;
+
+	private int nodeCount;
+
+	private int size;
+
+	/**
+	 * Buffer for the path of the node changed by a modification (only used by
+	 * the modifying thread, created lazily).
+	 */
+	private transient NodePath modificationPath;
+
+	/**
+	 * Create empty trie.
+	 */
+	AbstractPrimitiveTrie() {
+		init();
+	}
+
+	/**
+	 * Remove all words from the trie.
+	 */
+	public void clear() {
+		init();
+	}
+
+	/**
+	 * Create the arrays with only the root node.
+	 */
+	private void init() {
+		this.firstSon = new int[INITIAL_CAPACITY];
+		this.nextBrother = new int[INITIAL_CAPACITY];
+		this.chars = new char[INITIAL_CAPACITY][];
+		this.inserted = new boolean[INITIAL_CAPACITY];
+		this.chars[ROOT] = EMPTY_CHAR_ARRAY;
+		this.nodeCount = 1;
+		this.size = 0;
+		initValues(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create empty value arrays.
+	 *
+	 * @param capacity
+	 *            number of nodes
+	 */
+	abstract void initValues(int capacity);
+
+	/**
+	 * Grow the value arrays.
+	 *
+	 * @param capacity
+	 *            new number of nodes
+	 */
+	abstract void growValues(int capacity);
+
+	/**
+	 * Move the value of a node which is split to its new sub node, which takes
+	 * over the subtree (and so has the same subtree sum).
+	 *
+	 * @param node
+	 *            split node (has no own value afterwards)
+	 * @param subNode
+	 *            new sub node
+	 */
+	abstract void moveValue(int node, int subNode);
+
+	/**
+	 * Get the number of inserted words.
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the trie contains the given word as a prefix of an inserted
+	 * word.
+	 *
+	 * @param word
+	 *            prefix
+	 * @return true if prefix is contained
+	 */
+	public boolean containsPrefix(char[] word) {
+		return getNode(word, false) >= 0;
+	}
+
+	/**
+	 * Check if the trie contains the given word as a prefix of an inserted
+	 * word.
+	 *
+	 * @param word
+	 *            prefix
+	 * @return true if prefix is contained
+	 */
+	public boolean containsPrefix(String word) {
+		return containsPrefix(word.toCharArray());
+	}
+
+	/**
+	 * Check if the given word was inserted.
+	 *
+	 * @param word
+	 *            word
+	 * @return true if word was inserted
+	 */
+	public boolean contains(char[] word) {
+		int node = getNode(word, true);
+		return node >= 0 && inserted[node];
+	}
+
+	/**
+	 * Check if the given word was inserted.
+	 *
+	 * @param word
+	 *            word
+	 * @return true if word was inserted
+	 */
+	public boolean contains(String word) {
+		return contains(word.toCharArray());
+	}
+
+	/**
+	 * Get the depth of the trie (number of node levels below the root).
+	 *
+	 * @return depth
+	 */
+	public int getDepth() {
+		return getDepth(ROOT);
+	}
+
+	/**
+	 * Calculate the depth below a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return depth (0 if the node has no children)
+	 */
+	private int getDepth(int node) {
+		int depth = 0;
+		for (int son = firstSon[node]; son != ROOT; son = nextBrother[son]) {
+			depth = Math.max(depth, getDepth(son) + 1);
+		}
+		return depth;
+	}
+
+	/**
+	 * Check if a node represents an inserted word.
+	 *
+	 * @param node
+	 *            node index
+	 * @return true if inserted
+	 */
+	final boolean isInserted(int node) {
+		return inserted[node];
+	}
+
+	/**
+	 * Mark a node as inserted or not inserted.
+	 *
+	 * @param node
+	 *            node index
+	 * @param value
+	 *            true if the node represents an inserted word
+	 */
+	final void setInserted(int node, boolean value) {
+		if (inserted[node] != value) {
+			inserted[node] = value;
+			size += value ? 1 : -1;
+		}
+	}
+
+	/**
+	 * Get the first son of a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return index of the first son ({@link #ROOT} if there are no sons)
+	 */
+	final int getFirstSon(int node) {
+		return firstSon[node];
+	}
+
+	/**
+	 * Get the next brother of a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return index of the next brother ({@link #ROOT} if there is none)
+	 */
+	final int getNextBrother(int node) {
+		return nextBrother[node];
+	}
+
+	/**
+	 * Get the path of a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return characters of the node
+	 */
+	final char[] getChars(int node) {
+		return chars[node];
+	}
+
+	/**
+	 * Get the buffer for the path of the node changed by a modification. The
+	 * buffer is shared by all modifications, which are never concurrent.
+	 *
+	 * @return empty path buffer
+	 */
+	final NodePath modificationPath() {
+		if (modificationPath == null) {
+			modificationPath = new NodePath();
+		}
+		modificationPath.clear();
+		return modificationPath;
+	}
+
+	/**
+	 * Find or create the node which represents the given word. Newly created
+	 * nodes are not marked as inserted.
+	 *
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param path
+	 *            buffer to store the nodes from the root to the found node in
+	 * @return index of the node for the word
+	 */
+	final int insertNode(char[] word, int startIndex, int endIndex, NodePath path) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		int wordPos = startIndex; // current position in word
+		int node = ROOT; // current node
+		path.add(ROOT);
+
+		// Descend in tree
+		while (wordPos < endIndex) {
+
+			// Find son to insert after or below
+			final char firstChar = word[wordPos];
+			int previous = ROOT;
+			int son = firstSon[node];
+			while (son != ROOT && chars[son][0] < firstChar) {
+				previous = son;
+				son = nextBrother[son];
+			}
+
+			if (son == ROOT || chars[son][0] != firstChar) {
+				// No son with matching first char: add a new leaf between the
+				// previous son and the current one
+				int leaf = newNode(subarray(word, wordPos, endIndex), son);
+				if (previous == ROOT) {
+					firstSon[node] = leaf;
+				} else {
+					nextBrother[previous] = leaf;
+				}
+				path.add(leaf);
+				return leaf;
+			}
+
+			// Find matching chars in path of son
+			final char[] sonChars = chars[son];
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+			path.add(son);
+
+			if (sonPos < sonLength) {
+				// Word ends inside the path of the son or deviates from it, so
+				// the son needs to be split
+				int subNode = newNode(subarray(sonChars, sonPos, sonLength), ROOT);
+				firstSon[subNode] = firstSon[son];
+				inserted[subNode] = inserted[son];
+				inserted[son] = false;
+				moveValue(son, subNode);
+				firstSon[son] = subNode;
+				chars[son] = TrieNode.sharedChars(subarray(sonChars, 0, sonPos));
+				if (wordPos == endIndex) {
+					return son;
+				}
+				int leaf = newNode(subarray(word, wordPos, endIndex), ROOT);
+				if (chars[subNode][0] < word[wordPos]) {
+					nextBrother[subNode] = leaf;
+				} else {
+					nextBrother[leaf] = subNode;
+					firstSon[son] = leaf;
+				}
+				path.add(leaf);
+				return leaf;
+			}
+
+			// Son matches completely: continue to descend
+			node = son;
+		}
+		return node;
+	}
+
+	/**
+	 * Find a node that represents the given word. If the search is exact, no
+	 * node is returned if the word ends inside the path of the next node.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node index or -1, if not found
+	 */
+	final int getNode(char[] word, boolean exact) {
+		return getNode(word, exact, null);
+	}
+
+	/**
+	 * Find a node that represents the given word. If the search is exact, no
+	 * node is returned if the word ends inside the path of the next node.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @param path
+	 *            buffer to store the nodes from the root to the found node in
+	 *            (or null)
+	 * @return node index or -1, if not found
+	 */
+	final int getNode(char[] word, boolean exact, NodePath path) {
+		int wordPos = 0; // current position in word
+		final int wordLength = word.length;
+		int node = ROOT; // current node
+		if (path != null) {
+			path.add(ROOT);
+		}
+
+		// Descend in tree while word is not completely found
+		while (wordPos < wordLength) {
+
+			// Iterate over sons to find the one which matches firstChar
+			final char firstChar = word[wordPos];
+			int son = firstSon[node];
+			while (son != ROOT && chars[son][0] < firstChar) {
+				son = nextBrother[son];
+			}
+			if (son == ROOT || chars[son][0] != firstChar) {
+				return -1;
+			}
+
+			// Consume matching characters in word
+			final char[] sonChars = chars[son];
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+			if (path != null) {
+				path.add(son);
+			}
+
+			if (sonPos < sonLength) {
+				// could not completely match characters of node: only a prefix
+				// match is possible if the word has been consumed completely
+				return !exact && wordPos == wordLength ? son : -1;
+			}
+
+			// Son matched completely with word
+			// Descend further until word is consumed
+			node = son;
+		}
+		// Word is completely found (exact)
+		return node;
+	}
+
+	/**
+	 * Append a new node without children or value.
+	 *
+	 * @param nodeChars
+	 *            path of the node
+	 * @param brother
+	 *            index of the next brother
+	 * @return index of the new node
+	 */
+	private int newNode(char[] nodeChars, int brother) {
+		if (nodeCount == firstSon.length) {
+			int capacity = nodeCount * 2;
+			firstSon = Arrays.copyOf(firstSon, capacity);
+			nextBrother = Arrays.copyOf(nextBrother, capacity);
+			chars = Arrays.copyOf(chars, capacity);
+			inserted = Arrays.copyOf(inserted, capacity);
+			growValues(capacity);
+		}
+		int node = nodeCount++;
+		chars[node] = TrieNode.sharedChars(nodeChars);
+		nextBrother[node] = brother;
+		return node;
+	}
+
+	/**
+	 * Render the tree starting from a node.
+	 *
+	 * @param buffer
+	 *            target buffer
+	 * @param node
+	 *            node index
+	 * @param indentation
+	 *            indentation of the node
+	 */
+	void appendTo(StringBuilder buffer, int node, String indentation) {
+		buffer.append(indentation);
+		buffer.append("\"").append(chars[node]).append("\"");
+		if (inserted[node]) {
+			buffer.append(" {").append(valueToString(node)).append('}');
+		}
+		for (int son = firstSon[node]; son != ROOT; son = nextBrother[son]) {
+			buffer.append("\n");
+			appendTo(buffer, son, indentation + "  ");
+		}
+	}
+
+	/**
+	 * Get the value of a node as String.
+	 *
+	 * @param node
+	 *            node index
+	 * @return value String
+	 */
+	abstract String valueToString(int node);
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation of root node
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		appendTo(buffer, ROOT, "");
+		return buffer.toString();
+	}
+
+	/**
+	 * Buffer for the nodes on the path from the root to a node, owned by the
+	 * caller of a search.
+	 */
+	static final class NodePath {
+
+		private int[] nodes = new int[16];
+
+		private int length;
+
+		/**
+		 * Append a node.
+		 *
+		 * @param node
+		 *            node index
+		 */
+		void add(int node) {
+			if (length == nodes.length) {
+				nodes = Arrays.copyOf(nodes, length * 2);
+			}
+			nodes[length++] = node;
+		}
+
+		/**
+		 * Get a node of the path.
+		 *
+		 * @param index
+		 *            position in the path (0 for the root)
+		 * @return node index
+		 */
+		int get(int index) {
+			return nodes[index];
+		}
+
+		/**
+		 * Get the number of nodes in the path.
+		 *
+		 * @return number of nodes
+		 */
+		int length() {
+			return length;
+		}
+
+		/**
+		 * Remove all nodes.
+		 */
+		void clear() {
+			length = 0;
+		}
+
+	}
+
+}
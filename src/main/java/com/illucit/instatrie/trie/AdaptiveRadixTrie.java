@@ -0,0 +1,1012 @@
+package com.illucit.instatrie.trie;
+
+import static com.illucit.instatrie.trie.Trie.EMPTY_CHAR_ARRAY;
+import static com.illucit.instatrie.trie.Trie.subarray;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Adaptive radix tree (ART) with the same semantics as {@link Trie}. Paths are
+ * compressed in the same way as in {@link Trie}, but the children of each node
+ * are stored in one of several node types, which are replaced by a larger or
+ * smaller type when the fanout of the node changes:
+ * <ul>
+ * <li>Up to 4 children: sorted arrays with linear search</li>
+ * <li>Up to 16 children: sorted arrays with binary search</li>
+ * <li>Up to 48 children: index table over the first 256 characters pointing
+ * into a child array</li>
+ * <li>Up to 256 children: child array directly indexed by the first 256
+ * characters</li>
+ * </ul>
+ * The two larger node types only cover the Latin-1 range. Nodes with more than
+ * 16 children, of which at least one is outside this range, store their
+ * children in sorted arrays with binary search. <br>
+ * <br>
+ * Unlike {@link Trie}, deleting a word removes nodes which are no longer
+ * needed and merges paths again, so the node types also shrink. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class AdaptiveRadixTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = 5129931583376340711L;
+
+	/**
+	 * Root node of the tree (replaced when the node type changes).
+	 */
+	private Node<T> root;
+
+	/**
+	 * Create empty trie.
+	 */
+	public AdaptiveRadixTrie() {
+		this.root = new Leaf<>(EMPTY_CHAR_ARRAY);
+	}
+
+	@Override
+	public void clear() {
+		this.root = new Leaf<>(EMPTY_CHAR_ARRAY);
+	}
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		Node<T> node = insertNode(word, startIndex, endIndex);
+		node.data = data;
+		node.inserted = true;
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		Node<T> node = insertNode(word, 0, word.length);
+		node.data = updateFunction.apply(node.inserted ? node.data : null);
+		node.inserted = true;
+	}
+
+	/**
+	 * Find or create the node which represents the given word. Newly created
+	 * nodes are not marked as inserted and have no data.
+	 *
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return node for the word
+	 */
+	private Node<T> insertNode(char[] word, int startIndex, int endIndex) {
+		int wordPos = startIndex; // current position in word
+		Node<T> parent = null; // parent of current node
+		Node<T> node = this.root; // current node
+
+		// Descend in tree
+		while (wordPos < endIndex) {
+
+			final char firstChar = word[wordPos];
+			final Node<T> son = node.findChild(firstChar);
+			if (son == null) {
+				// No child with matching first char: add a new leaf
+				Node<T> leaf = new Leaf<>(subarray(word, wordPos, endIndex));
+				replace(parent, node, node.addChild(firstChar, leaf));
+				return leaf;
+			}
+
+			// Find matching chars in path of child node
+			final char[] sonChars = son.chars;
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// Word ends inside the path of the child node or deviates from
+				// it, so the path is split by a new inner node
+				Node4<T> inner = new Node4<>(subarray(sonChars, 0, sonPos));
+				son.setChars(subarray(sonChars, sonPos, sonLength));
+				inner.addChild(son.chars[0], son);
+				node.replaceChild(firstChar, inner);
+				if (wordPos == endIndex) {
+					return inner;
+				}
+				Node<T> leaf = new Leaf<>(subarray(word, wordPos, endIndex));
+				inner.addChild(word[wordPos], leaf);
+				return leaf;
+			}
+
+			// Child node matches completely: continue to descend
+			parent = node;
+			node = son;
+		}
+		return node;
+	}
+
+	/**
+	 * Replace a node by a node of another type in its parent.
+	 *
+	 * @param parent
+	 *            parent node (null for the root node)
+	 * @param node
+	 *            current node
+	 * @param replacement
+	 *            replacement node (can be the same as the current node)
+	 */
+	private void replace(Node<T> parent, Node<T> node, Node<T> replacement) {
+		if (replacement == node) {
+			return;
+		}
+		if (parent == null) {
+			this.root = replacement;
+		} else {
+			parent.replaceChild(node.chars[0], replacement);
+		}
+	}
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getNode(word, false) != null;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		Node<T> node = getNode(word, true);
+		return node != null && node.inserted;
+	}
+
+	@Override
+	public void delete(char[] word) {
+		final int wordLength = word.length;
+		int wordPos = 0;
+		Node<T> grandParent = null;
+		Node<T> parent = null;
+		Node<T> node = this.root;
+
+		// Descend to the exact node of the word
+		while (wordPos < wordLength) {
+			final Node<T> son = node.findChild(word[wordPos]);
+			if (son == null) {
+				return;
+			}
+			final char[] sonChars = son.chars;
+			final int sonLength = sonChars.length;
+			if (sonLength > wordLength - wordPos) {
+				return;
+			}
+			for (int sonPos = 1; sonPos < sonLength; sonPos++) {
+				if (sonChars[sonPos] != word[wordPos + sonPos]) {
+					return;
+				}
+			}
+			wordPos += sonLength;
+			grandParent = parent;
+			parent = node;
+			node = son;
+		}
+
+		if (!node.inserted) {
+			return;
+		}
+		node.data = null;
+		node.inserted = false;
+		if (parent == null) {
+			// Root node stays in place
+			return;
+		}
+
+		final int size = node.size();
+		if (size == 1) {
+			// Merge node with its only child
+			parent.replaceChild(node.chars[0], merge(node, node.onlyChild()));
+		} else if (size == 0) {
+			// Remove node and merge the parent with its remaining child, if it
+			// is only an inner node of a path
+			Node<T> newParent = parent.removeChild(node.chars[0]);
+			if (grandParent != null && !newParent.inserted && newParent.size() == 1) {
+				grandParent.replaceChild(newParent.chars[0], merge(newParent, newParent.onlyChild()));
+			} else {
+				replace(grandParent, parent, newParent);
+			}
+		}
+	}
+
+	/**
+	 * Merge a node with its only child by prepending the path of the node to
+	 * the path of the child.
+	 *
+	 * @param node
+	 *            node with only one child
+	 * @param child
+	 *            only child
+	 * @return child with merged path
+	 */
+	private static <T extends Serializable> Node<T> merge(Node<T> node, Node<T> child) {
+		final char[] chars = new char[node.chars.length + child.chars.length];
+		System.arraycopy(node.chars, 0, chars, 0, node.chars.length);
+		System.arraycopy(child.chars, 0, chars, node.chars.length, child.chars.length);
+		child.setChars(chars);
+		return child;
+	}
+
+	@Override
+	public T getData(char[] word) {
+		Node<T> node = getNode(word, true);
+		if (node == null) {
+			return null;
+		}
+		return node.data;
+	}
+
+	/**
+	 * Find a node that represents the given word. If the search is exact, null
+	 * is returned if the node is only a substring node of the next found node.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node or null, if not found (exact)
+	 */
+	private Node<T> getNode(char[] word, boolean exact) {
+		int wordPos = 0; // current position in word
+		final int wordLength = word.length;
+		Node<T> node = this.root; // current node
+
+		// Descend in tree while word is not completely found
+		while (wordPos < wordLength) {
+
+			final Node<T> son = node.findChild(word[wordPos]);
+			if (son == null) {
+				// No son with matching first char
+				return null;
+			}
+
+			// Consume matching characters in word
+			final char[] sonChars = son.chars;
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// could not completely match characters of node: only a prefix
+				// match is possible if the word has been consumed completely
+				return !exact && wordPos == wordLength ? son : null;
+			}
+
+			// Son matched completely with word
+			// Descend further until word is consumed
+			node = son;
+		}
+		// Word is completely found (exact)
+		return node;
+	}
+
+	@Override
+	public int getDepth() {
+		return this.root.getDepth();
+	}
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation of root node
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		this.root.appendTo(buffer, "");
+		return buffer.toString();
+	}
+
+	/*
+	 * Node types
+	 */
+
+	/**
+	 * Node inside an {@link AdaptiveRadixTrie}. All operations which change the
+	 * children of a node return the node which replaces it (or the node itself
+	 * if the node type did not change).
+	 *
+	 * @author Christian Simon
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static abstract class Node<T extends Serializable> implements Serializable {
+
+		private static final long serialVersionUID = -2376046934786003373L;
+
+		/**
+		 * Character path leading from the parent to this node.
+		 */
+		char[] chars;
+
+		/**
+		 * Payload data.
+		 */
+		T data;
+
+		/**
+		 * Flag if the node has been explicitely inserted or if it was only
+		 * introduced as inner node of a path.
+		 */
+		boolean inserted;
+
+		/**
+		 * Create node without data.
+		 *
+		 * @param chars
+		 *            chars containing the path leading from the parent node to
+		 *            this node
+		 */
+		Node(char[] chars) {
+			setChars(chars);
+		}
+
+		/**
+		 * Create node with the path and data of another node.
+		 *
+		 * @param node
+		 *            node to copy path and data from
+		 */
+		Node(Node<T> node) {
+			this.chars = node.chars;
+			this.data = node.data;
+			this.inserted = node.inserted;
+		}
+
+		/**
+		 * Set the characters leading from the parent to this node.
+		 *
+		 * @param chars
+		 *            character array
+		 */
+		final void setChars(char[] chars) {
+			this.chars = TrieNode.sharedChars(chars);
+		}
+
+		/**
+		 * Get number of children.
+		 *
+		 * @return number of children
+		 */
+		abstract int size();
+
+		/**
+		 * Find the child with the given first character.
+		 *
+		 * @param c
+		 *            first character
+		 * @return child or null
+		 */
+		abstract Node<T> findChild(char c);
+
+		/**
+		 * Add a child, which must not exist yet.
+		 *
+		 * @param c
+		 *            first character of the child
+		 * @param child
+		 *            child node
+		 * @return this node or the node which replaces this node
+		 */
+		abstract Node<T> addChild(char c, Node<T> child);
+
+		/**
+		 * Remove an existing child.
+		 *
+		 * @param c
+		 *            first character of the child
+		 * @return this node or the node which replaces this node
+		 */
+		abstract Node<T> removeChild(char c);
+
+		/**
+		 * Replace an existing child.
+		 *
+		 * @param c
+		 *            first character of the child
+		 * @param child
+		 *            new child node
+		 */
+		abstract void replaceChild(char c, Node<T> child);
+
+		/**
+		 * Add all children to a list, ordered by their first character.
+		 *
+		 * @param target
+		 *            target list
+		 */
+		abstract void collectChildren(List<Node<T>> target);
+
+		/**
+		 * Get the only child of a node with size 1.
+		 *
+		 * @return child node
+		 */
+		Node<T> onlyChild() {
+			List<Node<T>> children = new ArrayList<>(1);
+			collectChildren(children);
+			return children.get(0);
+		}
+
+		/**
+		 * Calculate the depth of the tree starting from this node.
+		 *
+		 * @return depth
+		 */
+		int getDepth() {
+			if (size() == 0) {
+				return 0;
+			}
+			List<Node<T>> children = new ArrayList<>(size());
+			collectChildren(children);
+			int depth = 0;
+			for (Node<T> child : children) {
+				depth = Math.max(depth, child.getDepth());
+			}
+			return depth + 1;
+		}
+
+		/**
+		 * Render the tree starting from this node.
+		 *
+		 * @param buffer
+		 *            target buffer
+		 * @param indentation
+		 *            indentation of this node
+		 */
+		void appendTo(StringBuilder buffer, String indentation) {
+			buffer.append(indentation);
+			buffer.append("\"").append(this.chars).append("\"");
+			if (this.data != null) {
+				buffer.append(" {").append(this.data).append('}');
+			}
+			List<Node<T>> children = new ArrayList<>(size());
+			collectChildren(children);
+			for (Node<T> child : children) {
+				buffer.append("\n");
+				child.appendTo(buffer, indentation + "  ");
+			}
+		}
+
+	}
+
+	/**
+	 * Node without children.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Leaf<T extends Serializable> extends Node<T> {
+
+		private static final long serialVersionUID = 2826354061719427006L;
+
+		Leaf(char[] chars) {
+			super(chars);
+		}
+
+		Leaf(Node<T> node) {
+			super(node);
+		}
+
+		@Override
+		int size() {
+			return 0;
+		}
+
+		@Override
+		Node<T> findChild(char c) {
+			return null;
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			return new Node4<>(this).addChild(c, child);
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			throw new IllegalStateException("Leaf has no children");
+		}
+
+		@Override
+		void replaceChild(char c, Node<T> child) {
+			throw new IllegalStateException("Leaf has no children");
+		}
+
+		@Override
+		void collectChildren(List<Node<T>> target) {
+			// no children
+		}
+
+	}
+
+	/**
+	 * Node with children in sorted arrays of fixed capacity.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static abstract class SortedNode<T extends Serializable> extends Node<T> {
+
+		private static final long serialVersionUID = 5961286707736755838L;
+
+		/**
+		 * Sorted first characters of the children.
+		 */
+		char[] keys;
+
+		/**
+		 * Children in the same order as {@link #keys}.
+		 */
+		Node<T>[] children;
+
+		/**
+		 * Number of children.
+		 */
+		int size;
+
+		@SuppressWarnings("unchecked")
+		SortedNode(char[] chars, int capacity) {
+			super(chars);
+			this.keys = new char[capacity];
+			this.children = (Node<T>[]) new Node<?>[capacity];
+		}
+
+		@SuppressWarnings("unchecked")
+		SortedNode(Node<T> node, int capacity) {
+			super(node);
+			this.keys = new char[capacity];
+			this.children = (Node<T>[]) new Node<?>[capacity];
+		}
+
+		/**
+		 * Find the index of the child with the given first character.
+		 *
+		 * @param c
+		 *            first character
+		 * @return index of child, or (-(insertion point) - 1) if there is no
+		 *         such child
+		 */
+		abstract int indexOf(char c);
+
+		@Override
+		final int size() {
+			return this.size;
+		}
+
+		@Override
+		final Node<T> findChild(char c) {
+			final int index = indexOf(c);
+			return index < 0 ? null : this.children[index];
+		}
+
+		@Override
+		final void replaceChild(char c, Node<T> child) {
+			this.children[indexOf(c)] = child;
+		}
+
+		@Override
+		final void collectChildren(List<Node<T>> target) {
+			for (int i = 0; i < this.size; i++) {
+				target.add(this.children[i]);
+			}
+		}
+
+		/**
+		 * Insert a child into the sorted arrays, which must have free capacity.
+		 *
+		 * @param c
+		 *            first character of the child
+		 * @param child
+		 *            child node
+		 */
+		final void insertSorted(char c, Node<T> child) {
+			final int index = -indexOf(c) - 1;
+			final int moved = this.size - index;
+			if (moved > 0) {
+				System.arraycopy(this.keys, index, this.keys, index + 1, moved);
+				System.arraycopy(this.children, index, this.children, index + 1, moved);
+			}
+			this.keys[index] = c;
+			this.children[index] = child;
+			this.size++;
+		}
+
+		/**
+		 * Remove a child from the sorted arrays.
+		 *
+		 * @param c
+		 *            first character of the child
+		 */
+		final void removeSorted(char c) {
+			final int index = indexOf(c);
+			final int moved = this.size - index - 1;
+			if (moved > 0) {
+				System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+				System.arraycopy(this.children, index + 1, this.children, index, moved);
+			}
+			this.size--;
+			this.children[this.size] = null;
+		}
+
+		/**
+		 * Copy all children to another node.
+		 *
+		 * @param target
+		 *            target node
+		 * @return target node
+		 */
+		final Node<T> copyChildrenTo(Node<T> target) {
+			Node<T> result = target;
+			for (int i = 0; i < this.size; i++) {
+				result = result.addChild(this.keys[i], this.children[i]);
+			}
+			return result;
+		}
+
+		/**
+		 * Check if all children have a first character in the Latin-1 range.
+		 *
+		 * @return true if all first characters are below 256
+		 */
+		final boolean isLatin1() {
+			return this.size == 0 || this.keys[this.size - 1] < 256;
+		}
+
+	}
+
+	/**
+	 * Node with up to 4 children.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node4<T extends Serializable> extends SortedNode<T> {
+
+		private static final long serialVersionUID = -2137049611883620347L;
+
+		Node4(char[] chars) {
+			super(chars, 4);
+		}
+
+		Node4(Node<T> node) {
+			super(node, 4);
+		}
+
+		@Override
+		int indexOf(char c) {
+			final char[] keys = this.keys;
+			final int size = this.size;
+			for (int i = 0; i < size; i++) {
+				if (keys[i] == c) {
+					return i;
+				}
+				if (keys[i] > c) {
+					return -i - 1;
+				}
+			}
+			return -size - 1;
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			if (this.size < 4) {
+				insertSorted(c, child);
+				return this;
+			}
+			return copyChildrenTo(new Node16<>(this)).addChild(c, child);
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			removeSorted(c);
+			if (this.size == 0) {
+				return new Leaf<>(this);
+			}
+			return this;
+		}
+
+	}
+
+	/**
+	 * Node with up to 16 children.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node16<T extends Serializable> extends SortedNode<T> {
+
+		private static final long serialVersionUID = 8146722318580447032L;
+
+		Node16(Node<T> node) {
+			super(node, 16);
+		}
+
+		@Override
+		int indexOf(char c) {
+			return Arrays.binarySearch(this.keys, 0, this.size, c);
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			if (this.size < 16) {
+				insertSorted(c, child);
+				return this;
+			}
+			Node<T> grown = isLatin1() && c < 256 ? new Node48<>(this) : new NodeN<>(this, 32);
+			return copyChildrenTo(grown).addChild(c, child);
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			removeSorted(c);
+			if (this.size <= 3) {
+				return copyChildrenTo(new Node4<>(this));
+			}
+			return this;
+		}
+
+	}
+
+	/**
+	 * Node with an arbitrary number of children in sorted arrays, used for
+	 * large fanout outside the Latin-1 range.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class NodeN<T extends Serializable> extends SortedNode<T> {
+
+		private static final long serialVersionUID = 2907466103216402625L;
+
+		NodeN(Node<T> node, int capacity) {
+			super(node, capacity);
+		}
+
+		@Override
+		int indexOf(char c) {
+			return Arrays.binarySearch(this.keys, 0, this.size, c);
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			if (this.size == this.keys.length) {
+				this.keys = Arrays.copyOf(this.keys, this.size * 2);
+				this.children = Arrays.copyOf(this.children, this.size * 2);
+			}
+			insertSorted(c, child);
+			return this;
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			removeSorted(c);
+			if (this.size <= 12) {
+				return copyChildrenTo(new Node16<>(this));
+			}
+			return this;
+		}
+
+	}
+
+	/**
+	 * Node with up to 48 children in the Latin-1 range, found through an
+	 * index table.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node48<T extends Serializable> extends Node<T> {
+
+		private static final long serialVersionUID = -5146129306419584137L;
+
+		/**
+		 * Slot in {@link #children} plus one for each first character, or 0 if
+		 * there is no such child.
+		 */
+		private final byte[] index = new byte[256];
+
+		/**
+		 * Children (unordered).
+		 */
+		@SuppressWarnings("unchecked")
+		private final Node<T>[] children = (Node<T>[]) new Node<?>[48];
+
+		/**
+		 * Number of children.
+		 */
+		private int size;
+
+		Node48(Node<T> node) {
+			super(node);
+		}
+
+		@Override
+		int size() {
+			return this.size;
+		}
+
+		@Override
+		Node<T> findChild(char c) {
+			if (c >= 256) {
+				return null;
+			}
+			final int slot = this.index[c];
+			return slot == 0 ? null : this.children[slot - 1];
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			if (c >= 256) {
+				NodeN<T> grown = new NodeN<>(this, 64);
+				copyChildrenTo(grown);
+				return grown.addChild(c, child);
+			}
+			if (this.size == 48) {
+				Node256<T> grown = new Node256<>(this);
+				copyChildrenTo(grown);
+				return grown.addChild(c, child);
+			}
+			this.children[this.size] = child;
+			this.index[c] = (byte) (++this.size);
+			return this;
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			final int slot = this.index[c] - 1;
+			final int last = --this.size;
+			if (slot != last) {
+				// Move last child into the free slot
+				final Node<T> moved = this.children[last];
+				this.children[slot] = moved;
+				this.index[moved.chars[0]] = (byte) (slot + 1);
+			}
+			this.children[last] = null;
+			this.index[c] = 0;
+			if (this.size <= 12) {
+				Node16<T> shrunk = new Node16<>(this);
+				copyChildrenTo(shrunk);
+				return shrunk;
+			}
+			return this;
+		}
+
+		@Override
+		void replaceChild(char c, Node<T> child) {
+			this.children[this.index[c] - 1] = child;
+		}
+
+		@Override
+		void collectChildren(List<Node<T>> target) {
+			for (int c = 0; c < 256; c++) {
+				final int slot = this.index[c];
+				if (slot != 0) {
+					target.add(this.children[slot - 1]);
+				}
+			}
+		}
+
+		/**
+		 * Copy all children to another node.
+		 *
+		 * @param target
+		 *            target node with enough capacity
+		 */
+		private void copyChildrenTo(Node<T> target) {
+			for (char c = 0; c < 256; c++) {
+				final int slot = this.index[c];
+				if (slot != 0) {
+					target.addChild(c, this.children[slot - 1]);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Node with up to 256 children in the Latin-1 range, directly indexed by
+	 * their first character.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node256<T extends Serializable> extends Node<T> {
+
+		private static final long serialVersionUID = 7393260938446337311L;
+
+		/**
+		 * Children indexed by their first character.
+		 */
+		@SuppressWarnings("unchecked")
+		private final Node<T>[] children = (Node<T>[]) new Node<?>[256];
+
+		/**
+		 * Number of children.
+		 */
+		private int size;
+
+		Node256(Node<T> node) {
+			super(node);
+		}
+
+		@Override
+		int size() {
+			return this.size;
+		}
+
+		@Override
+		Node<T> findChild(char c) {
+			return c < 256 ? this.children[c] : null;
+		}
+
+		@Override
+		Node<T> addChild(char c, Node<T> child) {
+			if (c >= 256) {
+				NodeN<T> grown = new NodeN<>(this, 512);
+				for (char key = 0; key < 256; key++) {
+					if (this.children[key] != null) {
+						grown.addChild(key, this.children[key]);
+					}
+				}
+				return grown.addChild(c, child);
+			}
+			this.children[c] = child;
+			this.size++;
+			return this;
+		}
+
+		@Override
+		Node<T> removeChild(char c) {
+			this.children[c] = null;
+			this.size--;
+			if (this.size <= 36) {
+				Node48<T> shrunk = new Node48<>(this);
+				for (char key = 0; key < 256; key++) {
+					if (this.children[key] != null) {
+						shrunk.addChild(key, this.children[key]);
+					}
+				}
+				return shrunk;
+			}
+			return this;
+		}
+
+		@Override
+		void replaceChild(char c, Node<T> child) {
+			this.children[c] = child;
+		}
+
+		@Override
+		void collectChildren(List<Node<T>> target) {
+			for (int c = 0; c < 256; c++) {
+				if (this.children[c] != null) {
+					target.add(this.children[c]);
+				}
+			}
+		}
+
+	}
+
+}
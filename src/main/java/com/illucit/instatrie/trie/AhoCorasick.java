@@ -0,0 +1,491 @@
+package com.illucit.instatrie.trie;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable Aho-Corasick automaton compiled from a {@link Trie}, which finds
+ * all occurrences of all words of the trie in a text in a single linear pass.
+ * The automaton has one state per character of the trie (numbered in
+ * breadth-first order, so the sons of each state are stored consecutively),
+ * and in addition to the transitions of the trie each state has a failure link
+ * to the state of its longest proper suffix in the trie, and an output link to
+ * the next state on the failure chain which represents a word. <br>
+ * <br>
+ * The empty word is never reported as a match. The automaton is not modified
+ * by a scan, so it can be used by multiple concurrent threads.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class AhoCorasick<T extends Serializable> implements Serializable {
+
+	private static final long serialVersionUID = -6717240312209497321L;
+
+	/**
+	 * State of the root node.
+	 */
+	private static final int ROOT = 0;
+
+	/**
+	 * Character of the transition into each state.
+	 */
+	private final char[] labels;
+
+	/**
+	 * First son of each state (the sons of state <code>s</code> are the states
+	 * <code>firstSon[s]</code> to <code>firstSon[s + 1] - 1</code>).
+	 */
+	private final int[] firstSon;
+
+	/**
+	 * Failure link of each state.
+	 */
+	private final int[] fail;
+
+	/**
+	 * Next state on the failure chain representing a word (or -1).
+	 */
+	private final int[] output;
+
+	/**
+	 * Length of the path of each state.
+	 */
+	private final int[] depth;
+
+	/**
+	 * Index of the payload of each state (or -1 if the state is no word).
+	 */
+	private final int[] payloadIndex;
+
+	private final Object[] payloads;
+
+	/**
+	 * Maximum length of a word.
+	 */
+	private final int maxDepth;
+
+	/**
+	 * Compile the words of a trie into an automaton.
+	 *
+	 * @param trie
+	 *            trie
+	 */
+	public AhoCorasick(Trie<T> trie) {
+		int capacity = 64;
+		char[] stateLabels = new char[capacity];
+		int[] stateFirstSon = new int[capacity];
+		int[] stateDepth = new int[capacity];
+		int[] statePayload = new int[capacity];
+		Object[] statePayloads = new Object[16];
+		int numStates = 1;
+		int numPayloads = 0;
+		statePayload[ROOT] = -1;
+
+		// Breadth-first search over all characters
+		CharNodeQueue<T> queue = new CharNodeQueue<>(trie, ROOT);
+		while (!queue.isEmpty()) {
+			TrieNode<T> node = queue.node();
+			int offset = queue.offset();
+			int state = queue.id();
+			queue.remove();
+
+			stateFirstSon[state] = numStates;
+			char[] chars = node.getChars();
+			if (offset < chars.length - 1) {
+				// Next character inside the path of the node
+				if (numStates == capacity) {
+					capacity *= 2;
+					stateLabels = Arrays.copyOf(stateLabels, capacity);
+					stateFirstSon = Arrays.copyOf(stateFirstSon, capacity);
+					stateDepth = Arrays.copyOf(stateDepth, capacity);
+					statePayload = Arrays.copyOf(statePayload, capacity);
+				}
+				int son = numStates++;
+				stateLabels[son] = chars[offset + 1];
+				stateDepth[son] = stateDepth[state] + 1;
+				statePayload[son] = -1;
+				if (offset + 1 == chars.length - 1 && node.isInserted()) {
+					if (numPayloads == statePayloads.length) {
+						statePayloads = Arrays.copyOf(statePayloads, numPayloads * 2);
+					}
+					statePayload[son] = numPayloads;
+					statePayloads[numPayloads++] = node.getData();
+				}
+				queue.add(node, offset + 1, son);
+			} else {
+				for (TrieNode<T> sonNode : node.children()) {
+					if (numStates == capacity) {
+						capacity *= 2;
+						stateLabels = Arrays.copyOf(stateLabels, capacity);
+						stateFirstSon = Arrays.copyOf(stateFirstSon, capacity);
+						stateDepth = Arrays.copyOf(stateDepth, capacity);
+						statePayload = Arrays.copyOf(statePayload, capacity);
+					}
+					int son = numStates++;
+					stateLabels[son] = sonNode.getFirstChar();
+					stateDepth[son] = stateDepth[state] + 1;
+					statePayload[son] = -1;
+					if (sonNode.getChars().length == 1 && sonNode.isInserted()) {
+						if (numPayloads == statePayloads.length) {
+							statePayloads = Arrays.copyOf(statePayloads, numPayloads * 2);
+						}
+						statePayload[son] = numPayloads;
+						statePayloads[numPayloads++] = sonNode.getData();
+					}
+					queue.add(sonNode, 0, son);
+				}
+			}
+		}
+
+		this.labels = Arrays.copyOf(stateLabels, numStates);
+		this.firstSon = Arrays.copyOf(stateFirstSon, numStates + 1);
+		this.firstSon[numStates] = numStates;
+		this.depth = Arrays.copyOf(stateDepth, numStates);
+		this.payloadIndex = Arrays.copyOf(statePayload, numStates);
+		this.payloads = Arrays.copyOf(statePayloads, numPayloads);
+
+		// Failure and output links in breadth-first order (the failure link of
+		// a state always points to a state with smaller depth)
+		this.fail = new int[numStates];
+		this.output = new int[numStates];
+		int max = 0;
+		output[ROOT] = -1;
+		for (int state = 0; state < numStates; state++) {
+			max = Math.max(max, depth[state]);
+			for (int son = firstSon[state]; son < firstSon[state + 1]; son++) {
+				int failure = ROOT;
+				if (state != ROOT) {
+					int candidate = fail[state];
+					failure = getSon(candidate, labels[son]);
+					while (failure < 0 && candidate != ROOT) {
+						candidate = fail[candidate];
+						failure = getSon(candidate, labels[son]);
+					}
+					if (failure < 0) {
+						failure = ROOT;
+					}
+				}
+				fail[son] = failure;
+				output[son] = payloadIndex[failure] >= 0 ? failure : output[failure];
+			}
+		}
+		this.maxDepth = max;
+	}
+
+	/**
+	 * Get the number of states (one per character of the trie plus the root).
+	 *
+	 * @return number of states
+	 */
+	public int getStateCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Get the number of words (not counting the empty word).
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return payloads.length;
+	}
+
+	/**
+	 * Find the son of a state for a character.
+	 *
+	 * @param state
+	 *            state
+	 * @param c
+	 *            character
+	 * @return son or -1 if there is no transition for the character
+	 */
+	private int getSon(int state, char c) {
+		int low = firstSon[state];
+		int high = firstSon[state + 1] - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			char label = labels[middle];
+			if (label < c) {
+				low = middle + 1;
+			} else if (label > c) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Calculate the next state after reading a character.
+	 *
+	 * @param state
+	 *            current state
+	 * @param c
+	 *            character
+	 * @return next state
+	 */
+	private int next(int state, char c) {
+		while (true) {
+			int son = getSon(state, c);
+			if (son >= 0) {
+				return son;
+			}
+			if (state == ROOT) {
+				return ROOT;
+			}
+			state = fail[state];
+		}
+	}
+
+	/**
+	 * Report all occurrences of all words in a text (including overlapping
+	 * ones). The matches are reported ordered by their end position, and
+	 * matches with the same end position from the longest to the shortest.
+	 *
+	 * @param text
+	 *            text to scan
+	 * @param consumer
+	 *            consumer function to call for each match
+	 */
+	public void scan(CharSequence text, MatchConsumer<? super T> consumer) {
+		Scan scan = new Scan(consumer, false);
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			scan.feed(text.charAt(i));
+		}
+		scan.finish();
+	}
+
+	/**
+	 * Report all occurrences of all words in a character stream (including
+	 * overlapping ones). The matches are reported ordered by their end
+	 * position, and matches with the same end position from the longest to the
+	 * shortest.
+	 *
+	 * @param reader
+	 *            reader to scan (not closed)
+	 * @param consumer
+	 *            consumer function to call for each match
+	 * @throws IOException
+	 *             if the reader throws an exception
+	 */
+	public void scan(Reader reader, MatchConsumer<? super T> consumer) throws IOException {
+		scan(reader, new Scan(consumer, false));
+	}
+
+	/**
+	 * Report the leftmost-longest, non-overlapping occurrences of the words in
+	 * a text: from all matches the one with the smallest start position (and
+	 * the longest of those) is taken, then the search continues after its end.
+	 *
+	 * @param text
+	 *            text to scan
+	 * @param consumer
+	 *            consumer function to call for each match
+	 */
+	public void scanLongest(CharSequence text, MatchConsumer<? super T> consumer) {
+		Scan scan = new Scan(consumer, true);
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			scan.feed(text.charAt(i));
+		}
+		scan.finish();
+	}
+
+	/**
+	 * Report the leftmost-longest, non-overlapping occurrences of the words in
+	 * a character stream: from all matches the one with the smallest start
+	 * position (and the longest of those) is taken, then the search continues
+	 * after its end.
+	 *
+	 * @param reader
+	 *            reader to scan (not closed)
+	 * @param consumer
+	 *            consumer function to call for each match
+	 * @throws IOException
+	 *             if the reader throws an exception
+	 */
+	public void scanLongest(Reader reader, MatchConsumer<? super T> consumer) throws IOException {
+		scan(reader, new Scan(consumer, true));
+	}
+
+	/**
+	 * Feed all characters of a stream into a scan.
+	 *
+	 * @param reader
+	 *            reader
+	 * @param scan
+	 *            scan
+	 * @throws IOException
+	 *             if the reader throws an exception
+	 */
+	private void scan(Reader reader, Scan scan) throws IOException {
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) >= 0) {
+			for (int i = 0; i < read; i++) {
+				scan.feed(buffer[i]);
+			}
+		}
+		scan.finish();
+	}
+
+	/**
+	 * State of a single scan.
+	 */
+	private final class Scan {
+
+		private final MatchConsumer<? super T> consumer;
+
+		/**
+		 * Current state of the automaton.
+		 */
+		private int state = ROOT;
+
+		/**
+		 * Number of characters read.
+		 */
+		private long position = 0;
+
+		/**
+		 * Longest match for each possible start position (leftmost-longest
+		 * mode), as ring buffers indexed by the start position. A start
+		 * position without match has the end position 0.
+		 */
+		private final long[] candidateEnds;
+
+		private final int[] candidateStates;
+
+		/**
+		 * Smallest start position which has not been decided yet.
+		 */
+		private long low = 0;
+
+		/**
+		 * End of the last reported match (leftmost-longest mode).
+		 */
+		private long boundary = 0;
+
+		/**
+		 * Create scan.
+		 *
+		 * @param consumer
+		 *            consumer function to call for each match
+		 * @param longest
+		 *            true for leftmost-longest, non-overlapping matches
+		 */
+		private Scan(MatchConsumer<? super T> consumer, boolean longest) {
+			this.consumer = consumer;
+			this.candidateEnds = longest ? new long[maxDepth + 1] : null;
+			this.candidateStates = longest ? new int[maxDepth + 1] : null;
+		}
+
+		/**
+		 * Read the next character.
+		 *
+		 * @param c
+		 *            character
+		 */
+		private void feed(char c) {
+			state = next(state, c);
+			position++;
+			int match = payloadIndex[state] >= 0 ? state : output[state];
+			if (candidateEnds == null) {
+				for (; match >= 0; match = output[match]) {
+					report(position - depth[match], position, match);
+				}
+				return;
+			}
+
+			// Remember the match for each start position (later matches with the
+			// same start position are longer)
+			final int window = candidateEnds.length;
+			for (; match >= 0; match = output[match]) {
+				long start = position - depth[match];
+				if (start >= boundary) {
+					int slot = (int) (start % window);
+					candidateEnds[slot] = position;
+					candidateStates[slot] = match;
+				}
+			}
+
+			// No later match can start before the path of the current state
+			decide(position - depth[state]);
+		}
+
+		/**
+		 * Finish the scan at the end of the text.
+		 */
+		private void finish() {
+			if (candidateEnds != null) {
+				decide(position);
+			}
+		}
+
+		/**
+		 * Report the candidates with a start position before a limit, from left
+		 * to right, skipping the ones overlapping with a reported match.
+		 *
+		 * @param limit
+		 *            smallest start position of a future match
+		 */
+		private void decide(long limit) {
+			final int window = candidateEnds.length;
+			for (; low < limit; low++) {
+				int slot = (int) (low % window);
+				long end = candidateEnds[slot];
+				if (end > 0 && low >= boundary) {
+					report(low, end, candidateStates[slot]);
+					boundary = end;
+				}
+				candidateEnds[slot] = 0;
+			}
+		}
+
+		/**
+		 * Report a match.
+		 *
+		 * @param start
+		 *            start position (inclusive)
+		 * @param end
+		 *            end position (exclusive)
+		 * @param match
+		 *            state of the matching word
+		 */
+		@SuppressWarnings("unchecked")
+		private void report(long start, long end, int match) {
+			consumer.accept(start, end, (T) payloads[payloadIndex[match]]);
+		}
+
+	}
+
+	/**
+	 * Consumer function for the matches of a scan.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	@FunctionalInterface
+	public interface MatchConsumer<T> {
+
+		/**
+		 * Accept a match.
+		 *
+		 * @param start
+		 *            position of the first character of the match
+		 * @param end
+		 *            position after the last character of the match
+		 * @param data
+		 *            payload data of the matching word
+		 */
+		void accept(long start, long end, T data);
+
+	}
+
+}
@@ -0,0 +1,409 @@
+package com.illucit.instatrie.trie;
+
+import static com.illucit.instatrie.trie.Trie.EMPTY_CHAR_ARRAY;
+import static com.illucit.instatrie.trie.Trie.subarray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Trie data structure with the same semantics as {@link Trie}, but with the
+ * children of each node stored in a sorted array of first characters plus a
+ * parallel array of child nodes. Children are found by a linear scan for small
+ * fanout and by binary search for large fanout, instead of walking the linked
+ * list of brothers. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class ArrayTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = -3418925306218750042L;
+
+	/**
+	 * Up to this number of children, the first characters are scanned linearly
+	 * instead of using binary search.
+	 */
+	private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+	/**
+	 * Initial capacity of the child arrays of a node.
+	 */
+	private static final int INITIAL_CAPACITY = 2;
+
+	/**
+	 * Root node of the tree.
+	 */
+	private final Node<T> root;
+
+	/**
+	 * Create empty trie.
+	 */
+	public ArrayTrie() {
+		this.root = new Node<>(EMPTY_CHAR_ARRAY, null, false);
+	}
+
+	@Override
+	public void clear() {
+		this.root.data = null;
+		this.root.inserted = false;
+		this.root.firstChars = null;
+		this.root.children = null;
+		this.root.size = 0;
+	}
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		Node<T> node = insertNode(word, startIndex, endIndex);
+		node.data = data;
+		node.inserted = true;
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		Node<T> node = insertNode(word, 0, word.length);
+		node.data = updateFunction.apply(node.inserted ? node.data : null);
+		node.inserted = true;
+	}
+
+	/**
+	 * Find or create the node which represents the given word. Newly created
+	 * nodes are not marked as inserted and have no data.
+	 *
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return node for the word
+	 */
+	private Node<T> insertNode(char[] word, int startIndex, int endIndex) {
+		int wordPos = startIndex; // current position in word
+		Node<T> node = this.root; // current node
+
+		// Descend in tree
+		while (wordPos < endIndex) {
+
+			final int index = node.indexOf(word[wordPos]);
+			if (index < 0) {
+				// No child with matching first char: add a new leaf
+				Node<T> leaf = new Node<>(subarray(word, wordPos, endIndex), null, false);
+				node.insertChild(-index - 1, leaf);
+				return leaf;
+			}
+
+			// Find matching chars in path of child node
+			final Node<T> son = node.children[index];
+			final char[] sonChars = son.chars;
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// Word ends inside the path of the child node or deviates from
+				// it, so the child node needs to be split
+				son.split(sonPos);
+				if (wordPos == endIndex) {
+					return son;
+				}
+				Node<T> leaf = new Node<>(subarray(word, wordPos, endIndex), null, false);
+				son.insertChild(-son.indexOf(word[wordPos]) - 1, leaf);
+				return leaf;
+			}
+
+			// Child node matches completely: continue to descend
+			node = son;
+		}
+		return node;
+	}
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getNode(word, false) != null;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		Node<T> node = getNode(word, true);
+		return node != null && node.inserted;
+	}
+
+	@Override
+	public void delete(char[] word) {
+		Node<T> node = getNode(word, true);
+		if (node != null) {
+			node.data = null;
+			node.inserted = false;
+		}
+	}
+
+	@Override
+	public T getData(char[] word) {
+		Node<T> node = getNode(word, true);
+		if (node == null) {
+			return null;
+		}
+		return node.data;
+	}
+
+	/**
+	 * Find a node that represents the given word. If the search is exact, null
+	 * is returned if the node is only a substring node of the next found node.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node or null, if not found (exact)
+	 */
+	private Node<T> getNode(char[] word, boolean exact) {
+		int wordPos = 0; // current position in word
+		final int wordLength = word.length;
+		Node<T> node = this.root; // current node
+
+		// Descend in tree while word is not completely found
+		while (wordPos < wordLength) {
+
+			final int index = node.indexOf(word[wordPos]);
+			if (index < 0) {
+				// No son with matching first char
+				return null;
+			}
+
+			// Consume matching characters in word
+			final Node<T> son = node.children[index];
+			final char[] sonChars = son.chars;
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// could not completely match characters of node: only a prefix
+				// match is possible if the word has been consumed completely
+				return !exact && wordPos == wordLength ? son : null;
+			}
+
+			// Son matched completely with word
+			// Descend further until word is consumed
+			node = son;
+		}
+		// Word is completely found (exact)
+		return node;
+	}
+
+	@Override
+	public int getDepth() {
+		return this.root.getDepth();
+	}
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation of root node
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		this.root.appendTo(buffer, "");
+		return buffer.toString();
+	}
+
+	/**
+	 * Node inside an {@link ArrayTrie}. The first characters of all children
+	 * are kept in a sorted array, the children themselves in a parallel array.
+	 *
+	 * @author Christian Simon
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node<T extends Serializable> implements Serializable {
+
+		private static final long serialVersionUID = 6411632624787394315L;
+
+		/**
+		 * Character path leading from the parent to this node.
+		 */
+		private char[] chars;
+
+		/**
+		 * Sorted first characters of the children (capacity may exceed the
+		 * number of children). Null if the node never had children.
+		 */
+		private char[] firstChars;
+
+		/**
+		 * Children in the same order as {@link #firstChars}.
+		 */
+		private Node<T>[] children;
+
+		/**
+		 * Number of children.
+		 */
+		private int size;
+
+		/**
+		 * Payload data.
+		 */
+		private T data;
+
+		/**
+		 * Flag if the node has been explicitely inserted or if it was only
+		 * introduced as inner node of a path.
+		 */
+		private boolean inserted;
+
+		/**
+		 * Create new leaf node.
+		 *
+		 * @param chars
+		 *            chars containing the path leading from the parent node to
+		 *            this node
+		 * @param data
+		 *            payload data (optional)
+		 * @param inserted
+		 *            true if the node represents an inserted word
+		 */
+		Node(char[] chars, T data, boolean inserted) {
+			this.chars = TrieNode.sharedChars(chars);
+			this.data = data;
+			this.inserted = inserted;
+		}
+
+		/**
+		 * Find the index of the child with the given first character.
+		 *
+		 * @param c
+		 *            first character
+		 * @return index of child, or (-(insertion point) - 1) if there is no
+		 *         such child
+		 */
+		int indexOf(char c) {
+			final int size = this.size;
+			if (size <= LINEAR_SEARCH_THRESHOLD) {
+				final char[] firstChars = this.firstChars;
+				for (int i = 0; i < size; i++) {
+					final char firstChar = firstChars[i];
+					if (firstChar == c) {
+						return i;
+					}
+					if (firstChar > c) {
+						return -i - 1;
+					}
+				}
+				return -size - 1;
+			}
+			return Arrays.binarySearch(this.firstChars, 0, size, c);
+		}
+
+		/**
+		 * Insert a child at the given index, shifting all following children.
+		 *
+		 * @param index
+		 *            insertion point
+		 * @param child
+		 *            child node
+		 */
+		@SuppressWarnings("unchecked")
+		void insertChild(int index, Node<T> child) {
+			if (this.firstChars == null) {
+				this.firstChars = new char[INITIAL_CAPACITY];
+				this.children = (Node<T>[]) new Node<?>[INITIAL_CAPACITY];
+			} else if (this.size == this.firstChars.length) {
+				int capacity = this.size * 2;
+				this.firstChars = Arrays.copyOf(this.firstChars, capacity);
+				this.children = Arrays.copyOf(this.children, capacity);
+			}
+			int moved = this.size - index;
+			if (moved > 0) {
+				System.arraycopy(this.firstChars, index, this.firstChars, index + 1, moved);
+				System.arraycopy(this.children, index, this.children, index + 1, moved);
+			}
+			this.firstChars[index] = child.chars[0];
+			this.children[index] = child;
+			this.size++;
+		}
+
+		/**
+		 * Split the path of this node at the given position. The node keeps the
+		 * first part of the path and gets a single child with the remaining
+		 * path, which takes over the children and data of this node.
+		 *
+		 * @param position
+		 *            position inside the path (exclusive end of the first part)
+		 */
+		@SuppressWarnings("unchecked")
+		void split(int position) {
+			Node<T> subNode = new Node<>(subarray(this.chars, position, this.chars.length), this.data, this.inserted);
+			subNode.firstChars = this.firstChars;
+			subNode.children = this.children;
+			subNode.size = this.size;
+
+			this.chars = TrieNode.sharedChars(subarray(this.chars, 0, position));
+			this.data = null;
+			this.inserted = false;
+			this.firstChars = new char[INITIAL_CAPACITY];
+			this.children = (Node<T>[]) new Node<?>[INITIAL_CAPACITY];
+			this.firstChars[0] = subNode.chars[0];
+			this.children[0] = subNode;
+			this.size = 1;
+		}
+
+		/**
+		 * Calculate the depth of the tree starting from this node.
+		 *
+		 * @return depth
+		 */
+		int getDepth() {
+			if (this.size == 0) {
+				return 0;
+			}
+			int depth = 0;
+			for (int i = 0; i < this.size; i++) {
+				depth = Math.max(depth, this.children[i].getDepth());
+			}
+			return depth + 1;
+		}
+
+		/**
+		 * Render the tree starting from this node.
+		 *
+		 * @param buffer
+		 *            target buffer
+		 * @param indentation
+		 *            indentation of this node
+		 */
+		void appendTo(StringBuilder buffer, String indentation) {
+			buffer.append(indentation);
+			buffer.append("\"").append(this.chars).append("\"");
+			if (this.data != null) {
+				buffer.append(" {").append(this.data).append('}');
+			}
+			for (int i = 0; i < this.size; i++) {
+				buffer.append("\n");
+				this.children[i].appendTo(buffer, indentation + "  ");
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable bit vector with support for rank and select queries, as used by
+ * succinct data structures. Ranks are precomputed for blocks of 512 bits, and
+ * every 512th zero bit is sampled to speed up select queries.
+ *
+ * @author Christian Simon
+ *
+ */
+final class BitVector implements Serializable {
+
+	private static final long serialVersionUID = -7620719402484584062L;
+
+	/**
+	 * Number of 64 bit words per rank block (as power of 2).
+	 */
+	private static final int BLOCK_WORDS_SHIFT = 3;
+
+	/**
+	 * Number of bits per rank block (as power of 2).
+	 */
+	private static final int BLOCK_BITS_SHIFT = BLOCK_WORDS_SHIFT + 6;
+
+	/**
+	 * Every n-th zero bit is sampled for select queries (as power of 2).
+	 */
+	private static final int SELECT_SAMPLE_SHIFT = 9;
+
+	/**
+	 * Bits, packed into 64 bit words.
+	 */
+	private final long[] words;
+
+	/**
+	 * Number of bits.
+	 */
+	private final int size;
+
+	/**
+	 * Number of one bits before each block.
+	 */
+	private final int[] blockRanks;
+
+	/**
+	 * Index of the block containing the (i * 512)th zero bit.
+	 */
+	private final int[] zeroSamples;
+
+	/**
+	 * Create bit vector and compute the rank and select directories.
+	 *
+	 * @param words
+	 *            bits, packed into 64 bit words
+	 * @param size
+	 *            number of bits
+	 */
+	private BitVector(long[] words, int size) {
+		this.words = words;
+		this.size = size;
+
+		int numBlocks = (words.length >>> BLOCK_WORDS_SHIFT) + 1;
+		this.blockRanks = new int[numBlocks];
+		int[] samples = new int[(size >>> SELECT_SAMPLE_SHIFT) + 1];
+		int numSamples = 0;
+		int ones = 0;
+		for (int block = 0; block < numBlocks; block++) {
+			this.blockRanks[block] = ones;
+			int firstWord = block << BLOCK_WORDS_SHIFT;
+			int lastWord = Math.min(firstWord + (1 << BLOCK_WORDS_SHIFT), words.length);
+			for (int i = firstWord; i < lastWord; i++) {
+				ones += Long.bitCount(words[i]);
+			}
+			// Sample all zeros whose number is a multiple of the sample rate
+			int zerosBefore = Math.min(block << BLOCK_BITS_SHIFT, size) - this.blockRanks[block];
+			int zerosAfter = Math.min((block + 1) << BLOCK_BITS_SHIFT, size) - ones;
+			while ((numSamples << SELECT_SAMPLE_SHIFT) < zerosAfter) {
+				if ((numSamples << SELECT_SAMPLE_SHIFT) >= zerosBefore) {
+					samples[numSamples] = block;
+				}
+				numSamples++;
+			}
+		}
+		this.zeroSamples = Arrays.copyOf(samples, numSamples);
+	}
+
+	/**
+	 * Get number of bits.
+	 *
+	 * @return number of bits
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get a single bit.
+	 *
+	 * @param index
+	 *            bit index
+	 * @return true if the bit is set
+	 */
+	boolean get(int index) {
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Count the one bits before a position.
+	 *
+	 * @param index
+	 *            bit index (exclusive)
+	 * @return number of one bits in the range [0, index)
+	 */
+	int rank1(int index) {
+		int wordIndex = index >>> 6;
+		int rank = blockRanks[wordIndex >>> BLOCK_WORDS_SHIFT];
+		for (int i = wordIndex & ~((1 << BLOCK_WORDS_SHIFT) - 1); i < wordIndex; i++) {
+			rank += Long.bitCount(words[i]);
+		}
+		if ((index & 63) != 0) {
+			rank += Long.bitCount(words[wordIndex] & (-1L >>> (64 - (index & 63))));
+		}
+		return rank;
+	}
+
+	/**
+	 * Find the position of a zero bit.
+	 *
+	 * @param rank
+	 *            number of the zero bit (starting with 0)
+	 * @return bit index of the zero bit
+	 */
+	int select0(int rank) {
+		// Find block by binary search between the sampled blocks
+		int sample = rank >>> SELECT_SAMPLE_SHIFT;
+		int low = zeroSamples[sample];
+		int high = sample + 1 < zeroSamples.length ? zeroSamples[sample + 1] : blockRanks.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if ((middle << BLOCK_BITS_SHIFT) - blockRanks[middle] <= rank) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		// Scan words inside the block
+		int remaining = rank - ((low << BLOCK_BITS_SHIFT) - blockRanks[low]);
+		int wordIndex = low << BLOCK_WORDS_SHIFT;
+		while (true) {
+			long zeros = ~words[wordIndex];
+			int count = Long.bitCount(zeros);
+			if (remaining < count) {
+				for (int i = 0; i < remaining; i++) {
+					zeros &= zeros - 1;
+				}
+				return (wordIndex << 6) + Long.numberOfTrailingZeros(zeros);
+			}
+			remaining -= count;
+			wordIndex++;
+		}
+	}
+
+	/**
+	 * Get the approximate size of the bit vector in memory.
+	 *
+	 * @return size in bytes
+	 */
+	long sizeInBytes() {
+		return 8L * words.length + 4L * blockRanks.length + 4L * zeroSamples.length;
+	}
+
+	/**
+	 * Builder to append bits one by one.
+	 *
+	 * @author Christian Simon
+	 *
+	 */
+	static final class Builder {
+
+		private long[] words = new long[16];
+
+		private int size;
+
+		/**
+		 * Append a bit.
+		 *
+		 * @param bit
+		 *            bit value
+		 */
+		void add(boolean bit) {
+			if ((size >>> 6) == words.length) {
+				words = Arrays.copyOf(words, words.length * 2);
+			}
+			if (bit) {
+				words[size >>> 6] |= 1L << size;
+			}
+			size++;
+		}
+
+		/**
+		 * Create the bit vector.
+		 *
+		 * @return immutable bit vector
+		 */
+		BitVector build() {
+			return new BitVector(Arrays.copyOf(words, (size + 63) >>> 6), size);
+		}
+
+	}
+
+}
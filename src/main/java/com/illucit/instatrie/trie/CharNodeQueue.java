@@ -0,0 +1,130 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Queue for the breadth-first traversal of a {@link Trie} character by
+ * character, as needed to convert it into structures with one node per
+ * character. Each entry is a trie node, the position of a character inside the
+ * path of the node and an arbitrary id. The queue is backed by growing arrays.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+final class CharNodeQueue<T extends Serializable> {
+
+	@SuppressWarnings("unchecked")
+	private TrieNode<T>[] nodes = (TrieNode<T>[]) new TrieNode<?>[64];
+
+	private int[] offsets = new int[64];
+
+	private int[] ids = new int[64];
+
+	private int head;
+
+	private int tail;
+
+	/**
+	 * Create a queue containing the root node of a trie.
+	 *
+	 * @param trie
+	 *            trie
+	 * @param rootId
+	 *            id of the root entry
+	 */
+	CharNodeQueue(Trie<T> trie, int rootId) {
+		TrieNode<T> root = trie.getRoot();
+		add(root, root.getChars().length - 1, rootId);
+	}
+
+	/**
+	 * Add an entry at the end of the queue.
+	 *
+	 * @param node
+	 *            trie node
+	 * @param offset
+	 *            position of the character inside the path of the node
+	 * @param id
+	 *            id of the entry
+	 */
+	void add(TrieNode<T> node, int offset, int id) {
+		if (tail == nodes.length) {
+			if (head > nodes.length / 2) {
+				// Reuse free space at the beginning
+				int size = tail - head;
+				System.arraycopy(nodes, head, nodes, 0, size);
+				System.arraycopy(offsets, head, offsets, 0, size);
+				System.arraycopy(ids, head, ids, 0, size);
+				Arrays.fill(nodes, size, tail, null);
+				tail = size;
+				head = 0;
+			} else {
+				nodes = Arrays.copyOf(nodes, nodes.length * 2);
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+				ids = Arrays.copyOf(ids, ids.length * 2);
+			}
+		}
+		nodes[tail] = node;
+		offsets[tail] = offset;
+		ids[tail] = id;
+		tail++;
+	}
+
+	/**
+	 * Check if the queue is empty.
+	 *
+	 * @return true if there are no entries
+	 */
+	boolean isEmpty() {
+		return head == tail;
+	}
+
+	/**
+	 * Get trie node of the first entry.
+	 *
+	 * @return trie node
+	 */
+	TrieNode<T> node() {
+		return nodes[head];
+	}
+
+	/**
+	 * Get position of the character inside the path of the trie node of the
+	 * first entry.
+	 *
+	 * @return position (-1 for the root node)
+	 */
+	int offset() {
+		return offsets[head];
+	}
+
+	/**
+	 * Get id of the first entry.
+	 *
+	 * @return id
+	 */
+	int id() {
+		return ids[head];
+	}
+
+	/**
+	 * Check if the first entry represents the complete path of its trie node
+	 * (and not only a prefix of it).
+	 *
+	 * @return true if the character is the last one of the path
+	 */
+	boolean isNodeEnd() {
+		return offsets[head] == nodes[head].getChars().length - 1;
+	}
+
+	/**
+	 * Remove the first entry.
+	 */
+	void remove() {
+		nodes[head++] = null;
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+
+/**
+ * {@link Trie} for one writer thread and many concurrent reader threads. A
+ * node which needs to be split by an insert operation is not modified in place,
+ * but replaced by a completely built copy, which is published with a single
+ * release store into the link of its predecessor. Together with the release
+ * and acquire semantics of the links and payload in {@link TrieNode}, readers
+ * can traverse the trie without locks and never see a half-split node. <br>
+ * <br>
+ * Modifications must still be made by a single thread (or be synchronized
+ * externally). A reader sees each insert or delete either completely or not
+ * at all, but a reader running concurrently with several modifications may
+ * see only some of them.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class ConcurrentReadTrie<T extends Serializable> extends Trie<T> {
+
+	private static final long serialVersionUID = 3380923187445532910L;
+
+	/**
+	 * Create empty trie.
+	 */
+	public ConcurrentReadTrie() {
+		super(true);
+	}
+
+}
@@ -0,0 +1,1128 @@
+package com.illucit.instatrie.trie;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Lock-free concurrent trie with consistent snapshots, following the design of
+ * the Ctrie by Prokopec et al. Every node of the tree is an immutable
+ * {@link CNode} with the payload of its prefix and its branches sorted by
+ * character. Branches are either leaves with the remaining suffix of a single
+ * word ({@link SNode}) or indirection nodes ({@link INode}), whose reference to
+ * the current {@link CNode} is updated with compare-and-swap. So all write
+ * operations only replace one node on the path of the word and many threads
+ * can modify different parts of the trie at the same time. <br>
+ * <br>
+ * Each indirection node belongs to a generation. A snapshot starts a new
+ * generation by atomically replacing the root in O(1); all nodes of older
+ * generations are copied lazily when they are modified afterwards. Nodes which
+ * become (almost) empty by a deletion are entombed in a {@link TNode} and
+ * merged into their parent, so deleted words do not leave prefixes behind. <br>
+ * <br>
+ * All operations of {@link PrefixDictionary} are thread-safe and lock-free.
+ * The update function of {@link #updateOrInsertData(char[], Function)} is
+ * applied atomically, but it may be called more than once if other threads
+ * modify the same node at the same time, so it should not have side effects.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class ConcurrentTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = 6519842386530142711L;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ConcurrentTrie, Object> ROOT = AtomicReferenceFieldUpdater
+			.newUpdater(ConcurrentTrie.class, Object.class, "root");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<INode, MainNode> MAIN = AtomicReferenceFieldUpdater
+			.newUpdater(INode.class, MainNode.class, "main");
+
+	private static final AtomicReferenceFieldUpdater<MainNode, MainNode> PREV = AtomicReferenceFieldUpdater
+			.newUpdater(MainNode.class, MainNode.class, "prev");
+
+	/*
+	 * Results of the recursive lookup
+	 */
+
+	/**
+	 * Operation has to be restarted from the root.
+	 */
+	private static final Object RESTART = new Object();
+
+	/**
+	 * Word is not contained, not even as prefix.
+	 */
+	private static final Object NOT_FOUND = new Object();
+
+	/**
+	 * Word is only contained as prefix.
+	 */
+	private static final Object PREFIX_ONLY = new Object();
+
+	/**
+	 * Word is contained with null as payload.
+	 */
+	private static final Object NULL_DATA = new Object();
+
+	/**
+	 * Root indirection node or {@link Descriptor} while a snapshot is taken.
+	 */
+	private transient volatile Object root;
+
+	/**
+	 * Flag if this is a read-only snapshot.
+	 */
+	private final boolean readOnly;
+
+	/**
+	 * Create empty trie.
+	 */
+	public ConcurrentTrie() {
+		this(new INode<T>(new Gen(), new CNode<T>(null, false)), false);
+	}
+
+	/**
+	 * Create trie with existing root node.
+	 *
+	 * @param root
+	 *            root node
+	 * @param readOnly
+	 *            flag if this is a read-only snapshot
+	 */
+	private ConcurrentTrie(INode<T> root, boolean readOnly) {
+		this.root = root;
+		this.readOnly = readOnly;
+	}
+
+	/*
+	 * Snapshots
+	 */
+
+	/**
+	 * Create a snapshot of the trie in constant time. The snapshot and this
+	 * trie can be modified independently afterwards.
+	 *
+	 * @return mutable snapshot
+	 */
+	public ConcurrentTrie<T> snapshot() {
+		if (readOnly) {
+			return new ConcurrentTrie<>(readRoot(false).copyToGen(new Gen(), this), false);
+		}
+		while (true) {
+			INode<T> r = readRoot(false);
+			MainNode expectedMain = gcasRead(r);
+			if (rdcssRoot(r, expectedMain, r.copyToGen(new Gen(), this))) {
+				return new ConcurrentTrie<>(r.copyToGen(new Gen(), this), false);
+			}
+		}
+	}
+
+	/**
+	 * Create a read-only snapshot of the trie in constant time. The snapshot
+	 * is not affected by later modifications of this trie, so it can be used
+	 * for consistent iterations.
+	 *
+	 * @return read-only snapshot
+	 */
+	public ConcurrentTrie<T> readOnlySnapshot() {
+		if (readOnly) {
+			return this;
+		}
+		while (true) {
+			INode<T> r = readRoot(false);
+			MainNode expectedMain = gcasRead(r);
+			if (rdcssRoot(r, expectedMain, r.copyToGen(new Gen(), this))) {
+				return new ConcurrentTrie<>(r, true);
+			}
+		}
+	}
+
+	/**
+	 * Check if this trie is a read-only snapshot.
+	 *
+	 * @return true if all modifications are rejected
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/*
+	 * Write operations
+	 */
+
+	@Override
+	public void clear() {
+		checkWritable();
+		while (true) {
+			INode<T> r = readRoot(false);
+			MainNode expectedMain = gcasRead(r);
+			if (rdcssRoot(r, expectedMain, new INode<T>(new Gen(), new CNode<T>(null, false)))) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		checkWritable();
+		char[] key = startIndex == 0 && endIndex == word.length ? word : Arrays.copyOfRange(word, startIndex, endIndex);
+		Function<T, T> update = oldData -> data;
+		while (true) {
+			INode<T> r = readRoot(false);
+			if (insert(r, key, update, r.gen)) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		checkWritable();
+		while (true) {
+			INode<T> r = readRoot(false);
+			if (insert(r, word, updateFunction, r.gen)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Insert or update a word below the root node.
+	 *
+	 * @param in
+	 *            root node
+	 * @param word
+	 *            word
+	 * @param update
+	 *            function to compute the new payload from the old one (or
+	 *            null)
+	 * @param startGen
+	 *            generation of the root node
+	 * @return true if successful, false if the operation needs to be restarted
+	 */
+	private boolean insert(INode<T> in, char[] word, Function<T, T> update, Gen startGen) {
+		INode<T> parent = null;
+		int pos = 0;
+		while (true) {
+			MainNode m = gcasRead(in);
+			if (m instanceof TNode) {
+				// Node was entombed by a deletion: merge it into the parent first
+				clean(parent, pos - 1);
+				return false;
+			}
+			@SuppressWarnings("unchecked")
+			CNode<T> cn = (CNode<T>) m;
+			if (pos == word.length) {
+				// Word ends in this node
+				CNode<T> updated = cn.withData(update.apply(cn.inserted ? cn.data : null), true);
+				return gcas(in, cn, updated);
+			}
+
+			int index = cn.indexOf(word[pos]);
+			if (index < 0) {
+				// No branch with matching char: add a new leaf
+				SNode<T> leaf = new SNode<>(Arrays.copyOfRange(word, pos + 1, word.length), update.apply(null));
+				return gcas(in, cn, cn.inserted(-index - 1, word[pos], leaf));
+			}
+
+			Object branch = cn.branches[index];
+			if (branch instanceof INode) {
+				@SuppressWarnings("unchecked")
+				INode<T> sub = (INode<T>) branch;
+				if (sub.gen == startGen) {
+					parent = in;
+					in = sub;
+					pos++;
+				} else if (!gcas(in, cn, cn.renewed(startGen, this))) {
+					return false;
+				}
+				continue;
+			}
+
+			@SuppressWarnings("unchecked")
+			SNode<T> sn = (SNode<T>) branch;
+			Object updatedBranch;
+			if (sn.matches(word, pos + 1)) {
+				updatedBranch = new SNode<>(sn.suffix, update.apply(sn.data));
+			} else {
+				// Expand leaf into a sub tree with the old and the new word
+				updatedBranch = new INode<>(startGen,
+						dual(sn.suffix, 0, sn.data, word, pos + 1, update.apply(null), startGen));
+			}
+			return gcas(in, cn, cn.updated(index, updatedBranch));
+		}
+	}
+
+	/**
+	 * Create a node containing two different words.
+	 *
+	 * @param first
+	 *            first word
+	 * @param firstPos
+	 *            position in the first word, where the node starts
+	 * @param firstData
+	 *            payload of the first word
+	 * @param second
+	 *            second word
+	 * @param secondPos
+	 *            position in the second word, where the node starts
+	 * @param secondData
+	 *            payload of the second word
+	 * @param gen
+	 *            generation for new indirection nodes
+	 * @return new node
+	 */
+	private static <T extends Serializable> CNode<T> dual(char[] first, int firstPos, T firstData, char[] second,
+			int secondPos, T secondData, Gen gen) {
+		if (firstPos == first.length) {
+			return new CNode<T>(firstData, true).inserted(0, second[secondPos],
+					new SNode<>(Arrays.copyOfRange(second, secondPos + 1, second.length), secondData));
+		}
+		if (secondPos == second.length) {
+			return new CNode<T>(secondData, true).inserted(0, first[firstPos],
+					new SNode<>(Arrays.copyOfRange(first, firstPos + 1, first.length), firstData));
+		}
+		if (first[firstPos] == second[secondPos]) {
+			// Common prefix continues
+			INode<T> sub = new INode<>(gen, dual(first, firstPos + 1, firstData, second, secondPos + 1, secondData, gen));
+			return new CNode<T>(null, false).inserted(0, first[firstPos], sub);
+		}
+		SNode<T> firstLeaf = new SNode<>(Arrays.copyOfRange(first, firstPos + 1, first.length), firstData);
+		SNode<T> secondLeaf = new SNode<>(Arrays.copyOfRange(second, secondPos + 1, second.length), secondData);
+		CNode<T> node = new CNode<T>(null, false).inserted(0, first[firstPos], firstLeaf);
+		return node.inserted(first[firstPos] < second[secondPos] ? 1 : 0, second[secondPos], secondLeaf);
+	}
+
+	@Override
+	public void delete(char[] word) {
+		checkWritable();
+		while (true) {
+			INode<T> r = readRoot(false);
+			if (delete(r, word, r.gen)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Delete a word below the root node.
+	 *
+	 * @param in
+	 *            root node
+	 * @param word
+	 *            word
+	 * @param startGen
+	 *            generation of the root node
+	 * @return true if successful (or word not found), false if the operation
+	 *         needs to be restarted
+	 */
+	private boolean delete(INode<T> in, char[] word, Gen startGen) {
+		INode<T> parent = null;
+		int pos = 0;
+		while (true) {
+			MainNode m = gcasRead(in);
+			if (m instanceof TNode) {
+				clean(parent, pos - 1);
+				return false;
+			}
+			@SuppressWarnings("unchecked")
+			CNode<T> cn = (CNode<T>) m;
+			CNode<T> updated;
+			if (pos == word.length) {
+				if (!cn.inserted) {
+					return true;
+				}
+				updated = cn.withData(null, false);
+			} else {
+				int index = cn.indexOf(word[pos]);
+				if (index < 0) {
+					return true;
+				}
+				Object branch = cn.branches[index];
+				if (branch instanceof INode) {
+					@SuppressWarnings("unchecked")
+					INode<T> sub = (INode<T>) branch;
+					if (sub.gen == startGen) {
+						parent = in;
+						in = sub;
+						pos++;
+					} else if (!gcas(in, cn, cn.renewed(startGen, this))) {
+						return false;
+					}
+					continue;
+				}
+				@SuppressWarnings("unchecked")
+				SNode<T> sn = (SNode<T>) branch;
+				if (!sn.matches(word, pos + 1)) {
+					return true;
+				}
+				updated = cn.removed(index);
+			}
+
+			MainNode contracted = contract(updated, pos);
+			if (!gcas(in, cn, contracted)) {
+				return false;
+			}
+			if (contracted instanceof TNode) {
+				cleanParent(parent, in, word[pos - 1], startGen);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Entomb a node if it can be merged into its parent, i.e. if it is empty,
+	 * if it only represents a word or if it only has one leaf.
+	 *
+	 * @param cn
+	 *            node
+	 * @param level
+	 *            position of the node in the word (0 for the root)
+	 * @return node or tomb node
+	 */
+	private static <T extends Serializable> MainNode contract(CNode<T> cn, int level) {
+		if (level == 0) {
+			return cn;
+		}
+		if (cn.keys.length == 0) {
+			return new TNode<>(cn.inserted ? new SNode<>(Trie.EMPTY_CHAR_ARRAY, cn.data) : null);
+		}
+		if (cn.keys.length == 1 && !cn.inserted && cn.branches[0] instanceof SNode) {
+			@SuppressWarnings("unchecked")
+			SNode<T> sn = (SNode<T>) cn.branches[0];
+			char[] suffix = new char[sn.suffix.length + 1];
+			suffix[0] = cn.keys[0];
+			System.arraycopy(sn.suffix, 0, suffix, 1, sn.suffix.length);
+			return new TNode<>(new SNode<>(suffix, sn.data));
+		}
+		return cn;
+	}
+
+	/**
+	 * Replace all entombed children of a node by their leaves.
+	 *
+	 * @param in
+	 *            node
+	 * @param level
+	 *            position of the node in the word
+	 */
+	private void clean(INode<T> in, int level) {
+		MainNode m = gcasRead(in);
+		if (m instanceof CNode) {
+			@SuppressWarnings("unchecked")
+			CNode<T> cn = (CNode<T>) m;
+			gcas(in, cn, contract(cn.resurrected(this), level));
+		}
+	}
+
+	/**
+	 * Merge an entombed node into its parent after a deletion.
+	 *
+	 * @param parent
+	 *            parent node
+	 * @param in
+	 *            entombed node
+	 * @param c
+	 *            char of the branch from the parent to the entombed node
+	 * @param startGen
+	 *            generation of the root node
+	 */
+	private void cleanParent(INode<T> parent, INode<T> in, char c, Gen startGen) {
+		while (true) {
+			MainNode m = gcasRead(parent);
+			if (!(m instanceof CNode)) {
+				return;
+			}
+			@SuppressWarnings("unchecked")
+			CNode<T> cn = (CNode<T>) m;
+			int index = cn.indexOf(c);
+			if (index < 0 || cn.branches[index] != in || !(gcasRead(in) instanceof TNode)) {
+				// Already cleaned up by another thread
+				return;
+			}
+			int level = parentLevel(parent);
+			if (gcas(parent, cn, contract(cn.resurrected(this), level)) || readRoot(false).gen != startGen) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the level of a node for contraction: only the root node must not
+	 * be contracted.
+	 *
+	 * @param in
+	 *            node
+	 * @return 0 for the root, 1 otherwise
+	 */
+	private int parentLevel(INode<T> in) {
+		return in == readRoot(false) ? 0 : 1;
+	}
+
+	/**
+	 * Throw an exception if this is a read-only snapshot.
+	 */
+	private void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("ConcurrentTrie snapshot is read-only");
+		}
+	}
+
+	/*
+	 * Read operations
+	 */
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return lookup(word) != NOT_FOUND;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		Object result = lookup(word);
+		return result != NOT_FOUND && result != PREFIX_ONLY;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getData(char[] word) {
+		Object result = lookup(word);
+		if (result == NOT_FOUND || result == PREFIX_ONLY || result == NULL_DATA) {
+			return null;
+		}
+		return (T) result;
+	}
+
+	/**
+	 * Look up a word, restarting from the root if necessary.
+	 *
+	 * @param word
+	 *            word
+	 * @return payload (or {@link #NULL_DATA}), {@link #PREFIX_ONLY} or
+	 *         {@link #NOT_FOUND}
+	 */
+	private Object lookup(char[] word) {
+		while (true) {
+			INode<T> r = readRoot(false);
+			Object result = lookup(r, word, r.gen);
+			if (result != RESTART) {
+				return result;
+			}
+		}
+	}
+
+	/**
+	 * Look up a word below the root node.
+	 *
+	 * @param in
+	 *            root node
+	 * @param word
+	 *            word
+	 * @param startGen
+	 *            generation of the root node
+	 * @return payload (or {@link #NULL_DATA}), {@link #PREFIX_ONLY},
+	 *         {@link #NOT_FOUND} or {@link #RESTART}
+	 */
+	private Object lookup(INode<T> in, char[] word, Gen startGen) {
+		int pos = 0;
+		while (true) {
+			MainNode m = gcasRead(in);
+			if (m instanceof TNode) {
+				// Entombed node still contains its words
+				@SuppressWarnings("unchecked")
+				SNode<T> sn = ((TNode<T>) m).sn;
+				return sn == null ? NOT_FOUND : sn.lookup(word, pos);
+			}
+			@SuppressWarnings("unchecked")
+			CNode<T> cn = (CNode<T>) m;
+			if (pos == word.length) {
+				if (!cn.inserted) {
+					return PREFIX_ONLY;
+				}
+				return cn.data == null ? NULL_DATA : cn.data;
+			}
+
+			int index = cn.indexOf(word[pos]);
+			if (index < 0) {
+				return NOT_FOUND;
+			}
+			Object branch = cn.branches[index];
+			if (branch instanceof INode) {
+				@SuppressWarnings("unchecked")
+				INode<T> sub = (INode<T>) branch;
+				if (readOnly || sub.gen == startGen) {
+					in = sub;
+					pos++;
+				} else if (!gcas(in, cn, cn.renewed(startGen, this))) {
+					return RESTART;
+				}
+				continue;
+			}
+			@SuppressWarnings("unchecked")
+			SNode<T> sn = (SNode<T>) branch;
+			return sn.lookup(word, pos + 1);
+		}
+	}
+
+	/**
+	 * Call a consumer for all words with their payload (in ascending order of
+	 * the words). The iteration runs on a read-only snapshot, so it is not
+	 * affected by concurrent modifications.
+	 *
+	 * @param consumer
+	 *            consumer for words and payload
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<String, T> consumer) {
+		ConcurrentTrie<T> snapshot = readOnlySnapshot();
+		INode<T> r = snapshot.readRoot(false);
+
+		// Depth-first search with explicit stack of prefixes and nodes
+		ArrayDeque<Object> stack = new ArrayDeque<>();
+		stack.push(r);
+		stack.push("");
+		while (!stack.isEmpty()) {
+			String prefix = (String) stack.pop();
+			Object node = stack.pop();
+			if (node instanceof SNode) {
+				SNode<T> sn = (SNode<T>) node;
+				consumer.accept(prefix + String.valueOf(sn.suffix), sn.data);
+				continue;
+			}
+			MainNode m = snapshot.gcasRead((INode<T>) node);
+			if (m instanceof TNode) {
+				SNode<T> sn = ((TNode<T>) m).sn;
+				if (sn != null) {
+					consumer.accept(prefix + String.valueOf(sn.suffix), sn.data);
+				}
+				continue;
+			}
+			CNode<T> cn = (CNode<T>) m;
+			if (cn.inserted) {
+				consumer.accept(prefix, cn.data);
+			}
+			for (int i = cn.keys.length - 1; i >= 0; i--) {
+				stack.push(cn.branches[i]);
+				stack.push(prefix + cn.keys[i]);
+			}
+		}
+	}
+
+	/**
+	 * Count the words in the trie (iterating over a read-only snapshot).
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		int[] count = new int[1];
+		forEach((word, data) -> count[0]++);
+		return count[0];
+	}
+
+	/**
+	 * Get the depth of the trie. As the nodes of this trie are not compressed
+	 * like the ones of {@link Trie}, the depth is the length of the longest
+	 * word.
+	 *
+	 * @return depth
+	 */
+	@Override
+	public int getDepth() {
+		int[] depth = new int[1];
+		forEach((word, data) -> depth[0] = Math.max(depth[0], word.length()));
+		return depth[0];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		forEach((word, data) -> buffer.append(buffer.length() == 0 ? "" : "\n").append('"').append(word)
+				.append('"').append(data == null ? "" : " {" + data + "}"));
+		return buffer.toString();
+	}
+
+	/*
+	 * Serialization
+	 */
+
+	/**
+	 * Write all words with their payload from a read-only snapshot.
+	 *
+	 * @param out
+	 *            output stream
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		ConcurrentTrie<T> snapshot = readOnlySnapshot();
+		out.writeInt(snapshot.size());
+		IOException[] error = new IOException[1];
+		snapshot.forEach((word, data) -> {
+			try {
+				if (error[0] == null) {
+					TrieSerialization.writeChars(out, word.toCharArray());
+					out.writeObject(data);
+				}
+			} catch (IOException e) {
+				error[0] = e;
+			}
+		});
+		if (error[0] != null) {
+			throw error[0];
+		}
+	}
+
+	/**
+	 * Read all words with their payload into a new root node.
+	 *
+	 * @param in
+	 *            input stream
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws ClassNotFoundException
+	 *             if a payload class cannot be found
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		// Build the nodes in a mutable trie (also for read-only snapshots)
+		ConcurrentTrie<T> trie = new ConcurrentTrie<>();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			char[] word = TrieSerialization.readChars(in);
+			trie.insert(word, (T) in.readObject());
+		}
+		this.root = trie.readRoot(false);
+	}
+
+	/*
+	 * Generation compare-and-swap (GCAS) on indirection nodes
+	 */
+
+	/**
+	 * Read the main node of an indirection node, completing or rolling back a
+	 * pending GCAS.
+	 *
+	 * @param in
+	 *            indirection node
+	 * @return committed main node
+	 */
+	private MainNode gcasRead(INode<T> in) {
+		MainNode m = in.main;
+		if (m.prev == null) {
+			return m;
+		}
+		return gcasCommit(in, m);
+	}
+
+	/**
+	 * Replace the main node of an indirection node, if the root generation has
+	 * not changed in the meantime.
+	 *
+	 * @param in
+	 *            indirection node
+	 * @param old
+	 *            expected main node
+	 * @param n
+	 *            new main node (must not be used before)
+	 * @return true if successful
+	 */
+	private boolean gcas(INode<T> in, MainNode old, MainNode n) {
+		n.prev = old;
+		if (MAIN.compareAndSet(in, old, n)) {
+			gcasCommit(in, n);
+			return n.prev == null;
+		}
+		return false;
+	}
+
+	/**
+	 * Complete a pending GCAS: commit it if the generation of the root still
+	 * matches, roll it back otherwise.
+	 *
+	 * @param in
+	 *            indirection node
+	 * @param m
+	 *            current main node
+	 * @return committed main node
+	 */
+	private MainNode gcasCommit(INode<T> in, MainNode m) {
+		while (true) {
+			MainNode prev = m.prev;
+			INode<T> r = readRoot(true);
+			if (prev == null) {
+				return m;
+			}
+			if (prev instanceof FailedNode) {
+				// Roll back the failed proposal
+				MainNode original = prev.prev;
+				if (MAIN.compareAndSet(in, m, original)) {
+					return original;
+				}
+				m = in.main;
+			} else if (r.gen == in.gen && !readOnly) {
+				if (PREV.compareAndSet(m, prev, null)) {
+					return m;
+				}
+			} else {
+				PREV.compareAndSet(m, prev, new FailedNode(prev));
+				m = in.main;
+			}
+		}
+	}
+
+	/*
+	 * Restricted double-compare single-swap (RDCSS) on the root
+	 */
+
+	/**
+	 * Read the root node, completing or aborting a pending snapshot.
+	 *
+	 * @param abort
+	 *            flag if a pending snapshot should be aborted
+	 * @return root node
+	 */
+	@SuppressWarnings("unchecked")
+	private INode<T> readRoot(boolean abort) {
+		Object r = root;
+		if (r instanceof INode) {
+			return (INode<T>) r;
+		}
+		return rdcssComplete(abort);
+	}
+
+	/**
+	 * Replace the root node, if its main node has not changed.
+	 *
+	 * @param ov
+	 *            expected root node
+	 * @param expectedMain
+	 *            expected main node of the root node
+	 * @param nv
+	 *            new root node
+	 * @return true if successful
+	 */
+	private boolean rdcssRoot(INode<T> ov, MainNode expectedMain, INode<T> nv) {
+		Descriptor<T> descriptor = new Descriptor<>(ov, expectedMain, nv);
+		if (ROOT.compareAndSet(this, ov, descriptor)) {
+			rdcssComplete(false);
+			return descriptor.committed;
+		}
+		return false;
+	}
+
+	/**
+	 * Complete or abort a pending root replacement.
+	 *
+	 * @param abort
+	 *            flag if the replacement should be aborted
+	 * @return root node afterwards
+	 */
+	@SuppressWarnings("unchecked")
+	private INode<T> rdcssComplete(boolean abort) {
+		while (true) {
+			Object r = root;
+			if (r instanceof INode) {
+				return (INode<T>) r;
+			}
+			Descriptor<T> descriptor = (Descriptor<T>) r;
+			if (abort) {
+				if (ROOT.compareAndSet(this, descriptor, descriptor.ov)) {
+					return descriptor.ov;
+				}
+				continue;
+			}
+			MainNode oldMain = gcasRead(descriptor.ov);
+			if (oldMain == descriptor.expectedMain) {
+				if (ROOT.compareAndSet(this, descriptor, descriptor.nv)) {
+					descriptor.committed = true;
+					return descriptor.nv;
+				}
+			} else if (ROOT.compareAndSet(this, descriptor, descriptor.ov)) {
+				return descriptor.ov;
+			}
+		}
+	}
+
+	/*
+	 * Node classes
+	 */
+
+	/**
+	 * Generation of indirection nodes (compared by identity).
+	 */
+	private static final class Gen {
+	}
+
+	/**
+	 * Node which can be referenced by an indirection node. The previous main
+	 * node is set while a GCAS is pending.
+	 */
+	private abstract static class MainNode {
+
+		volatile MainNode prev;
+
+	}
+
+	/**
+	 * Marker for a failed GCAS, holding the main node to be restored.
+	 */
+	private static final class FailedNode extends MainNode {
+
+		FailedNode(MainNode original) {
+			this.prev = original;
+		}
+
+	}
+
+	/**
+	 * Indirection node, whose main node is replaced on updates.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class INode<T extends Serializable> {
+
+		final Gen gen;
+
+		volatile MainNode main;
+
+		INode(Gen gen, MainNode main) {
+			this.gen = gen;
+			this.main = main;
+		}
+
+		/**
+		 * Copy this node into a new generation.
+		 *
+		 * @param newGen
+		 *            new generation
+		 * @param trie
+		 *            trie to read the main node
+		 * @return copy
+		 */
+		INode<T> copyToGen(Gen newGen, ConcurrentTrie<T> trie) {
+			return new INode<>(newGen, trie.gcasRead(this));
+		}
+
+	}
+
+	/**
+	 * Immutable node with the payload of its prefix and the branches sorted by
+	 * their first char.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class CNode<T extends Serializable> extends MainNode {
+
+		final T data;
+
+		final boolean inserted;
+
+		final char[] keys;
+
+		final Object[] branches;
+
+		CNode(T data, boolean inserted) {
+			this(data, inserted, Trie.EMPTY_CHAR_ARRAY, new Object[0]);
+		}
+
+		CNode(T data, boolean inserted, char[] keys, Object[] branches) {
+			this.data = data;
+			this.inserted = inserted;
+			this.keys = keys;
+			this.branches = branches;
+		}
+
+		/**
+		 * Find branch by binary search.
+		 *
+		 * @param c
+		 *            first char
+		 * @return index or (-(insertion point) - 1)
+		 */
+		int indexOf(char c) {
+			return Arrays.binarySearch(keys, c);
+		}
+
+		CNode<T> withData(T newData, boolean newInserted) {
+			return new CNode<>(newData, newInserted, keys, branches);
+		}
+
+		CNode<T> updated(int index, Object branch) {
+			Object[] newBranches = branches.clone();
+			newBranches[index] = branch;
+			return new CNode<>(data, inserted, keys, newBranches);
+		}
+
+		CNode<T> inserted(int index, char c, Object branch) {
+			char[] newKeys = new char[keys.length + 1];
+			Object[] newBranches = new Object[branches.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(branches, 0, newBranches, 0, index);
+			newKeys[index] = c;
+			newBranches[index] = branch;
+			System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+			System.arraycopy(branches, index, newBranches, index + 1, branches.length - index);
+			return new CNode<>(data, inserted, newKeys, newBranches);
+		}
+
+		CNode<T> removed(int index) {
+			char[] newKeys = new char[keys.length - 1];
+			Object[] newBranches = new Object[branches.length - 1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(branches, 0, newBranches, 0, index);
+			System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+			System.arraycopy(branches, index + 1, newBranches, index, branches.length - index - 1);
+			return new CNode<>(data, inserted, newKeys, newBranches);
+		}
+
+		/**
+		 * Copy this node with all indirection nodes copied into a new
+		 * generation.
+		 */
+		@SuppressWarnings("unchecked")
+		CNode<T> renewed(Gen gen, ConcurrentTrie<T> trie) {
+			Object[] newBranches = new Object[branches.length];
+			for (int i = 0; i < branches.length; i++) {
+				Object branch = branches[i];
+				newBranches[i] = branch instanceof INode ? ((INode<T>) branch).copyToGen(gen, trie) : branch;
+			}
+			return new CNode<>(data, inserted, keys, newBranches);
+		}
+
+		/**
+		 * Copy this node with all entombed indirection nodes replaced by their
+		 * leaves (or removed if they are empty).
+		 */
+		@SuppressWarnings("unchecked")
+		CNode<T> resurrected(ConcurrentTrie<T> trie) {
+			CNode<T> result = this;
+			for (int i = keys.length - 1; i >= 0; i--) {
+				Object branch = branches[i];
+				if (branch instanceof INode) {
+					MainNode m = trie.gcasRead((INode<T>) branch);
+					if (m instanceof TNode) {
+						SNode<T> sn = ((TNode<T>) m).sn;
+						result = sn == null ? result.removed(i) : result.updated(i, sn);
+					}
+				}
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Tomb node, which marks an indirection node to be merged into its parent.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class TNode<T extends Serializable> extends MainNode {
+
+		/**
+		 * Leaf which replaces the indirection node in the parent, or null if
+		 * the branch is removed.
+		 */
+		final SNode<T> sn;
+
+		TNode(SNode<T> sn) {
+			this.sn = sn;
+		}
+
+	}
+
+	/**
+	 * Immutable leaf with the remaining suffix of a single word.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class SNode<T extends Serializable> {
+
+		final char[] suffix;
+
+		final T data;
+
+		SNode(char[] suffix, T data) {
+			this.suffix = suffix;
+			this.data = data;
+		}
+
+		/**
+		 * Check if the suffix equals the rest of a word.
+		 */
+		boolean matches(char[] word, int pos) {
+			if (word.length - pos != suffix.length) {
+				return false;
+			}
+			for (int i = 0; i < suffix.length; i++) {
+				if (suffix[i] != word[pos + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Look up the rest of a word in the suffix.
+		 */
+		Object lookup(char[] word, int pos) {
+			if (word.length - pos > suffix.length) {
+				return NOT_FOUND;
+			}
+			for (int i = pos; i < word.length; i++) {
+				if (suffix[i - pos] != word[i]) {
+					return NOT_FOUND;
+				}
+			}
+			if (word.length - pos < suffix.length) {
+				return PREFIX_ONLY;
+			}
+			return data == null ? NULL_DATA : data;
+		}
+
+	}
+
+	/**
+	 * Descriptor of a pending root replacement.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Descriptor<T extends Serializable> {
+
+		final INode<T> ov;
+
+		final MainNode expectedMain;
+
+		final INode<T> nv;
+
+		volatile boolean committed;
+
+		Descriptor(INode<T> ov, MainNode expectedMain, INode<T> nv) {
+			this.ov = ov;
+			this.expectedMain = expectedMain;
+			this.nv = nv;
+		}
+
+	}
+
+}
@@ -0,0 +1,566 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable, minimal acyclic automaton (directed acyclic word graph), which
+ * shares common suffixes of the words as well as common prefixes. Dictionaries
+ * with many words of the same endings (e.g. inflected words or product codes)
+ * need much less memory than a {@link Trie}. <br>
+ * <br>
+ * The automaton is built incrementally from words in ascending order: after
+ * each word, the states which are not on the path of the next word any more
+ * are replaced by equivalent states which were already created, so the
+ * automaton is minimal at any time. Afterwards, the states and arcs are stored
+ * in flat arrays. <br>
+ * <br>
+ * As the states are shared, they cannot hold payload data. Instead, each arc
+ * has an output, and the sum of the outputs on the path of a word is the
+ * ordinal of the word in ascending order (minimal perfect hashing), which is
+ * the index of the payload data in a value array. <br>
+ * <br>
+ * Only read operations are supported, all modifying operations throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class Dawg<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = -6137720953101385026L;
+
+	/**
+	 * Index of the first arc of each state, the arcs of state i are in
+	 * [firstArc[i], firstArc[i + 1]).
+	 */
+	private final int[] firstArc;
+
+	/**
+	 * Flag for each state if a word ends in this state.
+	 */
+	private final boolean[] accepting;
+
+	/**
+	 * Label of each arc (ascending for the arcs of each state).
+	 */
+	private final char[] labels;
+
+	/**
+	 * Target state of each arc.
+	 */
+	private final int[] targets;
+
+	/**
+	 * Output of each arc: the number of words which are smaller than all
+	 * words using this arc and start in the same state.
+	 */
+	private final int[] outputs;
+
+	/**
+	 * Payload data of the words in ascending order of the words.
+	 */
+	private final Object[] values;
+
+	/**
+	 * Root state.
+	 */
+	private final int root;
+
+	/**
+	 * Depth of the equivalent {@link Trie}.
+	 */
+	private final int depth;
+
+	/**
+	 * Create a minimal automaton from a trie.
+	 *
+	 * @param trie
+	 *            trie
+	 */
+	public Dawg(Trie<T> trie) {
+		this(collect(trie));
+	}
+
+	/**
+	 * Create a minimal automaton from a builder.
+	 *
+	 * @param builder
+	 *            builder with all words
+	 */
+	private Dawg(Builder<T> builder) {
+		builder.finish();
+		ArrayList<State> states = builder.states;
+		int numStates = states.size();
+		int numArcs = 0;
+		for (State state : states) {
+			numArcs += state.numArcs;
+		}
+
+		this.firstArc = new int[numStates + 1];
+		this.accepting = new boolean[numStates];
+		this.labels = new char[numArcs];
+		this.targets = new int[numArcs];
+		this.outputs = new int[numArcs];
+
+		// States are numbered after all of their targets, so the word counts
+		// and depths can be calculated in one pass
+		int[] wordCounts = new int[numStates];
+		int[] depths = new int[numStates];
+		int arc = 0;
+		for (int i = 0; i < numStates; i++) {
+			State state = states.get(i);
+			firstArc[i] = arc;
+			accepting[i] = state.accepting;
+			int wordCount = state.accepting ? 1 : 0;
+			int stateDepth = 0;
+			for (int j = 0; j < state.numArcs; j++) {
+				int target = state.targets[j].id;
+				labels[arc] = state.labels[j];
+				targets[arc] = target;
+				outputs[arc] = wordCount;
+				wordCount += wordCounts[target];
+				// A node of the trie ends in each state without exactly one arc
+				boolean nodeEnd = accepting[target] || firstArc[target + 1] - firstArc[target] != 1;
+				stateDepth = Math.max(stateDepth, depths[target] + (nodeEnd ? 1 : 0));
+				arc++;
+			}
+			wordCounts[i] = wordCount;
+			depths[i] = stateDepth;
+		}
+		firstArc[numStates] = arc;
+
+		this.root = numStates - 1;
+		this.depth = depths[root];
+		this.values = builder.values.toArray();
+	}
+
+	/**
+	 * Create a minimal automaton from entries sorted in ascending order of
+	 * their keys.
+	 *
+	 * @param entries
+	 *            iterator over the sorted entries (key and payload data)
+	 * @return minimal automaton
+	 * @throws IllegalArgumentException
+	 *             if the entries are not sorted
+	 */
+	public static <T extends Serializable> Dawg<T> fromSorted(Iterator<? extends Map.Entry<String, T>> entries) {
+		Builder<T> builder = new Builder<>();
+		while (entries.hasNext()) {
+			Map.Entry<String, T> entry = entries.next();
+			builder.add(entry.getKey().toCharArray(), entry.getValue());
+		}
+		return new Dawg<>(builder);
+	}
+
+	/**
+	 * Add all words of a trie to a builder in ascending order.
+	 *
+	 * @param trie
+	 *            trie
+	 * @return builder
+	 */
+	private static <T extends Serializable> Builder<T> collect(Trie<T> trie) {
+		Builder<T> builder = new Builder<>();
+		Iterator<Map.Entry<String, T>> entries = trie.entryIterator("", Integer.MAX_VALUE);
+		while (entries.hasNext()) {
+			Map.Entry<String, T> entry = entries.next();
+			builder.add(entry.getKey().toCharArray(), entry.getValue());
+		}
+		return builder;
+	}
+
+	/**
+	 * Get the number of words.
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Get the number of states of the automaton.
+	 *
+	 * @return number of states
+	 */
+	public int getStateCount() {
+		return accepting.length;
+	}
+
+	/**
+	 * Get the number of arcs of the automaton.
+	 *
+	 * @return number of arcs
+	 */
+	public int getArcCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Get the size of the arrays of the automaton (without the payload data
+	 * objects).
+	 *
+	 * @return size in bytes
+	 */
+	public long sizeInBytes() {
+		return 4L * firstArc.length + accepting.length + 10L * labels.length + 4L * values.length;
+	}
+
+	/**
+	 * Get the ordinal of a word, which is the number of smaller words in the
+	 * automaton.
+	 *
+	 * @param word
+	 *            word
+	 * @return ordinal of the word in [0, size()), or -1 if the word is not
+	 *         contained
+	 */
+	public int ordinal(char[] word) {
+		int state = root;
+		int ordinal = 0;
+		for (char c : word) {
+			int arc = findArc(state, c);
+			if (arc < 0) {
+				return -1;
+			}
+			ordinal += outputs[arc];
+			state = targets[arc];
+		}
+		return accepting[state] ? ordinal : -1;
+	}
+
+	/**
+	 * Get the ordinal of a word, which is the number of smaller words in the
+	 * automaton.
+	 *
+	 * @param word
+	 *            word
+	 * @return ordinal of the word in [0, size()), or -1 if the word is not
+	 *         contained
+	 */
+	public int ordinal(String word) {
+		return ordinal(word.toCharArray());
+	}
+
+	/**
+	 * Get the word with a given ordinal.
+	 *
+	 * @param ordinal
+	 *            ordinal in [0, size())
+	 * @return word
+	 * @throws IndexOutOfBoundsException
+	 *             if the ordinal is out of range
+	 */
+	public String getWord(int ordinal) {
+		if (ordinal < 0 || ordinal >= values.length) {
+			throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of range [0, " + values.length + ")");
+		}
+		StringBuilder word = new StringBuilder();
+		int state = root;
+		int remaining = ordinal;
+		while (!accepting[state] || remaining > 0) {
+			// Take the last arc whose output does not exceed the ordinal
+			int arc = firstArc[state + 1] - 1;
+			while (outputs[arc] > remaining) {
+				arc--;
+			}
+			remaining -= outputs[arc];
+			word.append(labels[arc]);
+			state = targets[arc];
+		}
+		return word.toString();
+	}
+
+	/**
+	 * Find the arc of a state with a given label.
+	 *
+	 * @param state
+	 *            state
+	 * @param c
+	 *            label
+	 * @return arc index or -1 if there is no arc with the label
+	 */
+	private int findArc(int state, char c) {
+		int low = firstArc[state];
+		int high = firstArc[state + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = labels[mid];
+			if (label < c) {
+				low = mid + 1;
+			} else if (label > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Read operations
+	 */
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		int state = root;
+		for (char c : word) {
+			int arc = findArc(state, c);
+			if (arc < 0) {
+				return false;
+			}
+			state = targets[arc];
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		return ordinal(word) >= 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getData(char[] word) {
+		int ordinal = ordinal(word);
+		return ordinal < 0 ? null : (T) values[ordinal];
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	/*
+	 * Write operations (not supported)
+	 */
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		throw new UnsupportedOperationException("Dawg is immutable");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("Dawg is immutable");
+	}
+
+	@Override
+	public void delete(char[] word) {
+		throw new UnsupportedOperationException("Dawg is immutable");
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		throw new UnsupportedOperationException("Dawg is immutable");
+	}
+
+	@Override
+	public String toString() {
+		return "Dawg [states=" + accepting.length + ", arcs=" + labels.length + ", words=" + values.length + "]";
+	}
+
+	/**
+	 * Incremental construction of the minimal automaton from sorted words
+	 * (Daciuk et al.). Only the states on the path of the last added word can
+	 * still change; all other states are registered by their signature, so
+	 * equivalent states are only stored once.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static class Builder<T> {
+
+		/**
+		 * Registered (final) states in the order of registration, so each
+		 * state comes after all of its targets.
+		 */
+		private final ArrayList<State> states = new ArrayList<>();
+
+		/**
+		 * Registered states by their signature.
+		 */
+		private final HashMap<State, State> register = new HashMap<>();
+
+		/**
+		 * Payload data of the words in ascending order.
+		 */
+		private final ArrayList<T> values = new ArrayList<>();
+
+		/**
+		 * States on the path of the last added word, the root state first.
+		 */
+		private State[] path = { new State() };
+
+		/**
+		 * Last added word (or null if no word was added yet).
+		 */
+		private char[] previousWord = null;
+
+		/**
+		 * Add the next word.
+		 *
+		 * @param word
+		 *            word, which must not be smaller than the last added word
+		 * @param data
+		 *            payload data
+		 */
+		private void add(char[] word, T data) {
+			int commonLength = 0;
+			if (previousWord != null) {
+				int maxLength = Math.min(word.length, previousWord.length);
+				while (commonLength < maxLength && word[commonLength] == previousWord[commonLength]) {
+					commonLength++;
+				}
+				if (commonLength < maxLength ? word[commonLength] < previousWord[commonLength]
+						: word.length < previousWord.length) {
+					throw new IllegalArgumentException("Keys not sorted: " + String.valueOf(previousWord) + " > "
+							+ String.valueOf(word));
+				}
+				if (commonLength == word.length && word.length == previousWord.length) {
+					// Same word again: replace payload data
+					values.set(values.size() - 1, data);
+					return;
+				}
+				replaceOrRegister(commonLength);
+			}
+
+			// Append new states for the suffix
+			if (path.length <= word.length) {
+				path = Arrays.copyOf(path, Math.max(word.length + 1, path.length * 2));
+			}
+			for (int i = commonLength; i < word.length; i++) {
+				State state = new State();
+				path[i].addArc(word[i], state);
+				path[i + 1] = state;
+			}
+			path[word.length].accepting = true;
+			values.add(data);
+			previousWord = word;
+		}
+
+		/**
+		 * Register the states on the path of the last added word below a given
+		 * depth, or replace them with equivalent registered states.
+		 *
+		 * @param depth
+		 *            depth of the last state which stays on the path
+		 */
+		private void replaceOrRegister(int depth) {
+			for (int i = previousWord.length; i > depth; i--) {
+				State state = path[i];
+				State registered = register.get(state);
+				if (registered != null) {
+					path[i - 1].targets[path[i - 1].numArcs - 1] = registered;
+				} else {
+					state.id = states.size();
+					states.add(state);
+					register.put(state, state);
+				}
+				path[i] = null;
+			}
+		}
+
+		/**
+		 * Register all states including the root state.
+		 */
+		private void finish() {
+			if (previousWord != null) {
+				replaceOrRegister(0);
+			}
+			State rootState = path[0];
+			rootState.id = states.size();
+			states.add(rootState);
+			register.clear();
+		}
+
+	}
+
+	/**
+	 * State of the automaton during construction. States are equal if they
+	 * have the same acceptance and the same arcs to the same registered
+	 * states.
+	 */
+	private static class State {
+
+		/**
+		 * Number of the state (after registration).
+		 */
+		private int id = -1;
+
+		/**
+		 * Flag if a word ends in this state.
+		 */
+		private boolean accepting;
+
+		/**
+		 * Labels of the arcs (ascending).
+		 */
+		private char[] labels = new char[1];
+
+		/**
+		 * Targets of the arcs.
+		 */
+		private State[] targets = new State[1];
+
+		/**
+		 * Number of arcs.
+		 */
+		private int numArcs;
+
+		/**
+		 * Append an arc (labels are added in ascending order).
+		 *
+		 * @param label
+		 *            label
+		 * @param target
+		 *            target state
+		 */
+		private void addArc(char label, State target) {
+			if (numArcs == labels.length) {
+				labels = Arrays.copyOf(labels, numArcs * 2);
+				targets = Arrays.copyOf(targets, numArcs * 2);
+			}
+			labels[numArcs] = label;
+			targets[numArcs] = target;
+			numArcs++;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = accepting ? 1 : 0;
+			for (int i = 0; i < numArcs; i++) {
+				hash = 31 * (31 * hash + labels[i]) + targets[i].id;
+			}
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof State)) {
+				return false;
+			}
+			State other = (State) obj;
+			if (accepting != other.accepting || numArcs != other.numArcs) {
+				return false;
+			}
+			for (int i = 0; i < numArcs; i++) {
+				if (labels[i] != other.labels[i] || targets[i] != other.targets[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
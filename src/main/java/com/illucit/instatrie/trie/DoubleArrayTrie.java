@@ -0,0 +1,394 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable double-array trie for read-heavy workloads. The trie is stored with
+ * one state per character in the two integer arrays BASE and CHECK: the
+ * transition from state s with character c leads to state t = BASE[s] +
+ * code(c), which is only valid if CHECK[t] refers to s. So each character of a
+ * lookup costs two array reads. The characters are mapped to dense codes
+ * through a lookup table, which covers the range up to the largest character
+ * in the trie. <br>
+ * <br>
+ * Only the read operations of {@link PrefixDictionary} are supported, all
+ * write operations throw an {@link UnsupportedOperationException}. Since the
+ * structure is immutable, it can be accessed by multiple concurrent threads.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class DoubleArrayTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = 8052631693460813371L;
+
+	/**
+	 * Dense code (starting with 1) for each character, or 0 if the character
+	 * does not occur in the trie.
+	 */
+	private final int[] codes;
+
+	/**
+	 * Offset of the transitions of each state.
+	 */
+	private final int[] base;
+
+	/**
+	 * Parent state of each state plus 1, or 0 for unused entries.
+	 */
+	private final int[] check;
+
+	/**
+	 * Index of the payload of each state plus 1, or 0 if the state does not
+	 * represent an inserted word.
+	 */
+	private final int[] payloadIndex;
+
+	/**
+	 * Payload data of all inserted words.
+	 */
+	private final Object[] payloads;
+
+	/**
+	 * Depth of the trie this instance was created from.
+	 */
+	private final int depth;
+
+	/**
+	 * Create a double-array copy of a trie.
+	 *
+	 * @param trie
+	 *            source trie
+	 */
+	public DoubleArrayTrie(Trie<T> trie) {
+		this.codes = createCodes(trie);
+		int maxCode = 0;
+		for (int code : this.codes) {
+			maxCode = Math.max(maxCode, code);
+		}
+
+		int[] base = new int[1024];
+		int[] check = new int[1024];
+		int[] payloadIndex = new int[1024];
+		Object[] payloads = new Object[16];
+		int numPayloads = 0;
+		int size = 1; // largest used state plus 1
+		int searchStart = 1; // first position to search for a free base
+		int[] childCodes = new int[maxCode + 1];
+
+		// Breadth-first search over all characters: the id of an entry is its
+		// state, whose transitions get placed when it is removed from the queue
+		CharNodeQueue<T> queue = new CharNodeQueue<>(trie, 0);
+		while (!queue.isEmpty()) {
+			TrieNode<T> node = queue.node();
+			int offset = queue.offset();
+			int state = queue.id();
+			boolean nodeEnd = queue.isNodeEnd();
+			queue.remove();
+
+			if (nodeEnd && node.isInserted()) {
+				if (numPayloads == payloads.length) {
+					payloads = Arrays.copyOf(payloads, numPayloads * 2);
+				}
+				payloads[numPayloads++] = node.getData();
+				payloadIndex[state] = numPayloads;
+			}
+
+			// Collect codes of all outgoing transitions
+			char[] chars = node.getChars();
+			int numChildren = 0;
+			if (!nodeEnd) {
+				childCodes[numChildren++] = this.codes[chars[offset + 1]];
+			} else {
+				for (TrieNode<T> son : node.children()) {
+					childCodes[numChildren++] = this.codes[son.getFirstChar()];
+				}
+			}
+			if (numChildren == 0) {
+				continue;
+			}
+
+			// Find base where all transitions are free, beginning at the
+			// first free position
+			int position = searchStart;
+			int occupied = 0;
+			int stateBase;
+			while (true) {
+				if (position >= check.length || check[position] == 0) {
+					stateBase = position - childCodes[0];
+					if (stateBase >= 1 && fits(check, stateBase, childCodes, numChildren)) {
+						break;
+					}
+				} else {
+					occupied++;
+				}
+				position++;
+			}
+			// Skip densely filled regions in future searches
+			if (occupied >= 0.95 * (position - searchStart + 1)) {
+				searchStart = position;
+			}
+
+			int required = stateBase + childCodes[numChildren - 1] + 1;
+			if (required > check.length) {
+				int capacity = Math.max(required, check.length * 2);
+				base = Arrays.copyOf(base, capacity);
+				check = Arrays.copyOf(check, capacity);
+				payloadIndex = Arrays.copyOf(payloadIndex, capacity);
+			}
+			size = Math.max(size, required);
+
+			base[state] = stateBase;
+			for (int i = 0; i < numChildren; i++) {
+				check[stateBase + childCodes[i]] = state + 1;
+			}
+			if (!nodeEnd) {
+				queue.add(node, offset + 1, stateBase + childCodes[0]);
+			} else {
+				int i = 0;
+				for (TrieNode<T> son : node.children()) {
+					queue.add(son, 0, stateBase + childCodes[i++]);
+				}
+			}
+		}
+
+		this.base = Arrays.copyOf(base, size);
+		this.check = Arrays.copyOf(check, size);
+		this.payloadIndex = Arrays.copyOf(payloadIndex, size);
+		this.payloads = Arrays.copyOf(payloads, numPayloads);
+		this.depth = trie.getDepth();
+	}
+
+	/**
+	 * Create a double-array trie from entries sorted in ascending order of
+	 * their keys.
+	 *
+	 * @param entries
+	 *            iterator over the sorted entries (key and payload data)
+	 * @return double-array trie
+	 * @throws IllegalArgumentException
+	 *             if the entries are not sorted
+	 */
+	public static <T extends Serializable> DoubleArrayTrie<T> fromSorted(
+			Iterator<? extends Map.Entry<String, T>> entries) {
+		return new DoubleArrayTrie<>(Trie.buildFromSorted(entries));
+	}
+
+	/**
+	 * Assign dense codes to all characters occurring in a trie, in ascending
+	 * order of the characters.
+	 *
+	 * @param trie
+	 *            trie
+	 * @return code table
+	 */
+	private static <T extends Serializable> int[] createCodes(Trie<T> trie) {
+		boolean[] used = new boolean[Character.MAX_VALUE + 1];
+		int maxChar = -1;
+		for (TrieNode<T> node : trie.getRoot().descendants()) {
+			for (char c : node.getChars()) {
+				used[c] = true;
+				maxChar = Math.max(maxChar, c);
+			}
+		}
+		int[] codes = new int[maxChar + 1];
+		int nextCode = 1;
+		for (int c = 0; c <= maxChar; c++) {
+			if (used[c]) {
+				codes[c] = nextCode++;
+			}
+		}
+		return codes;
+	}
+
+	/**
+	 * Check if all transitions from a base are free.
+	 *
+	 * @param check
+	 *            check array (positions beyond its length are free)
+	 * @param base
+	 *            base offset
+	 * @param childCodes
+	 *            codes of the transitions
+	 * @param numChildren
+	 *            number of transitions
+	 * @return true if all transitions are free
+	 */
+	private static boolean fits(int[] check, int base, int[] childCodes, int numChildren) {
+		for (int i = 0; i < numChildren; i++) {
+			int position = base + childCodes[i];
+			if (position < check.length && check[position] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of inserted words.
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return payloads.length;
+	}
+
+	/**
+	 * Get the approximate size of this structure in memory (without the
+	 * payload objects themselves).
+	 *
+	 * @return size in bytes
+	 */
+	public long sizeInBytes() {
+		return 4L * (codes.length + base.length + check.length + payloadIndex.length + payloads.length);
+	}
+
+	/*
+	 * Read operations
+	 */
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getState(word, null, 0, word.length) >= 0;
+	}
+
+	@Override
+	public boolean containsPrefix(char[] word, int startIndex, int endIndex) {
+		return getState(word, null, startIndex, endIndex) >= 0;
+	}
+
+	@Override
+	public boolean containsPrefix(CharSequence word, int startIndex, int endIndex) {
+		return getState(null, word, startIndex, endIndex) >= 0;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		return getPayloadIndex(getState(word, null, 0, word.length)) != 0;
+	}
+
+	@Override
+	public boolean contains(char[] word, int startIndex, int endIndex) {
+		return getPayloadIndex(getState(word, null, startIndex, endIndex)) != 0;
+	}
+
+	@Override
+	public boolean contains(CharSequence word, int startIndex, int endIndex) {
+		return getPayloadIndex(getState(null, word, startIndex, endIndex)) != 0;
+	}
+
+	@Override
+	public T getData(char[] word) {
+		return getPayload(getPayloadIndex(getState(word, null, 0, word.length)));
+	}
+
+	@Override
+	public T getData(char[] word, int startIndex, int endIndex) {
+		return getPayload(getPayloadIndex(getState(word, null, startIndex, endIndex)));
+	}
+
+	@Override
+	public T getData(CharSequence word, int startIndex, int endIndex) {
+		return getPayload(getPayloadIndex(getState(null, word, startIndex, endIndex)));
+	}
+
+	/**
+	 * Get the payload index of a state.
+	 *
+	 * @param state
+	 *            state or -1
+	 * @return payload index + 1, or 0 if no word ends in the state
+	 */
+	private int getPayloadIndex(int state) {
+		return state < 0 ? 0 : payloadIndex[state];
+	}
+
+	/**
+	 * Get payload data.
+	 *
+	 * @param index
+	 *            payload index + 1, or 0 if no word ends in the state
+	 * @return payload data or null
+	 */
+	@SuppressWarnings("unchecked")
+	private T getPayload(int index) {
+		return index == 0 ? null : (T) payloads[index - 1];
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Find the state which represents a substring of a word, which is given
+	 * either as char array or as char sequence.
+	 *
+	 * @param chars
+	 *            word as char array (or null)
+	 * @param sequence
+	 *            word as char sequence (if chars is null)
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return state, or -1 if not found
+	 */
+	private int getState(char[] chars, CharSequence sequence, int startIndex, int endIndex) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		final int[] codes = this.codes;
+		final int[] base = this.base;
+		final int[] check = this.check;
+		int state = 0;
+		for (int i = startIndex; i < endIndex; i++) {
+			final char c = chars != null ? chars[i] : sequence.charAt(i);
+			if (c >= codes.length || codes[c] == 0) {
+				return -1;
+			}
+			int next = base[state] + codes[c];
+			if (next >= check.length || check[next] != state + 1) {
+				return -1;
+			}
+			state = next;
+		}
+		return state;
+	}
+
+	/*
+	 * Write operations (not supported)
+	 */
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		throw new UnsupportedOperationException("DoubleArrayTrie is immutable");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("DoubleArrayTrie is immutable");
+	}
+
+	@Override
+	public void delete(char[] word) {
+		throw new UnsupportedOperationException("DoubleArrayTrie is immutable");
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		throw new UnsupportedOperationException("DoubleArrayTrie is immutable");
+	}
+
+	@Override
+	public String toString() {
+		return "DoubleArrayTrie [states=" + base.length + ", words=" + payloads.length + "]";
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+
+/**
+ * Word found by a fuzzy search (see
+ * {@link Trie#fuzzySearch(CharSequence, int)} and
+ * {@link Trie#fuzzyPrefixSearch(CharSequence, int)}) together with its
+ * payload data and edit distance.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class FuzzyMatch<T extends Serializable> {
+
+	private final String word;
+
+	private final T data;
+
+	private final int distance;
+
+	/**
+	 * Create match.
+	 *
+	 * @param word
+	 *            found word
+	 * @param data
+	 *            payload data of the word
+	 * @param distance
+	 *            edit distance
+	 */
+	FuzzyMatch(String word, T data, int distance) {
+		this.word = word;
+		this.data = data;
+		this.distance = distance;
+	}
+
+	/**
+	 * Get the found word.
+	 *
+	 * @return word
+	 */
+	public String getWord() {
+		return word;
+	}
+
+	/**
+	 * Get the payload data of the found word.
+	 *
+	 * @return payload data
+	 */
+	public T getData() {
+		return data;
+	}
+
+	/**
+	 * Get the edit distance (Levenshtein distance) between the query and the
+	 * found word (or the closest prefix of the found word for a prefix search).
+	 *
+	 * @return edit distance
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	@Override
+	public String toString() {
+		return word + " (" + distance + ")";
+	}
+
+}
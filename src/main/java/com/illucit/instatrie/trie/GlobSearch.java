@@ -0,0 +1,304 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search for all words of a {@link Trie} matching a wildcard pattern. The
+ * pattern is compiled into a nondeterministic automaton with one state per
+ * pattern position, which is run along the node paths during a depth-first
+ * traversal of the trie. A subtree is skipped as soon as no state of the
+ * automaton is active any more, so e.g. for the pattern
+ * <code>SKU-??-1*</code> only the subtree of <code>SKU-</code> is visited.
+ * <br>
+ * <br>
+ * The pattern syntax is:
+ * <ul>
+ * <li><code>?</code> matches any single character</li>
+ * <li><code>*</code> matches any sequence of characters (including the empty
+ * sequence)</li>
+ * <li><code>[abc]</code>, <code>[a-z0-9]</code> match one of the given
+ * characters or ranges, <code>[!abc]</code> or <code>[^abc]</code> any other
+ * character</li>
+ * <li><code>\</code> escapes the following character</li>
+ * </ul>
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+final class GlobSearch<T extends Serializable> {
+
+	private static final byte LITERAL = 0;
+
+	private static final byte ANY = 1;
+
+	private static final byte STAR = 2;
+
+	private static final byte CLASS = 3;
+
+	/**
+	 * Type of each pattern token.
+	 */
+	private final byte[] types;
+
+	/**
+	 * Character of each literal token.
+	 */
+	private final char[] literals;
+
+	/**
+	 * Ranges (pairs of first and last character) of each class token.
+	 */
+	private final char[][] ranges;
+
+	/**
+	 * Flag for each class token, if the class is negated.
+	 */
+	private final boolean[] negated;
+
+	/**
+	 * Number of tokens (the accepting state).
+	 */
+	private final int length;
+
+	/**
+	 * Active states for each length of the current word.
+	 */
+	private boolean[][] states = new boolean[16][];
+
+	/**
+	 * Buffer containing the current word.
+	 */
+	private char[] word = new char[16];
+
+	private final List<Map.Entry<String, T>> result = new ArrayList<>();
+
+	/**
+	 * Compile a pattern.
+	 *
+	 * @param pattern
+	 *            wildcard pattern
+	 * @throws IllegalArgumentException
+	 *             if the pattern is invalid
+	 */
+	GlobSearch(CharSequence pattern) {
+		final int patternLength = pattern.length();
+		byte[] tokenTypes = new byte[patternLength];
+		char[] tokenLiterals = new char[patternLength];
+		char[][] tokenRanges = new char[patternLength][];
+		boolean[] tokenNegated = new boolean[patternLength];
+		int count = 0;
+		int pos = 0;
+		while (pos < patternLength) {
+			char c = pattern.charAt(pos++);
+			switch (c) {
+			case '?':
+				tokenTypes[count] = ANY;
+				break;
+			case '*':
+				if (count > 0 && tokenTypes[count - 1] == STAR) {
+					// Collapse multiple stars
+					continue;
+				}
+				tokenTypes[count] = STAR;
+				break;
+			case '[':
+				tokenTypes[count] = CLASS;
+				if (pos < patternLength && (pattern.charAt(pos) == '!' || pattern.charAt(pos) == '^')) {
+					tokenNegated[count] = true;
+					pos++;
+				}
+				StringBuilder classRanges = new StringBuilder();
+				boolean closed = false;
+				while (pos < patternLength) {
+					char first = pattern.charAt(pos++);
+					if (first == ']' && classRanges.length() > 0) {
+						closed = true;
+						break;
+					}
+					if (first == '\\' && pos < patternLength) {
+						first = pattern.charAt(pos++);
+					}
+					char last = first;
+					if (pos + 1 < patternLength && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+						last = pattern.charAt(pos + 1);
+						pos += 2;
+						if (last == '\\' && pos < patternLength) {
+							last = pattern.charAt(pos++);
+						}
+						if (last < first) {
+							throw new IllegalArgumentException("Invalid range " + first + "-" + last + " in pattern: "
+									+ pattern);
+						}
+					}
+					classRanges.append(first).append(last);
+				}
+				if (!closed) {
+					throw new IllegalArgumentException("Unclosed character class in pattern: " + pattern);
+				}
+				tokenRanges[count] = classRanges.toString().toCharArray();
+				break;
+			case '\\':
+				if (pos == patternLength) {
+					throw new IllegalArgumentException("Incomplete escape sequence in pattern: " + pattern);
+				}
+				tokenTypes[count] = LITERAL;
+				tokenLiterals[count] = pattern.charAt(pos++);
+				break;
+			default:
+				tokenTypes[count] = LITERAL;
+				tokenLiterals[count] = c;
+				break;
+			}
+			count++;
+		}
+		this.types = tokenTypes;
+		this.literals = tokenLiterals;
+		this.ranges = tokenRanges;
+		this.negated = tokenNegated;
+		this.length = count;
+	}
+
+	/**
+	 * Run the search.
+	 *
+	 * @param root
+	 *            root node of the trie
+	 * @return matching words with payload data, in ascending order
+	 */
+	List<Map.Entry<String, T>> run(TrieNode<T> root) {
+		boolean[] initial = new boolean[length + 1];
+		initial[0] = true;
+		close(initial);
+		states[0] = initial;
+		if (root.isInserted() && initial[length]) {
+			result.add(new AbstractMap.SimpleImmutableEntry<>("", root.getData()));
+		}
+		for (TrieNode<T> son = root.getFirstSon(); son != null; son = son.getNextBrother()) {
+			search(son, 0);
+		}
+		return result;
+	}
+
+	/**
+	 * Search the subtree of a node.
+	 *
+	 * @param node
+	 *            node
+	 * @param wordLength
+	 *            length of the word before the path of the node
+	 */
+	private void search(TrieNode<T> node, int wordLength) {
+		final char[] chars = node.getChars();
+		final int end = wordLength + chars.length;
+		if (end >= word.length) {
+			word = Arrays.copyOf(word, Math.max(word.length * 2, end + 1));
+			states = Arrays.copyOf(states, word.length);
+		}
+		System.arraycopy(chars, 0, word, wordLength, chars.length);
+
+		for (int i = wordLength; i < end; i++) {
+			boolean[] next = states[i + 1];
+			if (next == null) {
+				next = new boolean[length + 1];
+				states[i + 1] = next;
+			}
+			if (!step(states[i], word[i], next)) {
+				// No word in the subtree can match
+				return;
+			}
+		}
+
+		if (node.isInserted() && states[end][length]) {
+			result.add(new AbstractMap.SimpleImmutableEntry<>(new String(word, 0, end), node.getData()));
+		}
+		for (TrieNode<T> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+			search(son, end);
+		}
+	}
+
+	/**
+	 * Calculate the active states after consuming a character.
+	 *
+	 * @param current
+	 *            active states before the character
+	 * @param c
+	 *            character
+	 * @param next
+	 *            target for the active states after the character
+	 * @return true if any state is active
+	 */
+	private boolean step(boolean[] current, char c, boolean[] next) {
+		Arrays.fill(next, false);
+		boolean active = false;
+		for (int i = 0; i < length; i++) {
+			if (!current[i]) {
+				continue;
+			}
+			switch (types[i]) {
+			case STAR:
+				next[i] = true;
+				active = true;
+				break;
+			case ANY:
+				next[i + 1] = true;
+				active = true;
+				break;
+			case LITERAL:
+				if (literals[i] == c) {
+					next[i + 1] = true;
+					active = true;
+				}
+				break;
+			default:
+				if (inClass(i, c)) {
+					next[i + 1] = true;
+					active = true;
+				}
+				break;
+			}
+		}
+		close(next);
+		return active;
+	}
+
+	/**
+	 * Add the states reachable without consuming a character (skipping stars
+	 * which match the empty sequence).
+	 *
+	 * @param active
+	 *            active states
+	 */
+	private void close(boolean[] active) {
+		for (int i = 0; i < length; i++) {
+			if (active[i] && types[i] == STAR) {
+				active[i + 1] = true;
+			}
+		}
+	}
+
+	/**
+	 * Check if a character matches a class token.
+	 *
+	 * @param token
+	 *            index of the class token
+	 * @param c
+	 *            character
+	 * @return true if the character matches
+	 */
+	private boolean inClass(int token, char c) {
+		final char[] tokenRanges = ranges[token];
+		boolean found = false;
+		for (int i = 0; i < tokenRanges.length && !found; i += 2) {
+			found = c >= tokenRanges[i] && c <= tokenRanges[i + 1];
+		}
+		return found != negated[token];
+	}
+
+}
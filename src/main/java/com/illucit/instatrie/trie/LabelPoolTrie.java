@@ -0,0 +1,556 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Trie data structure with the same semantics as {@link Trie}, but the paths
+ * of the nodes are not stored in a separate char array per node. Instead, all
+ * paths are appended to large shared char array pages, and each node only
+ * keeps the page with its offset and length. This saves the array header and
+ * padding of each path, and a node split only adjusts offsets and lengths
+ * without copying any characters. Paths of single characters in Latin-1 range
+ * are shared like in {@link TrieNode}. <br>
+ * <br>
+ * Characters of paths which are no longer used after a delete operation are
+ * only released as a whole by {@link #clear()}. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class LabelPoolTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = -4407152860394262125L;
+
+	/**
+	 * Number of chars in each page.
+	 */
+	private static final int PAGE_SIZE = 1 << 16;
+
+	/**
+	 * Paths longer than this get their own array instead of a part of a page,
+	 * so at most this many chars are wasted at the end of a page.
+	 */
+	private static final int MAX_PAGED_LENGTH = PAGE_SIZE >> 4;
+
+	/**
+	 * Shared page with all Latin-1 characters for paths of single characters.
+	 */
+	private static final char[] LATIN1_PAGE = new char[256];
+
+	static {
+		for (char c = 0; c < 256; c++) {
+			LATIN1_PAGE[c] = c;
+		}
+	}
+
+	/**
+	 * Root node of the tree.
+	 */
+	private final Node<T> root = new Node<>(LATIN1_PAGE, 0, 0, null, null, null, false);
+
+	/**
+	 * Current page to append paths to.
+	 */
+	private char[] page;
+
+	/**
+	 * Number of used chars in the current page.
+	 */
+	private int pageUsed;
+
+	/**
+	 * Number of chars allocated for paths.
+	 */
+	private long poolChars;
+
+	/**
+	 * Create empty trie.
+	 */
+	public LabelPoolTrie() {
+		clear();
+	}
+
+	@Override
+	public void clear() {
+		root.firstSon = null;
+		root.data = null;
+		root.inserted = false;
+		page = new char[0];
+		pageUsed = 0;
+		poolChars = 0;
+	}
+
+	/**
+	 * Get the number of chars allocated for the paths of the nodes (including
+	 * unused chars at the end of the pages).
+	 *
+	 * @return number of chars
+	 */
+	public long getPoolChars() {
+		return poolChars;
+	}
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		Node<T> node = insertNode(word, startIndex, endIndex);
+		node.data = data;
+		node.inserted = true;
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		Node<T> node = insertNode(word, 0, word.length);
+		node.data = updateFunction.apply(node.data);
+		node.inserted = true;
+	}
+
+	/**
+	 * Find or create the node which represents the given word.
+	 *
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return node for the word
+	 */
+	private Node<T> insertNode(char[] word, int startIndex, int endIndex) {
+		int wordPos = startIndex; // current position in word
+		Node<T> node = root; // current node
+
+		// Descend in tree
+		while (wordPos < endIndex) {
+
+			// First character to search for in children
+			final char firstChar = word[wordPos];
+
+			// find son to insert after or below
+			Node<T> previousSon = null;
+			Node<T> currSon = node.firstSon;
+			while (currSon != null && currSon.getFirstChar() < firstChar) {
+				previousSon = currSon;
+				currSon = currSon.nextBrother;
+			}
+
+			if (currSon == null || currSon.getFirstChar() > firstChar) {
+				// insert new node between previous and current son
+				Node<T> insertedNode = newNode(word, wordPos, endIndex, currSon);
+				link(node, previousSon, insertedNode);
+				return insertedNode;
+			}
+
+			// Find matching chars in path of current node
+			final char[] sonPage = currSon.page;
+			final int sonOffset = currSon.offset;
+			final int sonLength = currSon.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < endIndex && sonPage[sonOffset + sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos == sonLength) {
+				// Node matches completely, continue to descend
+				node = currSon;
+				continue;
+			}
+
+			// Split node: the sub node takes over the rest of the path (in the
+			// same page), the children and the data of the splitted node
+			Node<T> splittedSubNode = new Node<>(sonPage, sonOffset + sonPos, sonLength - sonPos, null,
+					currSon.firstSon, currSon.data, currSon.inserted);
+			Node<T> newWordNode = null;
+			Node<T> newFirstSon = splittedSubNode;
+			if (wordPos < endIndex) {
+				newWordNode = newNode(word, wordPos, endIndex, null);
+				if (sonPage[sonOffset + sonPos] < word[wordPos]) {
+					splittedSubNode.nextBrother = newWordNode;
+				} else {
+					newWordNode.nextBrother = splittedSubNode;
+					newFirstSon = newWordNode;
+				}
+			}
+			currSon.length = sonPos;
+			currSon.firstSon = newFirstSon;
+			currSon.data = null;
+			currSon.inserted = false;
+			return newWordNode != null ? newWordNode : currSon;
+		}
+		return node;
+	}
+
+	/**
+	 * Link a node into the list of children of a parent node.
+	 *
+	 * @param parent
+	 *            parent node
+	 * @param previousSon
+	 *            son to link the node after (or null to link it as first son)
+	 * @param newNode
+	 *            new node (or the next brother of a removed son)
+	 */
+	private static <T extends Serializable> void link(Node<T> parent, Node<T> previousSon, Node<T> newNode) {
+		if (previousSon == null) {
+			parent.firstSon = newNode;
+		} else {
+			previousSon.nextBrother = newNode;
+		}
+	}
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getNode(word, false) != null;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		Node<T> node = getNode(word, true);
+		return node != null && node.inserted;
+	}
+
+	@Override
+	public T getData(char[] word) {
+		Node<T> node = getNode(word, true);
+		return node == null ? null : node.data;
+	}
+
+	/**
+	 * Find the node that represents the given word.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node or null, if not found (exact)
+	 */
+	private Node<T> getNode(char[] word, boolean exact) {
+		int wordPos = 0;
+		final int wordLength = word.length;
+		Node<T> node = root;
+		while (wordPos < wordLength) {
+			final char firstChar = word[wordPos];
+			Node<T> son = node.firstSon;
+			while (son != null && son.getFirstChar() < firstChar) {
+				son = son.nextBrother;
+			}
+			if (son == null || son.getFirstChar() != firstChar) {
+				return null;
+			}
+			final char[] sonPage = son.page;
+			final int sonOffset = son.offset;
+			final int sonLength = son.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength) {
+				if (sonPage[sonOffset + sonPos] != word[wordPos]) {
+					return null;
+				}
+				sonPos++;
+				wordPos++;
+			}
+			if (sonPos < sonLength && exact) {
+				return null;
+			}
+			node = son;
+		}
+		return node;
+	}
+
+	/**
+	 * Delete the data associated with the given word. If the word is not
+	 * contained in the trie, nothing happens. Like in {@link Trie}, nodes which
+	 * are not needed any more are removed, and a node with a single remaining
+	 * son is merged with it.
+	 *
+	 * @param word
+	 *            word to search for
+	 */
+	@Override
+	public void delete(char[] word) {
+		// Collect path of word and the son before each node in its brothers
+		List<Node<T>> path = new ArrayList<>();
+		List<Node<T>> previousSons = new ArrayList<>();
+		int wordPos = 0;
+		final int wordLength = word.length;
+		Node<T> node = root;
+		path.add(node);
+		previousSons.add(null);
+		while (wordPos < wordLength) {
+			final char firstChar = word[wordPos];
+			Node<T> previousSon = null;
+			Node<T> son = node.firstSon;
+			while (son != null && son.getFirstChar() < firstChar) {
+				previousSon = son;
+				son = son.nextBrother;
+			}
+			if (son == null || son.getFirstChar() > firstChar || son.length > wordLength - wordPos) {
+				return;
+			}
+			for (int sonPos = 1; sonPos < son.length; sonPos++) {
+				if (son.page[son.offset + sonPos] != word[wordPos + sonPos]) {
+					return;
+				}
+			}
+			wordPos += son.length;
+			node = son;
+			path.add(node);
+			previousSons.add(previousSon);
+		}
+		if (!node.inserted) {
+			return;
+		}
+		node.inserted = false;
+		node.data = null;
+
+		// Remove or merge nodes bottom-up (the root node is never removed)
+		for (int i = path.size() - 1; i > 0; i--) {
+			node = path.get(i);
+			if (node.inserted) {
+				break;
+			}
+			if (node.firstSon == null) {
+				link(path.get(i - 1), previousSons.get(i), node.nextBrother);
+				continue;
+			}
+			if (node.firstSon.nextBrother == null) {
+				merge(node);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Merge a node without payload with its only son. If the paths of both
+	 * nodes are adjacent in the same page (e.g. after a split), no characters
+	 * are copied.
+	 *
+	 * @param node
+	 *            node without payload
+	 */
+	private void merge(Node<T> node) {
+		Node<T> son = node.firstSon;
+		if (node.page != son.page || node.offset + node.length != son.offset) {
+			char[] merged = new char[node.length + son.length];
+			System.arraycopy(node.page, node.offset, merged, 0, node.length);
+			System.arraycopy(son.page, son.offset, merged, node.length, son.length);
+			appendLabel(node, merged, 0, merged.length);
+		} else {
+			node.length += son.length;
+		}
+		node.firstSon = son.firstSon;
+		node.data = son.data;
+		node.inserted = son.inserted;
+	}
+
+	/**
+	 * Create a new node without payload and sons.
+	 *
+	 * @param word
+	 *            word containing the path
+	 * @param startIndex
+	 *            start index of the path (inclusive)
+	 * @param endIndex
+	 *            end index of the path (exclusive)
+	 * @param nextBrother
+	 *            next brother (optional)
+	 * @return new node
+	 */
+	private Node<T> newNode(char[] word, int startIndex, int endIndex, Node<T> nextBrother) {
+		Node<T> node = new Node<>(null, 0, 0, nextBrother, null, null, false);
+		appendLabel(node, word, startIndex, endIndex);
+		return node;
+	}
+
+	/**
+	 * Store a path in the pool and assign it to a node.
+	 *
+	 * @param node
+	 *            node
+	 * @param word
+	 *            word containing the path
+	 * @param startIndex
+	 *            start index of the path (inclusive)
+	 * @param endIndex
+	 *            end index of the path (exclusive)
+	 */
+	private void appendLabel(Node<T> node, char[] word, int startIndex, int endIndex) {
+		final int length = endIndex - startIndex;
+		if (length == 1 && word[startIndex] < 256) {
+			node.page = LATIN1_PAGE;
+			node.offset = word[startIndex];
+			node.length = 1;
+			return;
+		}
+		if (length > MAX_PAGED_LENGTH) {
+			// Own array for long paths
+			node.page = Trie.subarray(word, startIndex, endIndex);
+			node.offset = 0;
+			node.length = length;
+			poolChars += length;
+			return;
+		}
+		if (pageUsed + length > page.length) {
+			page = new char[PAGE_SIZE];
+			pageUsed = 0;
+			poolChars += PAGE_SIZE;
+		}
+		System.arraycopy(word, startIndex, page, pageUsed, length);
+		node.page = page;
+		node.offset = pageUsed;
+		node.length = length;
+		pageUsed += length;
+	}
+
+	@Override
+	public int getDepth() {
+		return getDepth(root);
+	}
+
+	/**
+	 * Calculate the depth below a node.
+	 *
+	 * @param node
+	 *            node
+	 * @return depth
+	 */
+	private static int getDepth(Node<?> node) {
+		int depth = 0;
+		for (Node<?> son = node.firstSon; son != null; son = son.nextBrother) {
+			depth = Math.max(depth, getDepth(son) + 1);
+		}
+		return depth;
+	}
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation in the same format as {@link Trie}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		appendTo(buffer, root, "");
+		return buffer.toString();
+	}
+
+	/**
+	 * Render the tree starting from a node.
+	 *
+	 * @param buffer
+	 *            target buffer
+	 * @param node
+	 *            node
+	 * @param indentation
+	 *            indentation of the node
+	 */
+	private static void appendTo(StringBuilder buffer, Node<?> node, String indentation) {
+		buffer.append(indentation).append("\"").append(node.page, node.offset, node.length).append("\"");
+		if (node.data != null) {
+			buffer.append(" {").append(node.data).append('}');
+		}
+		for (Node<?> son = node.firstSon; son != null; son = son.nextBrother) {
+			buffer.append("\n");
+			appendTo(buffer, son, indentation + "  ");
+		}
+	}
+
+	/**
+	 * Node of the trie with its path as part of a shared page.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static final class Node<T> implements Serializable {
+
+		private static final long serialVersionUID = 2796108127263512457L;
+
+		/**
+		 * Page containing the path leading from the parent to this node.
+		 */
+		private char[] page;
+
+		/**
+		 * Offset of the path in the page.
+		 */
+		private int offset;
+
+		/**
+		 * Length of the path.
+		 */
+		private int length;
+
+		/**
+		 * Next brother inside the tree.
+		 */
+		private Node<T> nextBrother;
+
+		/**
+		 * First son inside the tree.
+		 */
+		private Node<T> firstSon;
+
+		/**
+		 * Payload data.
+		 */
+		private T data;
+
+		/**
+		 * Flag if a word ends in this node.
+		 */
+		private boolean inserted;
+
+		/**
+		 * Create node.
+		 *
+		 * @param page
+		 *            page containing the path
+		 * @param offset
+		 *            offset of the path in the page
+		 * @param length
+		 *            length of the path
+		 * @param nextBrother
+		 *            next brother (optional)
+		 * @param firstSon
+		 *            first son (optional)
+		 * @param data
+		 *            payload data (optional)
+		 * @param inserted
+		 *            flag if a word ends in this node
+		 */
+		private Node(char[] page, int offset, int length, Node<T> nextBrother, Node<T> firstSon, T data,
+				boolean inserted) {
+			this.page = page;
+			this.offset = offset;
+			this.length = length;
+			this.nextBrother = nextBrother;
+			this.firstSon = firstSon;
+			this.data = data;
+			this.inserted = inserted;
+		}
+
+		/**
+		 * Get the first character of the path.
+		 *
+		 * @return first character
+		 */
+		private char getFirstChar() {
+			return page[offset];
+		}
+
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fuzzy search in a {@link Trie}, which finds all words within a maximum edit
+ * distance (Levenshtein distance) of a query. The trie is traversed
+ * depth-first, and for each character of the node paths one row of the
+ * Levenshtein matrix is calculated from the row of the previous character. As
+ * the minimum of a row can never decrease for longer words, a subtree is
+ * skipped as soon as the minimum of a row exceeds the maximum distance. <br>
+ * <br>
+ * In prefix mode the words are found whose prefix is within the maximum
+ * distance of the query (e.g. for search-as-you-type with typos), and the
+ * distance of a word is the minimum distance of all its prefixes.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+final class LevenshteinSearch<T extends Serializable> {
+
+	private final char[] query;
+
+	private final int maxDistance;
+
+	private final boolean prefixMode;
+
+	/**
+	 * Rows of the Levenshtein matrix for each length of the current word (row
+	 * <code>i</code> contains the distances of the first <code>i</code>
+	 * characters of the word to all prefixes of the query).
+	 */
+	private int[][] rows = new int[16][];
+
+	/**
+	 * Buffer containing the current word.
+	 */
+	private char[] word = new char[16];
+
+	private final List<FuzzyMatch<T>> result = new ArrayList<>();
+
+	/**
+	 * Create search.
+	 *
+	 * @param query
+	 *            query word
+	 * @param maxDistance
+	 *            maximum edit distance
+	 * @param prefixMode
+	 *            true to search for words with a prefix within the maximum
+	 *            distance
+	 */
+	LevenshteinSearch(CharSequence query, int maxDistance, boolean prefixMode) {
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("Negative distance: " + maxDistance);
+		}
+		this.query = Trie.toCharArray(query, 0, query.length());
+		this.maxDistance = maxDistance;
+		this.prefixMode = prefixMode;
+		int[] firstRow = new int[this.query.length + 1];
+		for (int j = 0; j < firstRow.length; j++) {
+			firstRow[j] = j;
+		}
+		rows[0] = firstRow;
+	}
+
+	/**
+	 * Run the search.
+	 *
+	 * @param root
+	 *            root node of the trie
+	 * @return found words in ascending order
+	 */
+	List<FuzzyMatch<T>> run(TrieNode<T> root) {
+		final int queryLength = query.length;
+		if (root.isInserted() && queryLength <= maxDistance) {
+			result.add(new FuzzyMatch<>("", root.getData(), queryLength));
+		}
+		int best = prefixMode ? queryLength : Integer.MAX_VALUE;
+		for (TrieNode<T> son = root.getFirstSon(); son != null; son = son.getNextBrother()) {
+			search(son, 0, best, true);
+		}
+		return result;
+	}
+
+	/**
+	 * Search the subtree of a node.
+	 *
+	 * @param node
+	 *            node
+	 * @param length
+	 *            length of the word before the path of the node
+	 * @param best
+	 *            minimum distance of all prefixes of the word (prefix mode, or
+	 *            {@link Integer#MAX_VALUE} otherwise)
+	 * @param calculate
+	 *            false if the rows do not need to be calculated any more,
+	 *            because the distance cannot get smaller (prefix mode)
+	 */
+	private void search(TrieNode<T> node, int length, int best, boolean calculate) {
+		final char[] chars = node.getChars();
+		final int end = length + chars.length;
+		if (end >= word.length) {
+			word = Arrays.copyOf(word, Math.max(word.length * 2, end + 1));
+			rows = Arrays.copyOf(rows, word.length);
+		}
+		System.arraycopy(chars, 0, word, length, chars.length);
+
+		if (calculate) {
+			final int queryLength = query.length;
+			for (int i = length + 1; i <= end; i++) {
+				final char c = word[i - 1];
+				final int[] previous = rows[i - 1];
+				int[] row = rows[i];
+				if (row == null) {
+					row = new int[queryLength + 1];
+					rows[i] = row;
+				}
+
+				// Calculate next row and its minimum
+				row[0] = i;
+				int rowMin = i;
+				for (int j = 1; j <= queryLength; j++) {
+					int value = previous[j - 1] + (query[j - 1] == c ? 0 : 1);
+					value = Math.min(value, previous[j] + 1);
+					value = Math.min(value, row[j - 1] + 1);
+					row[j] = value;
+					if (value < rowMin) {
+						rowMin = value;
+					}
+				}
+
+				if (prefixMode) {
+					best = Math.min(best, row[queryLength]);
+					if (best <= maxDistance && rowMin >= best) {
+						// All words of the subtree match, with the current
+						// distance
+						calculate = false;
+						break;
+					}
+				}
+				if (rowMin > maxDistance && best > maxDistance) {
+					// No word in the subtree can be within the distance
+					return;
+				}
+			}
+		}
+
+		if (node.isInserted()) {
+			int distance = prefixMode ? best : rows[end][query.length];
+			if (distance <= maxDistance) {
+				result.add(new FuzzyMatch<>(new String(word, 0, end), node.getData(), distance));
+			}
+		}
+		for (TrieNode<T> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+			search(son, end, best, calculate);
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.illucit.instatrie.trie;
+
+import java.util.Arrays;
+
+/**
+ * Trie which maps words to primitive long values without boxing, e.g. to count
+ * occurrences of words or to store ids. In addition to the value of each word,
+ * the sum of all values in each subtree is maintained, so the sum of the values
+ * of all words with a given prefix can be queried in time proportional to the
+ * length of the prefix. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ */
+public class LongTrie extends AbstractPrimitiveTrie {
+
+	private static final long serialVersionUID = -1786329145060377208L;
+
+	/**
+	 * Value of each node (0 if not inserted).
+	 */
+	private long[] values;
+
+	/**
+	 * Sum of all values in the subtree of each node.
+	 */
+	private long[] sums;
+
+	/**
+	 * Create empty trie.
+	 */
+	public LongTrie() {
+		super();
+	}
+
+	@Override
+	void initValues(int capacity) {
+		this.values = new long[capacity];
+		this.sums = new long[capacity];
+	}
+
+	@Override
+	void growValues(int capacity) {
+		this.values = Arrays.copyOf(this.values, capacity);
+		this.sums = Arrays.copyOf(this.sums, capacity);
+	}
+
+	@Override
+	void moveValue(int node, int subNode) {
+		values[subNode] = values[node];
+		sums[subNode] = sums[node];
+		values[node] = 0;
+	}
+
+	/**
+	 * Insert a word with a value (replacing the current value).
+	 *
+	 * @param word
+	 *            word
+	 * @param value
+	 *            value
+	 */
+	public void put(char[] word, long value) {
+		NodePath path = modificationPath();
+		int node = insertNode(word, 0, word.length, path);
+		setInserted(node, true);
+		long delta = value - values[node];
+		values[node] = value;
+		addToSums(path, delta);
+	}
+
+	/**
+	 * Insert a word with a value (replacing the current value).
+	 *
+	 * @param word
+	 *            word
+	 * @param value
+	 *            value
+	 */
+	public void put(String word, long value) {
+		put(word.toCharArray(), value);
+	}
+
+	/**
+	 * Add a delta to the value of a word. If the word is not inserted yet, it
+	 * is inserted with the value 0 before.
+	 *
+	 * @param word
+	 *            word
+	 * @param delta
+	 *            delta to add
+	 * @return new value of the word
+	 */
+	public long addTo(char[] word, long delta) {
+		NodePath path = modificationPath();
+		int node = insertNode(word, 0, word.length, path);
+		setInserted(node, true);
+		values[node] += delta;
+		addToSums(path, delta);
+		return values[node];
+	}
+
+	/**
+	 * Add a delta to the value of a word. If the word is not inserted yet, it
+	 * is inserted with the value 0 before.
+	 *
+	 * @param word
+	 *            word
+	 * @param delta
+	 *            delta to add
+	 * @return new value of the word
+	 */
+	public long addTo(String word, long delta) {
+		return addTo(word.toCharArray(), delta);
+	}
+
+	/**
+	 * Get the value of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @param defaultValue
+	 *            value to return if the word is not inserted
+	 * @return value of the word or default value
+	 */
+	public long get(char[] word, long defaultValue) {
+		int node = getNode(word, true);
+		if (node < 0 || !isInserted(node)) {
+			return defaultValue;
+		}
+		return values[node];
+	}
+
+	/**
+	 * Get the value of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @param defaultValue
+	 *            value to return if the word is not inserted
+	 * @return value of the word or default value
+	 */
+	public long get(String word, long defaultValue) {
+		return get(word.toCharArray(), defaultValue);
+	}
+
+	/**
+	 * Get the sum of the values of all words starting with a prefix (including
+	 * the prefix itself).
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @return sum of values (0 if no word has the prefix)
+	 */
+	public long prefixSum(char[] prefix) {
+		int node = getNode(prefix, false);
+		return node < 0 ? 0 : sums[node];
+	}
+
+	/**
+	 * Get the sum of the values of all words starting with a prefix (including
+	 * the prefix itself).
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @return sum of values (0 if no word has the prefix)
+	 */
+	public long prefixSum(String prefix) {
+		return prefixSum(prefix.toCharArray());
+	}
+
+	/**
+	 * Remove a word from the trie.
+	 *
+	 * @param word
+	 *            word
+	 */
+	public void delete(char[] word) {
+		NodePath path = modificationPath();
+		int node = getNode(word, true, path);
+		if (node >= 0 && isInserted(node)) {
+			setInserted(node, false);
+			long delta = -values[node];
+			values[node] = 0;
+			addToSums(path, delta);
+		}
+	}
+
+	/**
+	 * Remove a word from the trie.
+	 *
+	 * @param word
+	 *            word
+	 */
+	public void delete(String word) {
+		delete(word.toCharArray());
+	}
+
+	/**
+	 * Add a delta to the subtree sums of all nodes on a path.
+	 *
+	 * @param path
+	 *            nodes from the root to the changed node
+	 * @param delta
+	 *            delta
+	 */
+	private void addToSums(NodePath path, long delta) {
+		if (delta != 0) {
+			for (int i = 0; i < path.length(); i++) {
+				sums[path.get(i)] += delta;
+			}
+		}
+	}
+
+	@Override
+	String valueToString(int node) {
+		return Long.toString(values[node]);
+	}
+
+}
@@ -0,0 +1,259 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Immutable, succinct representation of a {@link Trie} in the LOUDS encoding
+ * (level-order unary degree sequence). The trie is stored with one node per
+ * character, numbered in breadth-first order: the tree structure is encoded in
+ * a bit vector with (2n - 1) bits for n nodes, the characters leading to the
+ * nodes in one packed char array, and the payloads of the inserted words in a
+ * side array. Navigation is done with rank and select queries on the bit
+ * vectors. <br>
+ * <br>
+ * Only the read operations of {@link PrefixDictionary} are supported, all
+ * write operations throw an {@link UnsupportedOperationException}. Since the
+ * structure is immutable, it can be accessed by multiple concurrent threads.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class LoudsTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = -4913585106418837276L;
+
+	/**
+	 * Up to this number of children, the labels are scanned linearly instead of
+	 * using binary search.
+	 */
+	private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+	/**
+	 * Tree structure: for each node in breadth-first order, one "1" bit per
+	 * child followed by a "0" bit.
+	 */
+	private final BitVector louds;
+
+	/**
+	 * Character leading to each node (except for the root), indexed by node
+	 * number minus 1.
+	 */
+	private final char[] labels;
+
+	/**
+	 * Flag for each node if it represents an inserted word.
+	 */
+	private final BitVector inserted;
+
+	/**
+	 * Payload data of all inserted words, indexed by the rank in
+	 * {@link #inserted}.
+	 */
+	private final Object[] payloads;
+
+	/**
+	 * Depth of the trie this instance was created from.
+	 */
+	private final int depth;
+
+	/**
+	 * Create a succinct copy of a trie.
+	 *
+	 * @param trie
+	 *            source trie
+	 */
+	public LoudsTrie(Trie<T> trie) {
+		BitVector.Builder loudsBuilder = new BitVector.Builder();
+		BitVector.Builder insertedBuilder = new BitVector.Builder();
+		char[] labels = new char[64];
+		int numLabels = 0;
+		Object[] payloads = new Object[16];
+		int numPayloads = 0;
+
+		// Breadth-first search over all characters
+		CharNodeQueue<T> queue = new CharNodeQueue<>(trie, 0);
+		while (!queue.isEmpty()) {
+			TrieNode<T> node = queue.node();
+			int offset = queue.offset();
+			boolean nodeInserted = queue.isNodeEnd() && node.isInserted();
+			queue.remove();
+
+			insertedBuilder.add(nodeInserted);
+			if (nodeInserted) {
+				if (numPayloads == payloads.length) {
+					payloads = Arrays.copyOf(payloads, numPayloads * 2);
+				}
+				payloads[numPayloads++] = node.getData();
+			}
+
+			char[] chars = node.getChars();
+			if (offset < chars.length - 1) {
+				// Next character inside the path of the node
+				if (labels.length == numLabels) {
+					labels = Arrays.copyOf(labels, numLabels * 2);
+				}
+				labels[numLabels++] = chars[offset + 1];
+				loudsBuilder.add(true);
+				queue.add(node, offset + 1, 0);
+			} else {
+				for (TrieNode<T> son : node.children()) {
+					if (labels.length == numLabels) {
+						labels = Arrays.copyOf(labels, numLabels * 2);
+					}
+					labels[numLabels++] = son.getFirstChar();
+					loudsBuilder.add(true);
+					queue.add(son, 0, 0);
+				}
+			}
+			loudsBuilder.add(false);
+		}
+
+		this.louds = loudsBuilder.build();
+		this.labels = Arrays.copyOf(labels, numLabels);
+		this.inserted = insertedBuilder.build();
+		this.payloads = Arrays.copyOf(payloads, numPayloads);
+		this.depth = trie.getDepth();
+	}
+
+	/**
+	 * Get the number of nodes (one per character plus the root).
+	 *
+	 * @return number of nodes
+	 */
+	public int getNodeCount() {
+		return labels.length + 1;
+	}
+
+	/**
+	 * Get the number of inserted words.
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return payloads.length;
+	}
+
+	/**
+	 * Get the approximate size of this structure in memory (without the
+	 * payload objects themselves).
+	 *
+	 * @return size in bytes
+	 */
+	public long sizeInBytes() {
+		return louds.sizeInBytes() + inserted.sizeInBytes() + 2L * labels.length + 4L * payloads.length;
+	}
+
+	/*
+	 * Read operations
+	 */
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getNode(word) >= 0;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		int node = getNode(word);
+		return node >= 0 && inserted.get(node);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getData(char[] word) {
+		int node = getNode(word);
+		if (node < 0 || !inserted.get(node)) {
+			return null;
+		}
+		return (T) payloads[inserted.rank1(node)];
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Find the node which represents the given word.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @return node number, or -1 if not found
+	 */
+	private int getNode(char[] word) {
+		int node = 0;
+		// Position after the last bit of the previous node
+		int start = 0;
+		for (char c : word) {
+			int end = louds.select0(node);
+			// Children are numbered consecutively, starting after all nodes
+			// which are referenced by "1" bits before this node
+			int firstChild = start - node + 1;
+			int child = findChild(firstChild, end - start, c);
+			if (child < 0) {
+				return -1;
+			}
+			node = child;
+			start = louds.select0(node - 1) + 1;
+		}
+		return node;
+	}
+
+	/**
+	 * Find the child with the given character among consecutive children.
+	 *
+	 * @param firstChild
+	 *            number of first child
+	 * @param degree
+	 *            number of children
+	 * @param c
+	 *            character to search
+	 * @return node number of the child, or -1 if not found
+	 */
+	private int findChild(int firstChild, int degree, char c) {
+		int from = firstChild - 1;
+		int to = from + degree;
+		if (degree <= LINEAR_SEARCH_THRESHOLD) {
+			for (int i = from; i < to; i++) {
+				if (labels[i] == c) {
+					return i + 1;
+				}
+				if (labels[i] > c) {
+					return -1;
+				}
+			}
+			return -1;
+		}
+		int index = Arrays.binarySearch(labels, from, to, c);
+		return index < 0 ? -1 : index + 1;
+	}
+
+	/*
+	 * Write operations (not supported)
+	 */
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		throw new UnsupportedOperationException("LoudsTrie is immutable");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("LoudsTrie is immutable");
+	}
+
+	@Override
+	public void delete(char[] word) {
+		throw new UnsupportedOperationException("LoudsTrie is immutable");
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		throw new UnsupportedOperationException("LoudsTrie is immutable");
+	}
+
+}
@@ -0,0 +1,882 @@
+package com.illucit.instatrie.trie;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Trie data structure with the same semantics as {@link Trie}, but with the
+ * nodes and their paths stored outside of the Java heap in direct
+ * {@link ByteBuffer} arenas. Nodes are fixed size records addressed by their
+ * int index, which link to their first son and next brother just like
+ * {@link TrieNode}s. The characters of the node paths are appended to a
+ * separate arena, so splitting a node only changes offsets. Only the payload
+ * data is kept on the heap in a side table, so the garbage collector does not
+ * need to trace the node structure. <br>
+ * <br>
+ * The arenas grow in chunks and are only released as a whole by
+ * {@link #clear()}: the direct memory is returned to the system once the
+ * dropped buffers are garbage collected. The first chunk of each arena starts
+ * small and grows geometrically up to the chunk size, so empty or small tries
+ * only hold a few kilobytes of direct memory. Like in {@link Trie}, deleting a
+ * word removes the nodes which are not needed any more and merges nodes with
+ * a single son. Removed node records are reused by later insertions, and the
+ * label arena is rewritten once most of its characters are unused. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class OffHeapTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = 4719183546052093317L;
+
+	/*
+	 * Layout of a node record
+	 */
+
+	/**
+	 * Index of the first son (0 if there is none).
+	 */
+	private static final int FIRST_SON = 0;
+
+	/**
+	 * Index of the next brother (0 if there is none).
+	 */
+	private static final int NEXT_BROTHER = 4;
+
+	/**
+	 * Offset of the path in the label arena.
+	 */
+	private static final int LABEL_OFFSET = 8;
+
+	/**
+	 * Length of the path.
+	 */
+	private static final int LABEL_LENGTH = 12;
+
+	/**
+	 * Slot in the payload table plus 1, or 0 if the node is not inserted.
+	 */
+	private static final int PAYLOAD = 16;
+
+	/**
+	 * First character of the path (copied to avoid reads in the label arena
+	 * while searching through brothers).
+	 */
+	private static final int FIRST_CHAR = 20;
+
+	/**
+	 * Size of a node record in bytes.
+	 */
+	private static final int RECORD_SIZE = 24;
+
+	/**
+	 * Number of nodes per chunk (as power of 2).
+	 */
+	private static final int NODE_CHUNK_SHIFT = 16;
+
+	/**
+	 * Number of characters per label chunk (as power of 2).
+	 */
+	private static final int LABEL_CHUNK_SHIFT = 20;
+
+	/**
+	 * Initial size of the first chunk of each arena in bytes.
+	 */
+	private static final int INITIAL_CHUNK_BYTES = 1024;
+
+	/**
+	 * Index of the root node. The root can never be a son or brother, so the
+	 * index also denotes a missing link.
+	 */
+	private static final int ROOT = 0;
+
+	/*
+	 * Arenas (not serialized directly)
+	 */
+
+	private transient ByteBuffer[] nodeChunks;
+
+	private transient int nodeCount;
+
+	/**
+	 * First node record which was removed by deletions (the free records are
+	 * linked by their next brother), or {@link #ROOT} if there is none.
+	 */
+	private transient int freeNode;
+
+	private transient int freeNodeCount;
+
+	private transient ByteBuffer[] labelChunks;
+
+	private transient int labelLength;
+
+	/**
+	 * Number of characters in the label arena which are not part of the path
+	 * of any node any more.
+	 */
+	private transient int unusedLabelLength;
+
+	/*
+	 * Payload side table
+	 */
+
+	private transient Object[] payloads;
+
+	private transient int payloadCount;
+
+	/**
+	 * Payload slots which were freed by deletions.
+	 */
+	private transient int[] freeSlots;
+
+	private transient int freeSlotCount;
+
+	/**
+	 * Create empty trie.
+	 */
+	public OffHeapTrie() {
+		clear();
+	}
+
+	@Override
+	public void clear() {
+		// Drop all arenas at once
+		this.nodeChunks = new ByteBuffer[4];
+		this.nodeCount = 0;
+		this.freeNode = ROOT;
+		this.freeNodeCount = 0;
+		this.labelChunks = new ByteBuffer[4];
+		this.labelLength = 0;
+		this.unusedLabelLength = 0;
+		this.payloads = new Object[16];
+		this.payloadCount = 0;
+		this.freeSlots = new int[16];
+		this.freeSlotCount = 0;
+		newNode(0, 0, ROOT);
+	}
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+		setData(insertNode(word, startIndex, endIndex), data);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		int node = insertNode(word, 0, word.length);
+		int payload = getInt(node, PAYLOAD);
+		setData(node, updateFunction.apply(payload == 0 ? null : (T) payloads[payload - 1]));
+	}
+
+	/**
+	 * Find or create the node which represents the given word. Newly created
+	 * nodes are not marked as inserted.
+	 *
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return index of the node for the word
+	 */
+	private int insertNode(char[] word, int startIndex, int endIndex) {
+		int wordPos = startIndex; // current position in word
+		int node = ROOT; // current node
+
+		// Descend in tree
+		while (wordPos < endIndex) {
+
+			// Find son to insert after or below
+			final char firstChar = word[wordPos];
+			int previous = ROOT;
+			int son = getInt(node, FIRST_SON);
+			while (son != ROOT && getFirstChar(son) < firstChar) {
+				previous = son;
+				son = getInt(son, NEXT_BROTHER);
+			}
+
+			if (son == ROOT || getFirstChar(son) != firstChar) {
+				// No son with matching first char: add a new leaf between the
+				// previous son and the current one
+				int leaf = newNode(appendLabel(word, wordPos, endIndex), endIndex - wordPos, son);
+				if (previous == ROOT) {
+					setInt(node, FIRST_SON, leaf);
+				} else {
+					setInt(previous, NEXT_BROTHER, leaf);
+				}
+				return leaf;
+			}
+
+			// Find matching chars in path of son
+			final int sonOffset = getInt(son, LABEL_OFFSET);
+			final int sonLength = getInt(son, LABEL_LENGTH);
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < endIndex && getLabelChar(sonOffset + sonPos) == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// Word ends inside the path of the son or deviates from it, so
+				// the son needs to be split
+				split(son, sonPos);
+				if (wordPos == endIndex) {
+					return son;
+				}
+				int subNode = getInt(son, FIRST_SON);
+				int leaf = newNode(appendLabel(word, wordPos, endIndex), endIndex - wordPos, ROOT);
+				if (getFirstChar(subNode) < word[wordPos]) {
+					setInt(subNode, NEXT_BROTHER, leaf);
+				} else {
+					setInt(leaf, NEXT_BROTHER, subNode);
+					setInt(son, FIRST_SON, leaf);
+				}
+				return leaf;
+			}
+
+			// Son matches completely: continue to descend
+			node = son;
+		}
+		return node;
+	}
+
+	/**
+	 * Split the path of a node: the node keeps the first characters, while a
+	 * new single son takes the remaining characters together with the
+	 * children and the payload of the node.
+	 *
+	 * @param node
+	 *            node index
+	 * @param position
+	 *            number of characters the node keeps
+	 */
+	private void split(int node, int position) {
+		int offset = getInt(node, LABEL_OFFSET);
+		int subNode = newNode(offset + position, getInt(node, LABEL_LENGTH) - position, ROOT);
+		setInt(subNode, FIRST_SON, getInt(node, FIRST_SON));
+		setInt(subNode, PAYLOAD, getInt(node, PAYLOAD));
+		setInt(node, FIRST_SON, subNode);
+		setInt(node, LABEL_LENGTH, position);
+		setInt(node, PAYLOAD, 0);
+	}
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return getNode(word, false) >= 0;
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		int node = getNode(word, true);
+		return node >= 0 && getInt(node, PAYLOAD) != 0;
+	}
+
+	@Override
+	public void delete(char[] word) {
+		// Collect path of word and the son before each node in its brothers
+		int[] path = new int[16];
+		int[] previousSons = new int[16];
+		int depth = 0;
+		path[0] = ROOT;
+		previousSons[0] = ROOT;
+		int wordPos = 0; // current position in word
+		final int wordLength = word.length;
+		int node = ROOT; // current node
+
+		// Descend in tree while word is not completely found
+		while (wordPos < wordLength) {
+			final char firstChar = word[wordPos];
+			int previous = ROOT;
+			int son = getInt(node, FIRST_SON);
+			while (son != ROOT && getFirstChar(son) < firstChar) {
+				previous = son;
+				son = getInt(son, NEXT_BROTHER);
+			}
+			if (son == ROOT || getFirstChar(son) != firstChar) {
+				return;
+			}
+			final int sonOffset = getInt(son, LABEL_OFFSET);
+			final int sonLength = getInt(son, LABEL_LENGTH);
+			if (sonLength > wordLength - wordPos) {
+				return;
+			}
+			for (int sonPos = 1; sonPos < sonLength; sonPos++) {
+				if (getLabelChar(sonOffset + sonPos) != word[wordPos + sonPos]) {
+					return;
+				}
+			}
+			wordPos += sonLength;
+			node = son;
+			if (++depth == path.length) {
+				path = Arrays.copyOf(path, depth * 2);
+				previousSons = Arrays.copyOf(previousSons, depth * 2);
+			}
+			path[depth] = node;
+			previousSons[depth] = previous;
+		}
+		int payload = getInt(node, PAYLOAD);
+		if (payload == 0) {
+			return;
+		}
+		releaseSlot(payload - 1);
+		setInt(node, PAYLOAD, 0);
+
+		// Remove or merge nodes bottom-up (the root node is never removed)
+		for (int i = depth; i > 0; i--) {
+			node = path[i];
+			if (getInt(node, PAYLOAD) != 0) {
+				break;
+			}
+			int firstSon = getInt(node, FIRST_SON);
+			if (firstSon == ROOT) {
+				// Remove node and check parent next
+				int next = getInt(node, NEXT_BROTHER);
+				if (previousSons[i] == ROOT) {
+					setInt(path[i - 1], FIRST_SON, next);
+				} else {
+					setInt(previousSons[i], NEXT_BROTHER, next);
+				}
+				unusedLabelLength += getInt(node, LABEL_LENGTH);
+				releaseNode(node);
+				continue;
+			}
+			if (getInt(firstSon, NEXT_BROTHER) == ROOT) {
+				merge(node, firstSon);
+			}
+			break;
+		}
+		if (unusedLabelLength > labelLength / 2 && labelLength > INITIAL_CHUNK_BYTES) {
+			compactLabels();
+		}
+	}
+
+	/**
+	 * Merge a node without payload with its only son: the node takes over the
+	 * path, children and payload of the son, and the son is removed. If the
+	 * path of the son directly follows the path of the node in the label arena
+	 * (e.g. after a split), only the length of the path is adjusted.
+	 *
+	 * @param node
+	 *            node index
+	 * @param son
+	 *            index of the only son
+	 */
+	private void merge(int node, int son) {
+		final int offset = getInt(node, LABEL_OFFSET);
+		final int length = getInt(node, LABEL_LENGTH);
+		final int sonOffset = getInt(son, LABEL_OFFSET);
+		final int sonLength = getInt(son, LABEL_LENGTH);
+		if (offset + length != sonOffset) {
+			char[] merged = new char[length + sonLength];
+			for (int i = 0; i < length; i++) {
+				merged[i] = getLabelChar(offset + i);
+			}
+			for (int i = 0; i < sonLength; i++) {
+				merged[length + i] = getLabelChar(sonOffset + i);
+			}
+			setInt(node, LABEL_OFFSET, appendLabel(merged, 0, merged.length));
+			unusedLabelLength += merged.length;
+		}
+		setInt(node, LABEL_LENGTH, length + sonLength);
+		setInt(node, FIRST_SON, getInt(son, FIRST_SON));
+		setInt(node, PAYLOAD, getInt(son, PAYLOAD));
+		releaseNode(son);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getData(char[] word) {
+		int node = getNode(word, true);
+		if (node < 0) {
+			return null;
+		}
+		int payload = getInt(node, PAYLOAD);
+		return payload == 0 ? null : (T) payloads[payload - 1];
+	}
+
+	/**
+	 * Find a node that represents the given word. If the search is exact, no
+	 * node is returned if the word ends inside the path of the next node.
+	 *
+	 * @param word
+	 *            word to search for
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node index or -1, if not found
+	 */
+	private int getNode(char[] word, boolean exact) {
+		int wordPos = 0; // current position in word
+		final int wordLength = word.length;
+		int node = ROOT; // current node
+
+		// Descend in tree while word is not completely found
+		while (wordPos < wordLength) {
+
+			// Iterate over sons to find the one which matches firstChar
+			final char firstChar = word[wordPos];
+			int son = getInt(node, FIRST_SON);
+			while (son != ROOT && getFirstChar(son) < firstChar) {
+				son = getInt(son, NEXT_BROTHER);
+			}
+			if (son == ROOT || getFirstChar(son) != firstChar) {
+				return -1;
+			}
+
+			// Consume matching characters in word
+			final int sonOffset = getInt(son, LABEL_OFFSET);
+			final int sonLength = getInt(son, LABEL_LENGTH);
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength && getLabelChar(sonOffset + sonPos) == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos < sonLength) {
+				// could not completely match characters of node: only a prefix
+				// match is possible if the word has been consumed completely
+				return !exact && wordPos == wordLength ? son : -1;
+			}
+
+			// Son matched completely with word
+			// Descend further until word is consumed
+			node = son;
+		}
+		// Word is completely found (exact)
+		return node;
+	}
+
+	@Override
+	public int getDepth() {
+		return getDepth(ROOT);
+	}
+
+	/**
+	 * Calculate the depth below a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return depth (0 if the node has no children)
+	 */
+	private int getDepth(int node) {
+		int depth = 0;
+		for (int son = getInt(node, FIRST_SON); son != ROOT; son = getInt(son, NEXT_BROTHER)) {
+			depth = Math.max(depth, getDepth(son) + 1);
+		}
+		return depth;
+	}
+
+	/**
+	 * Get the number of nodes (including the root node).
+	 *
+	 * @return number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount - freeNodeCount;
+	}
+
+	/**
+	 * Get the size of the allocated off-heap memory.
+	 *
+	 * @return size in bytes
+	 */
+	public long getOffHeapBytes() {
+		long bytes = 0;
+		for (ByteBuffer chunk : nodeChunks) {
+			bytes += chunk == null ? 0 : chunk.capacity();
+		}
+		for (ByteBuffer chunk : labelChunks) {
+			bytes += chunk == null ? 0 : chunk.capacity();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation of root node
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		appendTo(buffer, ROOT, "");
+		return buffer.toString();
+	}
+
+	/**
+	 * Render the tree starting from a node.
+	 *
+	 * @param buffer
+	 *            target buffer
+	 * @param node
+	 *            node index
+	 * @param indentation
+	 *            indentation of the node
+	 */
+	private void appendTo(StringBuilder buffer, int node, String indentation) {
+		buffer.append(indentation).append("\"");
+		int offset = getInt(node, LABEL_OFFSET);
+		int length = getInt(node, LABEL_LENGTH);
+		for (int i = 0; i < length; i++) {
+			buffer.append(getLabelChar(offset + i));
+		}
+		buffer.append("\"");
+		int payload = getInt(node, PAYLOAD);
+		if (payload != 0 && payloads[payload - 1] != null) {
+			buffer.append(" {").append(payloads[payload - 1]).append('}');
+		}
+		for (int son = getInt(node, FIRST_SON); son != ROOT; son = getInt(son, NEXT_BROTHER)) {
+			buffer.append("\n");
+			appendTo(buffer, son, indentation + "  ");
+		}
+	}
+
+	/*
+	 * Arena access
+	 */
+
+	/**
+	 * Read an int field of a node record.
+	 *
+	 * @param node
+	 *            node index
+	 * @param field
+	 *            offset of the field inside the record
+	 * @return field value
+	 */
+	private int getInt(int node, int field) {
+		return nodeChunks[node >>> NODE_CHUNK_SHIFT]
+				.getInt((node & ((1 << NODE_CHUNK_SHIFT) - 1)) * RECORD_SIZE + field);
+	}
+
+	/**
+	 * Write an int field of a node record.
+	 *
+	 * @param node
+	 *            node index
+	 * @param field
+	 *            offset of the field inside the record
+	 * @param value
+	 *            field value
+	 */
+	private void setInt(int node, int field, int value) {
+		nodeChunks[node >>> NODE_CHUNK_SHIFT].putInt((node & ((1 << NODE_CHUNK_SHIFT) - 1)) * RECORD_SIZE + field,
+				value);
+	}
+
+	/**
+	 * Read the first character of the path of a node.
+	 *
+	 * @param node
+	 *            node index
+	 * @return first character
+	 */
+	private char getFirstChar(int node) {
+		return nodeChunks[node >>> NODE_CHUNK_SHIFT]
+				.getChar((node & ((1 << NODE_CHUNK_SHIFT) - 1)) * RECORD_SIZE + FIRST_CHAR);
+	}
+
+	/**
+	 * Read a character from the label arena.
+	 *
+	 * @param offset
+	 *            character offset
+	 * @return character
+	 */
+	private char getLabelChar(int offset) {
+		return labelChunks[offset >>> LABEL_CHUNK_SHIFT].getChar((offset & ((1 << LABEL_CHUNK_SHIFT) - 1)) << 1);
+	}
+
+	/**
+	 * Create a new node record without children or payload, reusing a removed
+	 * record if possible.
+	 *
+	 * @param labelOffset
+	 *            offset of the path in the label arena
+	 * @param labelLength
+	 *            length of the path
+	 * @param nextBrother
+	 *            index of the next brother
+	 * @return index of the new node
+	 */
+	private int newNode(int labelOffset, int labelLength, int nextBrother) {
+		int node;
+		if (freeNode != ROOT) {
+			node = freeNode;
+			freeNode = getInt(node, NEXT_BROTHER);
+			freeNodeCount--;
+		} else {
+			node = nodeCount;
+			int chunk = node >>> NODE_CHUNK_SHIFT;
+			if (chunk == nodeChunks.length) {
+				nodeChunks = Arrays.copyOf(nodeChunks, chunk * 2);
+			}
+			reserve(nodeChunks, chunk, ((node & ((1 << NODE_CHUNK_SHIFT) - 1)) + 1) * RECORD_SIZE,
+					RECORD_SIZE << NODE_CHUNK_SHIFT);
+			nodeCount++;
+		}
+		setInt(node, FIRST_SON, ROOT);
+		setInt(node, NEXT_BROTHER, nextBrother);
+		setInt(node, LABEL_OFFSET, labelOffset);
+		setInt(node, LABEL_LENGTH, labelLength);
+		setInt(node, PAYLOAD, 0);
+		nodeChunks[node >>> NODE_CHUNK_SHIFT].putChar(
+				(node & ((1 << NODE_CHUNK_SHIFT) - 1)) * RECORD_SIZE + FIRST_CHAR,
+				labelLength > 0 ? getLabelChar(labelOffset) : 0);
+		return node;
+	}
+
+	/**
+	 * Add a node record which is not linked any more to the free records. The
+	 * path of the node is not counted as unused here.
+	 *
+	 * @param node
+	 *            node index
+	 */
+	private void releaseNode(int node) {
+		setInt(node, FIRST_SON, ROOT);
+		setInt(node, NEXT_BROTHER, freeNode);
+		setInt(node, LABEL_LENGTH, 0);
+		setInt(node, PAYLOAD, 0);
+		freeNode = node;
+		freeNodeCount++;
+	}
+
+	/**
+	 * Rewrite the paths of all nodes into a new label arena, so the characters
+	 * which are not used any more are dropped.
+	 */
+	private void compactLabels() {
+		final ByteBuffer[] oldChunks = labelChunks;
+		labelChunks = new ByteBuffer[4];
+		labelLength = 0;
+		unusedLabelLength = 0;
+		char[] label = new char[16];
+		for (int node = 0; node < nodeCount; node++) {
+			final int offset = getInt(node, LABEL_OFFSET);
+			final int length = getInt(node, LABEL_LENGTH);
+			if (length == 0) {
+				// Root or free node record
+				continue;
+			}
+			if (length > label.length) {
+				label = new char[Math.max(length, label.length * 2)];
+			}
+			for (int i = 0; i < length; i++) {
+				final int position = offset + i;
+				label[i] = oldChunks[position >>> LABEL_CHUNK_SHIFT]
+						.getChar((position & ((1 << LABEL_CHUNK_SHIFT) - 1)) << 1);
+			}
+			setInt(node, LABEL_OFFSET, appendLabel(label, 0, length));
+		}
+	}
+
+	/**
+	 * Append characters to the label arena.
+	 *
+	 * @param word
+	 *            source characters
+	 * @param startIndex
+	 *            index to begin with (inclusive)
+	 * @param endIndex
+	 *            index to end at (exclusive)
+	 * @return offset of the first appended character
+	 */
+	private int appendLabel(char[] word, int startIndex, int endIndex) {
+		int offset = labelLength;
+		for (int i = startIndex; i < endIndex; i++) {
+			int chunk = labelLength >>> LABEL_CHUNK_SHIFT;
+			if (chunk == labelChunks.length) {
+				labelChunks = Arrays.copyOf(labelChunks, chunk * 2);
+			}
+			reserve(labelChunks, chunk, ((labelLength & ((1 << LABEL_CHUNK_SHIFT) - 1)) + 1) << 1,
+					2 << LABEL_CHUNK_SHIFT);
+			labelChunks[chunk].putChar((labelLength & ((1 << LABEL_CHUNK_SHIFT) - 1)) << 1, word[i]);
+			labelLength++;
+		}
+		return offset;
+	}
+
+	/**
+	 * Make sure a chunk of an arena is allocated with at least the given size.
+	 * Only the first chunk of an arena is allocated smaller than the chunk
+	 * size, and grows geometrically (copying its content) when needed.
+	 *
+	 * @param chunks
+	 *            chunks of the arena
+	 * @param chunk
+	 *            index of the chunk
+	 * @param bytes
+	 *            required size in bytes
+	 * @param chunkBytes
+	 *            full size of a chunk in bytes
+	 */
+	private static void reserve(ByteBuffer[] chunks, int chunk, int bytes, int chunkBytes) {
+		final ByteBuffer buffer = chunks[chunk];
+		if (buffer == null) {
+			int size = chunk == 0 ? Math.min(Math.max(INITIAL_CHUNK_BYTES, bytes), chunkBytes) : chunkBytes;
+			chunks[chunk] = allocate(size);
+		} else if (buffer.capacity() < bytes) {
+			ByteBuffer grown = allocate(Math.min(Math.max(buffer.capacity() * 2, bytes), chunkBytes));
+			ByteBuffer content = buffer.duplicate();
+			content.clear();
+			grown.put(content);
+			chunks[chunk] = grown;
+		}
+	}
+
+	/**
+	 * Allocate a chunk of off-heap memory.
+	 *
+	 * @param bytes
+	 *            size in bytes
+	 * @return direct buffer in native byte order
+	 */
+	private static ByteBuffer allocate(int bytes) {
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/*
+	 * Payload side table
+	 */
+
+	/**
+	 * Set the payload data of a node and mark it as inserted.
+	 *
+	 * @param node
+	 *            node index
+	 * @param data
+	 *            payload data
+	 */
+	private void setData(int node, T data) {
+		int payload = getInt(node, PAYLOAD);
+		if (payload == 0) {
+			payload = allocateSlot() + 1;
+			setInt(node, PAYLOAD, payload);
+		}
+		payloads[payload - 1] = data;
+	}
+
+	/**
+	 * Get a free slot in the payload table.
+	 *
+	 * @return slot index
+	 */
+	private int allocateSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		if (payloadCount == payloads.length) {
+			payloads = Arrays.copyOf(payloads, payloadCount * 2);
+		}
+		return payloadCount++;
+	}
+
+	/**
+	 * Release a slot of the payload table, so it can be reused.
+	 *
+	 * @param slot
+	 *            slot index
+	 */
+	private void releaseSlot(int slot) {
+		payloads[slot] = null;
+		if (freeSlotCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	/*
+	 * Serialization
+	 */
+
+	/**
+	 * Write the node records, labels, payload table and free lists.
+	 *
+	 * @param out
+	 *            output stream
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(nodeCount);
+		for (int node = 0; node < nodeCount; node++) {
+			out.writeInt(getInt(node, FIRST_SON));
+			out.writeInt(getInt(node, NEXT_BROTHER));
+			out.writeInt(getInt(node, LABEL_OFFSET));
+			out.writeInt(getInt(node, LABEL_LENGTH));
+			out.writeInt(getInt(node, PAYLOAD));
+		}
+		out.writeInt(labelLength);
+		for (int i = 0; i < labelLength; i++) {
+			out.writeChar(getLabelChar(i));
+		}
+		out.writeObject(Arrays.copyOf(payloads, payloadCount));
+		out.writeObject(Arrays.copyOf(freeSlots, freeSlotCount));
+		out.writeInt(freeNode);
+		out.writeInt(freeNodeCount);
+		out.writeInt(unusedLabelLength);
+	}
+
+	/**
+	 * Read the node records, labels, payload table and free lists into new
+	 * arenas.
+	 *
+	 * @param in
+	 *            input stream
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws ClassNotFoundException
+	 *             if a payload class cannot be found
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		clear();
+		int nodes = in.readInt();
+		int[] records = new int[nodes * 5];
+		for (int i = 0; i < records.length; i++) {
+			records[i] = in.readInt();
+		}
+		int labels = in.readInt();
+		char[] chars = new char[labels];
+		for (int i = 0; i < labels; i++) {
+			chars[i] = in.readChar();
+		}
+		appendLabel(chars, 0, labels);
+
+		nodeCount = 0;
+		for (int node = 0; node < nodes; node++) {
+			newNode(records[node * 5 + 2], records[node * 5 + 3], records[node * 5 + 1]);
+			setInt(node, FIRST_SON, records[node * 5]);
+			setInt(node, PAYLOAD, records[node * 5 + 4]);
+		}
+		payloads = (Object[]) in.readObject();
+		payloadCount = payloads.length;
+		payloads = Arrays.copyOf(payloads, Math.max(16, payloadCount));
+		freeSlots = (int[]) in.readObject();
+		freeSlotCount = freeSlots.length;
+		freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeSlotCount));
+		freeNode = in.readInt();
+		freeNodeCount = in.readInt();
+		unusedLabelLength = in.readInt();
+	}
+
+}
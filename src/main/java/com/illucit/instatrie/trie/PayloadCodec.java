@@ -0,0 +1,68 @@
+package com.illucit.instatrie.trie;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+/**
+ * Codec for the payload data in the compact stream format of a {@link Trie}
+ * (see {@link Trie#writeTo(java.io.OutputStream, PayloadCodec)}). A codec
+ * specialized for the payload type can write much less than the default Java
+ * serialization of each payload object.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public interface PayloadCodec<T extends Serializable> {
+
+	/**
+	 * Write a payload.
+	 *
+	 * @param out
+	 *            output
+	 * @param data
+	 *            payload data (never null)
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	void write(ObjectOutput out, T data) throws IOException;
+
+	/**
+	 * Read a payload written by {@link #write(ObjectOutput, Serializable)}.
+	 *
+	 * @param in
+	 *            input
+	 * @return payload data
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws ClassNotFoundException
+	 *             if a class of the payload cannot be found
+	 */
+	T read(ObjectInput in) throws IOException, ClassNotFoundException;
+
+	/**
+	 * Get the codec writing the payloads with the default Java serialization.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 * @return codec for any payload type
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Serializable> PayloadCodec<T> objects() {
+		return (PayloadCodec<T>) TrieSerialization.OBJECT_CODEC;
+	}
+
+	/**
+	 * Get the codec writing string payloads as UTF-8 with a variable length
+	 * prefix.
+	 *
+	 * @return codec for string payloads
+	 */
+	static PayloadCodec<String> strings() {
+		return TrieSerialization.STRING_CODEC;
+	}
+
+}
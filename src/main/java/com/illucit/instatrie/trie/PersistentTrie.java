@@ -0,0 +1,473 @@
+package com.illucit.instatrie.trie;
+
+import static com.illucit.instatrie.trie.Trie.EMPTY_CHAR_ARRAY;
+import static com.illucit.instatrie.trie.Trie.subarray;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable, persistent trie. Instead of modifying the trie, the methods
+ * {@link #with(char[], Serializable)}, {@link #without(char[])} and
+ * {@link #withUpdated(char[], Function)} return a new version of the trie,
+ * which shares all untouched subtrees with the old version. Only the nodes on
+ * the path of the modified word and their preceding brothers are copied, so an
+ * update allocates O(length of the word) nodes (plus the brothers), and all
+ * old versions stay valid. <br>
+ * <br>
+ * The nodes of a version are never modified after it has been created, so
+ * each version can be accessed by multiple concurrent threads. The mutating
+ * methods of {@link PrefixDictionary} are not supported and throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class PersistentTrie<T extends Serializable> implements PrefixDictionary<T> {
+
+	private static final long serialVersionUID = 1509934207367513547L;
+
+	/**
+	 * Trie to search in the nodes of this version (never modified).
+	 */
+	private final Trie<T> trie;
+
+	/**
+	 * Number of inserted words.
+	 */
+	private final int size;
+
+	/**
+	 * Create empty trie.
+	 */
+	public PersistentTrie() {
+		this(new TrieNode<T>(EMPTY_CHAR_ARRAY, null, null, null, false), 0);
+	}
+
+	/**
+	 * Create a version of the trie.
+	 *
+	 * @param root
+	 *            root node
+	 * @param size
+	 *            number of inserted words
+	 */
+	private PersistentTrie(TrieNode<T> root, int size) {
+		this.trie = new Trie<>(root);
+		this.size = size;
+	}
+
+	/**
+	 * Get the number of inserted words.
+	 *
+	 * @return number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * Versioning operations
+	 */
+
+	/**
+	 * Create a new version with an inserted word.
+	 *
+	 * @param word
+	 *            word to insert
+	 * @param data
+	 *            payload data
+	 * @return new version
+	 */
+	public PersistentTrie<T> with(char[] word, T data) {
+		return withUpdated(word, oldData -> data);
+	}
+
+	/**
+	 * Create a new version with an inserted word.
+	 *
+	 * @param word
+	 *            word to insert
+	 * @param data
+	 *            payload data
+	 * @return new version
+	 */
+	public PersistentTrie<T> with(String word, T data) {
+		return with(word.toCharArray(), data);
+	}
+
+	/**
+	 * Create a new version with an inserted or updated word.
+	 *
+	 * @param word
+	 *            word to insert or update
+	 * @param updateFunction
+	 *            function to calculate the new payload data from the current
+	 *            payload data (or null if the word is not contained yet)
+	 * @return new version
+	 */
+	public PersistentTrie<T> withUpdated(char[] word, Function<T, T> updateFunction) {
+		final int wordLength = word.length;
+		TrieNode<T> root = copy(trie.getRoot());
+		TrieNode<T> node = root; // current (copied) node
+		int wordPos = 0; // current position in word
+		List<TrieNode<T>> path = new ArrayList<>(); // copied nodes
+		path.add(root);
+
+		// Descend in tree and copy the path
+		while (wordPos < wordLength) {
+
+			// First character to search for in children
+			final char firstChar = word[wordPos];
+
+			// Copy sons before the matching one
+			TrieNode<T> previousCopy = null;
+			TrieNode<T> son = node.getFirstSon();
+			while (son != null && son.getFirstChar() < firstChar) {
+				TrieNode<T> sonCopy = copy(son);
+				link(node, previousCopy, sonCopy);
+				previousCopy = sonCopy;
+				son = son.getNextBrother();
+			}
+
+			if (son == null || son.getFirstChar() > firstChar) {
+				// Insert new node before the current son
+				TrieNode<T> leaf = new TrieNode<>(subarray(word, wordPos, wordLength), son, null,
+						updateFunction.apply(null), true, 1);
+				link(node, previousCopy, leaf);
+				return version(path, true);
+			}
+
+			// Find matching chars in path of son
+			final char[] sonChars = son.getChars();
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
+				wordPos++;
+			}
+
+			if (sonPos == sonLength) {
+				// Son matches completely: copy it and continue to descend
+				TrieNode<T> sonCopy = copy(son);
+				link(node, previousCopy, sonCopy);
+				node = sonCopy;
+				path.add(node);
+				continue;
+			}
+
+			// Split son: the sub node with the suffix shares the children
+			TrieNode<T> subNode = new TrieNode<>(subarray(sonChars, sonPos, sonLength), null, son.getFirstSon(),
+					son.getData(), son.isInserted(), son.getCount());
+			TrieNode<T> splitNode;
+			if (wordPos == wordLength) {
+				// Word ends inside the path of the son
+				splitNode = new TrieNode<>(subarray(sonChars, 0, sonPos), son.getNextBrother(), subNode,
+						updateFunction.apply(null), true, son.getCount() + 1);
+			} else {
+				TrieNode<T> leaf = new TrieNode<>(subarray(word, wordPos, wordLength), null, null,
+						updateFunction.apply(null), true, 1);
+				TrieNode<T> firstSon = subNode;
+				if (sonChars[sonPos] < word[wordPos]) {
+					subNode.setNextBrother(leaf);
+				} else {
+					leaf.setNextBrother(subNode);
+					firstSon = leaf;
+				}
+				splitNode = new TrieNode<>(subarray(sonChars, 0, sonPos), son.getNextBrother(), firstSon, null, false,
+						son.getCount() + 1);
+			}
+			link(node, previousCopy, splitNode);
+			return version(path, true);
+		}
+
+		// Word ends in existing node
+		boolean wasInserted = node.isInserted();
+		node.setData(updateFunction.apply(node.getData()));
+		node.setInserted(true);
+		return version(path, !wasInserted);
+	}
+
+	/**
+	 * Create a new version from a copied path, after counting an added word in
+	 * its nodes.
+	 *
+	 * @param path
+	 *            copied nodes from the root to the parent of the modified node
+	 *            (or the modified node itself)
+	 * @param added
+	 *            true if a word was added, false if only payload data changed
+	 * @return new version
+	 */
+	private PersistentTrie<T> version(List<TrieNode<T>> path, boolean added) {
+		if (!added) {
+			return new PersistentTrie<>(path.get(0), size);
+		}
+		for (TrieNode<T> node : path) {
+			node.setCount(node.getCount() + 1);
+		}
+		return new PersistentTrie<>(path.get(0), size + 1);
+	}
+
+	/**
+	 * Create a new version with an inserted or updated word.
+	 *
+	 * @param word
+	 *            word to insert or update
+	 * @param updateFunction
+	 *            function to calculate the new payload data from the current
+	 *            payload data (or null if the word is not contained yet)
+	 * @return new version
+	 */
+	public PersistentTrie<T> withUpdated(String word, Function<T, T> updateFunction) {
+		return withUpdated(word.toCharArray(), updateFunction);
+	}
+
+	/**
+	 * Create a new version without a word. Nodes which are not needed any more
+	 * are removed, and nodes with a single son are merged with it.
+	 *
+	 * @param word
+	 *            word to delete
+	 * @return new version (or this version, if the word is not contained)
+	 */
+	public PersistentTrie<T> without(char[] word) {
+		// Collect nodes on the path of the word
+		List<TrieNode<T>> path = new ArrayList<>();
+		if (!trie.walkPath(word, path::add, false) || !path.get(path.size() - 1).isInserted()) {
+			return this;
+		}
+
+		// Rebuild path bottom-up
+		int last = path.size() - 1;
+		TrieNode<T> target = path.get(last);
+		TrieNode<T> replacement;
+		if (last == 0) {
+			replacement = new TrieNode<>(target.getChars(), null, target.getFirstSon(), null, false,
+					target.getCount() - 1);
+		} else {
+			replacement = shrink(target, target.getFirstSon());
+		}
+		for (int i = last - 1; i >= 0; i--) {
+			TrieNode<T> node = path.get(i);
+			TrieNode<T> firstSon = replaceSon(node.getFirstSon(), path.get(i + 1), replacement);
+			if (i == 0) {
+				replacement = new TrieNode<>(node.getChars(), null, firstSon, node.getData(), node.isInserted(),
+						node.getCount() - 1);
+			} else if (node.isInserted()) {
+				replacement = new TrieNode<>(node.getChars(), node.getNextBrother(), firstSon, node.getData(), true,
+						node.getCount() - 1);
+			} else {
+				replacement = shrink(node, firstSon);
+			}
+		}
+		return new PersistentTrie<>(replacement, size - 1);
+	}
+
+	/**
+	 * Create a new version without a word. Nodes which are not needed any more
+	 * are removed, and nodes with a single son are merged with it.
+	 *
+	 * @param word
+	 *            word to delete
+	 * @return new version (or this version, if the word is not contained)
+	 */
+	public PersistentTrie<T> without(String word) {
+		return without(word.toCharArray());
+	}
+
+	/**
+	 * Create the replacement for a node without payload: removed if there are
+	 * no sons, merged with the son if there is only one, or a copy otherwise.
+	 * The subtree of the node must contain one word less than before.
+	 *
+	 * @param node
+	 *            node (not the root node)
+	 * @param firstSon
+	 *            new first son of the node
+	 * @return replacement node or null if the node is removed
+	 */
+	private static <T extends Serializable> TrieNode<T> shrink(TrieNode<T> node, TrieNode<T> firstSon) {
+		if (firstSon == null) {
+			return null;
+		}
+		if (firstSon.getNextBrother() == null) {
+			return Trie.merge(node, firstSon);
+		}
+		return new TrieNode<>(node.getChars(), node.getNextBrother(), firstSon, null, false, node.getCount() - 1);
+	}
+
+	/**
+	 * Replace a son in a list of brothers by copying the preceding brothers.
+	 *
+	 * @param firstSon
+	 *            first son of the list
+	 * @param son
+	 *            son to replace
+	 * @param replacement
+	 *            replacement (with the same next brother), or null to remove
+	 *            the son
+	 * @return new first son
+	 */
+	private static <T extends Serializable> TrieNode<T> replaceSon(TrieNode<T> firstSon, TrieNode<T> son,
+			TrieNode<T> replacement) {
+		TrieNode<T> next = replacement != null ? replacement : son.getNextBrother();
+		TrieNode<T> head = null;
+		TrieNode<T> previousCopy = null;
+		for (TrieNode<T> brother = firstSon; brother != son; brother = brother.getNextBrother()) {
+			TrieNode<T> brotherCopy = copy(brother);
+			if (previousCopy == null) {
+				head = brotherCopy;
+			} else {
+				previousCopy.setNextBrother(brotherCopy);
+			}
+			previousCopy = brotherCopy;
+		}
+		if (previousCopy == null) {
+			return next;
+		}
+		previousCopy.setNextBrother(next);
+		return head;
+	}
+
+	/**
+	 * Copy a single node (sharing its sons and brothers).
+	 *
+	 * @param node
+	 *            node
+	 * @return copy
+	 */
+	private static <T extends Serializable> TrieNode<T> copy(TrieNode<T> node) {
+		return new TrieNode<>(node.getChars(), node.getNextBrother(), node.getFirstSon(), node.getData(),
+				node.isInserted(), node.getCount());
+	}
+
+	/**
+	 * Link a new (copied) node into the list of children of a (copied) parent
+	 * node.
+	 *
+	 * @param parent
+	 *            parent node
+	 * @param previousCopy
+	 *            son to link the node after (or null to link it as first son)
+	 * @param node
+	 *            new node
+	 */
+	private static <T extends Serializable> void link(TrieNode<T> parent, TrieNode<T> previousCopy, TrieNode<T> node) {
+		if (previousCopy == null) {
+			parent.setFirstSon(node);
+		} else {
+			previousCopy.setNextBrother(node);
+		}
+	}
+
+	/*
+	 * Read operations
+	 */
+
+	@Override
+	public boolean containsPrefix(char[] word) {
+		return trie.containsPrefix(word);
+	}
+
+	@Override
+	public boolean contains(char[] word) {
+		return trie.contains(word);
+	}
+
+	@Override
+	public T getData(char[] word) {
+		return trie.getData(word);
+	}
+
+	@Override
+	public int getDepth() {
+		return trie.getDepth();
+	}
+
+	/**
+	 * Collect structural metrics of the node structure (see
+	 * {@link Trie#getStatistics()}). Nodes shared with other versions are
+	 * included.
+	 * 
+	 * @return statistics
+	 */
+	public TrieStatistics getStatistics() {
+		return trie.getStatistics();
+	}
+
+	/**
+	 * Count the words with a given prefix (see {@link Trie#countPrefix(CharSequence)}).
+	 *
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @return number of words with the prefix
+	 */
+	public int countPrefix(CharSequence prefix) {
+		return trie.countPrefix(prefix);
+	}
+
+	/**
+	 * Get the number of words which are smaller than a given word (see
+	 * {@link Trie#rank(CharSequence)}).
+	 *
+	 * @param word
+	 *            word
+	 * @return number of smaller words
+	 */
+	public int rank(CharSequence word) {
+		return trie.rank(word);
+	}
+
+	/**
+	 * Get the word at a given position in the ascending order of all words (see
+	 * {@link Trie#select(int)}).
+	 *
+	 * @param index
+	 *            position of the word (starting at 0)
+	 * @return word at the position
+	 */
+	public String select(int index) {
+		return trie.select(index);
+	}
+
+	/*
+	 * Write operations (not supported)
+	 */
+
+	@Override
+	public void insert(char[] word, int startIndex, int endIndex, T data) {
+		throw new UnsupportedOperationException("PersistentTrie is immutable, use with(...) instead");
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("PersistentTrie is immutable, use new PersistentTrie() instead");
+	}
+
+	@Override
+	public void delete(char[] word) {
+		throw new UnsupportedOperationException("PersistentTrie is immutable, use without(...) instead");
+	}
+
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		throw new UnsupportedOperationException("PersistentTrie is immutable, use withUpdated(...) instead");
+	}
+
+	/**
+	 * Get String representation of trie.
+	 *
+	 * @return String representation of root node
+	 */
+	@Override
+	public String toString() {
+		return trie.toString();
+	}
+
+}
@@ -130,7 +130,7 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 *         another word
 	 */
 	default boolean containsPrefix(String word) {
-		return containsPrefix(word.toCharArray());
+		return containsPrefix((CharSequence) word);
 	}
 
 	/**
@@ -143,6 +143,56 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 */
 	boolean containsPrefix(char[] word);
 
+	/**
+	 * Check if a word is either included completely or as prefix in the trie.
+	 * Implementations may search the characters of the sequence without
+	 * copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @return true if the word is included either completely or as prefix of
+	 *         another word
+	 */
+	default boolean containsPrefix(CharSequence word) {
+		return containsPrefix(word, 0, word.length());
+	}
+
+	/**
+	 * Check if a substring of a word is either included completely or as
+	 * prefix in the trie. Implementations may search the characters of the
+	 * sequence without copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return true if the substring is included either completely or as
+	 *         prefix of another word
+	 */
+	default boolean containsPrefix(CharSequence word, int startIndex, int endIndex) {
+		return containsPrefix(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
+	/**
+	 * Check if a substring of a word is either included completely or as
+	 * prefix in the trie. Implementations may search the characters of the
+	 * array without copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return true if the substring is included either completely or as
+	 *         prefix of another word
+	 */
+	default boolean containsPrefix(char[] word, int startIndex, int endIndex) {
+		return containsPrefix(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
 	/**
 	 * Check if a word is included exactly in the trie.
 	 * 
@@ -151,7 +201,7 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 * @return true if the word is included in the trie
 	 */
 	default boolean contains(String word) {
-		return contains(word.toCharArray());
+		return contains((CharSequence) word);
 	}
 
 	/**
@@ -163,6 +213,52 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 */
 	boolean contains(char[] word);
 
+	/**
+	 * Check if a word is included exactly in the trie. Implementations may
+	 * search the characters of the sequence without copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @return true if the word is included in the trie
+	 */
+	default boolean contains(CharSequence word) {
+		return contains(word, 0, word.length());
+	}
+
+	/**
+	 * Check if a substring of a word is included exactly in the trie.
+	 * Implementations may search the characters of the sequence without
+	 * copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return true if the substring is included in the trie
+	 */
+	default boolean contains(CharSequence word, int startIndex, int endIndex) {
+		return contains(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
+	/**
+	 * Check if a substring of a word is included exactly in the trie.
+	 * Implementations may search the characters of the array without copying
+	 * them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return true if the substring is included in the trie
+	 */
+	default boolean contains(char[] word, int startIndex, int endIndex) {
+		return contains(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
 	/**
 	 * Delete the data associated with the given word. If the word is not
 	 * contained in the dictionary, nothing happens.
@@ -171,7 +267,7 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 *            word to search for
 	 */
 	default void delete(String word) {
-		delete(word.toCharArray());
+		delete((CharSequence) word);
 	}
 
 	/**
@@ -183,6 +279,52 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 */
 	void delete(char[] word);
 
+	/**
+	 * Delete the data associated with the given word. If the word is not
+	 * contained in the dictionary, nothing happens. Implementations may search
+	 * the characters of the sequence without copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 */
+	default void delete(CharSequence word) {
+		delete(word, 0, word.length());
+	}
+
+	/**
+	 * Delete the data associated with a substring of the given word. If the
+	 * substring is not contained in the dictionary, nothing happens.
+	 * Implementations may search the characters of the sequence without
+	 * copying them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 */
+	default void delete(CharSequence word, int startIndex, int endIndex) {
+		delete(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
+	/**
+	 * Delete the data associated with a substring of the given word. If the
+	 * substring is not contained in the dictionary, nothing happens.
+	 * Implementations may search the characters of the array without copying
+	 * them.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 */
+	default void delete(char[] word, int startIndex, int endIndex) {
+		delete(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
 	/**
 	 * Get data associated with the word in the trie, or null if the word was
 	 * not included.
@@ -192,7 +334,7 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 * @return Daten am gefundenen Knoten order null
 	 */
 	default T getData(String word) {
-		return getData(word.toCharArray());
+		return getData((CharSequence) word);
 	}
 
 	/**
@@ -205,6 +347,53 @@ public interface PrefixDictionary<T extends Serializable> extends Serializable {
 	 */
 	T getData(char[] word);
 
+	/**
+	 * Get data associated with the word in the trie, or null if the word was
+	 * not included. Implementations may search the characters of the sequence
+	 * without copying them.
+	 * 
+	 * @param word
+	 *            word to search
+	 * @return payload data of the word or null
+	 */
+	default T getData(CharSequence word) {
+		return getData(word, 0, word.length());
+	}
+
+	/**
+	 * Get data associated with a substring of the word in the trie, or null if
+	 * the substring was not included. Implementations may search the
+	 * characters of the sequence without copying them.
+	 * 
+	 * @param word
+	 *            word to search
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return payload data of the substring or null
+	 */
+	default T getData(CharSequence word, int startIndex, int endIndex) {
+		return getData(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
+	/**
+	 * Get data associated with a substring of the word in the trie, or null if
+	 * the substring was not included. Implementations may search the
+	 * characters of the array without copying them.
+	 * 
+	 * @param word
+	 *            word to search
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return payload data of the substring or null
+	 */
+	default T getData(char[] word, int startIndex, int endIndex) {
+		return getData(Trie.toCharArray(word, startIndex, endIndex));
+	}
+
 	/**
 	 * Insert or update data in the trie. If the word is already included in the
 	 * trie, the update function is called with the current value and the value
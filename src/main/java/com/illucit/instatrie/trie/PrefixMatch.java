@@ -0,0 +1,74 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+
+/**
+ * Result of a longest prefix match (see
+ * {@link Trie#longestPrefixOf(CharSequence, int, int, PrefixMatch)}). The
+ * object is mutable, so a single instance can be reused for many lookups
+ * without allocation.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class PrefixMatch<T extends Serializable> {
+
+	/**
+	 * Length of the matched word (or -1 if no word was found).
+	 */
+	private int length = -1;
+
+	/**
+	 * Payload data of the matched word.
+	 */
+	private T data;
+
+	/**
+	 * Check if a word was found.
+	 *
+	 * @return true if a word was found
+	 */
+	public boolean isFound() {
+		return length >= 0;
+	}
+
+	/**
+	 * Get the length of the matched word.
+	 *
+	 * @return number of characters of the matched word (or -1 if no word was
+	 *         found)
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Get the payload data of the matched word.
+	 *
+	 * @return payload data (or null if no word was found)
+	 */
+	public T getData() {
+		return data;
+	}
+
+	/**
+	 * Set the matched word.
+	 *
+	 * @param length
+	 *            length of the word (or -1 if no word was found)
+	 * @param data
+	 *            payload data
+	 */
+	void set(int length, T data) {
+		this.length = length;
+		this.data = data;
+	}
+
+	@Override
+	public String toString() {
+		return isFound() ? "PrefixMatch[" + length + " -> " + data + "]" : "PrefixMatch[none]";
+	}
+
+}
@@ -1,8 +1,26 @@
 package com.illucit.instatrie.trie;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Trie data structure to store string chains together with payload data. This
@@ -11,7 +29,8 @@ import java.util.function.Function;
  * <br>
  * This data structure is not threadsafe, so simultanious access by multiple
  * concurrent threads is not permitted, if one of them makes modifications to
- * the node structure.
+ * the node structure. For one writer thread and concurrent reader threads,
+ * use {@link ConcurrentReadTrie}.
  * 
  * @author Christian Simon
  *
@@ -20,30 +39,63 @@ import java.util.function.Function;
  */
 public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 
-	private static final long serialVersionUID = 2207742126800619167L;
+	private static final long serialVersionUID = -3529436262215934215L;
 
-	private static final char[] EMPTY_CHAR_ARRAY = new char[0];
+	static final char[] EMPTY_CHAR_ARRAY = new char[0];
 
 	/**
-	 * Root node of the tree.
+	 * Root node of the tree (serialized in the compact stream format of
+	 * {@link TrieSerialization}, and only replaced when deserializing).
 	 */
-	private final TrieNode<T> root;
+	private transient TrieNode<T> root;
+
+	/**
+	 * Flag if nodes are never modified in place by a split, so structural
+	 * changes can be published safely to concurrent readers.
+	 */
+	private final boolean safePublication;
+
+	/**
+	 * Nodes from the root to the node found by the last call of
+	 * {@link #insertNode(char[], int, int)}, to update their word counts.
+	 */
+	private transient TrieNode<?>[] insertPath;
+
+	/**
+	 * Number of nodes in {@link #insertPath}.
+	 */
+	private transient int insertPathLength;
 
 	/**
 	 * Create empty trie.
 	 */
 	public Trie() {
-		this.root = new TrieNode<T>(EMPTY_CHAR_ARRAY, null, null, null, false);
+		this(false);
 	}
 
 	/**
-	 * Create a trie with an existing root node.
+	 * Create a trie with an existing root node. The word counts of the nodes
+	 * (see {@link TrieNode#getCount()}) are expected to be correct.
 	 * 
 	 * @param root
 	 *            root node
 	 */
 	public Trie(TrieNode<T> root) {
 		this.root = root;
+		this.safePublication = false;
+	}
+
+	/**
+	 * Create empty trie.
+	 * 
+	 * @param safePublication
+	 *            if true, splitted nodes are replaced by new nodes instead of
+	 *            being modified in place, so a single writer thread can modify
+	 *            the trie while other threads read it
+	 */
+	protected Trie(boolean safePublication) {
+		this.root = new TrieNode<T>(EMPTY_CHAR_ARRAY, null, null, null, false);
+		this.safePublication = safePublication;
 	}
 
 	/**
@@ -57,9 +109,11 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 
 	@Override
 	public void clear() {
+		this.root.setInserted(false);
 		this.root.setData(null);
 		this.root.setFirstSon(null);
 		this.root.setNextBrother(null);
+		this.root.updateCount();
 	}
 
 	@Override
@@ -67,274 +121,473 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 		if (endIndex < startIndex) {
 			throw new IllegalArgumentException(endIndex + " < " + startIndex);
 		}
+		TrieNode<T> node = insertNode(word, startIndex, endIndex);
+		node.setData(data);
+		markInserted(node);
+	}
 
-		if (endIndex == 0) {
-			// Word of length 0 ends in root node
-			this.root.setData(data);
-			this.root.setInserted(true);
-			return;
+	@Override
+	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
+		TrieNode<T> node = insertNode(word, 0, word.length);
+		try {
+			node.setData(updateFunction.apply(node.getData()));
+			markInserted(node);
+		} finally {
+			// Don't keep references to the nodes if the update function fails
+			clearInsertPath();
+		}
+	}
+
+	/**
+	 * Get the number of inserted words.
+	 * 
+	 * @return number of words
+	 */
+	public int size() {
+		return this.root.getCount();
+	}
+
+	/**
+	 * Set the inserted flag of the node found by the last call of
+	 * {@link #insertNode(char[], int, int)}, and count the word in all nodes on
+	 * its path if it was not inserted before. The path is cleared afterwards.
+	 * 
+	 * @param node
+	 *            node of the word
+	 */
+	private void markInserted(TrieNode<T> node) {
+		if (!node.isInserted()) {
+			node.setInserted(true);
+			for (int i = 0; i < insertPathLength; i++) {
+				TrieNode<?> pathNode = insertPath[i];
+				pathNode.setCount(pathNode.getCount() + 1);
+			}
+		}
+		clearInsertPath();
+	}
+
+	/**
+	 * Remove all nodes from {@link #insertPath}.
+	 */
+	private void clearInsertPath() {
+		for (int i = 0; i < insertPathLength; i++) {
+			insertPath[i] = null;
+		}
+		insertPathLength = 0;
+	}
+
+	/**
+	 * Append a node to {@link #insertPath}.
+	 * 
+	 * @param node
+	 *            node
+	 */
+	private void addToInsertPath(TrieNode<T> node) {
+		if (insertPath == null) {
+			insertPath = new TrieNode<?>[16];
+		} else if (insertPathLength == insertPath.length) {
+			insertPath = Arrays.copyOf(insertPath, insertPathLength * 2);
 		}
+		insertPath[insertPathLength++] = node;
+	}
 
+	/**
+	 * Find or create the node which represents the given word. Newly created
+	 * nodes are not marked as inserted and have no data, so the caller can set
+	 * the data before the inserted flag. The nodes from the root to the found
+	 * node are stored in {@link #insertPath}.
+	 * 
+	 * @param word
+	 *            word to be inserted
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @return node for the word
+	 */
+	private TrieNode<T> insertNode(char[] word, int startIndex, int endIndex) {
 		int wordPos = startIndex; // current position in word
 		TrieNode<T> node = this.root; // current node
+		insertPathLength = 0;
+		addToInsertPath(node);
 
 		// Descend in tree
-		while (true) {
+		while (wordPos < endIndex) {
 
 			// First character to search for in children
 			final char firstChar = word[wordPos];
 
-			final TrieNode<T> firstSon = node.getFirstSon();
-			if (firstSon == null || firstSon.getFirstChar() > firstChar) {
-				// Insert new node as first son of current node (shift existing
-				// child nodes)
-				node.setFirstSon(new TrieNode<T>(subarray(word, wordPos, endIndex), firstSon, null, data, true));
-				return;
-			}
-
 			// find son to insert after or below
-			TrieNode<T> currSon = firstSon;
-			for (TrieNode<T> brother : firstSon.brothers()) {
-				if (brother.getFirstChar() > firstChar) {
-					break;
-				}
-				currSon = brother;
+			TrieNode<T> previousSon = null;
+			TrieNode<T> currSon = node.getFirstSon();
+			while (currSon != null && currSon.getFirstChar() < firstChar) {
+				previousSon = currSon;
+				currSon = currSon.getNextBrother();
 			}
 
-			if (currSon.getFirstChar() == firstChar) {
+			if (currSon == null || currSon.getFirstChar() > firstChar) {
+				// insert new node between previous and current son (shift next
+				// brothers)
+				TrieNode<T> insertedNode = new TrieNode<>(subarray(word, wordPos, endIndex), currSon, null, null,
+						false, 0);
+				link(node, previousSon, insertedNode);
+				addToInsertPath(insertedNode);
+				return insertedNode;
+			}
 
-				// Find matching chars in path of current node
-				char[] sonChars = currSon.getChars();
-				int sonPos = 1;
+			// Find matching chars in path of current node
+			char[] sonChars = currSon.getChars();
+			int sonPos = 1;
+			wordPos++;
+			int sonLength = sonChars.length;
+			while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
+				sonPos++;
 				wordPos++;
-				int sonLength = sonChars.length;
-				while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
-					sonPos++;
-					wordPos++;
-				}
-
-				if (wordPos == endIndex) {
-					// Word completely found in node
-
-					if (sonPos == sonLength) {
-						// Update node data
-						currSon.setData(data);
-						currSon.setInserted(true);
-						return;
-					}
-
-					// Word is prefix of node path: split node to add the data
-
-					// create sub-node as child of this node to split up path
-					TrieNode<T> subNode = new TrieNode<T>(subarray(sonChars, sonPos, sonChars.length), null,
-							currSon.getFirstSon(), currSon.getData(), currSon.isInserted());
-					currSon.setFirstSon(subNode);
-					currSon.setChars(subarray(sonChars, 0, sonPos));
-					currSon.setData(data);
-					currSon.setInserted(true);
-					return;
-
-				} else if (sonPos == sonLength) {
-					// Node matches completely, but word is not yet finished
-					// continue to descend
+			}
 
-					node = currSon;
+			if (sonPos == sonLength) {
+				// Node matches completely, continue to descend
+				node = currSon;
+				addToInsertPath(node);
+				continue;
+			}
 
+			// Node only has common prefix with word or the word is a prefix of
+			// the node path, so node needs to be splitted
+
+			// create sub-node with the suffix, which takes over the children
+			// and data of the splitted node
+			TrieNode<T> splittedSubNode = new TrieNode<T>(subarray(sonChars, sonPos, sonLength), null,
+					currSon.getFirstSon(), currSon.getData(), currSon.isInserted(), currSon.getCount());
+			TrieNode<T> newWordNode = null;
+			TrieNode<T> newFirstSon = splittedSubNode;
+			if (wordPos < endIndex) {
+				// different suffixes: add node for the word next to the
+				// splitted sub-node
+				newWordNode = new TrieNode<T>(subarray(word, wordPos, endIndex), null, null, null, false, 0);
+				if (sonChars[sonPos] < word[wordPos]) {
+					splittedSubNode.setNextBrother(newWordNode);
 				} else {
-					// Node only has common prefix with word, but down not match
-					// it completely
-					// So node needs to be splitted
-
-					// different suffixes
-					final char[] wordSuffix = subarray(word, wordPos, endIndex);
-					final char[] sonSuffix = subarray(sonChars, sonPos, sonChars.length);
-
-					if (sonSuffix[0] < wordSuffix[0]) {
-						// new node needs to be inserted after the splitted
-						// subnode (as next brother)
-						TrieNode<T> newWordNode = new TrieNode<T>(wordSuffix, null, null, data, true);
-						TrieNode<T> splittedSubNode = new TrieNode<T>(sonSuffix, newWordNode, currSon.getFirstSon(),
-								currSon.getData(), currSon.isInserted());
-						currSon.setFirstSon(splittedSubNode);
-					} else {
-						// new node needs to be inserted before the splitted
-						// subnode (so splitted subnode is next browser of
-						// inserted node)
-						TrieNode<T> splittedSubNode = new TrieNode<T>(sonSuffix, null, currSon.getFirstSon(),
-								currSon.getData(), currSon.isInserted());
-						TrieNode<T> newWordNode = new TrieNode<T>(wordSuffix, splittedSubNode, null, data, true);
-						currSon.setFirstSon(newWordNode);
-					}
-
-					// Update path to common prefix
-					currSon.setChars(subarray(sonChars, 0, sonPos));
-					// Clear data and inserted flag from now splitted node
-					currSon.setData(null);
-					currSon.setInserted(false);
-					return;
+					newWordNode.setNextBrother(splittedSubNode);
+					newFirstSon = newWordNode;
 				}
+			}
+
+			// Update path to common prefix and clear data and inserted flag
+			if (safePublication) {
+				// Publish a completely built copy instead of modifying the node
+				// in place, so readers never see a half-splitted node
+				TrieNode<T> splittedNode = new TrieNode<T>(subarray(sonChars, 0, sonPos), currSon.getNextBrother(),
+						newFirstSon, null, false, currSon.getCount());
+				link(node, previousSon, splittedNode);
+				currSon = splittedNode;
 			} else {
-				// insert new node after current node (shift next brothers)
-				TrieNode<T> insertedNode = new TrieNode<>(subarray(word, wordPos, endIndex), currSon.getNextBrother(),
-						null, data, true);
-				currSon.setNextBrother(insertedNode);
-				return;
+				currSon.setFirstSon(newFirstSon);
+				currSon.setChars(subarray(sonChars, 0, sonPos));
+				currSon.setData(null);
+				currSon.setInserted(false);
+			}
+			addToInsertPath(currSon);
+			if (newWordNode != null) {
+				addToInsertPath(newWordNode);
+				return newWordNode;
 			}
+			return currSon;
 		}
+		return node;
 	}
 
-	@Override
-	public void updateOrInsertData(char[] word, Function<T, T> updateFunction) {
-		int endIndex = word.length;
-
-		if (endIndex == 0) {
-			// Word of length 0 ends in root node
-			this.root.setData(updateFunction.apply(this.root.getData()));
-			this.root.setInserted(true);
-			return;
+	/**
+	 * Link a new node into the list of children of a parent node.
+	 * 
+	 * @param parent
+	 *            parent node
+	 * @param previousSon
+	 *            son to insert the node after (or null to insert as first son)
+	 * @param newNode
+	 *            new node, whose next brother is already set (or the next
+	 *            brother of a removed son)
+	 */
+	private static <T extends Serializable> void link(TrieNode<T> parent, TrieNode<T> previousSon,
+			TrieNode<T> newNode) {
+		if (previousSon == null) {
+			parent.setFirstSon(newNode);
+		} else {
+			previousSon.setNextBrother(newNode);
 		}
+	}
 
-		int wordPos = 0; // current position in word
-		TrieNode<T> node = this.root; // current node
-
-		// Descend in tree
-		while (true) {
-
-			// First character to search for in children
-			final char firstChar = word[wordPos];
-
-			final TrieNode<T> firstSon = node.getFirstSon();
-			if (firstSon == null || firstSon.getFirstChar() > firstChar) {
-				// Insert new node as first son of current node (shift existing
-				// child nodes)
-				node.setFirstSon(new TrieNode<T>(subarray(word, wordPos, endIndex), firstSon, null, updateFunction
-						.apply(null), true));
-				return;
-			}
+	@Override
+	public final boolean containsPrefix(final char[] word) {
+		TrieNode<T> node = getNode(word, null, 0, word.length, false);
+		return node != null;
+	}
 
-			// find son to insert after or below
-			TrieNode<T> currSon = firstSon;
-			for (TrieNode<T> brother : firstSon.brothers()) {
-				if (brother.getFirstChar() > firstChar) {
-					break;
-				}
-				currSon = brother;
-			}
+	@Override
+	public final boolean containsPrefix(char[] word, int startIndex, int endIndex) {
+		return getNode(word, null, startIndex, endIndex, false) != null;
+	}
 
-			if (currSon.getFirstChar() == firstChar) {
+	@Override
+	public final boolean containsPrefix(CharSequence word, int startIndex, int endIndex) {
+		return getNode(null, word, startIndex, endIndex, false) != null;
+	}
 
-				// Find matching chars in path of current node
-				char[] sonChars = currSon.getChars();
-				int sonPos = 1;
-				wordPos++;
-				int sonLength = sonChars.length;
-				while (sonPos < sonLength && wordPos < endIndex && sonChars[sonPos] == word[wordPos]) {
-					sonPos++;
-					wordPos++;
-				}
+	@Override
+	public boolean contains(char[] word) {
+		TrieNode<T> node = getNode(word, null, 0, word.length, true);
+		return node != null && node.isInserted();
+	}
 
-				if (wordPos == endIndex) {
-					// Word completely found in node
+	@Override
+	public boolean contains(char[] word, int startIndex, int endIndex) {
+		TrieNode<T> node = getNode(word, null, startIndex, endIndex, true);
+		return node != null && node.isInserted();
+	}
 
-					if (sonPos == sonLength) {
-						// Update node data
-						currSon.setData(updateFunction.apply(currSon.getData()));
-						currSon.setInserted(true);
-						return;
-					}
+	@Override
+	public boolean contains(CharSequence word, int startIndex, int endIndex) {
+		TrieNode<T> node = getNode(null, word, startIndex, endIndex, true);
+		return node != null && node.isInserted();
+	}
 
-					// Word is prefix of node path: split node to add the data
+	/**
+	 * Delete the data associated with the given word. If the word is not
+	 * contained in the trie, nothing happens. Nodes which are not needed any
+	 * more are removed, and a node with a single remaining son is merged with
+	 * it, so the trie never keeps paths of deleted words.
+	 * 
+	 * @param word
+	 *            word to search for
+	 */
+	@Override
+	public void delete(char[] word) {
+		delete(word, null, 0, word.length);
+	}
 
-					// create sub-node as child of this node to split up path
-					TrieNode<T> subNode = new TrieNode<T>(subarray(sonChars, sonPos, sonChars.length), null,
-							currSon.getFirstSon(), currSon.getData(), currSon.isInserted());
-					currSon.setFirstSon(subNode);
-					currSon.setChars(subarray(sonChars, 0, sonPos));
-					currSon.setData(updateFunction.apply(null));
-					currSon.setInserted(true);
-					return;
+	@Override
+	public void delete(char[] word, int startIndex, int endIndex) {
+		delete(word, null, startIndex, endIndex);
+	}
 
-				} else if (sonPos == sonLength) {
-					// Node matches completely, but word is not yet finished
-					// continue to descend
+	@Override
+	public void delete(CharSequence word, int startIndex, int endIndex) {
+		delete(null, word, startIndex, endIndex);
+	}
 
-					node = currSon;
+	/**
+	 * Delete the data associated with a substring of a word, which is given
+	 * either as char array or as char sequence, and remove the nodes which are
+	 * not needed any more.
+	 * 
+	 * @param chars
+	 *            word as char array (or null)
+	 * @param sequence
+	 *            word as char sequence (if chars is null)
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 */
+	private void delete(char[] chars, CharSequence sequence, int startIndex, int endIndex) {
+		checkRange(startIndex, endIndex);
 
-				} else {
-					// Node only has common prefix with word, but down not match
-					// it completely
-					// So node needs to be splitted
-
-					// different suffixes
-					final char[] wordSuffix = subarray(word, wordPos, endIndex);
-					final char[] sonSuffix = subarray(sonChars, sonPos, sonChars.length);
-
-					if (sonSuffix[0] < wordSuffix[0]) {
-						// new node needs to be inserted after the splitted
-						// subnode (as next brother)
-						TrieNode<T> newWordNode = new TrieNode<T>(wordSuffix, null, null, updateFunction.apply(null),
-								true);
-						TrieNode<T> splittedSubNode = new TrieNode<T>(sonSuffix, newWordNode, currSon.getFirstSon(),
-								currSon.getData(), currSon.isInserted());
-						currSon.setFirstSon(splittedSubNode);
-					} else {
-						// new node needs to be inserted before the splitted
-						// subnode (so splitted subnode is next browser of
-						// inserted node)
-						TrieNode<T> splittedSubNode = new TrieNode<T>(sonSuffix, null, currSon.getFirstSon(),
-								currSon.getData(), currSon.isInserted());
-						TrieNode<T> newWordNode = new TrieNode<T>(wordSuffix, splittedSubNode, null,
-								updateFunction.apply(null), true);
-						currSon.setFirstSon(newWordNode);
-					}
+		// Collect path of word and the son before each node in its brothers
+		List<TrieNode<T>> path = new ArrayList<>();
+		List<TrieNode<T>> previousSons = new ArrayList<>();
+		int wordPos = startIndex; // current position in word
+		TrieNode<T> node = this.root; // current node
+		path.add(node);
+		previousSons.add(null);
 
-					// Update path to common prefix
-					currSon.setChars(subarray(sonChars, 0, sonPos));
-					// Clear data and inserted flag from now splitted node
-					currSon.setData(null);
-					currSon.setInserted(false);
+		// Descend in tree while word is not completely found
+		while (wordPos < endIndex) {
+			final char firstChar = chars != null ? chars[wordPos] : sequence.charAt(wordPos);
+			TrieNode<T> previousSon = null;
+			TrieNode<T> currSon = node.getFirstSon();
+			while (currSon != null && currSon.getFirstChar() < firstChar) {
+				previousSon = currSon;
+				currSon = currSon.getNextBrother();
+			}
+			if (currSon == null || currSon.getFirstChar() > firstChar) {
+				return;
+			}
+			final char[] sonChars = currSon.getChars();
+			final int sonLength = sonChars.length;
+			if (sonLength > endIndex - wordPos) {
+				return;
+			}
+			for (int sonPos = 1; sonPos < sonLength; sonPos++) {
+				final int i = wordPos + sonPos;
+				if (sonChars[sonPos] != (chars != null ? chars[i] : sequence.charAt(i))) {
 					return;
 				}
-			} else {
-				// insert new node after current node (shift next brothers)
-				TrieNode<T> insertedNode = new TrieNode<>(subarray(word, wordPos, endIndex), currSon.getNextBrother(),
-						null, updateFunction.apply(null), true);
-				currSon.setNextBrother(insertedNode);
-				return;
 			}
+			wordPos += sonLength;
+			node = currSon;
+			path.add(node);
+			previousSons.add(previousSon);
+		}
+		if (!node.isInserted()) {
+			return;
+		}
+
+		// Clear flag before data, so concurrent readers never see the
+		// inserted word without its data
+		node.setInserted(false);
+		node.setData(null);
+		for (TrieNode<T> pathNode : path) {
+			pathNode.setCount(pathNode.getCount() - 1);
+		}
+
+		// Remove or merge nodes bottom-up (the root node is never removed)
+		for (int i = path.size() - 1; i > 0; i--) {
+			node = path.get(i);
+			if (node.isInserted()) {
+				break;
+			}
+			TrieNode<T> parent = path.get(i - 1);
+			TrieNode<T> firstSon = node.getFirstSon();
+			if (firstSon == null) {
+				// Remove node and check parent next
+				link(parent, previousSons.get(i), node.getNextBrother());
+				continue;
+			}
+			if (firstSon.getNextBrother() == null) {
+				link(parent, previousSons.get(i), merge(node, firstSon));
+			}
+			break;
 		}
 	}
 
-	@Override
-	public final boolean containsPrefix(final char[] word) {
-		TrieNode<T> node = getNode(word, false);
-		return node != null;
+	/**
+	 * Delete all words (and their data) which match the given filter. Nodes
+	 * which are not needed any more are removed in the same traversal, like in
+	 * {@link #compact()}.
+	 * 
+	 * @param filter
+	 *            filter function, which is called with each contained word and
+	 *            its payload data
+	 * @return true if any words were removed
+	 */
+	public boolean removeIf(BiPredicate<String, T> filter) {
+		boolean removed = false;
+		if (root.isInserted() && filter.test("", root.getData())) {
+			root.setInserted(false);
+			root.setData(null);
+			removed = true;
+		}
+		removed |= compactChildren(root, new StringBuilder(), filter);
+		root.updateCount();
+		return removed;
 	}
 
-	@Override
-	public boolean contains(char[] word) {
-		TrieNode<T> node = getNode(word, true);
-		return node != null && node.isInserted();
+	/**
+	 * Remove all nodes which are neither part of the path of a contained word
+	 * nor needed as branching node, and merge each remaining node without
+	 * payload with its son if it has only one son. The trie is cleaned in a
+	 * single traversal, e.g. after the trie was created with an existing root
+	 * node.
+	 */
+	public void compact() {
+		compactChildren(root, null, null);
+		root.updateCount();
 	}
 
-	@Override
-	public void delete(char[] word) {
-		TrieNode<T> node = getNode(word, true);
-		if (node != null) {
-			node.setData(null);
-			node.setInserted(false);
+	/**
+	 * Compact the subtrees of the sons of a node (post-order).
+	 * 
+	 * @param parent
+	 *            parent node
+	 * @param prefix
+	 *            path of the parent node (only needed if filter is not null)
+	 * @param filter
+	 *            filter of words to delete (optional)
+	 * @return true if any words were removed
+	 */
+	private boolean compactChildren(TrieNode<T> parent, StringBuilder prefix, BiPredicate<String, T> filter) {
+		boolean removed = false;
+		TrieNode<T> previousSon = null;
+		TrieNode<T> son = parent.getFirstSon();
+		while (son != null) {
+			final TrieNode<T> nextSon = son.getNextBrother();
+			int prefixLength = 0;
+			if (filter != null) {
+				prefixLength = prefix.length();
+				prefix.append(son.getChars());
+				if (son.isInserted() && filter.test(prefix.toString(), son.getData())) {
+					son.setInserted(false);
+					son.setData(null);
+					removed = true;
+				}
+			}
+			removed |= compactChildren(son, prefix, filter);
+			son.updateCount();
+			if (filter != null) {
+				prefix.setLength(prefixLength);
+			}
+
+			// Replace son if it is not needed any more
+			if (!son.isInserted()) {
+				TrieNode<T> firstSon = son.getFirstSon();
+				if (firstSon == null) {
+					link(parent, previousSon, nextSon);
+					son = nextSon;
+					continue;
+				}
+				if (firstSon.getNextBrother() == null) {
+					TrieNode<T> merged = merge(son, firstSon);
+					link(parent, previousSon, merged);
+					son = merged;
+				}
+			}
+			previousSon = son;
+			son = nextSon;
 		}
+		return removed;
+	}
+
+	/**
+	 * Create a node which replaces a node without payload and its only son.
+	 * 
+	 * @param node
+	 *            node without payload
+	 * @param son
+	 *            only son of the node
+	 * @return new node with the concatenated path and the payload and sons of
+	 *         the son, which has the same next brother as the node
+	 */
+	static <T extends Serializable> TrieNode<T> merge(TrieNode<T> node, TrieNode<T> son) {
+		final char[] chars = node.getChars();
+		final char[] sonChars = son.getChars();
+		char[] merged = new char[chars.length + sonChars.length];
+		System.arraycopy(chars, 0, merged, 0, chars.length);
+		System.arraycopy(sonChars, 0, merged, chars.length, sonChars.length);
+		return new TrieNode<T>(merged, node.getNextBrother(), son.getFirstSon(), son.getData(), son.isInserted(),
+				son.getCount());
 	}
 
 	@Override
 	public T getData(char[] word) {
-		TrieNode<T> node = getNode(word, true);
+		TrieNode<T> node = getNode(word, null, 0, word.length, true);
 		if (node == null) {
 			return null;
 		}
 		return node.getData();
 	}
 
+	@Override
+	public T getData(char[] word, int startIndex, int endIndex) {
+		TrieNode<T> node = getNode(word, null, startIndex, endIndex, true);
+		return node == null ? null : node.getData();
+	}
+
+	@Override
+	public T getData(CharSequence word, int startIndex, int endIndex) {
+		TrieNode<T> node = getNode(null, word, startIndex, endIndex, true);
+		return node == null ? null : node.getData();
+	}
+
 	/**
 	 * Find a node that represents the given word. If the search is exact, null
 	 * is returned if the node is only a substring node of the next found node.
@@ -346,43 +599,55 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 	 * @return node or null, if not found (exact)
 	 */
 	public TrieNode<T> getNode(char[] word, boolean exact) {
-		int wordPos = 0; // current position in word
-		final int wordLength = word.length;
+		return getNode(word, null, 0, word.length, exact);
+	}
+
+	/**
+	 * Find a node that represents a substring of a word, which is given either
+	 * as char array or as char sequence. The characters are compared in place
+	 * without copying them.
+	 * 
+	 * @param chars
+	 *            word as char array (or null)
+	 * @param sequence
+	 *            word as char sequence (if chars is null)
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param exact
+	 *            flag if exact node search should be performed
+	 * @return node or null, if not found (exact)
+	 */
+	private TrieNode<T> getNode(char[] chars, CharSequence sequence, int startIndex, int endIndex, boolean exact) {
+		checkRange(startIndex, endIndex);
+		int wordPos = startIndex; // current position in word
 		TrieNode<T> node = this.root; // current node
 
 		// Descend in tree while word is not completely found
-		while (wordPos < wordLength) {
+		while (wordPos < endIndex) {
 
 			// First character to search for in children
-			final char firstChar = word[wordPos];
+			final char firstChar = chars != null ? chars[wordPos] : sequence.charAt(wordPos);
 
 			// Iterate over sons to find the one with matches firstChar
-			TrieNode<T> currentSon = null;
-			for (TrieNode<T> childNode : node.children()) {
-				if (childNode.getFirstChar() == firstChar) {
-					// Son which matches firstChar is found
-					currentSon = childNode;
-					break;
-				}
-				if (childNode.getFirstChar() > firstChar) {
-					// character of current child node is too large for
-					// firstChar
-					// word cannot be found any more
-					return null;
-				}
+			TrieNode<T> currentSon = node.getFirstSon();
+			while (currentSon != null && currentSon.getFirstChar() < firstChar) {
+				currentSon = currentSon.getNextBrother();
 			}
-			if (currentSon == null) {
+			if (currentSon == null || currentSon.getFirstChar() != firstChar) {
 				// Either no sons or no son with matching firstChar was found
 				// Cannot descend any further
 				return null;
 			}
 
 			// Consume matching characters in word
-			char[] sonChars = currentSon.getChars();
+			final char[] sonChars = currentSon.getChars();
 			int sonPos = 1;
 			wordPos++;
-			int sonLength = sonChars.length;
-			while (sonPos < sonLength && wordPos < wordLength && sonChars[sonPos] == word[wordPos]) {
+			final int sonLength = sonChars.length;
+			while (sonPos < sonLength && wordPos < endIndex
+					&& sonChars[sonPos] == (chars != null ? chars[wordPos] : sequence.charAt(wordPos))) {
 				sonPos++;
 				wordPos++;
 			}
@@ -395,7 +660,7 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 					// Either prefix match or mismatch with word
 					return null;
 				}
-				if (wordPos == wordLength) {
+				if (wordPos == endIndex) {
 					// Prefix match (no exact search)
 					return currentSon;
 				}
@@ -412,6 +677,22 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 		return node;
 	}
 
+	/**
+	 * Check that a substring range is valid.
+	 * 
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @throws IllegalArgumentException
+	 *             if the end index is smaller than the start index
+	 */
+	private static void checkRange(int startIndex, int endIndex) {
+		if (endIndex < startIndex) {
+			throw new IllegalArgumentException(endIndex + " < " + startIndex);
+		}
+	}
+
 	/**
 	 * Walk the trie down along a path (up to the outermost node still matching
 	 * the word) and call the consumer function every time (from the root to the
@@ -503,11 +784,1159 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 		return true;
 	}
 
-	@Override
-	public int getDepth() {
+	/**
+	 * Find the longest inserted word which is a prefix of a substring (e.g. for
+	 * routing tables). No objects are allocated, so the same match object can be
+	 * reused for many lookups.
+	 * 
+	 * @param text
+	 *            text to search the prefix of
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param match
+	 *            match object to store the length and payload data of the found
+	 *            word in (reset if no word is found)
+	 * @return true if a word was found
+	 */
+	public boolean longestPrefixOf(CharSequence text, int startIndex, int endIndex, PrefixMatch<T> match) {
+		match.set(-1, null);
+		matchPrefixes(null, text, startIndex, endIndex, match, null);
+		return match.isFound();
+	}
+
+	/**
+	 * Find the longest inserted word which is a prefix of a substring (e.g. for
+	 * routing tables). No objects are allocated, so the same match object can be
+	 * reused for many lookups.
+	 * 
+	 * @param text
+	 *            text to search the prefix of
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param match
+	 *            match object to store the length and payload data of the found
+	 *            word in (reset if no word is found)
+	 * @return true if a word was found
+	 */
+	public boolean longestPrefixOf(char[] text, int startIndex, int endIndex, PrefixMatch<T> match) {
+		match.set(-1, null);
+		matchPrefixes(text, null, startIndex, endIndex, match, null);
+		return match.isFound();
+	}
+
+	/**
+	 * Find the longest inserted word which is a prefix of a text.
+	 * 
+	 * @param text
+	 *            text to search the prefix of
+	 * @return match with the length and payload data of the found word
+	 */
+	public PrefixMatch<T> longestPrefixOf(CharSequence text) {
+		PrefixMatch<T> match = new PrefixMatch<>();
+		longestPrefixOf(text, 0, text.length(), match);
+		return match;
+	}
+
+	/**
+	 * Find all inserted words which are a prefix of a substring, and call the
+	 * consumer with the payload data and length of each word (in ascending order
+	 * of the length).
+	 * 
+	 * @param text
+	 *            text to search the prefixes of
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param consumer
+	 *            consumer function to call with payload data and length of each
+	 *            found word
+	 * @return number of found words
+	 */
+	public int prefixesOf(CharSequence text, int startIndex, int endIndex, ObjIntConsumer<? super T> consumer) {
+		return matchPrefixes(null, text, startIndex, endIndex, null, consumer);
+	}
+
+	/**
+	 * Find all inserted words which are a prefix of a substring, and call the
+	 * consumer with the payload data and length of each word (in ascending order
+	 * of the length).
+	 * 
+	 * @param text
+	 *            text to search the prefixes of
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param consumer
+	 *            consumer function to call with payload data and length of each
+	 *            found word
+	 * @return number of found words
+	 */
+	public int prefixesOf(char[] text, int startIndex, int endIndex, ObjIntConsumer<? super T> consumer) {
+		return matchPrefixes(text, null, startIndex, endIndex, null, consumer);
+	}
+
+	/**
+	 * Walk down along a substring and report the inserted words on the path.
+	 * Either the char array or the char sequence is given.
+	 * 
+	 * @param chars
+	 *            text as char array (or null)
+	 * @param sequence
+	 *            text as char sequence (or null)
+	 * @param startIndex
+	 *            index to begin the substring with (inclusive)
+	 * @param endIndex
+	 *            index to end the substring at (exclusive)
+	 * @param longest
+	 *            match object to store the longest word in (or null)
+	 * @param consumer
+	 *            consumer function to call for every word (or null)
+	 * @return number of found words
+	 */
+	private int matchPrefixes(char[] chars, CharSequence sequence, int startIndex, int endIndex,
+			PrefixMatch<T> longest, ObjIntConsumer<? super T> consumer) {
+		checkRange(startIndex, endIndex);
+		int count = 0;
+		int wordPos = startIndex; // current position in text
+		TrieNode<T> node = this.root; // current node
+		while (true) {
+			if (node.isInserted()) {
+				count++;
+				if (longest != null) {
+					longest.set(wordPos - startIndex, node.getData());
+				}
+				if (consumer != null) {
+					consumer.accept(node.getData(), wordPos - startIndex);
+				}
+			}
+			if (wordPos == endIndex) {
+				return count;
+			}
+
+			// Find son matching the next character
+			final char firstChar = chars != null ? chars[wordPos] : sequence.charAt(wordPos);
+			TrieNode<T> currentSon = node.getFirstSon();
+			while (currentSon != null && currentSon.getFirstChar() < firstChar) {
+				currentSon = currentSon.getNextBrother();
+			}
+			if (currentSon == null || currentSon.getFirstChar() != firstChar) {
+				return count;
+			}
+
+			// The path of the son must be matched completely
+			final char[] sonChars = currentSon.getChars();
+			final int sonLength = sonChars.length;
+			if (endIndex - wordPos < sonLength) {
+				return count;
+			}
+			for (int sonPos = 1; sonPos < sonLength; sonPos++) {
+				if (sonChars[sonPos] != (chars != null ? chars[wordPos + sonPos] : sequence.charAt(wordPos + sonPos))) {
+					return count;
+				}
+			}
+			wordPos += sonLength;
+			node = currentSon;
+		}
+	}
+
+	/**
+	 * Find all words within a maximum edit distance (Levenshtein distance) of a
+	 * word, e.g. to tolerate typos. Subtrees which cannot contain such words are
+	 * skipped, so the search is much faster than looking up every possible edit
+	 * of the word.
+	 * 
+	 * @param word
+	 *            word to search for
+	 * @param maxDistance
+	 *            maximum number of inserted, deleted or replaced characters
+	 * @return found words with payload data and distance, in ascending order of
+	 *         the words
+	 */
+	public List<FuzzyMatch<T>> fuzzySearch(CharSequence word, int maxDistance) {
+		return new LevenshteinSearch<T>(word, maxDistance, false).run(this.root);
+	}
+
+	/**
+	 * Find all words with a prefix within a maximum edit distance (Levenshtein
+	 * distance) of a given prefix, e.g. for search-as-you-type with typos. The
+	 * distance of each found word is the smallest distance of one of its
+	 * prefixes.
+	 * 
+	 * @param prefix
+	 *            prefix to search for
+	 * @param maxDistance
+	 *            maximum number of inserted, deleted or replaced characters
+	 * @return found words with payload data and distance, in ascending order of
+	 *         the words
+	 */
+	public List<FuzzyMatch<T>> fuzzyPrefixSearch(CharSequence prefix, int maxDistance) {
+		return new LevenshteinSearch<T>(prefix, maxDistance, true).run(this.root);
+	}
+
+	/**
+	 * Find all words matching a wildcard pattern, in which <code>?</code>
+	 * matches any character, <code>*</code> any sequence of characters and
+	 * <code>[...]</code> a character class (e.g. <code>SKU-??-1*</code> or
+	 * <code>[a-c]*[!0-9]</code>, see {@link GlobSearch}). Subtrees whose paths
+	 * cannot match the pattern are skipped.
+	 * 
+	 * @param pattern
+	 *            wildcard pattern
+	 * @return matching words with payload data, in ascending order of the words
+	 * @throws IllegalArgumentException
+	 *             if the pattern is invalid
+	 */
+	public List<Map.Entry<String, T>> match(CharSequence pattern) {
+		return new GlobSearch<T>(pattern).run(this.root);
+	}
+
+	/**
+	 * Count the words with a given prefix (including the prefix itself), using
+	 * the word counts of the nodes instead of enumerating the words.
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @return number of words with the prefix
+	 */
+	public int countPrefix(CharSequence prefix) {
+		TrieNode<T> node = getNode(null, prefix, 0, prefix.length(), false);
+		return node == null ? 0 : node.getCount();
+	}
+
+	/**
+	 * Get the number of words which are smaller than a given word (in the order
+	 * of {@link String#compareTo(String)}). If the word is contained, this is
+	 * its position in the ascending order of all words, otherwise the position
+	 * at which it would be inserted.
+	 * 
+	 * @param word
+	 *            word
+	 * @return number of smaller words
+	 */
+	public int rank(CharSequence word) {
+		final int wordLength = word.length();
+		int rank = 0;
+		int wordPos = 0; // current position in word
+		TrieNode<T> node = this.root; // current node
+		while (wordPos < wordLength) {
+			// The word of the node is a proper prefix of the word
+			if (node.isInserted()) {
+				rank++;
+			}
+
+			// Count all words in the subtrees of smaller sons
+			final char firstChar = word.charAt(wordPos);
+			TrieNode<T> son = node.getFirstSon();
+			while (son != null && son.getFirstChar() < firstChar) {
+				rank += son.getCount();
+				son = son.getNextBrother();
+			}
+			if (son == null || son.getFirstChar() != firstChar) {
+				return rank;
+			}
+
+			// Compare the rest of the path of the son
+			final char[] sonChars = son.getChars();
+			final int sonLength = sonChars.length;
+			int sonPos = 1;
+			wordPos++;
+			while (sonPos < sonLength && wordPos < wordLength) {
+				final char c = word.charAt(wordPos);
+				if (sonChars[sonPos] != c) {
+					// All words of the son are smaller or all are greater
+					return sonChars[sonPos] < c ? rank + son.getCount() : rank;
+				}
+				sonPos++;
+				wordPos++;
+			}
+			if (sonPos < sonLength) {
+				// Word is a proper prefix of the path of the son
+				return rank;
+			}
+			node = son;
+		}
+		return rank;
+	}
+
+	/**
+	 * Get the word at a given position in the ascending order of all words
+	 * (the inverse of {@link #rank(CharSequence)}), using the word counts of
+	 * the nodes instead of enumerating the words.
+	 * 
+	 * @param index
+	 *            position of the word (starting at 0)
+	 * @return word at the position
+	 * @throws IndexOutOfBoundsException
+	 *             if the index is negative or not smaller than {@link #size()}
+	 */
+	public String select(int index) {
+		TrieNode<T> node = this.root;
+		if (index < 0 || index >= node.getCount()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + node.getCount());
+		}
+		StringBuilder word = new StringBuilder();
+		int remaining = index; // position of the word inside the subtree
+		while (true) {
+			if (node.isInserted()) {
+				if (remaining == 0) {
+					return word.toString();
+				}
+				remaining--;
+			}
+			TrieNode<T> son = node.getFirstSon();
+			while (son != null && remaining >= son.getCount()) {
+				remaining -= son.getCount();
+				son = son.getNextBrother();
+			}
+			if (son == null) {
+				// Counts changed concurrently
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.root.getCount());
+			}
+			word.append(son.getChars());
+			node = son;
+		}
+	}
+
+	@Override
+	public int getDepth() {
 		return this.root.getDepth();
 	}
 
+	/**
+	 * Collect structural metrics of the node structure in a single pass (see
+	 * {@link TrieStatistics}).
+	 * 
+	 * @return statistics
+	 */
+	public TrieStatistics getStatistics() {
+		return new TrieStatistics(this.root);
+	}
+
+	/**
+	 * Get a lazy stream of all words with a given prefix together with their
+	 * payload data, in ascending order of the words.
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @return stream of entries with word as key and payload data as value
+	 * @see #entryIterator(CharSequence, int)
+	 */
+	public Stream<Map.Entry<String, T>> entries(CharSequence prefix) {
+		return entries(prefix, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get a lazy stream of the first words with a given prefix together with
+	 * their payload data, in ascending order of the words.
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @param limit
+	 *            maximum number of entries
+	 * @return stream of entries with word as key and payload data as value
+	 * @see #entryIterator(CharSequence, int)
+	 */
+	public Stream<Map.Entry<String, T>> entries(CharSequence prefix, int limit) {
+		Spliterator<Map.Entry<String, T>> spliterator = Spliterators.spliteratorUnknownSize(
+				entryIterator(prefix, limit), Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * Get a lazy stream of all words with a given prefix, in ascending order.
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @return stream of words
+	 */
+	public Stream<String> keys(CharSequence prefix) {
+		return entries(prefix).map(Map.Entry::getKey);
+	}
+
+	/**
+	 * Get a lazy stream of the first words with a given prefix, in ascending
+	 * order.
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @param limit
+	 *            maximum number of words
+	 * @return stream of words
+	 */
+	public Stream<String> keys(CharSequence prefix, int limit) {
+		return entries(prefix, limit).map(Map.Entry::getKey);
+	}
+
+	/**
+	 * Get a lazy iterator over the first words with a given prefix together
+	 * with their payload data, in ascending order of the words. The subtree of
+	 * the prefix is traversed depth-first only as far as the iterator is
+	 * consumed, and the words are built in a single reused buffer, so taking
+	 * the first entries of a huge subtree is cheap. <br>
+	 * <br>
+	 * The iterator is attached to the node structure, so concurrent
+	 * modifications while iterating are not permitted (except for a
+	 * {@link ConcurrentReadTrie}, where the iterator may or may not see the
+	 * modifications).
+	 * 
+	 * @param prefix
+	 *            prefix of the words (empty for all words)
+	 * @param limit
+	 *            maximum number of entries
+	 * @return iterator of entries with word as key and payload data as value
+	 */
+	public Iterator<Map.Entry<String, T>> entryIterator(CharSequence prefix, int limit) {
+		return new EntryIterator<>(this.root, prefix, limit);
+	}
+
+	/**
+	 * Create a cursor at the root of the trie, which descends one character at
+	 * a time (see {@link TrieCursor}).
+	 * 
+	 * @return new cursor
+	 */
+	public TrieCursor<T> cursor() {
+		return new TrieCursor<>(this.root);
+	}
+
+	/**
+	 * Get a lazy stream of the words in a range together with their payload
+	 * data, in ascending order of the words. The iteration starts directly at
+	 * the lower bound instead of scanning all smaller words.
+	 * 
+	 * @param fromInclusive
+	 *            smallest word to return (or null to start with the first word)
+	 * @param toExclusive
+	 *            smallest word not to return any more (or null to end with the
+	 *            last word)
+	 * @return stream of entries with word as key and payload data as value
+	 */
+	public Stream<Map.Entry<String, T>> range(CharSequence fromInclusive, CharSequence toExclusive) {
+		Spliterator<Map.Entry<String, T>> spliterator = Spliterators.spliteratorUnknownSize(
+				rangeIterator(fromInclusive, toExclusive),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * Get a lazy iterator over the words in a range together with their
+	 * payload data, in ascending order of the words (see
+	 * {@link #entryIterator(CharSequence, int)} for concurrent modifications).
+	 * 
+	 * @param fromInclusive
+	 *            smallest word to return (or null to start with the first word)
+	 * @param toExclusive
+	 *            smallest word not to return any more (or null to end with the
+	 *            last word)
+	 * @return iterator of entries with word as key and payload data as value
+	 */
+	public Iterator<Map.Entry<String, T>> rangeIterator(CharSequence fromInclusive, CharSequence toExclusive) {
+		return new EntryIterator<>(this.root, fromInclusive, toExclusive);
+	}
+
+	/**
+	 * Get the smallest word.
+	 * 
+	 * @return first word in ascending order
+	 * @throws NoSuchElementException
+	 *             if the trie is empty
+	 */
+	public String firstKey() {
+		if (size() == 0) {
+			throw new NoSuchElementException();
+		}
+		return select(0);
+	}
+
+	/**
+	 * Get the greatest word.
+	 * 
+	 * @return last word in ascending order
+	 * @throws NoSuchElementException
+	 *             if the trie is empty
+	 */
+	public String lastKey() {
+		final int size = size();
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return select(size - 1);
+	}
+
+	/**
+	 * Get the smallest word which is greater than or equal to a given word.
+	 * 
+	 * @param word
+	 *            word
+	 * @return smallest word greater than or equal to the given word, or null
+	 *         if there is none
+	 */
+	public String ceilingKey(CharSequence word) {
+		final int rank = rank(word);
+		return rank < size() ? select(rank) : null;
+	}
+
+	/**
+	 * Get the smallest word which is greater than a given word.
+	 * 
+	 * @param word
+	 *            word
+	 * @return smallest word greater than the given word, or null if there is
+	 *         none
+	 */
+	public String higherKey(CharSequence word) {
+		final int rank = contains(word) ? rank(word) + 1 : rank(word);
+		return rank < size() ? select(rank) : null;
+	}
+
+	/**
+	 * Get the greatest word which is smaller than or equal to a given word.
+	 * 
+	 * @param word
+	 *            word
+	 * @return greatest word smaller than or equal to the given word, or null if
+	 *         there is none
+	 */
+	public String floorKey(CharSequence word) {
+		return contains(word) ? word.toString() : lowerKey(word);
+	}
+
+	/**
+	 * Get the greatest word which is smaller than a given word.
+	 * 
+	 * @param word
+	 *            word
+	 * @return greatest word smaller than the given word, or null if there is
+	 *         none
+	 */
+	public String lowerKey(CharSequence word) {
+		final int rank = rank(word);
+		return rank > 0 ? select(rank - 1) : null;
+	}
+
+	/*
+	 * Serialization
+	 */
+
+	/**
+	 * Write the trie in a compact stream format: the nodes are written in a
+	 * single iterative pre-order pass with variable length integers for the
+	 * labels, and the payload data is written with the given codec. In
+	 * contrast to the default serialization of the node objects, this neither
+	 * recurses along the node links nor writes an object entry per node. The
+	 * stream is flushed, but not closed.
+	 * 
+	 * @param out
+	 *            output stream
+	 * @param codec
+	 *            codec for the payload data
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(OutputStream out, PayloadCodec<? super T> codec) throws IOException {
+		ObjectOutputStream objectOut = new ObjectOutputStream(out);
+		TrieSerialization.write(this.root, objectOut, codec);
+		objectOut.flush();
+	}
+
+	/**
+	 * Read a trie written by {@link #writeTo(OutputStream, PayloadCodec)}. The
+	 * nodes are rebuilt iteratively while reading the stream.
+	 * 
+	 * @param in
+	 *            input stream
+	 * @param codec
+	 *            codec for the payload data (compatible with the codec used for
+	 *            writing)
+	 * @return new trie
+	 * @throws IOException
+	 *             if reading fails or the stream is invalid
+	 * @throws ClassNotFoundException
+	 *             if a class of the payload cannot be found
+	 */
+	public static <T extends Serializable> Trie<T> readFrom(InputStream in, PayloadCodec<T> codec)
+			throws IOException, ClassNotFoundException {
+		return new Trie<>(TrieSerialization.read(new ObjectInputStream(in), codec));
+	}
+
+	/**
+	 * Write the nodes in the compact stream format with the default
+	 * serialization of the payload data.
+	 *
+	 * @param out
+	 *            output stream
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		TrieSerialization.write(this.root, out, PayloadCodec.objects());
+	}
+
+	/**
+	 * Read the nodes in the compact stream format.
+	 *
+	 * @param in
+	 *            input stream
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws ClassNotFoundException
+	 *             if a payload class cannot be found
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.root = TrieSerialization.read(in, PayloadCodec.objects());
+	}
+
+	/**
+	 * Iterator over the words below a prefix (pre-order depth-first search).
+	 * 
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static class EntryIterator<T extends Serializable> implements Iterator<Map.Entry<String, T>> {
+
+		/**
+		 * Buffer containing the word of the current node.
+		 */
+		private char[] word = new char[16];
+
+		/**
+		 * Nodes to visit next (top of the stack at the end).
+		 */
+		private Object[] stackNodes = new Object[8];
+
+		/**
+		 * Length of the word before the path of each node on the stack.
+		 */
+		private int[] stackLengths = new int[8];
+
+		/**
+		 * Number of nodes on the stack.
+		 */
+		private int stackSize = 0;
+
+		/**
+		 * Next entry to return (or null if not found yet).
+		 */
+		private Map.Entry<String, T> nextEntry = null;
+
+		/**
+		 * Remaining number of entries to return.
+		 */
+		private int remaining;
+
+		/**
+		 * Smallest word which is not returned any more (or null if all words
+		 * up to the end of the subtree are returned).
+		 */
+		private final CharSequence upperBound;
+
+		/**
+		 * Create iterator.
+		 * 
+		 * @param root
+		 *            root node of the trie
+		 * @param prefix
+		 *            prefix of the words
+		 * @param limit
+		 *            maximum number of entries
+		 */
+		private EntryIterator(TrieNode<T> root, CharSequence prefix, int limit) {
+			this.remaining = limit;
+			this.upperBound = null;
+			if (limit <= 0) {
+				return;
+			}
+
+			// Descend to the node containing the end of the prefix
+			final int prefixLength = prefix.length();
+			int wordLength = 0;
+			TrieNode<T> node = root;
+			while (wordLength < prefixLength) {
+				final char firstChar = prefix.charAt(wordLength);
+				TrieNode<T> son = node.getFirstSon();
+				while (son != null && son.getFirstChar() < firstChar) {
+					son = son.getNextBrother();
+				}
+				if (son == null || son.getFirstChar() != firstChar) {
+					return;
+				}
+				final char[] sonChars = son.getChars();
+				for (int sonPos = 1; sonPos < sonChars.length && wordLength + sonPos < prefixLength; sonPos++) {
+					if (sonChars[sonPos] != prefix.charAt(wordLength + sonPos)) {
+						return;
+					}
+				}
+				append(wordLength, sonChars);
+				wordLength += sonChars.length;
+				node = son;
+			}
+
+			// The node itself is the first candidate, then its sons
+			if (node.isInserted()) {
+				nextEntry = new AbstractMap.SimpleImmutableEntry<>(new String(word, 0, wordLength), node.getData());
+			}
+			push(node.getFirstSon(), wordLength);
+		}
+
+		/**
+		 * Create iterator over a range of words.
+		 * 
+		 * @param root
+		 *            root node of the trie
+		 * @param fromInclusive
+		 *            smallest word to return (or null to start with the first
+		 *            word)
+		 * @param toExclusive
+		 *            smallest word not to return any more (or null to end with
+		 *            the last word)
+		 */
+		private EntryIterator(TrieNode<T> root, CharSequence fromInclusive, CharSequence toExclusive) {
+			this.remaining = Integer.MAX_VALUE;
+			this.upperBound = toExclusive;
+			if (fromInclusive == null || fromInclusive.length() == 0) {
+				if (root.isInserted() && (toExclusive == null || toExclusive.length() > 0)) {
+					nextEntry = new AbstractMap.SimpleImmutableEntry<>("", root.getData());
+				}
+				push(root.getFirstSon(), 0);
+				return;
+			}
+
+			// Descend along the lower bound and push the nodes whose subtrees
+			// contain greater words, so they are visited next
+			final int fromLength = fromInclusive.length();
+			int wordLength = 0;
+			TrieNode<T> node = root;
+			while (true) {
+				final char firstChar = fromInclusive.charAt(wordLength);
+				TrieNode<T> son = node.getFirstSon();
+				while (son != null && son.getFirstChar() < firstChar) {
+					son = son.getNextBrother();
+				}
+				if (son == null) {
+					return;
+				}
+				if (son.getFirstChar() > firstChar) {
+					push(son, wordLength);
+					return;
+				}
+				final char[] sonChars = son.getChars();
+				int sonPos = 1;
+				while (sonPos < sonChars.length && wordLength + sonPos < fromLength
+						&& sonChars[sonPos] == fromInclusive.charAt(wordLength + sonPos)) {
+					sonPos++;
+				}
+				if (sonPos < sonChars.length) {
+					if (wordLength + sonPos == fromLength || sonChars[sonPos] > fromInclusive.charAt(wordLength + sonPos)) {
+						// All words of the son are greater than the bound
+						push(son, wordLength);
+					} else {
+						// All words of the son are smaller than the bound
+						push(son.getNextBrother(), wordLength);
+					}
+					return;
+				}
+				if (wordLength + sonChars.length == fromLength) {
+					// Son is the bound itself
+					push(son, wordLength);
+					return;
+				}
+				// Descend into the son, its word is smaller than the bound
+				push(son.getNextBrother(), wordLength);
+				append(wordLength, sonChars);
+				wordLength += sonChars.length;
+				node = son;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextEntry != null) {
+				return true;
+			}
+			if (remaining <= 0) {
+				return false;
+			}
+			while (stackSize > 0) {
+				stackSize--;
+				@SuppressWarnings("unchecked")
+				TrieNode<T> node = (TrieNode<T>) stackNodes[stackSize];
+				stackNodes[stackSize] = null;
+				int wordLength = stackLengths[stackSize];
+
+				// Visit brother after the subtree of the node
+				push(node.getNextBrother(), wordLength);
+				final char[] chars = node.getChars();
+				append(wordLength, chars);
+				wordLength += chars.length;
+				if (upperBound != null && compareTo(wordLength, upperBound) >= 0) {
+					// All following words are greater than the bound
+					stackSize = 0;
+					remaining = 0;
+					return false;
+				}
+				push(node.getFirstSon(), wordLength);
+
+				if (node.isInserted()) {
+					nextEntry = new AbstractMap.SimpleImmutableEntry<>(new String(word, 0, wordLength),
+							node.getData());
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Map.Entry<String, T> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Map.Entry<String, T> result = nextEntry;
+			nextEntry = null;
+			remaining--;
+			if (remaining <= 0) {
+				// Release the stack, no more entries are returned
+				stackSize = 0;
+				stackNodes = null;
+			}
+			return result;
+		}
+
+		/**
+		 * Push a node to the stack.
+		 * 
+		 * @param node
+		 *            node (ignored if null)
+		 * @param wordLength
+		 *            length of the word before the path of the node
+		 */
+		private void push(TrieNode<T> node, int wordLength) {
+			if (node == null) {
+				return;
+			}
+			if (stackSize == stackNodes.length) {
+				stackNodes = Arrays.copyOf(stackNodes, stackSize * 2);
+				stackLengths = Arrays.copyOf(stackLengths, stackSize * 2);
+			}
+			stackNodes[stackSize] = node;
+			stackLengths[stackSize] = wordLength;
+			stackSize++;
+		}
+
+		/**
+		 * Compare the word in the buffer with another word.
+		 * 
+		 * @param wordLength
+		 *            length of the word in the buffer
+		 * @param other
+		 *            other word
+		 * @return negative, zero or positive value if the word in the buffer is
+		 *         smaller, equal or greater
+		 */
+		private int compareTo(int wordLength, CharSequence other) {
+			final int otherLength = other.length();
+			final int length = Math.min(wordLength, otherLength);
+			for (int i = 0; i < length; i++) {
+				final char c = other.charAt(i);
+				if (word[i] != c) {
+					return word[i] - c;
+				}
+			}
+			return wordLength - otherLength;
+		}
+
+		/**
+		 * Write the path of a node into the word buffer.
+		 * 
+		 * @param wordLength
+		 *            position to write the path to
+		 * @param chars
+		 *            path of the node
+		 */
+		private void append(int wordLength, char[] chars) {
+			if (wordLength + chars.length > word.length) {
+				word = Arrays.copyOf(word, Math.max(word.length * 2, wordLength + chars.length));
+			}
+			System.arraycopy(chars, 0, word, wordLength, chars.length);
+		}
+
+	}
+
+	/**
+	 * Create an immutable, succinct copy of this trie, which needs much less
+	 * memory but only supports read operations. Later modifications of this
+	 * trie are not reflected in the copy.
+	 * 
+	 * @return succinct copy of the trie
+	 */
+	public LoudsTrie<T> freeze() {
+		return new LoudsTrie<>(this);
+	}
+
+	/**
+	 * Build a trie from entries sorted in ascending order of their keys. The
+	 * trie is built in a single pass without searching or splitting any nodes,
+	 * which is much faster than inserting the entries one by one.
+	 * 
+	 * @param entries
+	 *            iterator over the sorted entries (key and payload data)
+	 * @return trie
+	 * @throws IllegalArgumentException
+	 *             if the entries are not sorted
+	 * @see SortedBuilder
+	 */
+	public static <T extends Serializable> Trie<T> buildFromSorted(Iterator<? extends Map.Entry<String, T>> entries) {
+		SortedBuilder<T> builder = new SortedBuilder<>();
+		while (entries.hasNext()) {
+			Map.Entry<String, T> entry = entries.next();
+			builder.add(entry.getKey(), entry.getValue());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Builder to create a trie from words in ascending order in a single pass.
+	 * Only the rightmost path of the trie (the path of the last added word) is
+	 * kept open on a stack; when the next word leaves a part of this path, the
+	 * nodes for this part are created with their final paths and sons, so no
+	 * node is ever split. Adding a word costs O(length of the word). <br>
+	 * <br>
+	 * Words are compared by their char values, like
+	 * {@link String#compareTo(String)}. If the same word is added several
+	 * times in a row, the last payload data wins.
+	 * 
+	 * @author Christian Simon
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	public static class SortedBuilder<T extends Serializable> {
+
+		/**
+		 * Open nodes on the rightmost path, the root node first.
+		 */
+		private final ArrayList<Frame<T>> path = new ArrayList<>();
+
+		/**
+		 * Last added word (or null if no word was added yet).
+		 */
+		private char[] previousWord = null;
+
+		/**
+		 * Create builder for an empty trie.
+		 */
+		public SortedBuilder() {
+			path.add(new Frame<>(EMPTY_CHAR_ARRAY, 0, 0));
+		}
+
+		/**
+		 * Add the next word.
+		 * 
+		 * @param word
+		 *            word, which must not be smaller than the last added word
+		 * @param data
+		 *            payload data
+		 * @return this builder
+		 * @throws IllegalArgumentException
+		 *             if the word is smaller than the last added word
+		 */
+		public SortedBuilder<T> add(String word, T data) {
+			addOwned(word.toCharArray(), data);
+			return this;
+		}
+
+		/**
+		 * Add the next word.
+		 * 
+		 * @param word
+		 *            word, which must not be smaller than the last added word
+		 *            (the array is copied)
+		 * @param data
+		 *            payload data
+		 * @return this builder
+		 * @throws IllegalArgumentException
+		 *             if the word is smaller than the last added word
+		 */
+		public SortedBuilder<T> add(char[] word, T data) {
+			addOwned(Arrays.copyOf(word, word.length), data);
+			return this;
+		}
+
+		/**
+		 * Add the next word, which is not modified by the caller any more.
+		 * 
+		 * @param word
+		 *            word
+		 * @param data
+		 *            payload data
+		 */
+		private void addOwned(char[] word, T data) {
+			// Length of common prefix with previous word
+			int commonLength = 0;
+			if (previousWord != null) {
+				int maxLength = Math.min(word.length, previousWord.length);
+				while (commonLength < maxLength && word[commonLength] == previousWord[commonLength]) {
+					commonLength++;
+				}
+				if (commonLength < maxLength ? word[commonLength] < previousWord[commonLength]
+						: word.length < previousWord.length) {
+					throw new IllegalArgumentException("Keys not sorted: " + String.valueOf(previousWord) + " > "
+							+ String.valueOf(word));
+				}
+			}
+
+			// Close all nodes which begin after the common prefix
+			Frame<T> top = path.get(path.size() - 1);
+			while (top.start >= commonLength && path.size() > 1) {
+				path.remove(path.size() - 1);
+				Frame<T> parent = path.get(path.size() - 1);
+				parent.addSon(top.toNode());
+				top = parent;
+			}
+
+			if (top.end > commonLength) {
+				// Common prefix ends inside the open node: move the rest of its
+				// path with payload and sons into a closed son
+				Frame<T> suffix = new Frame<>(top.word, commonLength, top.end);
+				suffix.firstSon = top.firstSon;
+				suffix.data = top.data;
+				suffix.inserted = top.inserted;
+				suffix.count = top.count;
+				top.end = commonLength;
+				top.firstSon = null;
+				top.lastSon = null;
+				top.data = null;
+				top.inserted = false;
+				top.count = 0;
+				top.addSon(suffix.toNode());
+			}
+
+			if (word.length > commonLength) {
+				top = new Frame<>(word, commonLength, word.length);
+				path.add(top);
+			}
+			top.data = data;
+			top.inserted = true;
+			previousWord = word;
+		}
+
+		/**
+		 * Create the trie from the added words. The builder must not be used
+		 * any more afterwards.
+		 * 
+		 * @return trie
+		 */
+		public Trie<T> build() {
+			for (int i = path.size() - 1; i > 0; i--) {
+				path.get(i - 1).addSon(path.get(i).toNode());
+			}
+			Frame<T> root = path.get(0);
+			path.clear();
+			return new Trie<>(new TrieNode<T>(EMPTY_CHAR_ARRAY, null, root.firstSon, root.data, root.inserted,
+					root.count + (root.inserted ? 1 : 0)));
+		}
+
+	}
+
+	/**
+	 * Open node on the rightmost path of a {@link SortedBuilder}.
+	 * 
+	 * @param <T>
+	 *            payload data type
+	 */
+	private static class Frame<T extends Serializable> {
+
+		/**
+		 * Word which contains the path of the node.
+		 */
+		private final char[] word;
+
+		/**
+		 * Start index of the path of the node in the word (inclusive).
+		 */
+		private final int start;
+
+		/**
+		 * End index of the path of the node in the word (exclusive).
+		 */
+		private int end;
+
+		/**
+		 * First closed son.
+		 */
+		private TrieNode<T> firstSon;
+
+		/**
+		 * Last closed son (to append the next son).
+		 */
+		private TrieNode<T> lastSon;
+
+		/**
+		 * Payload data.
+		 */
+		private T data;
+
+		/**
+		 * Flag if a word ends in this node.
+		 */
+		private boolean inserted;
+
+		/**
+		 * Number of inserted words in the closed sons.
+		 */
+		private int count;
+
+		/**
+		 * Create open node without sons and payload.
+		 * 
+		 * @param word
+		 *            word which contains the path of the node
+		 * @param start
+		 *            start index of the path (inclusive)
+		 * @param end
+		 *            end index of the path (exclusive)
+		 */
+		private Frame(char[] word, int start, int end) {
+			this.word = word;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Append a closed son (sons are added in ascending order).
+		 * 
+		 * @param son
+		 *            son node
+		 */
+		private void addSon(TrieNode<T> son) {
+			if (lastSon == null) {
+				firstSon = son;
+			} else {
+				lastSon.setNextBrother(son);
+			}
+			lastSon = son;
+			count += son.getCount();
+		}
+
+		/**
+		 * Create the final node.
+		 * 
+		 * @return node
+		 */
+		private TrieNode<T> toNode() {
+			return new TrieNode<T>(subarray(word, start, end), null, firstSon, data, inserted,
+					count + (inserted ? 1 : 0));
+		}
+
+	}
+
 	/**
 	 * Get String representation of trie.
 	 * 
@@ -529,7 +1958,7 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 	 *            end index (exclusive)
 	 * @return sub array of size (end index - start index)
 	 */
-	private static char[] subarray(char[] array, int startIndex, int endIndex) {
+	static char[] subarray(char[] array, int startIndex, int endIndex) {
 		startIndex = Math.max(startIndex, 0);
 		endIndex = Math.min(endIndex, array.length);
 		int newSize = endIndex - startIndex;
@@ -542,4 +1971,53 @@ public class Trie<T extends Serializable> implements PrefixDictionary<T> {
 		return subarray;
 	}
 
+	/**
+	 * Copy a range of a char array into a new char array. In contrast to
+	 * {@link #subarray(char[], int, int)}, the range is validated.
+	 * 
+	 * @param array
+	 *            input array
+	 * @param startIndex
+	 *            start index (inclusive)
+	 * @param endIndex
+	 *            end index (exclusive)
+	 * @return char array of size (end index - start index)
+	 * @throws IllegalArgumentException
+	 *             if the end index is smaller than the start index
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             if the range exceeds the array
+	 */
+	static char[] toCharArray(char[] array, int startIndex, int endIndex) {
+		checkRange(startIndex, endIndex);
+		if (startIndex < 0 || endIndex > array.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Range [" + startIndex + ", " + endIndex + ") out of bounds for length " + array.length);
+		}
+		return Arrays.copyOfRange(array, startIndex, endIndex);
+	}
+
+	/**
+	 * Copy a substring of a char sequence into a new char array.
+	 * 
+	 * @param sequence
+	 *            input char sequence
+	 * @param startIndex
+	 *            start index (inclusive)
+	 * @param endIndex
+	 *            end index (exclusive)
+	 * @return char array of size (end index - start index)
+	 */
+	static char[] toCharArray(CharSequence sequence, int startIndex, int endIndex) {
+		checkRange(startIndex, endIndex);
+		char[] chars = new char[endIndex - startIndex];
+		if (sequence instanceof String) {
+			((String) sequence).getChars(startIndex, endIndex, chars, 0);
+		} else {
+			for (int i = startIndex; i < endIndex; i++) {
+				chars[i - startIndex] = sequence.charAt(i);
+			}
+		}
+		return chars;
+	}
+
 }
@@ -0,0 +1,188 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Cursor for an incremental descent in a {@link Trie}, one character at a
+ * time (e.g. for search-as-you-type or streaming tokenizers). The cursor keeps
+ * the current node and the number of characters consumed from its label, so a
+ * character is appended or removed without searching the path from the root
+ * again. Appending a character only looks at the sons of the current node when
+ * the end of its label is reached.<br>
+ * <br>
+ * The cursor is attached to the node structure, so it must be reset after the
+ * trie is modified (nodes may be split or merged). The cursor can be reused
+ * for many inputs without allocation.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public final class TrieCursor<T extends Serializable> {
+
+	/**
+	 * Root node of the trie.
+	 */
+	private final TrieNode<T> root;
+
+	/**
+	 * Nodes from the root to the current node.
+	 */
+	private TrieNode<?>[] path = new TrieNode<?>[16];
+
+	/**
+	 * Number of nodes in {@link #path}.
+	 */
+	private int pathLength;
+
+	/**
+	 * Current node.
+	 */
+	private TrieNode<T> node;
+
+	/**
+	 * Number of characters of the label of the current node which are
+	 * consumed.
+	 */
+	private int offset;
+
+	/**
+	 * Number of consumed characters.
+	 */
+	private int length;
+
+	/**
+	 * Create cursor at the root of a trie.
+	 *
+	 * @param root
+	 *            root node of the trie
+	 */
+	TrieCursor(TrieNode<T> root) {
+		this.root = root;
+		reset();
+	}
+
+	/**
+	 * Move the cursor back to the root (the empty word).
+	 */
+	public void reset() {
+		Arrays.fill(path, 0, pathLength, null);
+		path[0] = root;
+		pathLength = 1;
+		node = root;
+		offset = root.getChars().length;
+		length = 0;
+	}
+
+	/**
+	 * Append a character to the consumed word.
+	 *
+	 * @param c
+	 *            character
+	 * @return true if there is a word starting with the extended prefix (the
+	 *         cursor is moved), false otherwise (the cursor is not moved)
+	 */
+	public boolean advance(char c) {
+		final char[] chars = node.getChars();
+		if (offset < chars.length) {
+			if (chars[offset] != c) {
+				return false;
+			}
+			offset++;
+			length++;
+			return true;
+		}
+		TrieNode<T> son = node.getFirstSon();
+		while (son != null && son.getFirstChar() < c) {
+			son = son.getNextBrother();
+		}
+		if (son == null || son.getFirstChar() != c) {
+			return false;
+		}
+		if (pathLength == path.length) {
+			path = Arrays.copyOf(path, pathLength * 2);
+		}
+		path[pathLength++] = son;
+		node = son;
+		offset = 1;
+		length++;
+		return true;
+	}
+
+	/**
+	 * Remove the last character from the consumed word.
+	 *
+	 * @return true if a character was removed, false if the cursor is at the
+	 *         root
+	 */
+	public boolean retreat() {
+		if (length == 0) {
+			return false;
+		}
+		if (offset > 1) {
+			offset--;
+		} else {
+			path[--pathLength] = null;
+			@SuppressWarnings("unchecked")
+			TrieNode<T> parent = (TrieNode<T>) path[pathLength - 1];
+			node = parent;
+			offset = parent.getChars().length;
+		}
+		length--;
+		return true;
+	}
+
+	/**
+	 * Get the number of consumed characters.
+	 *
+	 * @return length of the consumed word
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Check if the consumed word is inserted in the trie.
+	 *
+	 * @return true if the consumed word is inserted
+	 */
+	public boolean isInserted() {
+		return offset == node.getChars().length && node.isInserted();
+	}
+
+	/**
+	 * Get the payload data of the consumed word.
+	 *
+	 * @return payload data (or null if the consumed word is not inserted)
+	 */
+	public T data() {
+		return isInserted() ? node.getData() : null;
+	}
+
+	/**
+	 * Check if there are longer words starting with the consumed word, i.e. if
+	 * the cursor can be advanced.
+	 *
+	 * @return true if the consumed word can be extended
+	 */
+	public boolean hasChildren() {
+		return offset < node.getChars().length || node.hasChildren();
+	}
+
+	/**
+	 * Get the number of inserted words starting with the consumed word.
+	 *
+	 * @return number of words with the consumed word as prefix
+	 */
+	public int count() {
+		return node.getCount();
+	}
+
+	@Override
+	public String toString() {
+		return "TrieCursor[length " + length + (isInserted() ? ", inserted" : "") + "]";
+	}
+
+}
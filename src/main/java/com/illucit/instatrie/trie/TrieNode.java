@@ -1,9 +1,13 @@
 package com.illucit.instatrie.trie;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -13,7 +17,11 @@ import java.util.stream.StreamSupport;
  * <br>
  * This node structure is not threadsafe, so simultanious access by multiple
  * concurrent threads is not permitted, if one of them makes modifications to
- * the node structure.
+ * the node structure. However, the links to other nodes, the payload and the
+ * word counts are written with release semantics (ordered stores, which are
+ * much cheaper than volatile stores) and read with acquire semantics, so a
+ * single writer can publish new nodes to concurrent readers (see
+ * {@link ConcurrentReadTrie}).
  * 
  * @author Christian Simon
  *
@@ -24,6 +32,22 @@ public class TrieNode<T extends Serializable> implements Serializable {
 
 	private static final long serialVersionUID = -6073377518906283282L;
 
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<TrieNode, TrieNode> FIRST_SON = AtomicReferenceFieldUpdater
+			.newUpdater(TrieNode.class, TrieNode.class, "firstSon");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<TrieNode, TrieNode> NEXT_BROTHER = AtomicReferenceFieldUpdater
+			.newUpdater(TrieNode.class, TrieNode.class, "nextBrother");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<TrieNode, Serializable> DATA = AtomicReferenceFieldUpdater
+			.newUpdater(TrieNode.class, Serializable.class, "data");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<TrieNode> COUNT_AND_INSERTED = AtomicIntegerFieldUpdater
+			.newUpdater(TrieNode.class, "countAndInserted");
+
 	/*
 	 * Static cache for char arrays with size one in ASCII range (performance!)
 	 */
@@ -37,6 +61,31 @@ public class TrieNode<T extends Serializable> implements Serializable {
 		}
 	}
 
+	/**
+	 * Replace a char array of size one in ASCII range with the cached instance.
+	 * 
+	 * @param chars
+	 *            character array
+	 * @return cached character array or the given array
+	 */
+	static char[] sharedChars(char[] chars) {
+		if (chars.length == 1 && chars[0] < 256) {
+			return CHAR_ARRAYS[chars[0]];
+		}
+		return chars;
+	}
+
+	/**
+	 * Check if a char array is one of the cached instances.
+	 * 
+	 * @param chars
+	 *            character array
+	 * @return true if the array is shared by all nodes with the same character
+	 */
+	static boolean isSharedChars(char[] chars) {
+		return chars.length == 1 && chars[0] < 256 && CHAR_ARRAYS[chars[0]] == chars;
+	}
+
 	/*
 	 * Trie node members
 	 */
@@ -51,23 +100,28 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	/**
 	 * First son inside the tree.
 	 */
-	private TrieNode<T> firstSon;
+	private volatile TrieNode<T> firstSon;
 
 	/**
 	 * Next brother inside the tree.
 	 */
-	private TrieNode<T> nextBrother;
+	private volatile TrieNode<T> nextBrother;
 
 	/**
 	 * Payload data.
 	 */
-	private T data;
+	private volatile T data;
 
 	/**
 	 * Flag if the node has been explicitely inserted or if it was only
-	 * introduced as inner node of a path.
+	 * introduced as inner node of a path (lowest bit), and the number of
+	 * inserted strings in the subtree of this node including the node itself
+	 * (remaining bits). Both are packed into one field, so the count needs no
+	 * additional memory per node. The count is given or calculated from the
+	 * sons when the node is created, and maintained by the {@link Trie}
+	 * operations afterwards.
 	 */
-	private boolean inserted;
+	private volatile int countAndInserted;
 
 	/*
 	 * Constructors
@@ -89,10 +143,35 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            true if the node was introduced as leaf of an insert operation
 	 */
 	public TrieNode(char[] chars, TrieNode<T> brother, TrieNode<T> son, T data, boolean inserted) {
-		this.nextBrother = brother;
-		this.firstSon = son;
-		this.data = data;
-		this.inserted = inserted;
+		this(chars, brother, son, data, inserted, 0);
+		updateCount();
+	}
+
+	/**
+	 * Create new trie node with a known number of inserted strings in its
+	 * subtree, so the sons don't need to be visited.
+	 * 
+	 * @param chars
+	 *            chars containing the path leading from the parent node to this
+	 *            node
+	 * @param brother
+	 *            next brother (optional)
+	 * @param son
+	 *            first son (optional)
+	 * @param data
+	 *            playload data (optional)
+	 * @param inserted
+	 *            true if the node was introduced as leaf of an insert operation
+	 * @param count
+	 *            number of inserted strings in the subtree (including the node
+	 *            itself)
+	 */
+	TrieNode(char[] chars, TrieNode<T> brother, TrieNode<T> son, T data, boolean inserted, int count) {
+		// The node is not published yet, so ordered stores are sufficient
+		NEXT_BROTHER.lazySet(this, brother);
+		FIRST_SON.lazySet(this, son);
+		DATA.lazySet(this, data);
+		COUNT_AND_INSERTED.lazySet(this, (count << 1) | (inserted ? 1 : 0));
 		setChars(chars);
 	}
 
@@ -112,10 +191,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            true if the node was introduced as leaf of an insert operation
 	 */
 	public TrieNode(final String chars, final TrieNode<T> brother, final TrieNode<T> son, final T data, boolean inserted) {
-		this.nextBrother = brother;
-		this.firstSon = son;
-		this.data = data;
-		setChars(chars.toCharArray());
+		this(chars.toCharArray(), brother, son, data, inserted);
 	}
 
 	/*
@@ -138,11 +214,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            character array
 	 */
 	public void setChars(char[] chars) {
-		if (chars.length == 1 && chars[0] < 256) {
-			this.chars = CHAR_ARRAYS[chars[0]];
-		} else {
-			this.chars = chars;
-		}
+		this.chars = sharedChars(chars);
 	}
 
 	/**
@@ -161,7 +233,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            trie node or null
 	 */
 	public void setFirstSon(TrieNode<T> firstSon) {
-		this.firstSon = firstSon;
+		FIRST_SON.lazySet(this, firstSon);
 	}
 
 	/**
@@ -180,7 +252,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            trie node or null
 	 */
 	public void setNextBrother(TrieNode<T> nextBrother) {
-		this.nextBrother = nextBrother;
+		NEXT_BROTHER.lazySet(this, nextBrother);
 	}
 
 	/**
@@ -199,7 +271,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 *            playload data or null
 	 */
 	public void setData(T data) {
-		this.data = data;
+		DATA.lazySet(this, data);
 	}
 
 	/**
@@ -208,17 +280,56 @@ public class TrieNode<T extends Serializable> implements Serializable {
 	 * @return true if node represents an inserted string
 	 */
 	public boolean isInserted() {
-		return inserted;
+		return (countAndInserted & 1) != 0;
 	}
 
 	/**
-	 * Set flag if node represents an inserted string in the trie.
+	 * Set flag if node represents an inserted string in the trie. <br>
+	 * <br>
+	 * Only the flag is changed: the number of inserted strings (see
+	 * {@link #getCount()}) of this node and its ancestors is not adjusted, so
+	 * changing the flag of a node inside a {@link Trie} makes the word counts
+	 * (and {@link Trie#size()}) inconsistent. Use the operations of the trie to
+	 * insert or delete words instead.
 	 * 
 	 * @param inserted
 	 *            true if node represents an inserted string
 	 */
 	public void setInserted(boolean inserted) {
-		this.inserted = inserted;
+		COUNT_AND_INSERTED.lazySet(this, (countAndInserted & ~1) | (inserted ? 1 : 0));
+	}
+
+	/**
+	 * Get the number of inserted strings in the subtree of this node (including
+	 * the node itself).
+	 * 
+	 * @return number of inserted strings
+	 */
+	public int getCount() {
+		return countAndInserted >>> 1;
+	}
+
+	/**
+	 * Set the number of inserted strings in the subtree of this node.
+	 * 
+	 * @param count
+	 *            number of inserted strings
+	 */
+	void setCount(int count) {
+		COUNT_AND_INSERTED.lazySet(this, (count << 1) | (countAndInserted & 1));
+	}
+
+	/**
+	 * Recalculate the number of inserted strings in the subtree of this node
+	 * from the counts of its sons.
+	 */
+	void updateCount() {
+		final int flag = countAndInserted & 1;
+		int count = flag;
+		for (TrieNode<T> son = firstSon; son != null; son = son.nextBrother) {
+			count += son.getCount();
+		}
+		COUNT_AND_INSERTED.lazySet(this, (count << 1) | flag);
 	}
 
 	/*
@@ -331,6 +442,34 @@ public class TrieNode<T extends Serializable> implements Serializable {
 		return new TrieNodeDescendantsIterable<>(this);
 	}
 
+	/**
+	 * Read the fields of the node. Nodes serialized before the word counts were
+	 * introduced have a boolean field <code>inserted</code> instead of
+	 * {@link #countAndInserted}, so the count is calculated from the sons
+	 * (which are completely read before).
+	 * 
+	 * @param in
+	 *            input stream
+	 * @throws IOException
+	 *             if reading fails
+	 * @throws ClassNotFoundException
+	 *             if a payload class cannot be found
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		setChars((char[]) fields.get("chars", null));
+		this.firstSon = (TrieNode<T>) fields.get("firstSon", null);
+		this.nextBrother = (TrieNode<T>) fields.get("nextBrother", null);
+		this.data = (T) fields.get("data", null);
+		if (fields.defaulted("countAndInserted")) {
+			this.countAndInserted = fields.get("inserted", false) ? 1 : 0;
+			updateCount();
+		} else {
+			this.countAndInserted = fields.get("countAndInserted", 0);
+		}
+	}
+
 	/**
 	 * Render the tree starting from this node as String.
 	 * 
@@ -471,7 +610,7 @@ public class TrieNode<T extends Serializable> implements Serializable {
 				private TrieNode<T> nextNode = node;
 
 				/** Stack to manage the different depth levels of the tree. */
-				private Stack<TrieNode<T>> parentNodes = new Stack<>();
+				private ArrayDeque<TrieNode<T>> parentNodes = new ArrayDeque<>();
 
 				/**
 				 * Find next node to continue.
@@ -0,0 +1,333 @@
+package com.illucit.instatrie.trie;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact stream format of the node structure of a {@link Trie}. The nodes are
+ * written in a single iterative pre-order pass (so neither writing nor reading
+ * recurses along the node links), each node as:
+ * <ul>
+ * <li>flags byte (inserted, has payload)</li>
+ * <li>label length as variable length integer</li>
+ * <li>label characters as variable length integers (one byte each for ASCII
+ * characters)</li>
+ * <li>number of sons as variable length integer</li>
+ * <li>payload data through a {@link PayloadCodec}, if present</li>
+ * </ul>
+ * The variable length integers use 7 bits per byte, with the highest bit set
+ * on all but the last byte. The stream starts with a format version byte.
+ * Arrays are grown while reading instead of being allocated with the length
+ * read from the stream, so a corrupt stream fails with an exception instead
+ * of exhausting the heap.
+ *
+ * @author Christian Simon
+ *
+ */
+final class TrieSerialization {
+
+	/**
+	 * Version of the stream format.
+	 */
+	private static final int VERSION = 1;
+
+	private static final int INSERTED = 1;
+
+	private static final int HAS_DATA = 2;
+
+	/**
+	 * Maximum number of elements allocated before they are read, so a corrupt
+	 * length cannot allocate huge arrays.
+	 */
+	private static final int CHUNK_SIZE = 4096;
+
+	static final PayloadCodec<Serializable> OBJECT_CODEC = new PayloadCodec<Serializable>() {
+
+		@Override
+		public void write(ObjectOutput out, Serializable data) throws IOException {
+			out.writeObject(data);
+		}
+
+		@Override
+		public Serializable read(ObjectInput in) throws IOException, ClassNotFoundException {
+			return (Serializable) in.readObject();
+		}
+
+	};
+
+	static final PayloadCodec<String> STRING_CODEC = new PayloadCodec<String>() {
+
+		@Override
+		public void write(ObjectOutput out, String data) throws IOException {
+			byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, bytes.length);
+			out.write(bytes);
+		}
+
+		@Override
+		public String read(ObjectInput in) throws IOException {
+			final int length = readVarInt(in);
+			byte[] bytes = new byte[Math.min(length, CHUNK_SIZE)];
+			int pos = 0;
+			while (pos < length) {
+				if (pos == bytes.length) {
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+				}
+				in.readFully(bytes, pos, bytes.length - pos);
+				pos = bytes.length;
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+	};
+
+	private TrieSerialization() {
+	}
+
+	/**
+	 * Write a node structure.
+	 *
+	 * @param root
+	 *            root node
+	 * @param out
+	 *            output
+	 * @param codec
+	 *            codec for the payload data
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	static <T extends Serializable> void write(TrieNode<T> root, ObjectOutput out, PayloadCodec<? super T> codec)
+			throws IOException {
+		out.writeByte(VERSION);
+		TrieNode<?>[] stack = new TrieNode<?>[16];
+		stack[0] = root;
+		int stackSize = 1;
+		while (stackSize > 0) {
+			@SuppressWarnings("unchecked")
+			final TrieNode<T> node = (TrieNode<T>) stack[--stackSize];
+			stack[stackSize] = null;
+
+			// Push the sons, then reverse them so the first son is on top
+			final int sonsStart = stackSize;
+			for (TrieNode<T> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+				if (stackSize == stack.length) {
+					stack = Arrays.copyOf(stack, stackSize * 2);
+				}
+				stack[stackSize++] = son;
+			}
+			for (int i = sonsStart, j = stackSize - 1; i < j; i++, j--) {
+				TrieNode<?> swap = stack[i];
+				stack[i] = stack[j];
+				stack[j] = swap;
+			}
+
+			final T data = node.getData();
+			out.writeByte((node.isInserted() ? INSERTED : 0) | (data != null ? HAS_DATA : 0));
+			writeChars(out, node.getChars());
+			writeVarInt(out, stackSize - sonsStart);
+			if (data != null) {
+				codec.write(out, data);
+			}
+		}
+	}
+
+	/**
+	 * Read a node structure written by
+	 * {@link #write(TrieNode, ObjectOutput, PayloadCodec)}. The word counts of
+	 * the nodes are calculated while reading.
+	 *
+	 * @param in
+	 *            input
+	 * @param codec
+	 *            codec for the payload data
+	 * @return root node
+	 * @throws IOException
+	 *             if reading fails or the stream is invalid
+	 * @throws ClassNotFoundException
+	 *             if a class of the payload cannot be found
+	 */
+	static <T extends Serializable> TrieNode<T> read(ObjectInput in, PayloadCodec<T> codec)
+			throws IOException, ClassNotFoundException {
+		final int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new StreamCorruptedException("Unsupported trie stream version: " + version);
+		}
+		final TrieNode<T> root = new TrieNode<>(Trie.EMPTY_CHAR_ARRAY, null, null, null, false);
+		int sons = readNode(in, codec, root);
+		if (sons == 0) {
+			return root;
+		}
+
+		// Stack of the nodes whose sons are being read, with the number of
+		// missing sons and the last son read so far
+		TrieNode<?>[] parents = new TrieNode<?>[16];
+		int[] missing = new int[16];
+		TrieNode<?>[] lastSons = new TrieNode<?>[16];
+		parents[0] = root;
+		missing[0] = sons;
+		int stackSize = 1;
+		while (stackSize > 0) {
+			final int top = stackSize - 1;
+			final TrieNode<T> node = new TrieNode<>(Trie.EMPTY_CHAR_ARRAY, null, null, null, false);
+			sons = readNode(in, codec, node);
+			@SuppressWarnings("unchecked")
+			final TrieNode<T> lastSon = (TrieNode<T>) lastSons[top];
+			if (lastSon == null) {
+				@SuppressWarnings("unchecked")
+				final TrieNode<T> parent = (TrieNode<T>) parents[top];
+				parent.setFirstSon(node);
+			} else {
+				lastSon.setNextBrother(node);
+			}
+			lastSons[top] = node;
+			missing[top]--;
+
+			if (sons > 0) {
+				if (stackSize == parents.length) {
+					parents = Arrays.copyOf(parents, stackSize * 2);
+					missing = Arrays.copyOf(missing, stackSize * 2);
+					lastSons = Arrays.copyOf(lastSons, stackSize * 2);
+				}
+				parents[stackSize] = node;
+				missing[stackSize] = sons;
+				lastSons[stackSize] = null;
+				stackSize++;
+			} else {
+				// Complete all nodes whose last son has been read
+				while (stackSize > 0 && missing[stackSize - 1] == 0) {
+					stackSize--;
+					parents[stackSize].updateCount();
+					parents[stackSize] = null;
+					lastSons[stackSize] = null;
+				}
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Read the fields of a single node.
+	 *
+	 * @param in
+	 *            input
+	 * @param codec
+	 *            codec for the payload data
+	 * @param node
+	 *            node to fill
+	 * @return number of sons of the node
+	 * @throws IOException
+	 *             if reading fails or the stream is invalid
+	 * @throws ClassNotFoundException
+	 *             if a class of the payload cannot be found
+	 */
+	private static <T extends Serializable> int readNode(ObjectInput in, PayloadCodec<T> codec, TrieNode<T> node)
+			throws IOException, ClassNotFoundException {
+		final int flags = in.readUnsignedByte();
+		if ((flags & ~(INSERTED | HAS_DATA)) != 0) {
+			throw new StreamCorruptedException("Invalid node flags in trie stream: " + flags);
+		}
+		final char[] chars = readChars(in);
+		final int sons = readVarInt(in);
+		node.setChars(chars);
+		node.setInserted((flags & INSERTED) != 0);
+		node.updateCount();
+		if ((flags & HAS_DATA) != 0) {
+			node.setData(codec.read(in));
+		}
+		return sons;
+	}
+
+	/**
+	 * Write characters as variable length length and characters.
+	 *
+	 * @param out
+	 *            output
+	 * @param chars
+	 *            characters
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	static void writeChars(ObjectOutput out, char[] chars) throws IOException {
+		writeVarInt(out, chars.length);
+		for (char c : chars) {
+			writeVarInt(out, c);
+		}
+	}
+
+	/**
+	 * Read characters written by {@link #writeChars(ObjectOutput, char[])}.
+	 *
+	 * @param in
+	 *            input
+	 * @return characters
+	 * @throws IOException
+	 *             if reading fails or the stream is invalid
+	 */
+	static char[] readChars(ObjectInput in) throws IOException {
+		final int length = readVarInt(in);
+		char[] chars = new char[Math.min(length, CHUNK_SIZE)];
+		for (int i = 0; i < length; i++) {
+			if (i == chars.length) {
+				chars = Arrays.copyOf(chars, (int) Math.min(length, 2L * chars.length));
+			}
+			final int c = readVarInt(in);
+			if (c > Character.MAX_VALUE) {
+				throw new StreamCorruptedException("Invalid character in trie stream: " + c);
+			}
+			chars[i] = (char) c;
+		}
+		return chars;
+	}
+
+	/**
+	 * Write a non-negative variable length integer.
+	 *
+	 * @param out
+	 *            output
+	 * @param value
+	 *            value
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	static void writeVarInt(ObjectOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Read a non-negative variable length integer.
+	 *
+	 * @param in
+	 *            input
+	 * @return value
+	 * @throws IOException
+	 *             if reading fails or the value is invalid
+	 */
+	static int readVarInt(ObjectInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					throw new StreamCorruptedException("Invalid length in trie stream: " + value);
+				}
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Invalid variable length integer in trie stream");
+	}
+
+}
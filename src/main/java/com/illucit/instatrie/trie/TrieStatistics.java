@@ -0,0 +1,225 @@
+package com.illucit.instatrie.trie;
+
+import java.util.Arrays;
+
+/**
+ * Structural metrics of the node structure of a {@link Trie}, collected in a
+ * single iterative pass over all nodes. The metrics can be used to size heaps
+ * and to choose a representation for a dictionary (e.g. a high number of nodes
+ * with short labels favours the compact representations). <br>
+ * <br>
+ * The heap size is an estimate for a 64 bit JVM with compressed references
+ * (12 byte object headers, 4 byte references, 8 byte alignment). It contains
+ * the nodes and their labels, but not the payload data, which may be shared
+ * with other structures. Labels shared with the cached single character
+ * arrays of {@link TrieNode} are not counted.
+ *
+ * @author Christian Simon
+ *
+ */
+public final class TrieStatistics {
+
+	/**
+	 * Estimated size of a {@link TrieNode} object (header, four references and
+	 * one int).
+	 */
+	static final int NODE_BYTES = 32;
+
+	/**
+	 * Estimated size of the header of a char array (object header and length).
+	 */
+	static final int ARRAY_HEADER_BYTES = 16;
+
+	private final int nodeCount;
+
+	private final int keyCount;
+
+	private final long totalLabelLength;
+
+	private final int sharedLabelCount;
+
+	private final int[] fanoutHistogram;
+
+	private final int[] depthHistogram;
+
+	private final long estimatedHeapSize;
+
+	/**
+	 * Collect the statistics of a node structure.
+	 *
+	 * @param root
+	 *            root node
+	 */
+	public TrieStatistics(TrieNode<?> root) {
+		int nodes = 0;
+		int keys = 0;
+		long labelLength = 0;
+		int shared = 0;
+		long heapSize = 0;
+		int[] fanouts = new int[8];
+		int[] depths = new int[8];
+		int maxFanout = 0;
+		int maxDepth = 0;
+
+		// Depth-first search with explicit stack of nodes and their depths
+		TrieNode<?>[] stackNodes = new TrieNode<?>[16];
+		int[] stackDepths = new int[16];
+		stackNodes[0] = root;
+		int stackSize = 1;
+		while (stackSize > 0) {
+			stackSize--;
+			final TrieNode<?> node = stackNodes[stackSize];
+			final int depth = stackDepths[stackSize];
+			stackNodes[stackSize] = null;
+
+			nodes++;
+			if (node.isInserted()) {
+				keys++;
+			}
+			final char[] chars = node.getChars();
+			labelLength += chars.length;
+			heapSize += NODE_BYTES;
+			if (TrieNode.isSharedChars(chars)) {
+				shared++;
+			} else {
+				heapSize += align(ARRAY_HEADER_BYTES + 2L * chars.length);
+			}
+			if (depth >= depths.length) {
+				depths = Arrays.copyOf(depths, depths.length * 2);
+			}
+			depths[depth]++;
+			maxDepth = Math.max(maxDepth, depth);
+
+			int fanout = 0;
+			for (TrieNode<?> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+				if (stackSize == stackNodes.length) {
+					stackNodes = Arrays.copyOf(stackNodes, stackSize * 2);
+					stackDepths = Arrays.copyOf(stackDepths, stackSize * 2);
+				}
+				stackNodes[stackSize] = son;
+				stackDepths[stackSize] = depth + 1;
+				stackSize++;
+				fanout++;
+			}
+			if (fanout >= fanouts.length) {
+				fanouts = Arrays.copyOf(fanouts, Math.max(fanouts.length * 2, fanout + 1));
+			}
+			fanouts[fanout]++;
+			maxFanout = Math.max(maxFanout, fanout);
+		}
+
+		this.nodeCount = nodes;
+		this.keyCount = keys;
+		this.totalLabelLength = labelLength;
+		this.sharedLabelCount = shared;
+		this.fanoutHistogram = Arrays.copyOf(fanouts, maxFanout + 1);
+		this.depthHistogram = Arrays.copyOf(depths, maxDepth + 1);
+		this.estimatedHeapSize = heapSize;
+	}
+
+	/**
+	 * Round a size up to the object alignment.
+	 *
+	 * @param bytes
+	 *            size in bytes
+	 * @return aligned size in bytes
+	 */
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * Get the number of nodes.
+	 *
+	 * @return number of nodes including the root node
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Get the number of inserted words.
+	 *
+	 * @return number of nodes which are inserted
+	 */
+	public int getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Get the total length of the node labels.
+	 *
+	 * @return sum of the label lengths of all nodes
+	 */
+	public long getTotalLabelLength() {
+		return totalLabelLength;
+	}
+
+	/**
+	 * Get the average length of the node labels (not counting the empty label
+	 * of the root node).
+	 *
+	 * @return average label length (or 0 if there are no nodes except the
+	 *         root)
+	 */
+	public double getAverageLabelLength() {
+		return nodeCount > 1 ? (double) totalLabelLength / (nodeCount - 1) : 0;
+	}
+
+	/**
+	 * Get the number of labels which are cached single character arrays, so
+	 * they need no memory of their own.
+	 *
+	 * @return number of shared labels
+	 */
+	public int getSharedLabelCount() {
+		return sharedLabelCount;
+	}
+
+	/**
+	 * Get the fanout histogram.
+	 *
+	 * @return number of nodes with n sons at index n
+	 */
+	public int[] getFanoutHistogram() {
+		return fanoutHistogram.clone();
+	}
+
+	/**
+	 * Get the depth histogram.
+	 *
+	 * @return number of nodes with n ancestors at index n (the root node has
+	 *         depth 0)
+	 */
+	public int[] getDepthHistogram() {
+		return depthHistogram.clone();
+	}
+
+	/**
+	 * Get the maximum depth of a node (like {@link Trie#getDepth()}).
+	 *
+	 * @return maximum depth
+	 */
+	public int getMaxDepth() {
+		return depthHistogram.length - 1;
+	}
+
+	/**
+	 * Get the estimated heap size of the nodes and their labels (without
+	 * payload data).
+	 *
+	 * @return estimated retained heap in bytes
+	 */
+	public long getEstimatedHeapSize() {
+		return estimatedHeapSize;
+	}
+
+	@Override
+	public String toString() {
+		return "TrieStatistics[nodes " + nodeCount + ", keys " + keyCount + ", label length " + totalLabelLength
+				+ String.format(" (%.2f avg)", getAverageLabelLength()) + ", shared labels " + sharedLabelCount
+				+ ", fanout " + Arrays.toString(fanoutHistogram) + ", depth " + Arrays.toString(depthHistogram)
+				+ ", ~" + estimatedHeapSize + " bytes]";
+	}
+
+}
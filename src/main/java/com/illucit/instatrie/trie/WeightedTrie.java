@@ -0,0 +1,456 @@
+package com.illucit.instatrie.trie;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Trie which maps words to payload data and a weight (e.g. the popularity of a
+ * search term), and finds the words with the highest weights under a prefix
+ * for autocompletion. In addition to the weight of each word, the maximum
+ * weight in each subtree is maintained, so {@link #topK(char[], int)} runs a
+ * best-first search which only expands the subtrees that can still contain
+ * one of the best words, instead of enumerating and sorting the whole subtree
+ * of the prefix. <br>
+ * <br>
+ * This data structure is not threadsafe, so simultanious access by multiple
+ * concurrent threads is not permitted, if one of them makes modifications to
+ * the node structure.
+ *
+ * @author Christian Simon
+ *
+ * @param <T>
+ *            payload data type
+ */
+public class WeightedTrie<T extends Serializable> extends AbstractPrimitiveTrie {
+
+	private static final long serialVersionUID = -2946034781261805719L;
+
+	/**
+	 * Maximum weight of an empty subtree (not allowed as weight of a word).
+	 */
+	private static final long NO_WEIGHT = Long.MIN_VALUE;
+
+	/**
+	 * Payload data of each node (null if not inserted).
+	 */
+	private Object[] data;
+
+	/**
+	 * Weight of each node (0 if not inserted).
+	 */
+	private long[] weights;
+
+	/**
+	 * Maximum weight of all inserted words in the subtree of each node.
+	 */
+	private long[] maxWeights;
+
+	/**
+	 * Create empty trie.
+	 */
+	public WeightedTrie() {
+		super();
+	}
+
+	@Override
+	void initValues(int capacity) {
+		this.data = new Object[capacity];
+		this.weights = new long[capacity];
+		this.maxWeights = new long[capacity];
+		Arrays.fill(this.maxWeights, NO_WEIGHT);
+	}
+
+	@Override
+	void growValues(int capacity) {
+		int oldCapacity = this.maxWeights.length;
+		this.data = Arrays.copyOf(this.data, capacity);
+		this.weights = Arrays.copyOf(this.weights, capacity);
+		this.maxWeights = Arrays.copyOf(this.maxWeights, capacity);
+		Arrays.fill(this.maxWeights, oldCapacity, capacity, NO_WEIGHT);
+	}
+
+	@Override
+	void moveValue(int node, int subNode) {
+		data[subNode] = data[node];
+		weights[subNode] = weights[node];
+		maxWeights[subNode] = maxWeights[node];
+		data[node] = null;
+		weights[node] = 0;
+	}
+
+	/**
+	 * Insert a word with payload data and weight (replacing the current data and
+	 * weight).
+	 *
+	 * @param word
+	 *            word
+	 * @param value
+	 *            payload data
+	 * @param weight
+	 *            weight of the word (any value except {@link Long#MIN_VALUE})
+	 * @throws IllegalArgumentException
+	 *             if the weight is {@link Long#MIN_VALUE}
+	 */
+	public void put(char[] word, T value, long weight) {
+		if (weight == NO_WEIGHT) {
+			throw new IllegalArgumentException("Weight must be greater than Long.MIN_VALUE");
+		}
+		NodePath path = modificationPath();
+		int node = insertNode(word, 0, word.length, path);
+		boolean increased = !isInserted(node) || weight >= weights[node];
+		setInserted(node, true);
+		data[node] = value;
+		weights[node] = weight;
+		if (increased) {
+			for (int i = 0; i < path.length(); i++) {
+				maxWeights[path.get(i)] = Math.max(maxWeights[path.get(i)], weight);
+			}
+		} else {
+			updateMaxWeights(path);
+		}
+	}
+
+	/**
+	 * Insert a word with payload data and weight (replacing the current data and
+	 * weight).
+	 *
+	 * @param word
+	 *            word
+	 * @param value
+	 *            payload data
+	 * @param weight
+	 *            weight of the word (any value except {@link Long#MIN_VALUE})
+	 * @throws IllegalArgumentException
+	 *             if the weight is {@link Long#MIN_VALUE}
+	 */
+	public void put(String word, T value, long weight) {
+		put(word.toCharArray(), value, weight);
+	}
+
+	/**
+	 * Get the payload data of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @return payload data or null if the word is not inserted
+	 */
+	@SuppressWarnings("unchecked")
+	public T getData(char[] word) {
+		int node = getNode(word, true);
+		return node < 0 || !isInserted(node) ? null : (T) data[node];
+	}
+
+	/**
+	 * Get the payload data of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @return payload data or null if the word is not inserted
+	 */
+	public T getData(String word) {
+		return getData(word.toCharArray());
+	}
+
+	/**
+	 * Get the weight of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @param defaultValue
+	 *            value to return if the word is not inserted
+	 * @return weight of the word or default value
+	 */
+	public long getWeight(char[] word, long defaultValue) {
+		int node = getNode(word, true);
+		return node < 0 || !isInserted(node) ? defaultValue : weights[node];
+	}
+
+	/**
+	 * Get the weight of a word.
+	 *
+	 * @param word
+	 *            word
+	 * @param defaultValue
+	 *            value to return if the word is not inserted
+	 * @return weight of the word or default value
+	 */
+	public long getWeight(String word, long defaultValue) {
+		return getWeight(word.toCharArray(), defaultValue);
+	}
+
+	/**
+	 * Get the maximum weight of all words starting with a prefix (including the
+	 * prefix itself).
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @param defaultValue
+	 *            value to return if no word has the prefix
+	 * @return maximum weight or default value
+	 */
+	public long getMaxWeight(char[] prefix, long defaultValue) {
+		int node = getNode(prefix, false);
+		return node < 0 || maxWeights[node] == NO_WEIGHT ? defaultValue : maxWeights[node];
+	}
+
+	/**
+	 * Get the maximum weight of all words starting with a prefix (including the
+	 * prefix itself).
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @param defaultValue
+	 *            value to return if no word has the prefix
+	 * @return maximum weight or default value
+	 */
+	public long getMaxWeight(String prefix, long defaultValue) {
+		return getMaxWeight(prefix.toCharArray(), defaultValue);
+	}
+
+	/**
+	 * Remove a word from the trie.
+	 *
+	 * @param word
+	 *            word
+	 */
+	public void delete(char[] word) {
+		NodePath path = modificationPath();
+		int node = getNode(word, true, path);
+		if (node >= 0 && isInserted(node)) {
+			setInserted(node, false);
+			data[node] = null;
+			weights[node] = 0;
+			updateMaxWeights(path);
+		}
+	}
+
+	/**
+	 * Remove a word from the trie.
+	 *
+	 * @param word
+	 *            word
+	 */
+	public void delete(String word) {
+		delete(word.toCharArray());
+	}
+
+	/**
+	 * Recalculate the maximum subtree weights of all nodes on a path
+	 * (bottom-up), after a weight has been decreased or removed.
+	 *
+	 * @param path
+	 *            nodes from the root to the changed node
+	 */
+	private void updateMaxWeights(NodePath path) {
+		for (int i = path.length() - 1; i >= 0; i--) {
+			int node = path.get(i);
+			long max = isInserted(node) ? weights[node] : NO_WEIGHT;
+			for (int son = getFirstSon(node); son != ROOT; son = getNextBrother(son)) {
+				max = Math.max(max, maxWeights[son]);
+			}
+			maxWeights[node] = max;
+		}
+	}
+
+	/**
+	 * Find the words with the highest weights starting with a prefix (including
+	 * the prefix itself). Words with the same weight are returned in no
+	 * particular order.
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @param k
+	 *            maximum number of words
+	 * @return list of words with payload and weight, with descending weight
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Completion<T>> topK(char[] prefix, int k) {
+		NodePath path = new NodePath();
+		int start = getNode(prefix, false, path);
+		if (start < 0 || k <= 0 || maxWeights[start] == NO_WEIGHT) {
+			return Collections.emptyList();
+		}
+
+		// Path of the start node (the prefix may end inside its path)
+		StringBuilder startWord = new StringBuilder();
+		for (int i = 1; i < path.length(); i++) {
+			startWord.append(getChars(path.get(i)));
+		}
+
+		// Best-first search: a subtree candidate is only expanded when no word
+		// with a higher weight is left in the queue
+		List<Completion<T>> result = new ArrayList<>(Math.min(k, size()));
+		PriorityQueue<Candidate> queue = new PriorityQueue<>();
+		queue.add(new Candidate(start, null, startWord.length(), maxWeights[start], false));
+		while (!queue.isEmpty() && result.size() < k) {
+			Candidate candidate = queue.poll();
+			int node = candidate.node;
+			if (candidate.word) {
+				String word = candidate.buildWord(startWord, this);
+				result.add(new Completion<>(word, (T) data[node], weights[node]));
+				continue;
+			}
+			if (isInserted(node)) {
+				queue.add(new Candidate(node, candidate, candidate.length, weights[node], true));
+			}
+			for (int son = getFirstSon(node); son != ROOT; son = getNextBrother(son)) {
+				if (maxWeights[son] != NO_WEIGHT) {
+					queue.add(new Candidate(son, candidate, candidate.length + getChars(son).length,
+							maxWeights[son], false));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the words with the highest weights starting with a prefix (including
+	 * the prefix itself). Words with the same weight are returned in no
+	 * particular order.
+	 *
+	 * @param prefix
+	 *            prefix
+	 * @param k
+	 *            maximum number of words
+	 * @return list of words with payload and weight, with descending weight
+	 */
+	public List<Completion<T>> topK(String prefix, int k) {
+		return topK(prefix.toCharArray(), k);
+	}
+
+	/**
+	 * Entry of the priority queue of {@link WeightedTrie#topK(char[], int)}:
+	 * either a subtree (with the maximum weight of the subtree) or an inserted
+	 * word (with its weight).
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+
+		private final int node;
+
+		/**
+		 * Candidate of the parent node (null for the start node).
+		 */
+		private final Candidate parent;
+
+		/**
+		 * Length of the word of the node.
+		 */
+		private final int length;
+
+		private final long weight;
+
+		/**
+		 * Flag if the candidate is the word of the node (otherwise the subtree).
+		 */
+		private final boolean word;
+
+		private Candidate(int node, Candidate parent, int length, long weight, boolean word) {
+			this.node = node;
+			this.parent = parent;
+			this.length = length;
+			this.weight = weight;
+			this.word = word;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			if (weight != other.weight) {
+				return weight > other.weight ? -1 : 1;
+			}
+			// Prefer words over subtrees with the same weight, so they are
+			// returned without expanding the subtrees
+			if (word != other.word) {
+				return word ? -1 : 1;
+			}
+			return 0;
+		}
+
+		/**
+		 * Build the word of the node by walking up the parent candidates.
+		 *
+		 * @param startWord
+		 *            word of the start node
+		 * @param trie
+		 *            trie containing the node paths
+		 * @return word
+		 */
+		private String buildWord(CharSequence startWord, AbstractPrimitiveTrie trie) {
+			char[] result = new char[length];
+			Candidate current = word ? parent : this;
+			while (current.parent != null) {
+				char[] chars = trie.getChars(current.node);
+				System.arraycopy(chars, 0, result, current.length - chars.length, chars.length);
+				current = current.parent;
+			}
+			for (int i = 0; i < current.length; i++) {
+				result[i] = startWord.charAt(i);
+			}
+			return new String(result);
+		}
+
+	}
+
+	/**
+	 * Word found by {@link WeightedTrie#topK(char[], int)}.
+	 *
+	 * @param <T>
+	 *            payload data type
+	 */
+	public static final class Completion<T> {
+
+		private final String word;
+
+		private final T data;
+
+		private final long weight;
+
+		private Completion(String word, T data, long weight) {
+			this.word = word;
+			this.data = data;
+			this.weight = weight;
+		}
+
+		/**
+		 * Get the completed word.
+		 *
+		 * @return word
+		 */
+		public String getWord() {
+			return word;
+		}
+
+		/**
+		 * Get the payload data of the word.
+		 *
+		 * @return payload data
+		 */
+		public T getData() {
+			return data;
+		}
+
+		/**
+		 * Get the weight of the word.
+		 *
+		 * @return weight
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		@Override
+		public String toString() {
+			return word + " (" + weight + ")";
+		}
+
+	}
+
+	@Override
+	String valueToString(int node) {
+		return data[node] + ", " + weights[node];
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.AdaptiveRadixTrie;
+
+/**
+ * Tests for growing and shrinking nodes of {@link AdaptiveRadixTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestAdaptiveRadixTrie {
+
+	@Test
+	public void testGrowAndShrink() {
+		AdaptiveRadixTrie<String> trie = new AdaptiveRadixTrie<>();
+		List<String> words = new ArrayList<>();
+		// Latin-1 children first (up to node type 256), then others
+		for (char c = 0; c < 300; c++) {
+			String word = "x" + c;
+			words.add(word);
+			trie.insert(word, word);
+			for (String inserted : words) {
+				Assert.assertEquals(inserted, trie.getData(inserted));
+			}
+		}
+		Assert.assertEquals(2, trie.getDepth());
+
+		for (String word : words) {
+			trie.delete(word);
+			Assert.assertFalse(trie.contains(word));
+			Assert.assertFalse(trie.containsPrefix(word));
+		}
+		Assert.assertFalse(trie.containsPrefix("x"));
+		Assert.assertEquals(0, trie.getDepth());
+	}
+
+	@Test
+	public void testDeleteMergesPaths() {
+		AdaptiveRadixTrie<String> trie = new AdaptiveRadixTrie<>();
+		trie.insert("abc", "abc");
+		trie.insert("abd", "abd");
+		trie.insert("ab", "ab");
+		Assert.assertEquals(2, trie.getDepth());
+
+		trie.delete("ab");
+		Assert.assertFalse(trie.contains("ab"));
+		Assert.assertTrue(trie.containsPrefix("ab"));
+		Assert.assertEquals("abc", trie.getData("abc"));
+		Assert.assertEquals("abd", trie.getData("abd"));
+
+		trie.delete("abc");
+		Assert.assertFalse(trie.containsPrefix("abc"));
+		Assert.assertEquals("abd", trie.getData("abd"));
+		Assert.assertEquals(1, trie.getDepth());
+
+		trie.delete("abd");
+		Assert.assertFalse(trie.containsPrefix("a"));
+		Assert.assertEquals(0, trie.getDepth());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(7);
+		AdaptiveRadixTrie<String> trie = new AdaptiveRadixTrie<>();
+		Map<String, String> reference = new HashMap<>();
+		char[] alphabet = "abcdefghijklmnopqrstuvwxyz0123456789äā中".toCharArray();
+
+		for (int i = 0; i < 50000; i++) {
+			char[] word = new char[random.nextInt(4)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String key = String.valueOf(word);
+			if (random.nextInt(3) == 0) {
+				trie.delete(key);
+				reference.remove(key);
+			} else {
+				trie.insert(key, key);
+				reference.put(key, key);
+			}
+			Assert.assertEquals(reference.containsKey(key), trie.contains(key));
+		}
+		for (Map.Entry<String, String> entry : reference.entrySet()) {
+			Assert.assertEquals(entry.getValue(), trie.getData(entry.getKey()));
+		}
+		for (String key : new ArrayList<>(reference.keySet())) {
+			trie.delete(key);
+		}
+		Assert.assertEquals(0, trie.getDepth());
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.illucit.instatrie;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.AhoCorasick;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the multi-pattern scan of the {@link AhoCorasick} automaton.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestAhoCorasick {
+
+	private static AhoCorasick<String> compile(String... words) {
+		Trie<String> trie = new Trie<>();
+		for (String word : words) {
+			trie.insert(word, word);
+		}
+		return new AhoCorasick<>(trie);
+	}
+
+	private static List<String> scan(AhoCorasick<String> automaton, String text) {
+		List<String> result = new ArrayList<>();
+		automaton.scan(text, (start, end, data) -> result.add(start + "-" + end + ":" + data));
+		return result;
+	}
+
+	private static List<String> scanLongest(AhoCorasick<String> automaton, String text) {
+		List<String> result = new ArrayList<>();
+		automaton.scanLongest(text, (start, end, data) -> result.add(start + "-" + end + ":" + data));
+		return result;
+	}
+
+	@Test
+	public void testScan() {
+		AhoCorasick<String> automaton = compile("he", "she", "his", "hers", "");
+		Assert.assertEquals(4, automaton.size());
+		Assert.assertEquals(Arrays.asList("1-4:she", "2-4:he", "2-6:hers"), scan(automaton, "ushers"));
+		Assert.assertEquals(Arrays.asList("0-3:his", "3-6:she", "4-6:he"), scan(automaton, "hisshe"));
+		Assert.assertEquals(Arrays.asList(), scan(automaton, "xyz"));
+		Assert.assertEquals(Arrays.asList(), scan(automaton, ""));
+	}
+
+	@Test
+	public void testScanLongest() {
+		AhoCorasick<String> automaton = compile("ab", "abcde", "cd", "b", "bcd", "e");
+		// "abcde" is not complete, so "ab" and "cd" are taken
+		Assert.assertEquals(Arrays.asList("0-2:ab", "2-4:cd"), scanLongest(automaton, "abcd"));
+		Assert.assertEquals(Arrays.asList("0-5:abcde"), scanLongest(automaton, "abcde"));
+		Assert.assertEquals(Arrays.asList("1-4:bcd", "4-5:e"), scanLongest(automaton, "xbcde"));
+		Assert.assertEquals(Arrays.asList("0-2:ab", "3-4:b", "4-5:e"), scanLongest(automaton, "abxbe"));
+	}
+
+	@Test
+	public void testReader() throws IOException {
+		AhoCorasick<String> automaton = compile("needle", "nee");
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append("hay needle ");
+		}
+		List<long[]> matches = new ArrayList<>();
+		automaton.scan(new StringReader(text.toString()), (start, end, data) -> matches.add(new long[] { start, end }));
+		Assert.assertEquals(10000, matches.size());
+		Assert.assertEquals(54993, matches.get(9999)[0]);
+		Assert.assertEquals(54999, matches.get(9999)[1]);
+
+		List<String> longest = new ArrayList<>();
+		automaton.scanLongest(new StringReader(text.toString()), (start, end, data) -> longest.add(data));
+		Assert.assertEquals(5000, longest.size());
+		Assert.assertTrue(longest.stream().allMatch("needle"::equals));
+	}
+
+	@Test
+	public void testRandomText() {
+		Random random = new Random(20);
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			char[] word = new char[1 + random.nextInt(6)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(3));
+			}
+			words.add(String.valueOf(word));
+		}
+		AhoCorasick<String> automaton = compile(words.toArray(new String[0]));
+		char[] chars = new char[2000];
+		for (int j = 0; j < chars.length; j++) {
+			chars[j] = (char) ('a' + random.nextInt(4));
+		}
+		String text = String.valueOf(chars);
+
+		// All matches, ordered by end position and descending length
+		List<String> expected = new ArrayList<>();
+		for (int end = 1; end <= text.length(); end++) {
+			for (int start = 0; start < end; start++) {
+				String candidate = text.substring(start, end);
+				if (words.contains(candidate)) {
+					expected.add(start + "-" + end + ":" + candidate);
+				}
+			}
+		}
+		Assert.assertEquals(expected, scan(automaton, text));
+
+		// Greedy leftmost-longest matches
+		List<String> expectedLongest = new ArrayList<>();
+		int start = 0;
+		while (start < text.length()) {
+			int longestEnd = -1;
+			for (int end = start + 1; end <= text.length() && end - start <= 6; end++) {
+				if (words.contains(text.substring(start, end))) {
+					longestEnd = end;
+				}
+			}
+			if (longestEnd < 0) {
+				start++;
+			} else {
+				expectedLongest.add(start + "-" + longestEnd + ":" + text.substring(start, longestEnd));
+				start = longestEnd;
+			}
+		}
+		Assert.assertEquals(expectedLongest, scanLongest(automaton, text));
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.ConcurrentReadTrie;
+
+/**
+ * Test for the {@link ConcurrentReadTrie} with one writer and concurrent
+ * readers.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestConcurrentReadTrie {
+
+	private static final int NUM_READERS = 4;
+
+	@Test
+	public void testReadersSeePublishedWords() throws InterruptedException {
+		// Random words with many common prefixes, so most inserts split nodes
+		Random random = new Random(9);
+		Set<String> wordSet = new LinkedHashSet<>();
+		while (wordSet.size() < 50000) {
+			char[] word = new char[1 + random.nextInt(10)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(3));
+			}
+			wordSet.add(String.valueOf(word));
+		}
+		List<String> words = new ArrayList<>(wordSet);
+
+		ConcurrentReadTrie<String> trie = new ConcurrentReadTrie<>();
+		AtomicInteger published = new AtomicInteger();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < NUM_READERS; t++) {
+			Thread reader = new Thread(() -> {
+				Random readerRandom = new Random();
+				try {
+					while (published.get() < words.size()) {
+						// All words published before must be found
+						int count = published.get();
+						if (count == 0) {
+							continue;
+						}
+						String word = words.get(readerRandom.nextInt(count));
+						Assert.assertEquals(word, trie.getData(word));
+						Assert.assertTrue(word, trie.containsPrefix(word.substring(0, word.length() / 2)));
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+
+		for (String word : words) {
+			trie.insert(word, word);
+			published.incrementAndGet();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		Assert.assertNull(error.get());
+		for (String word : words) {
+			Assert.assertEquals(word, trie.getData(word));
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+package com.illucit.instatrie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.ConcurrentTrie;
+
+/**
+ * Tests for the lock-free {@link ConcurrentTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestConcurrentTrie {
+
+	private static final int NUM_THREADS = 8;
+
+	@Test
+	public void testDeleteRemovesPrefixes() {
+		ConcurrentTrie<String> trie = new ConcurrentTrie<>();
+		trie.insert("abc", "abc");
+		trie.insert("abd", "abd");
+		trie.insert("abcdef", "abcdef");
+		trie.insert("", "<empty>");
+		Assert.assertEquals(6, trie.getDepth());
+		Assert.assertEquals(4, trie.size());
+
+		trie.delete("abc");
+		Assert.assertFalse(trie.contains("abc"));
+		Assert.assertTrue(trie.containsPrefix("abc"));
+		Assert.assertEquals("abcdef", trie.getData("abcdef"));
+
+		trie.delete("abcdef");
+		Assert.assertFalse(trie.containsPrefix("abc"));
+		Assert.assertEquals("abd", trie.getData("abd"));
+		Assert.assertTrue(trie.containsPrefix("ab"));
+
+		trie.delete("abd");
+		Assert.assertFalse(trie.containsPrefix("a"));
+		Assert.assertEquals("<empty>", trie.getData(""));
+		Assert.assertEquals(0, trie.getDepth());
+	}
+
+	@Test
+	public void testSnapshots() {
+		ConcurrentTrie<String> trie = new ConcurrentTrie<>();
+		for (int i = 0; i < 1000; i++) {
+			trie.insert("word" + i, "v1");
+		}
+		ConcurrentTrie<String> readOnly = trie.readOnlySnapshot();
+		ConcurrentTrie<String> mutable = trie.snapshot();
+
+		for (int i = 0; i < 1000; i += 2) {
+			trie.insert("word" + i, "v2");
+			trie.delete("word" + (i + 1));
+		}
+		mutable.insert("other", "v3");
+
+		Assert.assertTrue(readOnly.isReadOnly());
+		Assert.assertEquals(1000, readOnly.size());
+		Assert.assertEquals(1001, mutable.size());
+		Assert.assertEquals(500, trie.size());
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals("v1", readOnly.getData("word" + i));
+			Assert.assertEquals("v1", mutable.getData("word" + i));
+			Assert.assertEquals(i % 2 == 0 ? "v2" : null, trie.getData("word" + i));
+		}
+		Assert.assertFalse(trie.contains("other"));
+		Assert.assertFalse(readOnly.contains("other"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadOnlySnapshotRejectsWrites() {
+		new ConcurrentTrie<String>().readOnlySnapshot().insert("a", "a");
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		ConcurrentTrie<Integer> trie = new ConcurrentTrie<>();
+		List<String> words = new ArrayList<>();
+		Random random = new Random(8);
+		for (int i = 0; i < 2000; i++) {
+			char[] word = new char[1 + random.nextInt(5)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			words.add(String.valueOf(word));
+		}
+
+		// All threads count the same words, and insert and delete their own
+		// words at the same time
+		ConcurrentHashMap<String, Integer> expected = new ConcurrentHashMap<>();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < NUM_THREADS; t++) {
+			final int threadNumber = t;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					for (String word : words) {
+						trie.updateOrInsertData(word, count -> count == null ? 1 : count + 1);
+						expected.merge(word, 1, Integer::sum);
+						String own = word + "#" + threadNumber;
+						trie.insert(own, -1);
+						Assert.assertEquals(Integer.valueOf(-1), trie.getData(own));
+						if (own.length() % 2 == 0) {
+							trie.delete(own);
+							Assert.assertFalse(trie.contains(own));
+						}
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertNull(error.get());
+
+		for (String word : words) {
+			Assert.assertEquals(word, expected.get(word), trie.getData(word));
+			for (int t = 0; t < NUM_THREADS; t++) {
+				String own = word + "#" + t;
+				Assert.assertEquals(own, own.length() % 2 != 0, trie.contains(own));
+			}
+		}
+	}
+
+	@Test
+	public void testSnapshotsDuringUpdates() throws InterruptedException {
+		ConcurrentTrie<Integer> trie = new ConcurrentTrie<>();
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+
+		// Writer inserts increasing numbers, so each snapshot must contain a
+		// gap-free range of them
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 20000; i++) {
+				trie.insert(Integer.toString(i), i);
+			}
+			running.set(false);
+		});
+		writer.start();
+		while (running.get()) {
+			TreeMap<Integer, Integer> numbers = new TreeMap<>();
+			trie.readOnlySnapshot().forEach((word, data) -> numbers.put(data, data));
+			if (!numbers.isEmpty() && numbers.lastKey() != numbers.size() - 1) {
+				error.set(new AssertionError("Inconsistent snapshot: " + numbers.size() + " " + numbers.lastKey()));
+			}
+		}
+		writer.join();
+		Assert.assertNull(error.get());
+		Assert.assertEquals(20000, trie.size());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		ConcurrentTrie<String> trie = new ConcurrentTrie<>();
+		trie.insert("", "<empty>");
+		trie.insert("abc", "abc");
+		trie.insert("abd", null);
+		trie.insert("中文", "unicode");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(trie.readOnlySnapshot());
+		}
+		ConcurrentTrie<String> copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (ConcurrentTrie<String>) in.readObject();
+		}
+		Assert.assertTrue(copy.isReadOnly());
+		Assert.assertEquals(trie.toString(), copy.toString());
+		Assert.assertTrue(copy.contains("abd"));
+		Assert.assertEquals("unicode", copy.getData("中文"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSerializationOfLongWord() throws IOException, ClassNotFoundException {
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < 30000; i++) {
+			buffer.append("中a");
+		}
+		String word = buffer.toString();
+		ConcurrentTrie<String> trie = new ConcurrentTrie<>();
+		trie.insert(word, "long");
+		trie.insert("short", "short");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(trie);
+		}
+		ConcurrentTrie<String> copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (ConcurrentTrie<String>) in.readObject();
+		}
+		Assert.assertEquals(2, copy.size());
+		Assert.assertEquals("long", copy.getData(word));
+		Assert.assertEquals("short", copy.getData("short"));
+	}
+
+}
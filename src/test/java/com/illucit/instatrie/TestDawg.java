@@ -0,0 +1,94 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Dawg;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the minimal acyclic automaton {@link Dawg}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestDawg {
+
+	@Test
+	public void testEmpty() {
+		Dawg<String> dawg = new Dawg<>(new Trie<>());
+		Assert.assertEquals(0, dawg.size());
+		Assert.assertTrue(dawg.containsPrefix(""));
+		Assert.assertFalse(dawg.contains(""));
+		Assert.assertFalse(dawg.containsPrefix("a"));
+		Assert.assertEquals(0, dawg.getDepth());
+	}
+
+	@Test
+	public void testSharedSuffixes() {
+		TreeMap<String, String> entries = new TreeMap<>();
+		for (String stem : new String[] { "walk", "talk", "jump", "play", "work" }) {
+			for (String suffix : new String[] { "", "s", "ed", "ing", "er", "ers" }) {
+				entries.put(stem + suffix, stem + "|" + suffix);
+			}
+		}
+		Dawg<String> dawg = Dawg.fromSorted(entries.entrySet().iterator());
+		Assert.assertEquals(entries.size(), dawg.size());
+
+		// All stems share the states of the suffixes
+		Assert.assertTrue(dawg.toString(), dawg.getStateCount() < 30);
+		List<String> words = new ArrayList<>(entries.keySet());
+		for (int i = 0; i < words.size(); i++) {
+			String word = words.get(i);
+			Assert.assertEquals(i, dawg.ordinal(word));
+			Assert.assertEquals(word, dawg.getWord(i));
+			Assert.assertEquals(entries.get(word), dawg.getData(word));
+		}
+		Assert.assertEquals(-1, dawg.ordinal("walke"));
+		Assert.assertTrue(dawg.containsPrefix("walke"));
+		Assert.assertFalse(dawg.containsPrefix("walks!"));
+	}
+
+	@Test
+	public void testSameAsTrie() {
+		Random random = new Random(13);
+		Trie<Integer> trie = new Trie<>();
+		List<String> queries = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			String key = String.valueOf(word);
+			trie.insert(key, i);
+			queries.add(key);
+			queries.add(key + "z");
+		}
+		Dawg<Integer> dawg = new Dawg<>(trie);
+		Assert.assertEquals(trie.getDepth(), dawg.getDepth());
+		for (String query : queries) {
+			Assert.assertEquals(query, trie.contains(query), dawg.contains(query));
+			Assert.assertEquals(query, trie.containsPrefix(query), dawg.containsPrefix(query));
+			Assert.assertEquals(query, trie.getData(query), dawg.getData(query));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsorted() {
+		TreeMap<String, String> entries = new TreeMap<>((a, b) -> b.compareTo(a));
+		entries.put("a", "a");
+		entries.put("b", "b");
+		Dawg.fromSorted(entries.entrySet().iterator());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testInsertNotSupported() {
+		new Dawg<String>(new Trie<>()).insert("a", "a");
+	}
+
+}
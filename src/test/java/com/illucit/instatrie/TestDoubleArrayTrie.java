@@ -0,0 +1,126 @@
+package com.illucit.instatrie;
+
+import java.io.Serializable;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.DoubleArrayTrie;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the {@link DoubleArrayTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestDoubleArrayTrie {
+
+	@Test
+	public void testEmpty() {
+		DoubleArrayTrie<String> dat = new DoubleArrayTrie<>(new Trie<String>());
+		Assert.assertEquals(0, dat.size());
+		Assert.assertEquals(0, dat.getDepth());
+		Assert.assertFalse(dat.contains(""));
+		Assert.assertTrue(dat.containsPrefix(""));
+		Assert.assertFalse(dat.containsPrefix("a"));
+		Assert.assertNull(dat.getData("a"));
+	}
+
+	@Test
+	public void testSimpleWords() {
+		Trie<String> trie = new Trie<>();
+		trie.insert("", "<empty>");
+		trie.insert("abc", "abc");
+		trie.insert("abcde", "abcde");
+		trie.insert("axy", "axy");
+		trie.insert("a", "a");
+		trie.insert("zzz", "zzz");
+		trie.insert("中文", "unicode");
+		DoubleArrayTrie<String> dat = new DoubleArrayTrie<>(trie);
+
+		Assert.assertEquals(7, dat.size());
+		Assert.assertEquals(trie.getDepth(), dat.getDepth());
+		Assert.assertEquals("<empty>", dat.getData(""));
+		Assert.assertEquals("a", dat.getData("a"));
+		Assert.assertEquals("abc", dat.getData("abc"));
+		Assert.assertEquals("abcde", dat.getData("abcde"));
+		Assert.assertEquals("axy", dat.getData("axy"));
+		Assert.assertEquals("zzz", dat.getData("zzz"));
+		Assert.assertEquals("unicode", dat.getData("中文"));
+		Assert.assertTrue(dat.containsPrefix("abcd"));
+		Assert.assertFalse(dat.contains("abcd"));
+		Assert.assertNull(dat.getData("abcd"));
+		Assert.assertFalse(dat.containsPrefix("abcdef"));
+		Assert.assertFalse(dat.containsPrefix("b"));
+		Assert.assertFalse(dat.containsPrefix("￿"));
+		Assert.assertTrue(dat.containsPrefix("中"));
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(4);
+		Trie<String> trie = new Trie<>();
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[1 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(random.nextBoolean() ? 26 : 4));
+			}
+			words.add(String.valueOf(word));
+			if (i % 2 == 0) {
+				trie.insert(word, String.valueOf(word));
+			}
+		}
+		DoubleArrayTrie<String> dat = new DoubleArrayTrie<>(trie);
+
+		Assert.assertEquals(trie.getDepth(), dat.getDepth());
+		for (String word : words) {
+			Assert.assertEquals(word, trie.contains(word), dat.contains(word));
+			Assert.assertEquals(word, trie.containsPrefix(word), dat.containsPrefix(word));
+			Assert.assertEquals(word, trie.getData(word), dat.getData(word));
+		}
+	}
+
+	@Test
+	public void testFromSorted() {
+		TreeMap<String, Integer> entries = new TreeMap<>();
+		for (String word : Arrays.asList("banana", "apple", "app", "band", "bandana", "cherry")) {
+			entries.put(word, word.length());
+		}
+		DoubleArrayTrie<Integer> dat = DoubleArrayTrie.fromSorted(entries.entrySet().iterator());
+
+		Assert.assertEquals(entries.size(), dat.size());
+		for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+			Assert.assertEquals(entry.getValue(), dat.getData(entry.getKey()));
+		}
+		Assert.assertTrue(dat.containsPrefix("ban"));
+		Assert.assertFalse(dat.contains("ban"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromUnsorted() {
+		List<Map.Entry<String, Serializable>> entries = new ArrayList<>();
+		entries.add(new SimpleEntry<>("b", null));
+		entries.add(new SimpleEntry<>("a", null));
+		DoubleArrayTrie.fromSorted(entries.iterator());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testInsertNotSupported() {
+		new DoubleArrayTrie<String>(new Trie<>()).insert("a", "a");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDeleteNotSupported() {
+		new DoubleArrayTrie<String>(new Trie<>()).delete("a");
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.FuzzyMatch;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the fuzzy search of {@link Trie} with a maximum edit distance.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestFuzzySearch {
+
+	/**
+	 * Calculate the edit distance with the full Levenshtein matrix.
+	 */
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				if (i == 0 || j == 0) {
+					d[i][j] = i + j;
+				} else {
+					int replace = d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+					d[i][j] = Math.min(replace, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+
+	private static int prefixDistance(String query, String word) {
+		int result = Integer.MAX_VALUE;
+		for (int i = 0; i <= word.length(); i++) {
+			result = Math.min(result, distance(query, word.substring(0, i)));
+		}
+		return result;
+	}
+
+	private static List<String> format(List<FuzzyMatch<String>> matches) {
+		return matches.stream().map(FuzzyMatch::toString).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testFuzzySearch() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("hello", "help", "hell", "yellow", "hallo", "world", "he")) {
+			trie.insert(word, word.toUpperCase());
+		}
+		Assert.assertEquals(Arrays.asList("hallo (1)", "hell (1)", "hello (0)", "help (2)", "yellow (2)"),
+				format(trie.fuzzySearch("hello", 2)));
+		List<FuzzyMatch<String>> exact = trie.fuzzySearch("help", 0);
+		Assert.assertEquals(1, exact.size());
+		Assert.assertEquals("HELP", exact.get(0).getData());
+		Assert.assertEquals(Arrays.asList("he (0)", "hell (0)", "hello (0)", "help (0)"),
+				format(trie.fuzzyPrefixSearch("he", 0)));
+		Assert.assertEquals(Arrays.asList("hallo (1)", "hell (0)", "hello (0)", "help (1)", "yellow (1)"),
+				format(trie.fuzzyPrefixSearch("hell", 1)));
+		Assert.assertTrue(trie.fuzzySearch("xyzzy", 1).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeDistance() {
+		new Trie<String>().fuzzySearch("a", -1);
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(18);
+		Trie<String> trie = new Trie<>();
+		TreeMap<String, String> reference = new TreeMap<>();
+		for (int i = 0; i < 3000; i++) {
+			char[] word = new char[random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			trie.insert(word, String.valueOf(word));
+			reference.put(String.valueOf(word), String.valueOf(word));
+		}
+		for (String query : Arrays.asList("", "a", "abc", "dcba", "abcdabc", "bbbbbbbbbb")) {
+			for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+				List<String> expected = new ArrayList<>();
+				List<String> expectedPrefix = new ArrayList<>();
+				for (String word : reference.keySet()) {
+					int distance = distance(query, word);
+					if (distance <= maxDistance) {
+						expected.add(word + " (" + distance + ")");
+					}
+					int prefixDistance = prefixDistance(query, word);
+					if (prefixDistance <= maxDistance) {
+						expectedPrefix.add(word + " (" + prefixDistance + ")");
+					}
+				}
+				Assert.assertEquals(query, expected, format(trie.fuzzySearch(query, maxDistance)));
+				Assert.assertEquals(query, expectedPrefix, format(trie.fuzzyPrefixSearch(query, maxDistance)));
+			}
+		}
+	}
+
+}
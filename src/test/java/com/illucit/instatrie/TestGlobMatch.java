@@ -0,0 +1,89 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the wildcard pattern matching of {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestGlobMatch {
+
+	private static List<String> match(Trie<String> trie, String pattern) {
+		return trie.match(pattern).stream().map(Map.Entry::getKey).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPatterns() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("SKU-AB-1", "SKU-AB-12", "SKU-XY-100", "SKU-ABC-1", "SKU-AB-2", "sku-ab-1",
+				"", "a*b", "a?b", "axb")) {
+			trie.insert(word, word);
+		}
+		Assert.assertEquals(Arrays.asList("SKU-AB-1", "SKU-AB-12", "SKU-XY-100"), match(trie, "SKU-??-1*"));
+		Assert.assertEquals(Arrays.asList("SKU-AB-1", "SKU-AB-12", "SKU-AB-2"), match(trie, "SKU-AB-*"));
+		Assert.assertEquals(Arrays.asList("SKU-AB-12", "SKU-XY-100"), match(trie, "*-1?*"));
+		Assert.assertEquals(Arrays.asList("SKU-AB-1", "SKU-AB-2"), match(trie, "SKU-[A-C][!C]-[0-9]"));
+		Assert.assertEquals(Arrays.asList("SKU-AB-1", "sku-ab-1"), match(trie, "[Ss][Kk][Uu]-??-1"));
+		Assert.assertEquals(Arrays.asList("a*b", "a?b", "axb"), match(trie, "a?b"));
+		Assert.assertEquals(Arrays.asList("a*b"), match(trie, "a\\*b"));
+		Assert.assertEquals(Arrays.asList("a?b"), match(trie, "a[?]b"));
+		Assert.assertEquals(Arrays.asList(""), match(trie, ""));
+		Assert.assertEquals(10, match(trie, "***").size());
+		Assert.assertEquals(Arrays.asList(), match(trie, "SKU"));
+		Assert.assertEquals("SKU-AB-1", trie.match("SKU-AB-1").get(0).getValue());
+	}
+
+	@Test
+	public void testInvalidPatterns() {
+		for (String pattern : Arrays.asList("[abc", "a\\", "[z-a]")) {
+			try {
+				new Trie<String>().match(pattern);
+				Assert.fail(pattern);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(19);
+		Trie<String> trie = new Trie<>();
+		TreeSet<String> words = new TreeSet<>();
+		for (int i = 0; i < 5000; i++) {
+			char[] word = new char[random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			trie.insert(word, String.valueOf(word));
+			words.add(String.valueOf(word));
+		}
+		String[] patterns = { "a*", "*a", "?b?", "*ab*c", "[ab]*[!a]", "a*b*c*d", "????", "d*d*" };
+		String[] regexes = { "a.*", ".*a", ".b.", ".*ab.*c", "[ab].*[^a]", "a.*b.*c.*d", "....", "d.*d.*" };
+		for (int i = 0; i < patterns.length; i++) {
+			Pattern regex = Pattern.compile(regexes[i]);
+			List<String> expected = new ArrayList<>();
+			for (String word : words) {
+				if (regex.matcher(word).matches()) {
+					expected.add(word);
+				}
+			}
+			Assert.assertEquals(patterns[i], expected, match(trie, patterns[i]));
+		}
+	}
+
+}
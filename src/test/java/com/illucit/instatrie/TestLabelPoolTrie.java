@@ -0,0 +1,85 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.LabelPoolTrie;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the {@link LabelPoolTrie} with paths in shared pages.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestLabelPoolTrie {
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(14);
+		Trie<String> reference = new Trie<>();
+		LabelPoolTrie<String> trie = new LabelPoolTrie<>();
+		char[] alphabet = "abcxyzä中".toCharArray();
+		List<String> words = new ArrayList<>();
+
+		for (int i = 0; i < 100000; i++) {
+			// Some very long words, which get their own arrays
+			char[] word = new char[i % 1000 == 0 ? 5000 + random.nextInt(5000) : random.nextInt(10)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String key = String.valueOf(word);
+			words.add(key);
+			switch (random.nextInt(4)) {
+			case 0:
+				trie.delete(key);
+				reference.delete(key);
+				break;
+			case 1:
+				trie.updateOrInsertData(key, data -> data == null ? "1" : data + "1");
+				reference.updateOrInsertData(key, data -> data == null ? "1" : data + "1");
+				break;
+			default:
+				trie.insert(key, key.length() > 20 ? "long" : key);
+				reference.insert(key, key.length() > 20 ? "long" : key);
+			}
+		}
+
+		// Deletes and merges leave the same structure as in the reference
+		Assert.assertEquals(reference.toString(), trie.toString());
+		Assert.assertEquals(reference.getDepth(), trie.getDepth());
+		for (String word : words) {
+			Assert.assertEquals(reference.contains(word), trie.contains(word));
+			Assert.assertEquals(reference.containsPrefix(word), trie.containsPrefix(word));
+			Assert.assertEquals(reference.getData(word), trie.getData(word));
+		}
+	}
+
+	@Test
+	public void testSplitsDoNotCopy() {
+		LabelPoolTrie<String> trie = new LabelPoolTrie<>();
+		trie.insert("abcdefgh", "1");
+		long chars = trie.getPoolChars();
+		trie.insert("abcd", "2");
+		trie.insert("ab", "3");
+		trie.insert("a", "4");
+		Assert.assertEquals(chars, trie.getPoolChars());
+		Assert.assertEquals("3", trie.getData("ab"));
+
+		// Merging adjacent paths does not copy either
+		trie.delete("ab");
+		trie.delete("abcd");
+		Assert.assertEquals(chars, trie.getPoolChars());
+		Assert.assertEquals("1", trie.getData("abcdefgh"));
+		Assert.assertEquals(2, trie.getDepth());
+
+		trie.clear();
+		Assert.assertEquals(0, trie.getPoolChars());
+		Assert.assertFalse(trie.containsPrefix("a"));
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.AdaptiveRadixTrie;
+import com.illucit.instatrie.trie.ArrayTrie;
+import com.illucit.instatrie.trie.ConcurrentTrie;
+import com.illucit.instatrie.trie.DoubleArrayTrie;
+import com.illucit.instatrie.trie.LabelPoolTrie;
+import com.illucit.instatrie.trie.OffHeapTrie;
+import com.illucit.instatrie.trie.PrefixDictionary;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Lookup benchmark comparing the {@link PrefixDictionary} implementations. The
+ * unit test only checks that all implementations give the same answers on a
+ * small corpus, the main method runs the actual benchmark and prints the
+ * lookup latency.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestLookupBenchmark {
+
+	private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+	/**
+	 * Get all benchmarked dictionary implementations by name.
+	 *
+	 * @return suppliers for empty dictionaries
+	 */
+	private static Map<String, Supplier<PrefixDictionary<String>>> implementations() {
+		Map<String, Supplier<PrefixDictionary<String>>> result = new LinkedHashMap<>();
+		result.put("Trie", Trie::new);
+		result.put("ArrayTrie", ArrayTrie::new);
+		result.put("ART", AdaptiveRadixTrie::new);
+		result.put("OffHeapTrie", OffHeapTrie::new);
+		result.put("LabelPoolTrie", LabelPoolTrie::new);
+		result.put("ConcurrentTrie", ConcurrentTrie::new);
+		return result;
+	}
+
+	/**
+	 * Generate random words over the alphabet [a-z0-9], so the upper levels of
+	 * the trie have the full fanout of 36.
+	 *
+	 * @param random
+	 *            random number generator
+	 * @param numWords
+	 *            number of words
+	 * @param minLength
+	 *            minimum word length
+	 * @param maxLength
+	 *            maximum word length (inclusive)
+	 * @return list of words
+	 */
+	private static List<String> genWords(Random random, int numWords, int minLength, int maxLength) {
+		List<String> result = new ArrayList<>(numWords);
+		for (int i = 0; i < numWords; i++) {
+			char[] word = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = ALPHABET[random.nextInt(ALPHABET.length)];
+			}
+			result.add(String.valueOf(word));
+		}
+		return result;
+	}
+
+	/**
+	 * Fill a dictionary with all prefixes of all words (just like the prefix
+	 * index does).
+	 *
+	 * @param dictionary
+	 *            empty dictionary
+	 * @param words
+	 *            words to insert
+	 * @return filled dictionary
+	 */
+	private static PrefixDictionary<String> fill(PrefixDictionary<String> dictionary, List<String> words) {
+		for (String word : words) {
+			for (int i = 1; i <= word.length(); i++) {
+				dictionary.insert(word, 0, i, word.substring(0, i));
+			}
+		}
+		return dictionary;
+	}
+
+	@Test
+	public void testSameResults() {
+		Random random = new Random(42);
+		List<String> words = genWords(random, 2000, 3, 10);
+		List<String> queries = genWords(random, 2000, 1, 8);
+		queries.addAll(words);
+
+		Trie<String> reference = new Trie<>();
+		fill(reference, words);
+		for (Map.Entry<String, Supplier<PrefixDictionary<String>>> implementation : implementations().entrySet()) {
+			PrefixDictionary<String> dictionary = fill(implementation.getValue().get(), words);
+			for (String query : queries) {
+				String message = implementation.getKey() + ": " + query;
+				Assert.assertEquals(message, reference.contains(query), dictionary.contains(query));
+				Assert.assertEquals(message, reference.containsPrefix(query), dictionary.containsPrefix(query));
+				Assert.assertEquals(message, reference.getData(query), dictionary.getData(query));
+			}
+			Assert.assertEquals(implementation.getKey(), reference.getDepth(), dictionary.getDepth());
+		}
+	}
+
+	/**
+	 * Measure the lookup latency of a dictionary and print it.
+	 *
+	 * @param name
+	 *            name of the implementation
+	 * @param dictionary
+	 *            filled dictionary
+	 * @param buildTime
+	 *            time to fill the dictionary in nanoseconds
+	 * @param queries
+	 *            lookup queries
+	 * @param rounds
+	 *            number of rounds (the best one is reported)
+	 */
+	private static void benchmark(String name, PrefixDictionary<String> dictionary, long buildTime,
+			List<char[]> queries, int rounds) {
+		int found = 0;
+		long bestTime = Long.MAX_VALUE;
+		for (int round = 0; round < rounds; round++) {
+			long start = System.nanoTime();
+			for (char[] query : queries) {
+				if (dictionary.getData(query) != null) {
+					found++;
+				}
+			}
+			bestTime = Math.min(bestTime, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-16s build: %6d ms, lookup: %6.1f ns (%d hits)", name,
+				buildTime / 1000000, (double) bestTime / queries.size(), found / rounds));
+	}
+
+	/**
+	 * Run the lookup benchmark and print the average latency per lookup for
+	 * each implementation.
+	 *
+	 * @param args
+	 *            not used
+	 */
+	public static void main(String[] args) {
+		final int NUM_WORDS = 200000;
+		final int NUM_QUERIES = 1000000;
+		final int ROUNDS = 5;
+
+		Random random = new Random(42);
+		List<String> words = genWords(random, NUM_WORDS, 4, 12);
+		List<char[]> queries = new ArrayList<>(NUM_QUERIES);
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			String word = words.get(random.nextInt(words.size()));
+			// Query existing prefixes (1/4 of them misses)
+			char[] query = word.substring(0, 1 + random.nextInt(word.length())).toCharArray();
+			if (i % 4 == 0) {
+				query[query.length - 1] = '_';
+			}
+			queries.add(query);
+		}
+
+		for (Map.Entry<String, Supplier<PrefixDictionary<String>>> implementation : implementations().entrySet()) {
+			long start = System.nanoTime();
+			PrefixDictionary<String> dictionary = fill(implementation.getValue().get(), words);
+			benchmark(implementation.getKey(), dictionary, System.nanoTime() - start, queries, ROUNDS);
+		}
+
+		// Read-only implementations are created from a filled trie
+		Trie<String> trie = new Trie<>();
+		fill(trie, words);
+		long start = System.nanoTime();
+		DoubleArrayTrie<String> doubleArrayTrie = new DoubleArrayTrie<>(trie);
+		benchmark("DoubleArrayTrie", doubleArrayTrie, System.nanoTime() - start, queries, ROUNDS);
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.LoudsTrie;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the succinct {@link LoudsTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestLoudsTrie {
+
+	@Test
+	public void testEmpty() {
+		LoudsTrie<String> frozen = new Trie<String>().freeze();
+		Assert.assertEquals(1, frozen.getNodeCount());
+		Assert.assertEquals(0, frozen.size());
+		Assert.assertEquals(0, frozen.getDepth());
+		Assert.assertFalse(frozen.contains(""));
+		Assert.assertTrue(frozen.containsPrefix(""));
+		Assert.assertFalse(frozen.containsPrefix("a"));
+		Assert.assertNull(frozen.getData("a"));
+	}
+
+	@Test
+	public void testSimpleWords() {
+		Trie<String> trie = new Trie<>();
+		trie.insert("", "<empty>");
+		trie.insert("abc", "abc");
+		trie.insert("abcde", "abcde");
+		trie.insert("axy", "axy");
+		trie.insert("a", "a");
+		trie.insert("zzz", "zzz");
+		trie.insert("中文", "unicode");
+		LoudsTrie<String> frozen = trie.freeze();
+
+		Assert.assertEquals(7, frozen.size());
+		Assert.assertEquals(trie.getDepth(), frozen.getDepth());
+		Assert.assertEquals("<empty>", frozen.getData(""));
+		Assert.assertEquals("a", frozen.getData("a"));
+		Assert.assertEquals("abc", frozen.getData("abc"));
+		Assert.assertEquals("abcde", frozen.getData("abcde"));
+		Assert.assertEquals("axy", frozen.getData("axy"));
+		Assert.assertEquals("zzz", frozen.getData("zzz"));
+		Assert.assertEquals("unicode", frozen.getData("中文"));
+		Assert.assertTrue(frozen.containsPrefix("abcd"));
+		Assert.assertFalse(frozen.contains("abcd"));
+		Assert.assertNull(frozen.getData("abcd"));
+		Assert.assertFalse(frozen.containsPrefix("abcdef"));
+		Assert.assertFalse(frozen.containsPrefix("b"));
+		Assert.assertTrue(frozen.containsPrefix("中"));
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(3);
+		Trie<String> trie = new Trie<>();
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[1 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(random.nextBoolean() ? 26 : 4));
+			}
+			words.add(String.valueOf(word));
+			if (i % 2 == 0) {
+				trie.insert(word, String.valueOf(word));
+			}
+		}
+		LoudsTrie<String> frozen = trie.freeze();
+
+		Assert.assertEquals(trie.getDepth(), frozen.getDepth());
+		for (String word : words) {
+			Assert.assertEquals(word, trie.contains(word), frozen.contains(word));
+			Assert.assertEquals(word, trie.containsPrefix(word), frozen.containsPrefix(word));
+			Assert.assertEquals(word, trie.getData(word), frozen.getData(word));
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testInsertNotSupported() {
+		new Trie<String>().freeze().insert("a", "a");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDeleteNotSupported() {
+		new Trie<String>().freeze().delete("a");
+	}
+
+}
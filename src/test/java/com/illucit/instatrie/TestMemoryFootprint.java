@@ -0,0 +1,190 @@
+package com.illucit.instatrie;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Dawg;
+import com.illucit.instatrie.trie.DoubleArrayTrie;
+import com.illucit.instatrie.trie.LabelPoolTrie;
+import com.illucit.instatrie.trie.LoudsTrie;
+import com.illucit.instatrie.trie.PrefixDictionary;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Memory footprint report for the compact dictionary representations compared
+ * to the pointer-based {@link Trie}. The unit test checks that all compact
+ * representations answer like the {@link Trie} they were created from, the
+ * main method prints the retained heap per key.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestMemoryFootprint {
+
+	private static final String[] SYLLABLES = { "an", "ar", "be", "ca", "con", "de", "di", "el", "en", "er", "ex",
+			"fa", "ge", "in", "is", "ka", "la", "le", "li", "lo", "ma", "me", "mi", "mo", "na", "ne", "no", "or", "pa",
+			"per", "pro", "ra", "re", "ri", "ro", "sa", "se", "si", "so", "sta", "ta", "te", "ti", "to", "tra", "tri",
+			"un", "ver", "vi", "zu" };
+
+	private static final String[] SUFFIXES = { "", "", "", "s", "ed", "er", "ing", "ly", "tion", "ness", "able" };
+
+	/**
+	 * Generate a synthetic natural language like corpus: words are made of 1 to
+	 * 4 syllables, which are chosen with a Zipf-like distribution, plus an
+	 * optional inflection suffix.
+	 *
+	 * @param numWords
+	 *            number of distinct words
+	 * @param seed
+	 *            random seed
+	 * @return distinct words
+	 */
+	static List<String> genCorpus(int numWords, long seed) {
+		Random random = new Random(seed);
+		Set<String> words = new LinkedHashSet<>();
+		while (words.size() < numWords) {
+			StringBuilder word = new StringBuilder();
+			int syllables = 1 + random.nextInt(4);
+			for (int i = 0; i < syllables; i++) {
+				// Squared uniform number prefers the first syllables
+				double r = random.nextDouble();
+				word.append(SYLLABLES[(int) (r * r * SYLLABLES.length)]);
+			}
+			word.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+			words.add(word.toString());
+		}
+		return new ArrayList<>(words);
+	}
+
+	@Test
+	public void testCompactDictionariesOnCorpus() {
+		List<String> words = genCorpus(20000, 1);
+		Trie<String> trie = new Trie<>();
+		for (String word : words) {
+			trie.insert(word, word);
+		}
+		List<String> queries = new ArrayList<>(words);
+		queries.addAll(genCorpus(5000, 2));
+		for (String word : words.subList(0, 5000)) {
+			queries.add(word.substring(0, word.length() / 2));
+		}
+
+		List<PrefixDictionary<String>> compactDictionaries = new ArrayList<>();
+		compactDictionaries.add(trie.freeze());
+		compactDictionaries.add(new DoubleArrayTrie<>(trie));
+		compactDictionaries.add(new Dawg<>(trie));
+		for (PrefixDictionary<String> dictionary : compactDictionaries) {
+			String name = dictionary.getClass().getSimpleName();
+			Assert.assertEquals(name, trie.getDepth(), dictionary.getDepth());
+			for (String query : queries) {
+				Assert.assertEquals(name + ": " + query, trie.contains(query), dictionary.contains(query));
+				Assert.assertEquals(name + ": " + query, trie.containsPrefix(query), dictionary.containsPrefix(query));
+				Assert.assertEquals(name + ": " + query, trie.getData(query), dictionary.getData(query));
+			}
+		}
+	}
+
+	/**
+	 * Get the currently used heap memory after garbage collection.
+	 *
+	 * @return used heap in bytes
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Measure the heap retained by a newly created object.
+	 *
+	 * @param holder
+	 *            holder for the object, so it stays reachable
+	 * @param supplier
+	 *            supplier creating the object
+	 * @return retained heap in bytes
+	 */
+	private static long measure(List<Object> holder, Supplier<Object> supplier) {
+		long before = usedMemory();
+		holder.add(supplier.get());
+		return usedMemory() - before;
+	}
+
+	/**
+	 * Print the memory report.
+	 *
+	 * @param args
+	 *            optional path of a word list (one word per line), a synthetic
+	 *            corpus is used otherwise
+	 * @throws IOException
+	 *             if the word list cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		List<String> words;
+		if (args.length > 0) {
+			words = new ArrayList<>(new LinkedHashSet<>(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)));
+		} else {
+			words = genCorpus(500000, 1);
+		}
+		long chars = 0;
+		for (String word : words) {
+			chars += word.length();
+		}
+		int keys = words.size();
+		System.out.println(String.format("Corpus: %d keys, %.1f chars per key, %.1f bytes per key as char[]", keys,
+				(double) chars / keys, 2.0 * chars / keys));
+
+		// All payloads share the same instance, so only the structures count
+		List<Object> holder = new ArrayList<>();
+		long trieBytes = measure(holder, () -> {
+			Trie<Boolean> trie = new Trie<>();
+			for (String word : words) {
+				trie.insert(word, Boolean.TRUE);
+			}
+			return trie;
+		});
+		@SuppressWarnings("unchecked")
+		Trie<Boolean> trie = (Trie<Boolean>) holder.get(0);
+		report("Trie", trieBytes, keys);
+		report("Trie (estimated)", trie.getStatistics().getEstimatedHeapSize(), keys);
+		report("LabelPoolTrie", measure(holder, () -> {
+			LabelPoolTrie<Boolean> labelPoolTrie = new LabelPoolTrie<>();
+			for (String word : words) {
+				labelPoolTrie.insert(word, Boolean.TRUE);
+			}
+			return labelPoolTrie;
+		}), keys);
+		report("LoudsTrie", measure(holder, trie::freeze), keys);
+		report("DoubleArrayTrie", measure(holder, () -> new DoubleArrayTrie<>(trie)), keys);
+		report("Dawg", measure(holder, () -> new Dawg<>(trie)), keys);
+		System.out.println(holder.get(holder.size() - 1));
+	}
+
+	/**
+	 * Print one line of the memory report.
+	 *
+	 * @param name
+	 *            name of the structure
+	 * @param bytes
+	 *            retained heap in bytes
+	 * @param keys
+	 *            number of keys
+	 */
+	private static void report(String name, long bytes, int keys) {
+		System.out.println(String.format("%-16s %10d bytes, %6.1f bytes per key", name, bytes, (double) bytes / keys));
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.illucit.instatrie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.OffHeapTrie;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the {@link OffHeapTrie}, compared to the {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestOffHeapTrie {
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(5);
+		Trie<String> reference = new Trie<>();
+		OffHeapTrie<String> trie = new OffHeapTrie<>();
+		char[] alphabet = "abcdefxyzä中".toCharArray();
+		List<String> words = new ArrayList<>();
+
+		// Enough nodes and characters to fill several arena chunks
+		for (int i = 0; i < 300000; i++) {
+			char[] word = new char[random.nextInt(12)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String key = String.valueOf(word);
+			words.add(key);
+			switch (random.nextInt(4)) {
+			case 0:
+				trie.delete(key);
+				reference.delete(key);
+				break;
+			case 1:
+				trie.updateOrInsertData(key, data -> data == null ? "1" : data + "1");
+				reference.updateOrInsertData(key, data -> data == null ? "1" : data + "1");
+				break;
+			default:
+				trie.insert(key, key);
+				reference.insert(key, key);
+			}
+		}
+		Assert.assertTrue(trie.getNodeCount() > 1 << 16);
+
+		Assert.assertEquals(reference.getStatistics().getNodeCount(), trie.getNodeCount());
+		Assert.assertEquals(reference.getDepth(), trie.getDepth());
+		for (String word : words) {
+			Assert.assertEquals(word, reference.contains(word), trie.contains(word));
+			Assert.assertEquals(word, reference.containsPrefix(word), trie.containsPrefix(word));
+			Assert.assertEquals(word, reference.getData(word), trie.getData(word));
+		}
+
+		// Delete all words, so only the root node remains
+		for (String word : words) {
+			trie.delete(word);
+		}
+		Assert.assertEquals(1, trie.getNodeCount());
+		Assert.assertEquals(0, trie.getDepth());
+		Assert.assertFalse(trie.containsPrefix("a"));
+	}
+
+	@Test
+	public void testChurn() {
+		OffHeapTrie<String> trie = new OffHeapTrie<>();
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			words.add("word" + i * 7919);
+		}
+		for (String word : words) {
+			trie.insert(word, word);
+		}
+		int nodes = trie.getNodeCount();
+		long bytes = trie.getOffHeapBytes();
+
+		// Nodes and labels of deleted words are reused
+		for (int round = 0; round < 20; round++) {
+			for (String word : words) {
+				trie.delete(word);
+			}
+			Assert.assertEquals(1, trie.getNodeCount());
+			for (String word : words) {
+				trie.insert(word, word);
+			}
+			Assert.assertEquals(nodes, trie.getNodeCount());
+		}
+		Assert.assertTrue(trie.getOffHeapBytes() <= 2 * bytes);
+		for (String word : words) {
+			Assert.assertEquals(word, trie.getData(word));
+		}
+		Assert.assertFalse(trie.containsPrefix("wordx"));
+	}
+
+	@Test
+	public void testClear() {
+		OffHeapTrie<String> trie = new OffHeapTrie<>();
+		for (int i = 0; i < 100000; i++) {
+			trie.insert("word" + i, "data" + i);
+		}
+		Assert.assertTrue(trie.getOffHeapBytes() > 0);
+		long bytes = trie.getOffHeapBytes();
+
+		trie.clear();
+		Assert.assertEquals(1, trie.getNodeCount());
+		Assert.assertTrue(trie.getOffHeapBytes() < bytes);
+		// Only small first chunks are allocated for an empty trie
+		Assert.assertTrue(trie.getOffHeapBytes() <= 4096);
+		Assert.assertFalse(trie.containsPrefix("w"));
+		Assert.assertEquals(0, trie.getDepth());
+
+		trie.insert("word", "data");
+		Assert.assertEquals("data", trie.getData("word"));
+		Assert.assertTrue(trie.getOffHeapBytes() <= 4096);
+		Assert.assertTrue(new OffHeapTrie<String>().getOffHeapBytes() <= 4096);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		OffHeapTrie<String> trie = new OffHeapTrie<>();
+		trie.insert("", "<empty>");
+		trie.insert("abc", "abc");
+		trie.insert("abd", "abd");
+		trie.insert("ab", null);
+		trie.insert("xyz", "xyz");
+		trie.insert("xyzzy", "xyzzy");
+		trie.delete("xyz");
+		trie.delete("xyzzy");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(trie);
+		}
+		OffHeapTrie<String> copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (OffHeapTrie<String>) in.readObject();
+		}
+
+		Assert.assertEquals(trie.toString(), copy.toString());
+		Assert.assertEquals("<empty>", copy.getData(""));
+		Assert.assertEquals("abc", copy.getData("abc"));
+		Assert.assertEquals("abd", copy.getData("abd"));
+		Assert.assertTrue(copy.contains("ab"));
+		Assert.assertFalse(copy.contains("xyz"));
+		Assert.assertFalse(copy.containsPrefix("xy"));
+		Assert.assertEquals(trie.getNodeCount(), copy.getNodeCount());
+
+		// Freed payload slots and node records are reused
+		copy.insert("xyz", "new");
+		copy.insert("abcd", "abcd");
+		Assert.assertEquals("new", copy.getData("xyz"));
+		Assert.assertEquals("abcd", copy.getData("abcd"));
+		Assert.assertEquals("abc", copy.getData("abc"));
+		Assert.assertEquals(trie.getNodeCount() + 2, copy.getNodeCount());
+	}
+
+}
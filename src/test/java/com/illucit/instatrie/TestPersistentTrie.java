@@ -0,0 +1,98 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.PersistentTrie;
+
+/**
+ * Tests for the path-copying {@link PersistentTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestPersistentTrie {
+
+	@Test
+	public void testVersions() {
+		PersistentTrie<String> empty = new PersistentTrie<>();
+		PersistentTrie<String> v1 = empty.with("abc", "abc").with("abd", "abd").with("", "<empty>");
+		PersistentTrie<String> v2 = v1.with("ab", "ab").withUpdated("abc", data -> data + "!");
+		PersistentTrie<String> v3 = v2.without("abd").without("abc").without("xyz");
+
+		Assert.assertEquals(0, empty.size());
+		Assert.assertFalse(empty.containsPrefix("a"));
+
+		Assert.assertEquals(3, v1.size());
+		Assert.assertEquals("abc", v1.getData("abc"));
+		Assert.assertFalse(v1.contains("ab"));
+		Assert.assertEquals("<empty>", v1.getData(""));
+
+		Assert.assertEquals(4, v2.size());
+		Assert.assertEquals("abc!", v2.getData("abc"));
+		Assert.assertEquals("ab", v2.getData("ab"));
+
+		Assert.assertEquals(2, v3.size());
+		Assert.assertFalse(v3.containsPrefix("abc"));
+		Assert.assertEquals("ab", v3.getData("ab"));
+		Assert.assertEquals(1, v3.getDepth());
+		Assert.assertSame(v3, v3.without("abc"));
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(10);
+		List<PersistentTrie<Integer>> versions = new ArrayList<>();
+		List<Map<String, Integer>> expectedVersions = new ArrayList<>();
+		PersistentTrie<Integer> trie = new PersistentTrie<>();
+		TreeMap<String, Integer> expected = new TreeMap<>();
+
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[random.nextInt(6)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(3));
+			}
+			String key = String.valueOf(word);
+			if (random.nextInt(3) == 0) {
+				trie = trie.without(key);
+				expected.remove(key);
+			} else {
+				trie = trie.with(key, i);
+				expected.put(key, i);
+			}
+			if (i % 1000 == 0) {
+				versions.add(trie);
+				expectedVersions.add(new TreeMap<>(expected));
+			}
+		}
+
+		// Old versions must be unchanged
+		for (int v = 0; v < versions.size(); v++) {
+			assertVersion(expectedVersions.get(v), versions.get(v));
+		}
+		assertVersion(expected, trie);
+	}
+
+	private static void assertVersion(Map<String, Integer> expected, PersistentTrie<Integer> trie) {
+		Assert.assertEquals(expected.size(), trie.size());
+		PersistentTrie<Integer> rebuilt = new PersistentTrie<>();
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			Assert.assertEquals(entry.getKey(), entry.getValue(), trie.getData(entry.getKey()));
+			rebuilt = rebuilt.with(entry.getKey(), entry.getValue());
+		}
+		// Deletes must leave the same structure as a trie built from scratch
+		Assert.assertEquals(rebuilt.toString(), trie.toString());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testRejectsInPlaceWrites() {
+		new PersistentTrie<String>().insert("a", "a");
+	}
+
+}
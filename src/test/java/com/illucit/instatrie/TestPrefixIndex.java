@@ -192,6 +192,18 @@ public class TestPrefixIndex {
 
 	}
 
+	@Test
+	public void testSearchWithDoubleArrayTrie() {
+		TriePrefixIndex<TestBean> doubleArrayIndex = new TriePrefixIndex<>(TestBean::getQueryString);
+		doubleArrayIndex.setUseDoubleArrayTrie(true);
+		doubleArrayIndex.createIndex(entries);
+
+		for (String query : Arrays.asList("", "ring", "ringe", "bud ter", "ring j", "Turm", "hobbit asdf", "x")) {
+			Assert.assertEquals(query, index.search(query), doubleArrayIndex.search(query));
+			Assert.assertEquals(query, index.searchExact(query), doubleArrayIndex.searchExact(query));
+		}
+	}
+
 	/**
 	 * Get a result list that is expected.
 	 * 
@@ -0,0 +1,169 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.PrefixMatch;
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieNode;
+
+/**
+ * Tests for the longest prefix match and all prefixes queries of
+ * {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestPrefixMatch {
+
+	private static Trie<String> createRoutes() {
+		Trie<String> trie = new Trie<>();
+		for (String route : Arrays.asList("/", "/api", "/api/v1", "/api/v1/users", "/static", "/apiary")) {
+			trie.insert(route, route.toUpperCase());
+		}
+		return trie;
+	}
+
+	@Test
+	public void testLongestPrefix() {
+		Trie<String> trie = createRoutes();
+		PrefixMatch<String> match = new PrefixMatch<>();
+
+		Assert.assertTrue(trie.longestPrefixOf("/api/v1/users/42", 0, 16, match));
+		Assert.assertEquals(13, match.getLength());
+		Assert.assertEquals("/API/V1/USERS", match.getData());
+
+		Assert.assertTrue(trie.longestPrefixOf("/api/v2", 0, 7, match));
+		Assert.assertEquals(4, match.getLength());
+		Assert.assertEquals("/API", match.getData());
+
+		// Label "/v1" of the node is longer than the remaining text
+		Assert.assertTrue(trie.longestPrefixOf("/api/v", 0, 6, match));
+		Assert.assertEquals("/API", match.getData());
+
+		Assert.assertTrue(trie.longestPrefixOf("/apiar", 0, 6, match));
+		Assert.assertEquals("/API", match.getData());
+
+		Assert.assertTrue(trie.longestPrefixOf("/index.html", 0, 11, match));
+		Assert.assertEquals(1, match.getLength());
+
+		Assert.assertFalse(trie.longestPrefixOf("api", 0, 3, match));
+		Assert.assertEquals(-1, match.getLength());
+		Assert.assertNull(match.getData());
+
+		// Substring range and char array
+		Assert.assertTrue(trie.longestPrefixOf("GET /static/a.css", 4, 11, match));
+		Assert.assertEquals(7, match.getLength());
+		Assert.assertTrue(trie.longestPrefixOf("xx/api/v1".toCharArray(), 2, 9, match));
+		Assert.assertEquals("/API/V1", match.getData());
+
+		Assert.assertEquals(7, trie.longestPrefixOf("/api/v1/").getLength());
+	}
+
+	@Test
+	public void testEmptyWord() {
+		Trie<String> trie = new Trie<>();
+		Assert.assertFalse(trie.longestPrefixOf("abc").isFound());
+		trie.insert("", "EMPTY");
+		PrefixMatch<String> match = trie.longestPrefixOf("abc");
+		Assert.assertTrue(match.isFound());
+		Assert.assertEquals(0, match.getLength());
+		Assert.assertEquals("EMPTY", match.getData());
+	}
+
+	@Test
+	public void testPrefixesOf() {
+		Trie<String> trie = createRoutes();
+		List<String> data = new ArrayList<>();
+		List<Integer> lengths = new ArrayList<>();
+		int count = trie.prefixesOf("/api/v1/users", 0, 13, (route, length) -> {
+			data.add(route);
+			lengths.add(length);
+		});
+		Assert.assertEquals(4, count);
+		Assert.assertEquals(Arrays.asList("/", "/API", "/API/V1", "/API/V1/USERS"), data);
+		Assert.assertEquals(Arrays.asList(1, 4, 7, 13), lengths);
+
+		Assert.assertEquals(0, trie.prefixesOf("static".toCharArray(), 0, 6, (route, length) -> Assert.fail()));
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(16);
+		Trie<String> trie = new Trie<>();
+		for (int i = 0; i < 5000; i++) {
+			char[] word = new char[1 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('0' + random.nextInt(3));
+			}
+			trie.insert(word, String.valueOf(word));
+		}
+		PrefixMatch<String> match = new PrefixMatch<>();
+		for (int i = 0; i < 2000; i++) {
+			char[] text = new char[random.nextInt(12)];
+			for (int j = 0; j < text.length; j++) {
+				text[j] = (char) ('0' + random.nextInt(3));
+			}
+			String expected = null;
+			for (int length = text.length; length >= 0 && expected == null; length--) {
+				expected = trie.getData(Arrays.copyOf(text, length));
+			}
+			trie.longestPrefixOf(text, 0, text.length, match);
+			Assert.assertEquals(expected, match.getData());
+		}
+	}
+
+	/**
+	 * Compare the longest prefix match with the walk along the path.
+	 *
+	 * @param args
+	 *            not used
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		Trie<String> trie = new Trie<>();
+		for (int i = 0; i < 200000; i++) {
+			String number = "+" + (1 + random.nextInt(99)) + random.nextInt(100000);
+			trie.insert(number, number);
+		}
+		String[] texts = new String[1000];
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = "+" + (1 + random.nextInt(99)) + random.nextInt(100000000);
+		}
+		PrefixMatch<String> match = new PrefixMatch<>();
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			int found = 0;
+			for (int i = 0; i < 1000000; i++) {
+				String text = texts[i % texts.length];
+				if (trie.longestPrefixOf(text, 0, text.length(), match)) {
+					found++;
+				}
+			}
+			long longestTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			int walked = 0;
+			for (int i = 0; i < 1000000; i++) {
+				Object[] last = new Object[1];
+				trie.walkPath(texts[i % texts.length].toCharArray(), (TrieNode<String> node) -> {
+					if (node.isInserted()) {
+						last[0] = node;
+					}
+				}, false);
+				if (last[0] != null) {
+					walked++;
+				}
+			}
+			long walkTime = System.nanoTime() - start;
+			System.out.printf("longestPrefixOf: %d ms (%d found), walkPath: %d ms (%d found)%n",
+					longestTime / 1000000, found, walkTime / 1000000, walked);
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.IntTrie;
+import com.illucit.instatrie.trie.LongTrie;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the primitive tries {@link IntTrie} and {@link LongTrie}. The main
+ * method compares counting with boxed values in a {@link Trie} to counting in
+ * an {@link IntTrie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestPrimitiveTrie {
+
+	/**
+	 * Generate random words over a small alphabet, so there are many shared
+	 * prefixes.
+	 *
+	 * @param random
+	 *            random number generator
+	 * @param numWords
+	 *            number of words
+	 * @return list of words
+	 */
+	private static List<String> genWords(Random random, int numWords) {
+		char[] alphabet = "abcdeä中".toCharArray();
+		List<String> result = new ArrayList<>(numWords);
+		for (int i = 0; i < numWords; i++) {
+			char[] word = new char[random.nextInt(7)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			result.add(String.valueOf(word));
+		}
+		return result;
+	}
+
+	@Test
+	public void testIntTrie() {
+		Random random = new Random(6);
+		IntTrie trie = new IntTrie();
+		Map<String, Integer> reference = new HashMap<>();
+		List<String> words = genWords(random, 30000);
+
+		for (String word : words) {
+			switch (random.nextInt(4)) {
+			case 0:
+				trie.delete(word);
+				reference.remove(word);
+				break;
+			case 1:
+				int value = random.nextInt(1000) - 500;
+				trie.put(word, value);
+				reference.put(word, value);
+				break;
+			default:
+				Assert.assertEquals(reference.getOrDefault(word, 0) + 3, trie.addTo(word, 3));
+				reference.merge(word, 3, Integer::sum);
+			}
+		}
+
+		Assert.assertEquals(reference.size(), trie.size());
+		for (String word : words) {
+			Assert.assertEquals(word, reference.containsKey(word), trie.contains(word));
+			Assert.assertEquals(word, reference.getOrDefault(word, -1).intValue(), trie.get(word, -1));
+		}
+		// Compare prefix sums with brute force for some of the words
+		for (String word : words.subList(0, 200)) {
+			for (int i = 0; i <= word.length(); i++) {
+				String prefix = word.substring(0, i);
+				long sum = 0;
+				boolean found = false;
+				for (Map.Entry<String, Integer> entry : reference.entrySet()) {
+					if (entry.getKey().startsWith(prefix)) {
+						sum += entry.getValue();
+						found = true;
+					}
+				}
+				Assert.assertEquals(prefix, sum, trie.prefixSum(prefix));
+				// Like in Trie, deleted words still count as prefixes
+				Assert.assertTrue(prefix, !found || trie.containsPrefix(prefix));
+			}
+		}
+
+		trie.clear();
+		Assert.assertEquals(0, trie.size());
+		Assert.assertEquals(0, trie.prefixSum(""));
+		Assert.assertEquals(0, trie.getDepth());
+	}
+
+	@Test
+	public void testLongTrie() {
+		LongTrie trie = new LongTrie();
+		trie.put("abc", Long.MAX_VALUE / 2);
+		trie.put("abd", Long.MAX_VALUE / 4);
+		trie.addTo("ab", 1);
+		trie.addTo("ab", 1);
+		trie.put("x", -7);
+
+		Assert.assertEquals(4, trie.size());
+		Assert.assertEquals(Long.MAX_VALUE / 2, trie.get("abc", 0));
+		Assert.assertEquals(2, trie.get("ab", 0));
+		Assert.assertEquals(-1, trie.get("a", -1));
+		Assert.assertEquals(Long.MAX_VALUE / 2 + Long.MAX_VALUE / 4 + 2, trie.prefixSum("a"));
+		Assert.assertEquals(Long.MAX_VALUE / 2 + Long.MAX_VALUE / 4, trie.prefixSum("abc") + trie.prefixSum("abd"));
+		Assert.assertEquals(-7, trie.prefixSum("x"));
+		Assert.assertEquals(0, trie.prefixSum("y"));
+		Assert.assertEquals(2, trie.getDepth());
+
+		trie.delete("abc");
+		Assert.assertFalse(trie.contains("abc"));
+		Assert.assertEquals(Long.MAX_VALUE / 4 + 2, trie.prefixSum("ab"));
+	}
+
+	/**
+	 * Count prefixes of random words with a boxed {@link Trie} and with an
+	 * {@link IntTrie} and print the time.
+	 *
+	 * @param args
+	 *            not used
+	 */
+	public static void main(String[] args) {
+		List<String> words = genWords(new Random(42), 200000);
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			Trie<Integer> boxed = new Trie<>();
+			for (String word : words) {
+				char[] chars = word.toCharArray();
+				for (int i = 1; i <= chars.length; i++) {
+					boxed.updateOrInsertData(Arrays.copyOf(chars, i), count -> count == null ? 1 : count + 1);
+				}
+			}
+			long boxedTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			IntTrie primitive = new IntTrie();
+			for (String word : words) {
+				char[] chars = word.toCharArray();
+				for (int i = 1; i <= chars.length; i++) {
+					primitive.addTo(Arrays.copyOf(chars, i), 1);
+				}
+			}
+			long primitiveTime = System.nanoTime() - start;
+			System.out.println(String.format("Trie<Integer>: %5d ms, IntTrie: %5d ms", boxedTime / 1000000,
+					primitiveTime / 1000000));
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.illucit.instatrie;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.splitter.StringWordSplitter;
+import com.illucit.instatrie.splitter.StringWordSplitter.IdentityStringWordSplitter;
+import com.illucit.instatrie.trie.ArrayTrie;
+import com.illucit.instatrie.trie.DoubleArrayTrie;
+import com.illucit.instatrie.trie.PrefixDictionary;
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the lookups of {@link CharSequence}s and substrings in
+ * {@link PrefixDictionary} implementations.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestRangeLookups {
+
+	private static final String[] WORDS = { "", "ab", "abc", "abd", "b", "中文" };
+
+	@Test
+	public void testTrie() {
+		Trie<String> trie = new Trie<>();
+		fill(trie);
+		assertLookups(trie);
+	}
+
+	@Test
+	public void testDoubleArrayTrie() {
+		Trie<String> trie = new Trie<>();
+		fill(trie);
+		assertLookups(new DoubleArrayTrie<>(trie));
+	}
+
+	@Test
+	public void testDefaultMethods() {
+		ArrayTrie<String> trie = new ArrayTrie<>();
+		fill(trie);
+		assertLookups(trie);
+	}
+
+	@Test
+	public void testDeleteRange() {
+		Trie<String> trie = new Trie<>();
+		fill(trie);
+		trie.delete("xabcx".toCharArray(), 1, 4);
+		trie.delete(new StringBuilder("abd"));
+		Assert.assertFalse(trie.contains("abc"));
+		Assert.assertFalse(trie.contains("abd"));
+		Assert.assertEquals("ab", trie.getData("ab"));
+	}
+
+	@Test
+	public void testInvalidRange() {
+		Trie<String> trie = new Trie<>();
+		fill(trie);
+		ArrayTrie<String> arrayTrie = new ArrayTrie<>();
+		fill(arrayTrie);
+		// The array trie relies on the default methods
+		for (PrefixDictionary<String> dictionary : Arrays.<PrefixDictionary<String>> asList(trie, arrayTrie,
+				new DoubleArrayTrie<>(trie))) {
+			String name = dictionary.getClass().getSimpleName();
+			assertFails(name, IllegalArgumentException.class, () -> dictionary.contains("abc", 2, 1));
+			assertFails(name, IllegalArgumentException.class, () -> dictionary.contains("abc".toCharArray(), 2, 1));
+			assertFails(name, IllegalArgumentException.class,
+					() -> dictionary.containsPrefix("xyz".toCharArray(), 2, 1));
+			assertFails(name, IllegalArgumentException.class, () -> dictionary.getData("abc".toCharArray(), 2, 1));
+			assertFails(name, IllegalArgumentException.class, () -> dictionary.delete("abc".toCharArray(), 2, 1));
+			assertFails(name, IndexOutOfBoundsException.class, () -> dictionary.getData("abc".toCharArray(), 0, 99));
+			assertFails(name, IndexOutOfBoundsException.class,
+					() -> dictionary.containsPrefix("abc".toCharArray(), -1, 2));
+		}
+		Assert.assertEquals("abc", arrayTrie.getData("abc"));
+	}
+
+	private static void assertFails(String name, Class<? extends RuntimeException> expected, Runnable lookup) {
+		try {
+			lookup.run();
+			Assert.fail(name);
+		} catch (RuntimeException e) {
+			Assert.assertTrue(name + ": " + e, expected.isInstance(e));
+		}
+	}
+
+	@Test
+	public void testSplitRanges() {
+		List<String> words = new ArrayList<>();
+		IdentityStringWordSplitter.instance().splitRanges("Foo, bär  baz!",
+				(text, startIndex, endIndex) -> words.add(text.subSequence(startIndex, endIndex).toString()));
+		Assert.assertEquals(Arrays.asList("foo", "bar", "baz"), words);
+	}
+
+	@Test
+	public void testSplitRangesOfSubclass() {
+		// Splitter filtering stop words in splitRanges()
+		StringWordSplitter<String> splitter = new StringWordSplitter<String>(text -> text) {
+
+			@Override
+			public void splitRanges(String data, WordRangeConsumer consumer) {
+				super.splitRanges(data, (text, startIndex, endIndex) -> {
+					if (!"the".contentEquals(text.subSequence(startIndex, endIndex))) {
+						consumer.accept(text, startIndex, endIndex);
+					}
+				});
+			}
+
+		};
+		Set<String> words = new TreeSet<>();
+		splitter.splitRanges("The quick fox",
+				(text, startIndex, endIndex) -> words.add(text.subSequence(startIndex, endIndex).toString()));
+		Assert.assertEquals(splitter.split("The quick fox"), words);
+		Assert.assertFalse(words.contains("the"));
+		Assert.assertEquals(new TreeSet<>(Arrays.asList("fox", "quick")), splitter.split("The quick fox"));
+		Assert.assertNull(splitter.split(null));
+	}
+
+	private static void fill(PrefixDictionary<String> dictionary) {
+		for (String word : WORDS) {
+			dictionary.insert(word, word);
+		}
+	}
+
+	private static void assertLookups(PrefixDictionary<String> dictionary) {
+		String text = "x abc 中文 abx";
+		Assert.assertEquals("abc", dictionary.getData(text, 2, 5));
+		Assert.assertEquals("abc", dictionary.getData(text.toCharArray(), 2, 5));
+		Assert.assertEquals("abc", dictionary.getData(CharBuffer.wrap(text, 2, 5)));
+		Assert.assertEquals("中文", dictionary.getData(new StringBuilder(text), 6, 8));
+		Assert.assertEquals("", dictionary.getData(text, 3, 3));
+		Assert.assertTrue(dictionary.contains(text, 2, 4));
+		Assert.assertTrue(dictionary.contains(text.toCharArray(), 6, 8));
+		Assert.assertFalse(dictionary.contains(text, 9, 12));
+		Assert.assertFalse(dictionary.contains(text.toCharArray(), 2, 3));
+		Assert.assertTrue(dictionary.containsPrefix(text, 2, 3));
+		Assert.assertTrue(dictionary.containsPrefix(text.toCharArray(), 9, 11));
+		Assert.assertFalse(dictionary.containsPrefix(text, 9, 12));
+		Assert.assertFalse(dictionary.containsPrefix(new StringBuilder("abcd")));
+		Assert.assertNull(dictionary.getData(text, 0, 1));
+	}
+
+}
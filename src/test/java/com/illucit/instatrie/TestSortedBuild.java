@@ -0,0 +1,95 @@
+package com.illucit.instatrie;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for building a {@link Trie} from sorted words.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestSortedBuild {
+
+	@Test
+	public void testSameAsInserted() {
+		Random random = new Random(12);
+		for (int round = 0; round < 20; round++) {
+			TreeMap<String, Integer> entries = randomEntries(random, 1 + random.nextInt(2000), 1 + random.nextInt(4));
+			Trie<Integer> inserted = new Trie<>();
+			entries.forEach(inserted::insert);
+
+			Trie<Integer> built = Trie.buildFromSorted(entries.entrySet().iterator());
+			Assert.assertEquals(inserted.toString(), built.toString());
+			for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+				Assert.assertEquals(entry.getValue(), built.getData(entry.getKey()));
+			}
+		}
+	}
+
+	@Test
+	public void testBuilder() {
+		Trie<String> trie = new Trie.SortedBuilder<String>()
+				.add("", "<empty>")
+				.add("ab".toCharArray(), "ab")
+				.add("abc", "abc1")
+				.add("abc", "abc2")
+				.add("abd", "abd")
+				.add("b", null)
+				.build();
+		Assert.assertEquals("<empty>", trie.getData(""));
+		Assert.assertEquals("ab", trie.getData("ab"));
+		Assert.assertEquals("abc2", trie.getData("abc"));
+		Assert.assertTrue(trie.contains("b"));
+		Assert.assertFalse(trie.contains("a"));
+		Assert.assertEquals(2, trie.getDepth());
+
+		Assert.assertNull(new Trie.SortedBuilder<String>().build().getRoot().getFirstSon());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsorted() {
+		new Trie.SortedBuilder<String>().add("abc", null).add("ab", null);
+	}
+
+	private static TreeMap<String, Integer> randomEntries(Random random, int size, int alphabetSize) {
+		TreeMap<String, Integer> entries = new TreeMap<>();
+		for (int i = 0; i < size; i++) {
+			char[] word = new char[random.nextInt(10)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(alphabetSize));
+			}
+			entries.put(String.valueOf(word), i);
+		}
+		return entries;
+	}
+
+	/**
+	 * Compare the build time with inserting the words one by one.
+	 *
+	 * @param args
+	 *            not used
+	 */
+	public static void main(String[] args) {
+		TreeMap<String, Integer> entries = randomEntries(new Random(), 2000000, 26);
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			Trie<Integer> inserted = new Trie<>();
+			entries.forEach(inserted::insert);
+			long insertTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Trie<Integer> built = Trie.buildFromSorted(entries.entrySet().iterator());
+			long buildTime = System.nanoTime() - start;
+			System.out.println(entries.size() + " words: insert " + insertTime / 1000000 + " ms, buildFromSorted "
+					+ buildTime / 1000000 + " ms (depth " + inserted.getDepth() + "/" + built.getDepth() + ")");
+		}
+	}
+
+}
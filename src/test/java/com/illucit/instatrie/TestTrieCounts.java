@@ -0,0 +1,215 @@
+package com.illucit.instatrie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.ConcurrentReadTrie;
+import com.illucit.instatrie.trie.PersistentTrie;
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieNode;
+
+/**
+ * Tests for the word counts of the {@link TrieNode}s and the counting, rank
+ * and select operations of {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieCounts {
+
+	private static String randomWord(Random random) {
+		char[] word = new char[random.nextInt(7)];
+		for (int j = 0; j < word.length; j++) {
+			word[j] = (char) ('a' + random.nextInt(4));
+		}
+		return String.valueOf(word);
+	}
+
+	/**
+	 * Check the word count of every node against the recounted subtree.
+	 */
+	private static int assertCounts(TrieNode<?> node) {
+		int count = node.isInserted() ? 1 : 0;
+		for (TrieNode<?> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+			count += assertCounts(son);
+		}
+		Assert.assertEquals(count, node.getCount());
+		return count;
+	}
+
+	private static <T extends Serializable> void assertQueries(TreeMap<String, ?> expected, Trie<T> trie) {
+		assertCounts(trie.getRoot());
+		Assert.assertEquals(expected.size(), trie.size());
+		List<String> words = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < words.size(); i++) {
+			Assert.assertEquals(words.get(i), trie.select(i));
+			Assert.assertEquals(i, trie.rank(words.get(i)));
+		}
+		for (String prefix : Arrays.asList("", "a", "ab", "ba", "ccc", "dddddd", "x")) {
+			Assert.assertEquals(prefix, expected.subMap(prefix, prefix + Character.MAX_VALUE).size(),
+					trie.countPrefix(prefix));
+			Assert.assertEquals(prefix, expected.headMap(prefix).size(), trie.rank(prefix));
+		}
+	}
+
+	@Test
+	public void testRankAndSelect() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("tea", "ten", "to", "inn", "in", "team")) {
+			trie.insert(word, word);
+		}
+		Assert.assertEquals(6, trie.size());
+		Assert.assertEquals(4, trie.countPrefix("t"));
+		Assert.assertEquals(2, trie.countPrefix("tea"));
+		Assert.assertEquals(3, trie.countPrefix("te"));
+		Assert.assertEquals(0, trie.countPrefix("tx"));
+
+		Assert.assertEquals("in", trie.select(0));
+		Assert.assertEquals("team", trie.select(3));
+		Assert.assertEquals("to", trie.select(5));
+		Assert.assertEquals(3, trie.rank("team"));
+		Assert.assertEquals(2, trie.rank("t"));
+		Assert.assertEquals(4, trie.rank("teb"));
+		Assert.assertEquals(6, trie.rank("zzz"));
+		Assert.assertEquals(0, trie.rank(""));
+		try {
+			trie.select(6);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(21);
+		Trie<Integer> trie = new Trie<>();
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 20000; i++) {
+			String word = randomWord(random);
+			switch (random.nextInt(3)) {
+			case 0:
+				trie.delete(word);
+				expected.remove(word);
+				break;
+			case 1:
+				trie.updateOrInsertData(word.toCharArray(), value -> value == null ? 1 : value + 1);
+				expected.merge(word, 1, Integer::sum);
+				break;
+			default:
+				trie.insert(word, i);
+				expected.put(word, i);
+				break;
+			}
+		}
+		assertQueries(expected, trie);
+
+		trie.removeIf((word, value) -> value % 2 == 0);
+		expected.values().removeIf(value -> value % 2 == 0);
+		assertQueries(expected, trie);
+
+		trie.clear();
+		expected.clear();
+		assertQueries(expected, trie);
+	}
+
+	@Test
+	public void testOtherConstructions() {
+		Random random = new Random(21);
+		TreeMap<String, String> expected = new TreeMap<>();
+		ConcurrentReadTrie<String> concurrent = new ConcurrentReadTrie<>();
+		PersistentTrie<String> persistent = new PersistentTrie<>();
+		for (int i = 0; i < 5000; i++) {
+			String word = randomWord(random);
+			if (random.nextInt(4) == 0) {
+				concurrent.delete(word);
+				persistent = persistent.without(word);
+				expected.remove(word);
+			} else {
+				concurrent.insert(word, word);
+				persistent = persistent.with(word, word);
+				expected.put(word, word);
+			}
+		}
+		assertQueries(expected, concurrent);
+		List<String> words = new ArrayList<>(expected.keySet());
+		for (int i = 0; i < words.size(); i++) {
+			Assert.assertEquals(words.get(i), persistent.select(i));
+			Assert.assertEquals(i, persistent.rank(words.get(i)));
+		}
+		for (String word : words) {
+			for (int length = 0; length <= word.length(); length++) {
+				String prefix = word.substring(0, length);
+				Assert.assertEquals(prefix, expected.subMap(prefix, prefix + Character.MAX_VALUE).size(),
+						persistent.countPrefix(prefix));
+			}
+		}
+		assertQueries(expected, Trie.buildFromSorted(expected.entrySet().iterator()));
+	}
+
+	@Test
+	public void testFailedUpdate() {
+		Trie<Integer> trie = new Trie<>();
+		trie.insert("abc", 1);
+		try {
+			trie.updateOrInsertData("abd".toCharArray(), value -> {
+				throw new IllegalStateException();
+			});
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		trie.insert("ab", 2);
+		trie.updateOrInsertData("abc".toCharArray(), value -> value + 1);
+		assertCounts(trie.getRoot());
+		Assert.assertEquals(2, trie.size());
+		Assert.assertEquals(Integer.valueOf(2), trie.getData("abc"));
+		Assert.assertFalse(trie.contains("abd"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static TrieNode<String> readNode(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (TrieNode<String>) in.readObject();
+		}
+	}
+
+	@Test
+	public void testSerializedNodes() throws IOException, ClassNotFoundException {
+		// Root of a trie with "a", "ab" and "b", serialized with the former
+		// boolean field "inserted" instead of the word counts
+		byte[] legacy = Base64.getDecoder().decode("rO0ABXNyACNjb20uaWxsdWNpdC5pbnN0YXRyaWUudHJpZS5UcmllTm9kZau3B1Me"
+				+ "v2ruAgAFWgAIaW5zZXJ0ZWRbAAVjaGFyc3QAAltDTAAEZGF0YXQAFkxqYXZhL2lvL1NlcmlhbGl6YWJsZTtMAAhmaXJzdFNv"
+				+ "bnQAJUxjb20vaWxsdWNpdC9pbnN0YXRyaWUvdHJpZS9UcmllTm9kZTtMAAtuZXh0QnJvdGhlcnEAfgADeHAAdXIAAltDsCZm"
+				+ "sOJdhKwCAAB4cAAAAABwc3EAfgAAAXVxAH4ABQAAAAEAYXQAAXlzcQB+AAABdXEAfgAFAAAAAQBidAABeHBwc3EAfgAAAXEA"
+				+ "fgALcHBwcA==");
+		Trie<String> legacyTrie = new Trie<>(readNode(legacy));
+		assertCounts(legacyTrie.getRoot());
+		Assert.assertEquals(3, legacyTrie.size());
+		Assert.assertTrue(legacyTrie.contains("ab"));
+		Assert.assertEquals("y", legacyTrie.getData("a"));
+		Assert.assertEquals("b", legacyTrie.select(2));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(legacyTrie.getRoot());
+		}
+		Trie<String> copy = new Trie<>(readNode(bytes.toByteArray()));
+		assertCounts(copy.getRoot());
+		Assert.assertEquals(1, copy.rank("ab"));
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.illucit.instatrie;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieCursor;
+
+/**
+ * Tests for the incremental descent with a {@link TrieCursor}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieCursor {
+
+	@Test
+	public void testAdvanceAndRetreat() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("tea", "ten", "to", "inn", "in", "team")) {
+			trie.insert(word, word);
+		}
+		TrieCursor<String> cursor = trie.cursor();
+		Assert.assertFalse(cursor.isInserted());
+		Assert.assertTrue(cursor.hasChildren());
+		Assert.assertFalse(cursor.retreat());
+		Assert.assertEquals(6, cursor.count());
+
+		Assert.assertTrue(cursor.advance('t'));
+		Assert.assertTrue(cursor.advance('e'));
+		Assert.assertFalse(cursor.advance('x'));
+		Assert.assertEquals(2, cursor.length());
+		Assert.assertEquals(3, cursor.count());
+		Assert.assertTrue(cursor.advance('a'));
+		Assert.assertTrue(cursor.isInserted());
+		Assert.assertEquals("tea", cursor.data());
+		Assert.assertTrue(cursor.advance('m'));
+		Assert.assertEquals("team", cursor.data());
+		Assert.assertFalse(cursor.hasChildren());
+		Assert.assertFalse(cursor.advance('s'));
+
+		Assert.assertTrue(cursor.retreat());
+		Assert.assertTrue(cursor.retreat());
+		Assert.assertFalse(cursor.isInserted());
+		Assert.assertNull(cursor.data());
+		Assert.assertTrue(cursor.advance('n'));
+		Assert.assertEquals("ten", cursor.data());
+
+		cursor.reset();
+		Assert.assertEquals(0, cursor.length());
+		Assert.assertTrue(cursor.advance('i'));
+		Assert.assertTrue(cursor.advance('n'));
+		Assert.assertEquals("in", cursor.data());
+		Assert.assertTrue(cursor.advance('n'));
+		Assert.assertEquals("inn", cursor.data());
+	}
+
+	@Test
+	public void testRandomWalk() {
+		Random random = new Random(23);
+		Trie<String> trie = new Trie<>();
+		TreeMap<String, String> words = new TreeMap<>();
+		for (int i = 0; i < 2000; i++) {
+			char[] word = new char[random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(3));
+			}
+			trie.insert(word, String.valueOf(word));
+			words.put(String.valueOf(word), String.valueOf(word));
+		}
+		TrieCursor<String> cursor = trie.cursor();
+		StringBuilder current = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(current.length() > 0, cursor.retreat());
+				if (current.length() > 0) {
+					current.setLength(current.length() - 1);
+				}
+			} else {
+				char c = (char) ('a' + random.nextInt(4));
+				String extended = current.toString() + c;
+				boolean exists = !words.subMap(extended, extended + Character.MAX_VALUE).isEmpty();
+				Assert.assertEquals(extended, exists, cursor.advance(c));
+				if (exists) {
+					current.append(c);
+				}
+			}
+			String word = current.toString();
+			Assert.assertEquals(word, words.get(word), cursor.data());
+			Assert.assertEquals(word, words.containsKey(word), cursor.isInserted());
+			Assert.assertEquals(word, words.subMap(word, false, word + Character.MAX_VALUE, false).size() > 0,
+					cursor.hasChildren());
+			Assert.assertEquals(word, trie.countPrefix(word), cursor.count());
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.illucit.instatrie;
+
+import java.io.Serializable;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.ConcurrentReadTrie;
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieNode;
+
+/**
+ * Tests for the physical removal of nodes in {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieDelete {
+
+	@Test
+	public void testDeleteRemovesNodes() {
+		Trie<String> trie = new Trie<>();
+		trie.insert("abc", "abc");
+		trie.insert("abd", "abd");
+		trie.insert("abcdef", "abcdef");
+		trie.insert("", "<empty>");
+
+		trie.delete("abc");
+		Assert.assertFalse(trie.contains("abc"));
+		Assert.assertEquals("abcdef", trie.getData("abcdef"));
+
+		// "ab" has only one son left, so it is merged back into one node
+		trie.delete("abd");
+		Assert.assertFalse(trie.containsPrefix("abd"));
+		Assert.assertEquals("abcdef", new String(trie.getRoot().getFirstSon().getChars()));
+
+		trie.delete("abcdef");
+		Assert.assertFalse(trie.containsPrefix("a"));
+		Assert.assertEquals("<empty>", trie.getData(""));
+		Assert.assertNull(trie.getRoot().getFirstSon());
+	}
+
+	@Test
+	public void testRandomDeletesKeepCompactStructure() {
+		assertRandomDeletes(new Trie<>());
+		assertRandomDeletes(new ConcurrentReadTrie<>());
+	}
+
+	private static void assertRandomDeletes(Trie<Integer> trie) {
+		Random random = new Random(11);
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 50000; i++) {
+			char[] word = new char[random.nextInt(7)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(3));
+			}
+			String key = String.valueOf(word);
+			if (random.nextBoolean()) {
+				trie.delete(key);
+				expected.remove(key);
+			} else {
+				trie.insert(key, i);
+				expected.put(key, i);
+			}
+		}
+		assertSameAsRebuilt(expected, trie);
+	}
+
+	@Test
+	public void testRemoveIf() {
+		Trie<Integer> trie = new Trie<>();
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 10000; i++) {
+			trie.insert(Integer.toString(i), i);
+			expected.put(Integer.toString(i), i);
+		}
+		trie.insert("", -1);
+		expected.put("", -1);
+
+		Assert.assertTrue(trie.removeIf((word, data) -> data % 3 != 0 || word.startsWith("9")));
+		expected.entrySet().removeIf(entry -> entry.getValue() % 3 != 0 || entry.getKey().startsWith("9"));
+		Assert.assertFalse(trie.removeIf((word, data) -> data % 3 != 0));
+		Assert.assertFalse(trie.containsPrefix("9"));
+		assertSameAsRebuilt(expected, trie);
+	}
+
+	@Test
+	public void testCompact() {
+		// Structure with dead nodes and unnecessary splits
+		TrieNode<String> leaf = new TrieNode<>("c", null, null, "abc", true);
+		TrieNode<String> dead = new TrieNode<>("x", null, null, null, false);
+		TrieNode<String> inner = new TrieNode<>("b", null, leaf, null, false);
+		TrieNode<String> root = new TrieNode<>("", null, new TrieNode<>("a", dead, inner, null, false), null, false);
+		Trie<String> trie = new Trie<>(root);
+		Assert.assertTrue(trie.containsPrefix("x"));
+
+		trie.compact();
+		Assert.assertFalse(trie.containsPrefix("x"));
+		Assert.assertEquals("abc", trie.getData("abc"));
+		Assert.assertEquals("abc", new String(trie.getRoot().getFirstSon().getChars()));
+		Assert.assertEquals(1, trie.getDepth());
+	}
+
+	private static <T extends Serializable> void assertSameAsRebuilt(TreeMap<String, T> expected, Trie<T> trie) {
+		Trie<T> rebuilt = new Trie<>();
+		expected.forEach(rebuilt::insert);
+		for (String word : expected.keySet()) {
+			Assert.assertEquals(word, expected.get(word), trie.getData(word));
+		}
+		Assert.assertEquals(rebuilt.toString(), trie.toString());
+	}
+
+}
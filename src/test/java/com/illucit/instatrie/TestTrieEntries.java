@@ -0,0 +1,94 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the lazy enumeration of words with {@link Trie#entries(CharSequence)}
+ * and {@link Trie#keys(CharSequence)}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieEntries {
+
+	@Test
+	public void testSortedKeysWithPrefix() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("tea", "ten", "to", "t", "inn", "in", "", "team", "tenant")) {
+			trie.insert(word, word.toUpperCase());
+		}
+
+		Assert.assertEquals(Arrays.asList("", "in", "inn", "t", "tea", "team", "ten", "tenant", "to"),
+				trie.keys("").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList("t", "tea", "team", "ten", "tenant", "to"),
+				trie.keys("t").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList("ten", "tenant"), trie.keys("ten").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList("tenant"), trie.keys("tena").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList(), trie.keys("tex").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList(), trie.keys("x").collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList(), trie.keys("tenants").collect(Collectors.toList()));
+
+		List<Map.Entry<String, String>> entries = trie.entries("te").collect(Collectors.toList());
+		Assert.assertEquals(4, entries.size());
+		Assert.assertEquals("tea", entries.get(0).getKey());
+		Assert.assertEquals("TEA", entries.get(0).getValue());
+		Assert.assertEquals("TENANT", entries.get(3).getValue());
+	}
+
+	@Test
+	public void testLimit() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("a", "ab", "abc", "abd", "b")) {
+			trie.insert(word, word);
+		}
+		Assert.assertEquals(Arrays.asList("a", "ab"), trie.keys("", 2).collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList("ab", "abc", "abd"), trie.keys("ab", 10).collect(Collectors.toList()));
+		Assert.assertEquals(Arrays.asList(), trie.keys("", 0).collect(Collectors.toList()));
+
+		Iterator<Map.Entry<String, String>> iterator = trie.entryIterator("a", 1);
+		Assert.assertTrue(iterator.hasNext());
+		Assert.assertEquals("a", iterator.next().getKey());
+		Assert.assertFalse(iterator.hasNext());
+		try {
+			iterator.next();
+			Assert.fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(15);
+		Trie<Integer> trie = new Trie<>();
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[random.nextInt(12)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			trie.insert(word, i);
+			expected.put(String.valueOf(word), i);
+		}
+		for (String prefix : Arrays.asList("", "a", "ab", "abcd", "dddd", "cabacab")) {
+			List<Map.Entry<String, Integer>> actual = trie.entries(prefix).collect(Collectors.toList());
+			List<Map.Entry<String, Integer>> expectedEntries = new ArrayList<>(
+					expected.subMap(prefix, prefix + Character.MAX_VALUE).entrySet());
+			Assert.assertEquals(prefix, expectedEntries, actual);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+
+/**
+ * Tests for the ordered navigation and range scans of {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieNavigation {
+
+	private static String randomWord(Random random) {
+		char[] word = new char[random.nextInt(6)];
+		for (int j = 0; j < word.length; j++) {
+			word[j] = (char) ('a' + random.nextInt(4));
+		}
+		return String.valueOf(word);
+	}
+
+	private static List<String> range(Trie<?> trie, String from, String to) {
+		return trie.range(from, to).map(Map.Entry::getKey).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testNavigation() {
+		Trie<String> trie = new Trie<>();
+		try {
+			trie.firstKey();
+			Assert.fail();
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+		Assert.assertNull(trie.ceilingKey("a"));
+		Assert.assertNull(trie.floorKey("a"));
+
+		for (String word : Arrays.asList("tea", "ten", "to", "inn", "in", "team")) {
+			trie.insert(word, word);
+		}
+		Assert.assertEquals("in", trie.firstKey());
+		Assert.assertEquals("to", trie.lastKey());
+		Assert.assertEquals("tea", trie.ceilingKey("tea"));
+		Assert.assertEquals("team", trie.higherKey("tea"));
+		Assert.assertEquals("tea", trie.ceilingKey("t"));
+		Assert.assertEquals("inn", trie.floorKey("iz"));
+		Assert.assertEquals("inn", trie.lowerKey("tea"));
+		Assert.assertEquals("to", trie.floorKey("zzz"));
+		Assert.assertNull(trie.lowerKey("in"));
+		Assert.assertNull(trie.higherKey("to"));
+	}
+
+	@Test
+	public void testRange() {
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("tea", "ten", "to", "inn", "in", "team", "")) {
+			trie.insert(word, word);
+		}
+		Assert.assertEquals(Arrays.asList("tea", "team", "ten"), range(trie, "t", "to"));
+		Assert.assertEquals(Arrays.asList("team", "ten", "to"), range(trie, "teaa", null));
+		Assert.assertEquals(Arrays.asList("", "in", "inn"), range(trie, null, "io"));
+		Assert.assertEquals(Arrays.asList("inn", "tea"), range(trie, "ini", "team"));
+		Assert.assertEquals(Arrays.asList(), range(trie, "tea", "tea"));
+		Assert.assertEquals(Arrays.asList(), range(trie, "u", null));
+		Assert.assertEquals(7, range(trie, "", null).size());
+		Assert.assertEquals("ten", trie.rangeIterator("tem", null).next().getValue());
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(22);
+		Trie<String> trie = new Trie<>();
+		TreeMap<String, String> expected = new TreeMap<>();
+		for (int i = 0; i < 3000; i++) {
+			String word = randomWord(random);
+			trie.insert(word, word);
+			expected.put(word, word);
+		}
+		for (int i = 0; i < 2000; i++) {
+			String word = randomWord(random);
+			Assert.assertEquals(word, expected.ceilingKey(word), trie.ceilingKey(word));
+			Assert.assertEquals(word, expected.floorKey(word), trie.floorKey(word));
+			Assert.assertEquals(word, expected.higherKey(word), trie.higherKey(word));
+			Assert.assertEquals(word, expected.lowerKey(word), trie.lowerKey(word));
+
+			String other = randomWord(random);
+			String from = word.compareTo(other) <= 0 ? word : other;
+			String to = word.compareTo(other) <= 0 ? other : word;
+			Assert.assertEquals(from + ".." + to, new ArrayList<>(expected.subMap(from, to).keySet()),
+					range(trie, from, to));
+			Assert.assertEquals(from, new ArrayList<>(expected.tailMap(from).keySet()), range(trie, from, null));
+		}
+		Assert.assertEquals(expected.firstKey(), trie.firstKey());
+		Assert.assertEquals(expected.lastKey(), trie.lastKey());
+	}
+
+}
@@ -10,6 +10,13 @@ import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.illucit.instatrie.trie.AdaptiveRadixTrie;
+import com.illucit.instatrie.trie.ArrayTrie;
+import com.illucit.instatrie.trie.ConcurrentReadTrie;
+import com.illucit.instatrie.trie.ConcurrentTrie;
+import com.illucit.instatrie.trie.LabelPoolTrie;
+import com.illucit.instatrie.trie.OffHeapTrie;
+import com.illucit.instatrie.trie.PrefixDictionary;
 import com.illucit.instatrie.trie.Trie;
 
 /**
@@ -110,7 +117,37 @@ public class TestTrieOperations {
 
 	@Test
 	public void runTestSuite() {
-		runTestSuite(false);
+		runTestSuite(new Trie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteArrayTrie() {
+		runTestSuite(new ArrayTrie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteAdaptiveRadixTrie() {
+		runTestSuite(new AdaptiveRadixTrie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteOffHeapTrie() {
+		runTestSuite(new OffHeapTrie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteLabelPoolTrie() {
+		runTestSuite(new LabelPoolTrie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteConcurrentReadTrie() {
+		runTestSuite(new ConcurrentReadTrie<>(), false);
+	}
+
+	@Test
+	public void runTestSuiteConcurrentTrie() {
+		runTestSuite(new ConcurrentTrie<>(), false);
 	}
 
 	/**
@@ -121,23 +158,23 @@ public class TestTrieOperations {
 	 *            not used
 	 */
 	public static void main(String[] args) {
-		new TestTrieOperations().runTestSuite(true);
+		new TestTrieOperations().runTestSuite(new Trie<>(), true);
 	}
 
 	/**
 	 * Run test suite.
 	 * 
+	 * @param trie
+	 *            empty dictionary to run the test suite on
 	 * @param verbose
 	 *            print debug messages to STDOUT/STDERR, if true
 	 */
-	private void runTestSuite(boolean verbose) {
+	private void runTestSuite(PrefixDictionary<String> trie, boolean verbose) {
 
 		final int NUM_PREFIXES = 5;
 		final int NUM_POS_PRE_PREFIX = 5000;
 		final int NUM_NEG = 5000;
 
-		Trie<String> trie = new Trie<>();
-
 		List<String> prefixes = genWords(null, 0, 3, NUM_PREFIXES);
 
 		long start_date = new Date().getTime();
@@ -0,0 +1,218 @@
+package com.illucit.instatrie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.ConcurrentReadTrie;
+import com.illucit.instatrie.trie.PayloadCodec;
+import com.illucit.instatrie.trie.PersistentTrie;
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieNode;
+
+/**
+ * Tests for the compact stream format of {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieSerialization {
+
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T object) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (T) in.readObject();
+		}
+	}
+
+	private static <T extends Serializable> Trie<T> copy(Trie<T> trie, PayloadCodec<T> codec)
+			throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		trie.writeTo(bytes, codec);
+		return Trie.readFrom(new ByteArrayInputStream(bytes.toByteArray()), codec);
+	}
+
+	private static int countNodes(TrieNode<?> node) {
+		int count = 1;
+		for (TrieNode<?> son = node.getFirstSon(); son != null; son = son.getNextBrother()) {
+			count += countNodes(son);
+		}
+		return count;
+	}
+
+	private static <T extends Serializable> void assertSame(Map<String, T> expected, Trie<T> trie) {
+		List<Map.Entry<String, T>> entries = new ArrayList<>();
+		trie.entryIterator("", Integer.MAX_VALUE).forEachRemaining(entries::add);
+		Assert.assertEquals(new ArrayList<>(expected.entrySet()), entries);
+		Assert.assertEquals(expected.size(), trie.size());
+		int rank = 0;
+		for (String word : expected.keySet()) {
+			Assert.assertEquals(rank, trie.rank(word));
+			Assert.assertEquals(word, trie.select(rank++));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException, ClassNotFoundException {
+		Random random = new Random(25);
+		Trie<String> trie = new Trie<>();
+		TreeMap<String, String> expected = new TreeMap<>();
+		for (int i = 0; i < 5000; i++) {
+			char[] word = new char[random.nextInt(10)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(random.nextInt(20) == 0 ? 2000 : 5));
+			}
+			String data = random.nextInt(10) == 0 ? null : "payload " + i;
+			trie.insert(word, data);
+			expected.put(String.valueOf(word), data);
+		}
+
+		Trie<String> copy = copy(trie);
+		assertSame(expected, copy);
+		Assert.assertEquals(countNodes(trie.getRoot()), countNodes(copy.getRoot()));
+		assertSame(expected, copy(trie, PayloadCodec.strings()));
+		assertSame(expected, copy(trie, PayloadCodec.objects()));
+
+		// The copy is still modifiable
+		copy.insert("new", "data");
+		Assert.assertEquals("data", copy.getData("new"));
+		Assert.assertEquals(expected.size() + (expected.containsKey("new") ? 0 : 1), copy.size());
+	}
+
+	@Test
+	public void testSubclassesAndEmpty() throws IOException, ClassNotFoundException {
+		Assert.assertEquals(0, copy(new Trie<String>()).size());
+		Assert.assertNull(copy(new Trie<String>(), PayloadCodec.strings()).getRoot().getFirstSon());
+
+		ConcurrentReadTrie<Integer> concurrent = new ConcurrentReadTrie<>();
+		concurrent.insert("", 0);
+		concurrent.insert("abc", 1);
+		concurrent.insert("abd", 2);
+		Trie<Integer> concurrentCopy = copy(concurrent);
+		Assert.assertTrue(concurrentCopy instanceof ConcurrentReadTrie);
+		Assert.assertEquals(Integer.valueOf(0), concurrentCopy.getData(""));
+		Assert.assertEquals(Integer.valueOf(2), concurrentCopy.getData("abd"));
+		Assert.assertEquals(3, concurrentCopy.size());
+
+		PersistentTrie<String> persistent = new PersistentTrie<String>().with("x", "1").with("xy", "2");
+		PersistentTrie<String> persistentCopy = copy(persistent);
+		Assert.assertEquals("2", persistentCopy.getData("xy"));
+		Assert.assertEquals(1, persistentCopy.rank("xy"));
+	}
+
+	@Test
+	public void testDeepAndWide() throws IOException, ClassNotFoundException {
+		// A long chain of nested nodes and a long list of brothers
+		Trie<Integer> trie = new Trie<>();
+		TreeMap<String, Integer> expected = new TreeMap<>();
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			word.append((char) ('a' + i % 3));
+			trie.insert(word.toString(), i);
+			expected.put(word.toString(), i);
+		}
+		for (char c = 0x1000; c < 0x1000 + 30000; c++) {
+			trie.insert(String.valueOf(c), (int) c);
+			expected.put(String.valueOf(c), (int) c);
+		}
+		Trie<Integer> copy = copy(trie);
+		Assert.assertEquals(expected.size(), copy.size());
+		Iterator<Map.Entry<String, Integer>> entries = copy.entryIterator("", Integer.MAX_VALUE);
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			Assert.assertEquals(entry, entries.next());
+		}
+		Assert.assertFalse(entries.hasNext());
+	}
+
+	@Test
+	public void testLegacyStream() throws IOException, ClassNotFoundException {
+		// Trie with the word "ab" in the former default serialized form
+		byte[] legacy = Base64.getDecoder().decode("rO0ABXNyAB9jb20uaWxsdWNpdC5pbnN0YXRyaWUudHJpZS5UcmllHqN5xGedxp8CAAJa"
+				+ "AA9zYWZlUHVibGljYXRpb25MAARyb290dAAlTGNvbS9pbGx1Y2l0L2luc3RhdHJpZS90cmllL1RyaWVOb2RlO3hwAHNyACNj"
+				+ "b20uaWxsdWNpdC5pbnN0YXRyaWUudHJpZS5UcmllTm9kZau3B1Mev2ruAgAFSQAQY291bnRBbmRJbnNlcnRlZFsABWNoYXJz"
+				+ "dAACW0NMAARkYXRhdAAWTGphdmEvaW8vU2VyaWFsaXphYmxlO0wACGZpcnN0U29ucQB+AAFMAAtuZXh0QnJvdGhlcnEAfgAB"
+				+ "eHAAAAACdXIAAltDsCZmsOJdhKwCAAB4cAAAAABwc3EAfgADAAAAA3VxAH4ABwAAAAIAYQBidAABeHBwcA==");
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(legacy))) {
+			in.readObject();
+			Assert.fail();
+		} catch (InvalidClassException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCorruptLengths() throws IOException, ClassNotFoundException {
+		// Label length of Integer.MAX_VALUE
+		ByteArrayOutputStream label = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(label)) {
+			out.write(new byte[] { 1, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+		}
+		// String payload length of Integer.MAX_VALUE
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(payload)) {
+			out.write(new byte[] { 1, 3, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'x' });
+		}
+		for (ByteArrayOutputStream bytes : Arrays.asList(label, payload)) {
+			try {
+				Trie.readFrom(new ByteArrayInputStream(bytes.toByteArray()), PayloadCodec.strings());
+				Assert.fail();
+			} catch (EOFException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Print size and time of the stream format for a synthetic corpus.
+	 *
+	 * @param args
+	 *            unused
+	 * @throws Exception
+	 *             if serialization fails
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> words = TestMemoryFootprint.genCorpus(500000, 1);
+		Trie<String> trie = new Trie<>();
+		for (String word : words) {
+			trie.insert(word, word);
+		}
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			trie.writeTo(bytes, PayloadCodec.strings());
+			long written = System.nanoTime();
+			Trie<String> copy = Trie.readFrom(new ByteArrayInputStream(bytes.toByteArray()), PayloadCodec.strings());
+			long read = System.nanoTime();
+
+			ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(objectBytes)) {
+				out.writeObject(trie);
+			}
+			System.out.println(String.format(
+					"%d keys: %d bytes (%.1f per key), write %d ms, read %d ms; Java serialization %d bytes", copy.size(),
+					bytes.size(), (double) bytes.size() / words.size(), (written - start) / 1000000,
+					(read - written) / 1000000, objectBytes.size()));
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.illucit.instatrie;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.TrieStatistics;
+
+/**
+ * Tests for the structural metrics of {@link TrieStatistics}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestTrieStatistics {
+
+	@Test
+	public void testSmallTrie() {
+		TrieStatistics empty = new Trie<String>().getStatistics();
+		Assert.assertEquals(1, empty.getNodeCount());
+		Assert.assertEquals(0, empty.getKeyCount());
+		Assert.assertEquals(0, empty.getMaxDepth());
+		Assert.assertEquals(0, empty.getAverageLabelLength(), 0);
+
+		Trie<String> trie = new Trie<>();
+		for (String word : Arrays.asList("tea", "ten", "to", "inn", "in", "team")) {
+			trie.insert(word, word);
+		}
+		// root -> "in" -> "n", root -> "t" -> "e" -> "a" -> "m", "e" -> "n", "t" -> "o"
+		TrieStatistics statistics = trie.getStatistics();
+		Assert.assertEquals(9, statistics.getNodeCount());
+		Assert.assertEquals(6, statistics.getKeyCount());
+		Assert.assertEquals(9, statistics.getTotalLabelLength());
+		Assert.assertEquals(9.0 / 8, statistics.getAverageLabelLength(), 1e-9);
+		Assert.assertEquals(7, statistics.getSharedLabelCount());
+		Assert.assertEquals(Arrays.toString(new int[] { 4, 2, 3 }),
+				Arrays.toString(statistics.getFanoutHistogram()));
+		Assert.assertEquals(Arrays.toString(new int[] { 1, 2, 3, 2, 1 }),
+				Arrays.toString(statistics.getDepthHistogram()));
+		Assert.assertEquals(trie.getDepth(), statistics.getMaxDepth());
+		// 9 nodes, 2 own labels ("in" and the empty root label)
+		Assert.assertEquals(9 * 32 + 24 + 16, statistics.getEstimatedHeapSize());
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(24);
+		Trie<String> trie = new Trie<>();
+		for (int i = 0; i < 5000; i++) {
+			char[] word = new char[random.nextInt(30)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(26));
+			}
+			trie.insert(word, String.valueOf(word));
+		}
+		TrieStatistics statistics = trie.getStatistics();
+		Assert.assertEquals(trie.size(), statistics.getKeyCount());
+		Assert.assertEquals(trie.getDepth(), statistics.getMaxDepth());
+		Assert.assertEquals(statistics.getNodeCount(), Arrays.stream(statistics.getDepthHistogram()).sum());
+		Assert.assertEquals(statistics.getNodeCount(), Arrays.stream(statistics.getFanoutHistogram()).sum());
+		int[] fanouts = statistics.getFanoutHistogram();
+		int edges = 0;
+		for (int i = 0; i < fanouts.length; i++) {
+			edges += i * fanouts[i];
+		}
+		Assert.assertEquals(statistics.getNodeCount() - 1, edges);
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.illucit.instatrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.illucit.instatrie.trie.Trie;
+import com.illucit.instatrie.trie.WeightedTrie;
+import com.illucit.instatrie.trie.WeightedTrie.Completion;
+
+/**
+ * Tests for the top-k completions of the {@link WeightedTrie}. The main method
+ * compares it to enumerating and sorting all words with a prefix in a
+ * {@link Trie}.
+ *
+ * @author Christian Simon
+ *
+ */
+public class TestWeightedTrie {
+
+	private static List<String> words(List<Completion<String>> completions) {
+		return completions.stream().map(Completion::getWord).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testTopK() {
+		WeightedTrie<String> trie = new WeightedTrie<>();
+		trie.put("search", "S1", 50);
+		trie.put("sea", "S2", 80);
+		trie.put("seattle", "S3", 90);
+		trie.put("second", "S4", 10);
+		trie.put("star", "S5", 70);
+		trie.put("apple", "A1", 100);
+
+		Assert.assertEquals(Arrays.asList("apple", "seattle", "sea"), words(trie.topK("", 3)));
+		Assert.assertEquals(Arrays.asList("seattle", "sea", "star", "search", "second"), words(trie.topK("s", 10)));
+		Assert.assertEquals(Arrays.asList("seattle", "sea"), words(trie.topK("sea", 2)));
+		Assert.assertEquals(Arrays.asList("seattle"), words(trie.topK("seat", 5)));
+		Assert.assertEquals(Arrays.asList(), words(trie.topK("x", 5)));
+		Assert.assertEquals(Arrays.asList(), words(trie.topK("s", 0)));
+
+		Completion<String> best = trie.topK("st", 1).get(0);
+		Assert.assertEquals("S5", best.getData());
+		Assert.assertEquals(70, best.getWeight());
+
+		// Decrease and delete the best words of the subtree
+		trie.put("seattle", "S3", 5);
+		Assert.assertEquals(80, trie.getMaxWeight("se", -1));
+		trie.delete("sea");
+		Assert.assertEquals(50, trie.getMaxWeight("se", -1));
+		Assert.assertEquals(Arrays.asList("search", "second", "seattle"), words(trie.topK("se", 10)));
+		trie.delete("search");
+		trie.delete("second");
+		trie.delete("seattle");
+		Assert.assertEquals(-1, trie.getMaxWeight("se", -1));
+		Assert.assertEquals(Arrays.asList("star"), words(trie.topK("s", 10)));
+		Assert.assertEquals(2, trie.size());
+		Assert.assertNull(trie.getData("sea"));
+		Assert.assertEquals(100, trie.getWeight("apple", 0));
+	}
+
+	@Test
+	public void testWeightRange() {
+		WeightedTrie<String> trie = new WeightedTrie<>();
+		trie.put("low", "L", Long.MIN_VALUE + 1);
+		trie.put("high", "H", Long.MAX_VALUE);
+		Assert.assertEquals(Arrays.asList("high", "low"), words(trie.topK("", 5)));
+		Assert.assertEquals(Long.MIN_VALUE + 1, trie.getMaxWeight("l", 0));
+		try {
+			trie.put("none", "N", Long.MIN_VALUE);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Assert.assertFalse(trie.contains("none"));
+		Assert.assertEquals(2, trie.size());
+	}
+
+	@Test
+	public void testRandomWords() {
+		Random random = new Random(17);
+		WeightedTrie<Integer> trie = new WeightedTrie<>();
+		Map<String, Long> reference = new HashMap<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[random.nextInt(7)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			String key = String.valueOf(word);
+			if (random.nextInt(5) == 0) {
+				trie.delete(key);
+				reference.remove(key);
+			} else {
+				long weight = random.nextInt(1000000);
+				trie.put(key, i, weight);
+				reference.put(key, weight);
+			}
+		}
+		Assert.assertEquals(reference.size(), trie.size());
+
+		for (String prefix : Arrays.asList("", "a", "bc", "dda", "abcd")) {
+			List<Long> expected = reference.entrySet().stream().filter(e -> e.getKey().startsWith(prefix))
+					.map(Map.Entry::getValue).sorted(Comparator.reverseOrder()).limit(20)
+					.collect(Collectors.toList());
+			List<Completion<Integer>> actual = trie.topK(prefix, 20);
+			Assert.assertEquals(prefix, expected,
+					actual.stream().map(Completion::getWeight).collect(Collectors.toList()));
+			for (Completion<Integer> completion : actual) {
+				Assert.assertTrue(completion.getWord().startsWith(prefix));
+				Assert.assertEquals(reference.get(completion.getWord()), Long.valueOf(completion.getWeight()));
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentReaders() throws InterruptedException {
+		Random random = new Random(17);
+		WeightedTrie<String> trie = new WeightedTrie<>();
+		for (int i = 0; i < 20000; i++) {
+			char[] word = new char[1 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(4));
+			}
+			trie.put(word, String.valueOf(word), random.nextInt(1000000));
+		}
+		List<String> prefixes = Arrays.asList("a", "bc", "dda", "abcd", "cab", "ddd");
+		Map<String, List<String>> expected = new HashMap<>();
+		for (String prefix : prefixes) {
+			expected.put(prefix, words(trie.topK(prefix, 10)));
+		}
+
+		// Read-only operations must not interfere with each other
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final int offset = t;
+			Thread reader = new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < 2000; i++) {
+						String prefix = prefixes.get((i + offset) % prefixes.size());
+						List<Completion<String>> completions = trie.topK(prefix, 10);
+						Assert.assertEquals(prefix, expected.get(prefix), words(completions));
+						for (Completion<String> completion : completions) {
+							Assert.assertEquals(completion.getWord(), trie.getData(completion.getWord()));
+							Assert.assertEquals(completion.getWeight(), trie.getWeight(completion.getWord(), -1));
+						}
+					}
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+		start.countDown();
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		Assert.assertNull(error.get());
+	}
+
+	/**
+	 * Compare the top-k search with sorting all words of the prefix.
+	 *
+	 * @param args
+	 *            not used
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		WeightedTrie<String> weighted = new WeightedTrie<>();
+		Trie<Long> trie = new Trie<>();
+		for (int i = 0; i < 500000; i++) {
+			char[] word = new char[3 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(26));
+			}
+			long weight = random.nextInt(1000000);
+			weighted.put(word, String.valueOf(word), weight);
+			trie.insert(word, weight);
+		}
+		String[] prefixes = { "s", "e", "th", "a" };
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			int found = 0;
+			for (int i = 0; i < 1000; i++) {
+				found += weighted.topK(prefixes[i % prefixes.length], 10).size();
+			}
+			long topKTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			int sorted = 0;
+			for (int i = 0; i < 1000; i++) {
+				List<Map.Entry<String, Long>> entries = new ArrayList<>(
+						trie.entries(prefixes[i % prefixes.length]).collect(Collectors.toList()));
+				entries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+				sorted += Math.min(10, entries.size());
+			}
+			long sortTime = System.nanoTime() - start;
+			System.out.printf("topK: %d ms (%d found), enumerate and sort: %d ms (%d found)%n", topKTime / 1000000,
+					found, sortTime / 1000000, sorted);
+		}
+	}
+
+}